@@ -39,6 +39,10 @@ android {
 
     testOptions {
         unitTests.isIncludeAndroidResources = true
+        // Opt-in JVM benchmarks: ./gradlew :app:testDebugUnitTest -Dnewsight.benchmarks=true
+        unitTests.all {
+            it.systemProperty("newsight.benchmarks", System.getProperty("newsight.benchmarks") ?: "false")
+        }
     }
 }
 
@@ -83,6 +87,8 @@ dependencies {
     // TensorFlow Lite dependencies for object detection
     implementation("org.tensorflow:tensorflow-lite-task-vision:0.4.4")
     implementation("org.tensorflow:tensorflow-lite-support:0.4.4")
+    // Interpreter for the on-device wake word model
+    implementation("org.tensorflow:tensorflow-lite:2.14.0")
 
     // Gson dependencies
     implementation("com.google.code.gson:gson:2.11.0")
@@ -0,0 +1,111 @@
+package com.example.newsight;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ArgbConverter - YUV_420_888 planes to ARGB_8888 at a (smaller) target size.
+ *
+ * Downscale-first: each output pixel is sampled straight from the planes while converting,
+ * so only the source rows that are actually used get read. Colour conversion uses integer
+ * fixed-point BT.601 (Q10) instead of float math, and pixels land in a reused int[] and a
+ * reused Bitmap, so steady-state conversion allocates nothing.
+ *
+ * Not thread-safe: use one instance per analyzer thread.
+ */
+public class ArgbConverter {
+
+    // BT.601 full-range coefficients scaled by 1024 (same as the old float path:
+    // 1.370705, 0.337633, 0.698001, 1.732446)
+    private static final int RV = 1404;
+    private static final int GU = 346;
+    private static final int GV = 715;
+    private static final int BU = 1774;
+    private static final int HALF = 512;
+
+    private final YuvRowReader rowReader = new YuvRowReader();
+    private final Nv21Converter.InterleaveCache interleave = new Nv21Converter.InterleaveCache();
+    private int[] pixels = new int[0];
+    private int[] xMap = new int[0];
+    private int mapSrcWidth = -1;
+    private int mapDstWidth = -1;
+    private Bitmap bitmap = null;
+
+    /**
+     * Convert into the reused Bitmap (recreated only when the target size changes).
+     * The Bitmap is overwritten by the next call.
+     */
+    @NonNull
+    public Bitmap convertToBitmap(@NonNull ByteBuffer yBuffer, int yRowStride,
+                                  @NonNull ByteBuffer uBuffer, @NonNull ByteBuffer vBuffer,
+                                  int uvRowStride, int uvPixelStride,
+                                  int width, int height, int dstWidth, int dstHeight) {
+        int[] argb = convert(yBuffer, yRowStride, uBuffer, vBuffer, uvRowStride, uvPixelStride,
+                width, height, dstWidth, dstHeight);
+
+        if (bitmap == null || bitmap.getWidth() != dstWidth || bitmap.getHeight() != dstHeight) {
+            if (bitmap != null) bitmap.recycle();
+            bitmap = Bitmap.createBitmap(dstWidth, dstHeight, Bitmap.Config.ARGB_8888);
+        }
+        bitmap.setPixels(argb, 0, dstWidth, 0, 0, dstWidth, dstHeight);
+        return bitmap;
+    }
+
+    /**
+     * Convert into the reused pixel array; the first dstWidth * dstHeight entries are valid
+     * until the next call.
+     */
+    @NonNull
+    public int[] convert(@NonNull ByteBuffer yBuffer, int yRowStride,
+                         @NonNull ByteBuffer uBuffer, @NonNull ByteBuffer vBuffer,
+                         int uvRowStride, int uvPixelStride,
+                         int width, int height, int dstWidth, int dstHeight) {
+        int count = dstWidth * dstHeight;
+        if (pixels.length < count) pixels = new int[count];
+        if (width != mapSrcWidth || dstWidth != mapDstWidth) {
+            xMap = new int[dstWidth];
+            for (int x = 0; x < dstWidth; x++) xMap[x] = x * width / dstWidth;
+            mapSrcWidth = width;
+            mapDstWidth = dstWidth;
+        }
+
+        int uvWidth = width / 2;
+        int uvHeight = height / 2;
+        boolean interleaved = uvPixelStride == 2
+                && interleave.isInterleavedNv21(uBuffer, vBuffer, uvWidth, uvHeight, uvRowStride);
+
+        int d = 0;
+        for (int y = 0; y < dstHeight; y++) {
+            int sy = y * height / dstHeight;
+            byte[] yRow = rowReader.luma(yBuffer, yRowStride, sy, width);
+            byte[] vuRow = rowReader.chromaVu(uBuffer, vBuffer, uvRowStride, uvPixelStride,
+                    interleaved, sy / 2, uvWidth);
+
+            for (int x = 0; x < dstWidth; x++) {
+                int sx = xMap[x];
+                int c = (sx >> 1) << 1;
+                int yy = (yRow[sx] & 0xff) << 10;
+                int v = (vuRow[c] & 0xff) - 128;
+                int u = (vuRow[c + 1] & 0xff) - 128;
+
+                int r = (yy + RV * v + HALF) >> 10;
+                int g = (yy - GU * u - GV * v + HALF) >> 10;
+                int b = (yy + BU * u + HALF) >> 10;
+
+                r = r < 0 ? 0 : (r > 255 ? 255 : r);
+                g = g < 0 ? 0 : (g > 255 ? 255 : g);
+                b = b < 0 ? 0 : (b > 255 ? 255 : b);
+
+                pixels[d++] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+
+        yBuffer.position(0);
+        uBuffer.position(0);
+        vBuffer.position(0);
+        return pixels;
+    }
+}
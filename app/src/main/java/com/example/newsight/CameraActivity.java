@@ -9,6 +9,7 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.Camera;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.Preview;
@@ -131,7 +132,8 @@ public class CameraActivity extends AppCompatActivity implements WebSocketManage
                         .build();
 
                 cameraProvider.unbindAll();
-                cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalyzer);
+                Camera camera = cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalyzer);
+                FrameConverter.useTimestampSourceOf(camera);
 
                 Log.i(TAG, "Camera bound successfully");
             } catch (Exception e) {
@@ -3,6 +3,7 @@ package com.example.newsight;
 import android.util.Log;
 import android.widget.FrameLayout;
 
+import androidx.camera.core.Camera;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.Preview;
@@ -58,7 +59,8 @@ public class CameraHandler {
                 imageAnalysis.setAnalyzer(executor, new FrameAnalyzer(wsManager, (FrameAnalyzer.FeatureProvider) provider));
 
                 cameraProvider.unbindAll();
-                cameraProvider.bindToLifecycle(activity, cameraSelector, preview, imageAnalysis);
+                Camera camera = cameraProvider.bindToLifecycle(activity, cameraSelector, preview, imageAnalysis);
+                FrameConverter.useTimestampSourceOf(camera);
 
                 Log.i(TAG, "Camera bound successfully for feature: " + provider.getFeature());
 
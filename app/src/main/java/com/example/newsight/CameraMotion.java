@@ -0,0 +1,181 @@
+package com.example.newsight;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Display;
+import android.view.Surface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * CameraMotion - How far the camera has turned between two moments, from the gyroscope.
+ *
+ * Detections describe a frame captured a round trip ago; when the user turns, everything in
+ * the preview has slid sideways since. Gyroscope rates are rotated into screen axes (the
+ * activity may be in either landscape), integrated into a pan / tilt angle and kept for the
+ * last HISTORY samples keyed by SystemClock.uptimeMillis(), the clock detection capture
+ * times are converted to. {@link #getShift} turns the rotation between two times into the
+ * distance a still object moved across the image, as a fraction of its width and height.
+ *
+ * Only rotation is accounted for: at arm's length, walking forward barely moves the picture
+ * within a few hundred milliseconds, turning does. Events are delivered on the main thread
+ * and all methods must be called there. Nothing is allocated per event.
+ */
+public class CameraMotion implements SensorEventListener {
+
+    private static final String TAG = "CameraMotion";
+
+    static final int HISTORY = 256;                 // ~1.3s at SENSOR_DELAY_GAME
+    private static final long MAX_GAP_NS = 100_000_000L;
+
+    // Typical main camera in landscape; setFieldOfView() when the real one is known
+    static final float DEFAULT_HORIZONTAL_FOV_DEG = 66f;
+    static final float DEFAULT_VERTICAL_FOV_DEG = 51f;
+
+    private final SensorManager sensorManager;
+    private final Sensor gyroscope;
+    private final Display display;
+
+    private final long[] times = new long[HISTORY];
+    private final float[] pans = new float[HISTORY];
+    private final float[] tilts = new float[HISTORY];
+    private int count = 0;
+    private float pan = 0f;    // radians, positive when the camera turns left
+    private float tilt = 0f;   // radians, positive when the camera tilts up
+    private long lastEventNs = 0L;
+
+    private float horizontalScale;
+    private float verticalScale;
+    private boolean running = false;
+
+    /** @param display the display the preview is shown on, for its current rotation */
+    public CameraMotion(@Nullable SensorManager sensorManager, @Nullable Display display) {
+        this.sensorManager = sensorManager;
+        this.gyroscope = sensorManager != null ? sensorManager.getDefaultSensor(Sensor.TYPE_GYROSCOPE) : null;
+        this.display = display;
+        setFieldOfView(DEFAULT_HORIZONTAL_FOV_DEG, DEFAULT_VERTICAL_FOV_DEG);
+    }
+
+    public boolean isAvailable() {
+        return gyroscope != null;
+    }
+
+    /** Camera field of view in degrees across the width and height of the analyzed image. */
+    public void setFieldOfView(float horizontalDeg, float verticalDeg) {
+        horizontalScale = (float) (0.5 / Math.tan(Math.toRadians(horizontalDeg) / 2));
+        verticalScale = (float) (0.5 / Math.tan(Math.toRadians(verticalDeg) / 2));
+    }
+
+    public void start() {
+        if (running || gyroscope == null) return;
+        count = 0;
+        lastEventNs = 0L;
+        running = sensorManager.registerListener(this, gyroscope, SensorManager.SENSOR_DELAY_GAME);
+        if (!running) Log.w(TAG, "Gyroscope listener not registered");
+    }
+
+    public void stop() {
+        if (!running) return;
+        sensorManager.unregisterListener(this);
+        running = false;
+        count = 0;
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        if (event.sensor.getType() != Sensor.TYPE_GYROSCOPE) return;
+
+        // Device axes to screen axes (x right, y up)
+        float wx = event.values[0];
+        float wy = event.values[1];
+        int rotation = display != null ? display.getRotation() : Surface.ROTATION_0;
+        float screenX, screenY;
+        switch (rotation) {
+            case Surface.ROTATION_90:
+                screenX = -wy;
+                screenY = wx;
+                break;
+            case Surface.ROTATION_180:
+                screenX = -wx;
+                screenY = -wy;
+                break;
+            case Surface.ROTATION_270:
+                screenX = wy;
+                screenY = -wx;
+                break;
+            default:
+                screenX = wx;
+                screenY = wy;
+                break;
+        }
+        accept(screenY, screenX, event.timestamp, SystemClock.uptimeMillis());
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        // Not needed
+    }
+
+    /**
+     * Integrate one reading: rates in rad/s about the screen's vertical axis (pan) and
+     * horizontal axis (tilt), sensor time in ns, received at {@code uptimeMs}.
+     */
+    void accept(float panRate, float tiltRate, long eventNs, long uptimeMs) {
+        long gap = eventNs - lastEventNs;
+        if (lastEventNs != 0L && gap > 0 && gap < MAX_GAP_NS) {
+            float dt = gap / 1e9f;
+            pan += panRate * dt;
+            tilt += tiltRate * dt;
+        }
+        lastEventNs = eventNs;
+
+        int slot = count++ % HISTORY;
+        times[slot] = uptimeMs;
+        pans[slot] = pan;
+        tilts[slot] = tilt;
+    }
+
+    /**
+     * How far a still object moved across the image from {@code fromMs} to {@code toMs}:
+     * out[0] as a fraction of the width (positive to the right), out[1] of the height
+     * (positive downwards). Times outside the recorded history are clamped to its ends.
+     * @return false (and no shift) if there are no gyroscope readings
+     */
+    public boolean getShift(long fromMs, long toMs, @NonNull float[] out) {
+        out[0] = 0f;
+        out[1] = 0f;
+        if (count < 2) return false;
+
+        float dPan = angleAt(pans, toMs) - angleAt(pans, fromMs);
+        float dTilt = angleAt(tilts, toMs) - angleAt(tilts, fromMs);
+        // Turning left moves the scene right; tilting up moves it down
+        out[0] = (float) Math.tan(dPan) * horizontalScale;
+        out[1] = (float) Math.tan(dTilt) * verticalScale;
+        return true;
+    }
+
+    /** Angle at {@code timeMs}, interpolated between the readings around it. */
+    private float angleAt(float[] angles, long timeMs) {
+        int newest = (count - 1) % HISTORY;
+        int held = Math.min(count, HISTORY);
+        if (timeMs >= times[newest]) return angles[newest];
+
+        int later = newest;
+        for (int i = 1; i < held; i++) {
+            int slot = (newest - i + HISTORY) % HISTORY;
+            if (times[slot] <= timeMs) {
+                long span = times[later] - times[slot];
+                if (span <= 0) return angles[slot];
+                float f = (float) (timeMs - times[slot]) / span;
+                return angles[slot] + f * (angles[later] - angles[slot]);
+            }
+            later = slot;
+        }
+        return angles[later];
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.newsight;
+
+import androidx.annotation.NonNull;
+
+import java.util.function.LongSupplier;
+
+/**
+ * CongestionController - Per-feature AIMD control of how much the camera sends.
+ *
+ * Fed with the transport's send-queue depth, result round-trip times and dropped frames, it
+ * steers three knobs the FramePipeline reads every frame: send interval, resolution scale and
+ * JPEG quality.
+ *
+ *   congestion (queue backing up, RTT over target, drop):
+ *       interval x1.5, quality -10, and once quality is at its floor, resolution one step down
+ *       (at most once per smoothed RTT, so one burst isn't punished several times)
+ *   otherwise, per on-target RTT sample:
+ *       interval -20ms, then quality +2, then resolution one step back up
+ *
+ * The aim is bounded end-to-end latency: frames are sent only as fast as results come back,
+ * instead of queueing behind each other on a slow link.
+ */
+public class CongestionController {
+
+    // Queue depth (bytes) above which the link counts as congested, and above which
+    // frames are dropped outright instead of adding to the backlog
+    static final long CONGESTED_QUEUE_BYTES = 256 * 1024;
+    static final long DROP_QUEUE_BYTES = 1024 * 1024;
+
+    static final long DEFAULT_TARGET_RTT_MS = 600;
+    static final long MAX_INTERVAL_MS = 2000;
+    // Default quality floor; a FrameSpec can raise it for features that need detail
+    static final int MIN_QUALITY = 40;
+    private static final long INTERVAL_STEP_MS = 20;
+    private static final int QUALITY_STEP = 2;
+    private static final int QUALITY_DECREASE = 10;
+    private static final float[] SCALES = {1f, 0.75f, 0.5f};
+    private static final long MIN_COOLDOWN_MS = 250;
+
+    private final long minIntervalMs;
+    private final int maxQuality;
+    private final int minQuality;
+    private final long targetRttMs;
+    private final LongSupplier clock;
+
+    private long intervalMs;
+    private int quality;
+    private int scaleLevel = 0;
+
+    private float srttMs = 0f;
+    private long lastDecreaseMs = Long.MIN_VALUE / 2;
+    private int drops = 0;
+
+    /**
+     * Start at the spec's interval and JPEG quality, which are also the best we go back up to;
+     * the spec also sets the target RTT and the quality floor.
+     */
+    @NonNull
+    public static CongestionController forSpec(@NonNull FrameSpec spec) {
+        return new CongestionController(spec.getMinIntervalMs(), spec.getQuality(), spec.getMinQuality(),
+                spec.getTargetRttMs(), System::currentTimeMillis);
+    }
+
+    CongestionController(long minIntervalMs, int maxQuality, long targetRttMs, LongSupplier clock) {
+        this(minIntervalMs, maxQuality, MIN_QUALITY, targetRttMs, clock);
+    }
+
+    CongestionController(long minIntervalMs, int maxQuality, int minQuality, long targetRttMs,
+                         LongSupplier clock) {
+        this.minIntervalMs = Math.max(1, minIntervalMs);
+        this.maxQuality = maxQuality;
+        this.minQuality = Math.min(minQuality, maxQuality);
+        this.targetRttMs = targetRttMs;
+        this.clock = clock;
+        this.intervalMs = this.minIntervalMs;
+        this.quality = maxQuality;
+    }
+
+    // ---------- Signals ----------
+
+    /** Transport send-queue depth, sampled when a frame is about to be sent. */
+    public synchronized void onQueueSample(long queuedBytes) {
+        if (queuedBytes > CONGESTED_QUEUE_BYTES) {
+            decrease();
+        }
+    }
+
+    /** Round trip from sending a frame to receiving its result. */
+    public synchronized void onRtt(long rttMs) {
+        srttMs = srttMs == 0f ? rttMs : srttMs + (rttMs - srttMs) / 8f;
+        if (srttMs > targetRttMs) {
+            decrease();
+        } else {
+            increase();
+        }
+    }
+
+    /**
+     * Heartbeat round trip: the network alone, without the backend's processing time. A link
+     * RTT over target is congestion whatever the results say; under target proves nothing
+     * about the whole pipeline, so it never speeds anything up.
+     */
+    public synchronized void onLinkRtt(long rttMs) {
+        if (rttMs > targetRttMs) {
+            decrease();
+        }
+    }
+
+    /** A frame was dropped (send queue full, send failed or result never came). */
+    public synchronized void onDrop() {
+        drops++;
+        decrease();
+    }
+
+    /** Whether to drop this frame rather than queue it behind this much unsent data. */
+    public boolean shouldDrop(long queuedBytes) {
+        return queuedBytes > DROP_QUEUE_BYTES;
+    }
+
+    // ---------- Knobs ----------
+
+    public synchronized long getIntervalMs() {
+        return intervalMs;
+    }
+
+    /** JPEG quality to encode with; 0 if the feature's encoder has no quality setting. */
+    public synchronized int getQuality() {
+        return quality;
+    }
+
+    /** Fraction of the spec's target size (or native size) to send. */
+    public synchronized float getScale() {
+        return SCALES[scaleLevel];
+    }
+
+    public synchronized int getDrops() {
+        return drops;
+    }
+
+    // ---------- AIMD ----------
+
+    private void decrease() {
+        long now = clock.getAsLong();
+        if (now - lastDecreaseMs < Math.max(MIN_COOLDOWN_MS, (long) srttMs)) return;
+        lastDecreaseMs = now;
+
+        intervalMs = Math.min(MAX_INTERVAL_MS, intervalMs * 3 / 2);
+        if (quality > minQuality) {
+            quality = Math.max(minQuality, quality - QUALITY_DECREASE);
+        } else if (scaleLevel < SCALES.length - 1) {
+            scaleLevel++;
+        }
+    }
+
+    private void increase() {
+        if (intervalMs > minIntervalMs) {
+            intervalMs = Math.max(minIntervalMs, intervalMs - INTERVAL_STEP_MS);
+        } else if (quality < maxQuality) {
+            quality = Math.min(maxQuality, quality + QUALITY_STEP);
+        } else if (scaleLevel > 0) {
+            scaleLevel--;
+        }
+    }
+}
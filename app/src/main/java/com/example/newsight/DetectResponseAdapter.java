@@ -0,0 +1,188 @@
+package com.example.newsight;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DetectResponseAdapter - Streaming JSON adapter for CloudDetectionModels.DetectResponse.
+ *
+ * Fills the response, its detections and their boxes in one pass over the message, without
+ * Gson's reflective field lookup. Unknown keys are skipped.
+ */
+public class DetectResponseAdapter extends TypeAdapter<CloudDetectionModels.DetectResponse> {
+
+    public static final DetectResponseAdapter INSTANCE = new DetectResponseAdapter();
+
+    @Override
+    public CloudDetectionModels.DetectResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        CloudDetectionModels.DetectResponse response = new CloudDetectionModels.DetectResponse();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "frame_id":
+                    response.frame_id = in.nextInt();
+                    break;
+                case "detections":
+                    response.detections = readDetections(in);
+                    break;
+                case "summary":
+                    response.summary = readSummary(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return response;
+    }
+
+    private static List<CloudDetectionModels.BackendDetection> readDetections(JsonReader in) throws IOException {
+        List<CloudDetectionModels.BackendDetection> detections = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            CloudDetectionModels.BackendDetection d = new CloudDetectionModels.BackendDetection();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "cls":
+                        d.cls = in.nextString();
+                        break;
+                    case "confidence":
+                        d.confidence = (float) in.nextDouble();
+                        break;
+                    case "bbox":
+                        d.bbox = readBox(in);
+                        break;
+                    case "distance_m":
+                        d.distance_m = (float) in.nextDouble();
+                        break;
+                    case "direction":
+                        d.direction = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            detections.add(d);
+        }
+        in.endArray();
+        return detections;
+    }
+
+    private static CloudDetectionModels.BBox readBox(JsonReader in) throws IOException {
+        CloudDetectionModels.BBox box = new CloudDetectionModels.BBox();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "x_min":
+                    box.x_min = (float) in.nextDouble();
+                    break;
+                case "y_min":
+                    box.y_min = (float) in.nextDouble();
+                    break;
+                case "x_max":
+                    box.x_max = (float) in.nextDouble();
+                    break;
+                case "y_max":
+                    box.y_max = (float) in.nextDouble();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return box;
+    }
+
+    private static CloudDetectionModels.Summary readSummary(JsonReader in) throws IOException {
+        CloudDetectionModels.Summary summary = new CloudDetectionModels.Summary();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "high_priority_warning":
+                    summary.high_priority_warning = in.nextBoolean();
+                    break;
+                case "message":
+                    summary.message = in.nextString();
+                    break;
+                case "device_id":
+                    summary.device_id = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return summary;
+    }
+
+    @Override
+    public void write(JsonWriter out, CloudDetectionModels.DetectResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("frame_id").value(response.frame_id);
+        if (response.detections != null) {
+            out.name("detections").beginArray();
+            for (CloudDetectionModels.BackendDetection d : response.detections) {
+                out.beginObject();
+                out.name("cls").value(d.cls);
+                out.name("confidence").value(d.confidence);
+                if (d.bbox != null) {
+                    out.name("bbox").beginObject()
+                            .name("x_min").value(d.bbox.x_min)
+                            .name("y_min").value(d.bbox.y_min)
+                            .name("x_max").value(d.bbox.x_max)
+                            .name("y_max").value(d.bbox.y_max)
+                            .endObject();
+                }
+                if (d.distance_m != null) out.name("distance_m").value(d.distance_m);
+                if (d.direction != null) out.name("direction").value(d.direction);
+                out.endObject();
+            }
+            out.endArray();
+        }
+        if (response.summary != null) {
+            out.name("summary").beginObject()
+                    .name("high_priority_warning").value(response.summary.high_priority_warning)
+                    .name("message").value(response.summary.message)
+                    .name("device_id").value(response.summary.device_id)
+                    .endObject();
+        }
+        out.endObject();
+    }
+}
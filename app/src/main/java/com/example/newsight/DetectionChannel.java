@@ -0,0 +1,255 @@
+package com.example.newsight;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+/**
+ * DetectionChannel - Persistent transport for object detection frames.
+ *
+ * Frames go out as FrameProtocol binary messages (24-byte header carrying frame_id as the
+ * sequence number, then the JPEG) on one long-lived WebSocket; DetectResponse JSON comes back
+ * asynchronously on the same socket. The channel being open is the backend liveness signal:
+ * WebSocket pings catch a dead peer, and a dropped socket is retried by a Reconnector
+ * (exponential backoff with jitter, paused while the device is offline).
+ *
+ * If the backend has no streaming endpoint (404, or 426 when it refuses the upgrade), the
+ * channel falls back to the multipart /detect contract, one POST per frame over one pooled
+ * connection (HTTP/2 when the server negotiates it). Those POSTs use a client of their own:
+ * finite timeouts (a frame is worthless after CloudDetectorProcessor.RESPONSE_TIMEOUT_MS)
+ * and a separate Dispatcher, so stalled POSTs never hold up other calls to the host, and
+ * close() cancels whatever is still outstanding. Any other refusal (a 502/503 while the
+ * server is starting, say) is transient and the WebSocket is retried with backoff. A failed
+ * or non-2xx POST marks the channel down until the Reconnector lets the next frame probe.
+ *
+ * Listener callbacks arrive on OkHttp threads.
+ */
+public class DetectionChannel {
+
+    private static final String TAG = "DetectionChannel";
+
+    // Single feature on this channel; announced once in the hello message
+    static final String FEATURE = "object_detection";
+    static final int FEATURE_ID = 1;
+
+    private static final long PING_INTERVAL_MS = 5000;
+    private static final MediaType JPEG = MediaType.get("image/jpeg");
+
+    public interface Listener {
+        /** A DetectResponse (raw JSON) for one of the frames sent. */
+        void onDetectResponse(@NonNull String json);
+
+        /** The frame was not delivered; no response will come for it. */
+        void onFrameFailed(int frameId);
+
+        void onChannelStateChanged(boolean up);
+    }
+
+    private final String wsUrl;
+    private final String detectUrl;
+    private final Listener listener;
+    private final OkHttpClient client;
+    private final OkHttpClient postClient;
+    private final Reconnector reconnector = new Reconnector(TAG, this::retry);
+
+    private WebSocket webSocket;
+    private volatile boolean up = false;
+    private volatile boolean httpFallback = false;
+    private volatile boolean closed = false;
+
+    /** @param baseUrl http(s) base of the detection service, e.g. http://host/object-detection */
+    public DetectionChannel(@NonNull String baseUrl, @NonNull Listener listener) {
+        this.wsUrl = baseUrl.replaceFirst("^http", "ws") + "/ws";
+        this.detectUrl = baseUrl + "/detect";
+        this.listener = listener;
+        this.client = NetworkClient.get().newBuilder()
+                .connectTimeout(5, TimeUnit.SECONDS)
+                .readTimeout(0, TimeUnit.MILLISECONDS) // infinite for WS
+                .pingInterval(PING_INTERVAL_MS, TimeUnit.MILLISECONDS)
+                .build();
+        this.postClient = NetworkClient.get().newBuilder()
+                .dispatcher(new Dispatcher())
+                .connectTimeout(5, TimeUnit.SECONDS)
+                .readTimeout(CloudDetectorProcessor.RESPONSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .callTimeout(CloudDetectorProcessor.RESPONSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public void connect() {
+        if (closed) return;
+        Log.i(TAG, "Connecting to " + wsUrl);
+        Request request = new Request.Builder().url(wsUrl).build();
+        webSocket = client.newWebSocket(request, new SocketListener());
+    }
+
+    public void close() {
+        closed = true;
+        reconnector.cancel();
+        if (webSocket != null) {
+            webSocket.close(1000, "Client disconnect");
+        }
+        postClient.dispatcher().cancelAll();
+        setUp(false);
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    /** Bytes waiting in the WebSocket send queue (0 in HTTP fallback). */
+    public long queuedBytes() {
+        WebSocket ws = webSocket;
+        return !httpFallback && ws != null ? ws.queueSize() : 0L;
+    }
+
+    public boolean isHttpFallback() {
+        return httpFallback;
+    }
+
+    /** Send one encoded frame; its frameId comes back as frame_id in the DetectResponse. */
+    public void send(@NonNull FrameSink.EncodedFrame frame) {
+        if (httpFallback) {
+            post(frame);
+            return;
+        }
+
+        ByteString msg = FrameProtocol.encode(FEATURE_ID, frame.frameId, frame.captureTimeMs,
+                frame.width, frame.height, frame.data);
+        WebSocket ws = webSocket;
+        if (!up || ws == null || !ws.send(msg)) {
+            Log.w(TAG, "Failed to send frame " + frame.frameId);
+            listener.onFrameFailed(frame.frameId);
+        }
+    }
+
+    // ---------- HTTP fallback ----------
+
+    private void post(FrameSink.EncodedFrame frame) {
+        int frameId = frame.frameId;
+        RequestBody requestBody = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("file", "frame_" + frameId + ".jpg", RequestBody.create(frame.data, JPEG))
+                .addFormDataPart("frame_id", String.valueOf(frameId))
+                .build();
+        Request request = new Request.Builder()
+                .url(detectUrl)
+                .post(requestBody)
+                .build();
+
+        postClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                if (closed) return;
+                Log.e(TAG, "POST frame " + frameId + " failed", e);
+                listener.onFrameFailed(frameId);
+                setUp(false);
+                scheduleRetry();
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+                try (Response r = response) {
+                    if (!r.isSuccessful() || r.body() == null) {
+                        Log.w(TAG, "POST frame " + frameId + " not successful: " + r.code());
+                        listener.onFrameFailed(frameId);
+                        setUp(false);
+                        scheduleRetry();
+                        return;
+                    }
+                    setUp(true);
+                    reconnector.onConnected();
+                    listener.onDetectResponse(r.body().string());
+                }
+            }
+        });
+    }
+
+    // ---------- Liveness ----------
+
+    private void setUp(boolean isUp) {
+        if (up == isUp) return;
+        up = isUp;
+        Log.i(TAG, "Channel " + (isUp ? "up" : "down") + (httpFallback ? " (HTTP fallback)" : ""));
+        listener.onChannelStateChanged(isUp);
+    }
+
+    private void scheduleRetry() {
+        if (closed) return;
+        reconnector.scheduleReconnect();
+    }
+
+    private void retry() {
+        if (httpFallback) {
+            // Let the next frame probe the backend
+            setUp(true);
+        } else {
+            connect();
+        }
+    }
+
+    /** Reconnect counts and time-to-reconnect of this channel. */
+    @NonNull
+    public ReconnectPolicy getReconnectMetrics() {
+        return reconnector.getPolicy();
+    }
+
+    private class SocketListener extends WebSocketListener {
+        @Override
+        public void onOpen(@NonNull WebSocket ws, @NonNull Response r) {
+            httpFallback = false;
+            ws.send("{\"type\":\"hello\",\"feature\":\"" + FEATURE + "\""
+                    + ",\"feature_id\":" + FEATURE_ID
+                    + ",\"frame_protocols\":[\"" + FrameProtocol.NAME + "\"]}");
+            reconnector.onConnected();
+            setUp(true);
+        }
+
+        @Override
+        public void onMessage(@NonNull WebSocket ws, @NonNull String text) {
+            if (text.contains("hello_ack")) return;
+            listener.onDetectResponse(text);
+        }
+
+        @Override
+        public void onFailure(@NonNull WebSocket ws, @NonNull Throwable t, Response r) {
+            Log.e(TAG, "WebSocket failed: " + t
+                    + (r != null ? (" | code=" + r.code()) : " | no HTTP response"));
+            // Only a missing endpoint is final; anything else (5xx, timeouts) is retried
+            if (r != null && NetworkClient.isMissingEndpoint(r.code())) {
+                httpFallback = true;
+            }
+            setUp(false);
+            scheduleRetry();
+        }
+
+        @Override
+        public void onClosing(@NonNull WebSocket ws, int code, @NonNull String reason) {
+            Log.i(TAG, "WebSocket closing: " + reason);
+            ws.close(1000, null);
+            setUp(false);
+        }
+
+        @Override
+        public void onClosed(@NonNull WebSocket ws, int code, @NonNull String reason) {
+            Log.i(TAG, "WebSocket closed: " + reason);
+            setUp(false);
+            scheduleRetry();
+        }
+    }
+}
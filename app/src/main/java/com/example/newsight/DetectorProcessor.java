@@ -0,0 +1,397 @@
+package com.example.newsight;
+
+import android.content.Context;
+import android.graphics.RectF;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.support.image.ColorSpaceType;
+import org.tensorflow.lite.support.image.ImageProcessor;
+import org.tensorflow.lite.support.image.ImageProperties;
+import org.tensorflow.lite.support.image.TensorImage;
+import org.tensorflow.lite.support.image.ops.Rot90Op;
+import org.tensorflow.lite.support.label.Category;
+import org.tensorflow.lite.support.tensorbuffer.TensorBuffer;
+import org.tensorflow.lite.task.core.BaseOptions;
+import org.tensorflow.lite.task.core.vision.ImageProcessingOptions;
+import org.tensorflow.lite.task.vision.detector.Detection;
+import org.tensorflow.lite.task.vision.detector.ObjectDetector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-device obstacle detection with a TFLite ObjectDetector. Results are reported in the
+ * backend's DetectResponse shape, so they go through the same OverlayView.setBackendResults
+ * path, haptics and TTS as cloud detections.
+ *
+ * Frames go through the shared FrameConverter (downscaled NV21, not rotated) into one
+ * preallocated input buffer and TensorImage; the detector reads the YUV directly and applies
+ * the camera rotation itself, so there is no per-frame Bitmap, TensorImage or ImageProcessor.
+ * Non-YUV frames fall back to a Bitmap and a Rot90Op processor rebuilt only when rotation changes.
+ *
+ * The delegate is configurable via Options so it can be tuned per device; per-stage timings of
+ * the last frame are exposed through the getters and logged as averages.
+ */
+public class DetectorProcessor implements ImageAnalysis.Analyzer {
+
+    private static final String TAG = "DetectorProcessor";
+    private static final String MODEL = "mobilenetv1.tflite";
+    private static final int TIMING_LOG_FRAMES = 100;
+
+    // Models take ~300x300; anything past 640x480 is wasted conversion work
+    private static final FrameSpec SPEC = new FrameSpec.Builder("local_detection")
+            .setTargetSize(640, 480)
+            .setUpright(false)
+            .build();
+
+    public enum Delegate {
+        /** TFLite CPU kernels (XNNPACK-accelerated), using Options.numThreads. */
+        CPU,
+        /** Android NNAPI; falls back to CPU if the model can't be built for it. */
+        NNAPI
+    }
+
+    public static class Options {
+        private final Delegate delegate;
+        private final int numThreads;
+        private final float scoreThreshold;
+        private final int maxResults;
+
+        private Options(Builder builder) {
+            this.delegate = builder.delegate;
+            this.numThreads = builder.numThreads;
+            this.scoreThreshold = builder.scoreThreshold;
+            this.maxResults = builder.maxResults;
+        }
+
+        public static class Builder {
+            private Delegate delegate = Delegate.CPU;
+            private int numThreads = 4;
+            private float scoreThreshold = 0.5f;
+            private int maxResults = 10;
+
+            public Builder setDelegate(@NonNull Delegate delegate) {
+                this.delegate = delegate;
+                return this;
+            }
+
+            public Builder setNumThreads(int numThreads) {
+                this.numThreads = numThreads;
+                return this;
+            }
+
+            public Builder setScoreThreshold(float scoreThreshold) {
+                this.scoreThreshold = scoreThreshold;
+                return this;
+            }
+
+            public Builder setMaxResults(int maxResults) {
+                this.maxResults = maxResults;
+                return this;
+            }
+
+            public Options build() {
+                return new Options(this);
+            }
+        }
+    }
+
+    private final ObjectDetector detector;
+    private final OverlayView overlayView;
+    private final FrameConverter converter = new FrameConverter();
+
+    // Reused input: NV21 bytes -> direct buffer -> TensorBuffer -> TensorImage
+    private final TensorImage tensorImage = new TensorImage(DataType.UINT8);
+    private final TensorBuffer yuvTensor = TensorBuffer.createDynamic(DataType.UINT8);
+    private ByteBuffer yuvBuffer = null;
+    private final int[] yuvShape = new int[1];
+
+    // Bitmap fallback: rebuilt only when the rotation changes
+    private ImageProcessor rotateProcessor = null;
+    private int rotateProcessorDegrees = -1;
+
+    // Orientation options, one per rotation, built once
+    private final ImageProcessingOptions[] orientations = new ImageProcessingOptions[4];
+
+    // Per-stage timings of the last frame, in microseconds
+    private volatile long preprocessUs = 0L;
+    private volatile long inferenceUs = 0L;
+    private volatile long postprocessUs = 0L;
+    private long sumPreprocessUs = 0L;
+    private long sumInferenceUs = 0L;
+    private long sumPostprocessUs = 0L;
+    private int timedFrames = 0;
+
+    // HUD metrics
+    private long lastFrameTimeMs = 0L;
+    private float approxFps = 0f;
+
+    public DetectorProcessor(Context context, OverlayView overlayView) throws IOException {
+        this(context, overlayView, new Options.Builder().build());
+    }
+
+    public DetectorProcessor(Context context, OverlayView overlayView, @NonNull Options options) throws IOException {
+        this.overlayView = overlayView;
+        this.detector = createDetector(context, options);
+
+        ImageProcessingOptions.Orientation[] byRotation = {
+                ImageProcessingOptions.Orientation.TOP_LEFT,       // 0
+                ImageProcessingOptions.Orientation.RIGHT_TOP,      // 90
+                ImageProcessingOptions.Orientation.BOTTOM_RIGHT,   // 180
+                ImageProcessingOptions.Orientation.LEFT_BOTTOM     // 270
+        };
+        for (int i = 0; i < orientations.length; i++) {
+            orientations[i] = ImageProcessingOptions.builder().setOrientation(byRotation[i]).build();
+        }
+    }
+
+    private static ObjectDetector createDetector(Context context, Options options) throws IOException {
+        if (options.delegate == Delegate.NNAPI) {
+            try {
+                return ObjectDetector.createFromFileAndOptions(context, MODEL,
+                        detectorOptions(BaseOptions.builder().useNnapi().build(), options));
+            } catch (Exception e) {
+                Log.w(TAG, "NNAPI unavailable, falling back to CPU", e);
+            }
+        }
+        BaseOptions cpu = BaseOptions.builder().setNumThreads(options.numThreads).build();
+        return ObjectDetector.createFromFileAndOptions(context, MODEL, detectorOptions(cpu, options));
+    }
+
+    private static ObjectDetector.ObjectDetectorOptions detectorOptions(BaseOptions baseOptions, Options options) {
+        return ObjectDetector.ObjectDetectorOptions.builder()
+                .setBaseOptions(baseOptions)
+                .setScoreThreshold(options.scoreThreshold)
+                .setMaxResults(options.maxResults)
+                .build();
+    }
+
+    @Override
+    public void analyze(@NonNull ImageProxy imageProxy) {
+        try {
+            process(imageProxy);
+        } finally {
+            imageProxy.close();
+        }
+    }
+
+    /** Detect on one frame and post the results; does not close the ImageProxy. */
+    public void process(@NonNull ImageProxy imageProxy) {
+        long t0 = System.nanoTime();
+        int rotation = imageProxy.getImageInfo().getRotationDegrees();
+
+        FrameConverter.Frame frame = converter.convert(imageProxy, SPEC);
+        if (frame == null) return;
+        long captureTimeMs = frame.captureUptimeMs;
+
+        // Dimensions of the input as stored, and the orientation the detector should apply
+        TensorImage input;
+        int orientation;
+        if (frame.nv21 != null) {
+            loadNv21(frame.nv21, frame.width, frame.height);
+            input = tensorImage;
+            orientation = rotation;
+        } else {
+            // Bitmap fallback: rotate upright here, the detector sees it as-is
+            tensorImage.load(frame.bitmap);
+            input = rotateProcessor(rotation).process(tensorImage);
+            orientation = 0;
+        }
+        int width = input.getWidth();
+        int height = input.getHeight();
+        long t1 = System.nanoTime();
+
+        List<Detection> detections = detector.detect(input, orientations[orientation / 90 % 4]);
+        long t2 = System.nanoTime();
+
+        boolean swapped = orientation == 90 || orientation == 270;
+        int uprightWidth = swapped ? height : width;
+        int uprightHeight = swapped ? width : height;
+        List<CloudDetectionModels.BackendDetection> results =
+                toBackendDetections(detections, width, height, orientation);
+        String summary = summarize(results);
+        long t3 = System.nanoTime();
+
+        recordTimings(t1 - t0, t2 - t1, t3 - t2);
+
+        long now = System.currentTimeMillis();
+        long latency = (t3 - t0) / 1_000_000L;
+        if (lastFrameTimeMs > 0 && now > lastFrameTimeMs) {
+            approxFps = 1000f / (float) (now - lastFrameTimeMs);
+        }
+        lastFrameTimeMs = now;
+        float fps = approxFps;
+
+        overlayView.post(() -> overlayView.setBackendResults(
+                results, uprightWidth, uprightHeight, summary, latency, fps, captureTimeMs));
+    }
+
+    private void loadNv21(byte[] nv21, int width, int height) {
+        int size = Nv21Converter.nv21Size(width, height);
+        if (yuvBuffer == null || yuvBuffer.capacity() < size) {
+            yuvBuffer = ByteBuffer.allocateDirect(size);
+        }
+        yuvBuffer.clear();
+        yuvBuffer.put(nv21, 0, size);
+        yuvBuffer.flip();
+
+        yuvShape[0] = size;
+        yuvTensor.loadBuffer(yuvBuffer, yuvShape);
+        tensorImage.load(yuvTensor, ImageProperties.builder()
+                .setColorSpaceType(ColorSpaceType.NV21)
+                .setWidth(width)
+                .setHeight(height)
+                .build());
+    }
+
+    private ImageProcessor rotateProcessor(int rotation) {
+        if (rotateProcessor == null || rotateProcessorDegrees != rotation) {
+            rotateProcessor = new ImageProcessor.Builder()
+                    .add(new Rot90Op(-rotation / 90))
+                    .build();
+            rotateProcessorDegrees = rotation;
+        }
+        return rotateProcessor;
+    }
+
+    private void recordTimings(long preNs, long inferNs, long postNs) {
+        preprocessUs = preNs / 1000L;
+        inferenceUs = inferNs / 1000L;
+        postprocessUs = postNs / 1000L;
+
+        sumPreprocessUs += preprocessUs;
+        sumInferenceUs += inferenceUs;
+        sumPostprocessUs += postprocessUs;
+        if (++timedFrames == TIMING_LOG_FRAMES) {
+            Log.i(TAG, "avg over " + timedFrames + " frames: preprocess=" + sumPreprocessUs / timedFrames
+                    + "us inference=" + sumInferenceUs / timedFrames
+                    + "us postprocess=" + sumPostprocessUs / timedFrames + "us");
+            sumPreprocessUs = sumInferenceUs = sumPostprocessUs = 0L;
+            timedFrames = 0;
+        }
+    }
+
+    public long getLastPreprocessUs() {
+        return preprocessUs;
+    }
+
+    public long getLastInferenceUs() {
+        return inferenceUs;
+    }
+
+    public long getLastPostprocessUs() {
+        return postprocessUs;
+    }
+
+    public void close() {
+        detector.close();
+    }
+
+    /**
+     * TFLite detections to the backend shape (normalized upright boxes, coarse direction).
+     * Boxes come back in the stored (unrotated) width x height frame; {@code rotation} is the
+     * clockwise rotation that makes it upright.
+     */
+    static List<CloudDetectionModels.BackendDetection> toBackendDetections(
+            List<Detection> detections, int width, int height, int rotation) {
+        List<CloudDetectionModels.BackendDetection> results = new ArrayList<>();
+        if (detections == null || width <= 0 || height <= 0) return results;
+
+        for (Detection detection : detections) {
+            List<Category> categories = detection.getCategories();
+            if (categories == null || categories.isEmpty()) continue;
+            Category top = categories.get(0);
+            RectF box = detection.getBoundingBox();
+
+            CloudDetectionModels.BBox bbox = uprightBox(
+                    clamp01(box.left / width), clamp01(box.top / height),
+                    clamp01(box.right / width), clamp01(box.bottom / height), rotation);
+
+            CloudDetectionModels.BackendDetection d = new CloudDetectionModels.BackendDetection();
+            d.cls = top.getLabel();
+            d.confidence = top.getScore();
+            d.bbox = bbox;
+            d.direction = directionOf(bbox);
+            results.add(d);
+        }
+        return results;
+    }
+
+    /** Rotate a normalized box clockwise by {@code rotation} degrees. */
+    static CloudDetectionModels.BBox uprightBox(float left, float top, float right, float bottom, int rotation) {
+        CloudDetectionModels.BBox b = new CloudDetectionModels.BBox();
+        switch (rotation) {
+            case 90:
+                b.x_min = 1f - bottom;
+                b.y_min = left;
+                b.x_max = 1f - top;
+                b.y_max = right;
+                break;
+            case 180:
+                b.x_min = 1f - right;
+                b.y_min = 1f - bottom;
+                b.x_max = 1f - left;
+                b.y_max = 1f - top;
+                break;
+            case 270:
+                b.x_min = top;
+                b.y_min = 1f - right;
+                b.x_max = bottom;
+                b.y_max = 1f - left;
+                break;
+            default:
+                b.x_min = left;
+                b.y_min = top;
+                b.x_max = right;
+                b.y_max = bottom;
+                break;
+        }
+        return b;
+    }
+
+    /** left / center / right by where the box center falls across the frame. */
+    static String directionOf(CloudDetectionModels.BBox bbox) {
+        float cx = (bbox.x_min + bbox.x_max) / 2f;
+        if (cx < 1f / 3f) return "left";
+        if (cx > 2f / 3f) return "right";
+        return "center";
+    }
+
+    /**
+     * A short spoken summary for the largest (nearest-looking) obstacle, e.g. "chair on your left".
+     * Empty when nothing was detected, so OverlayView stays quiet.
+     */
+    static String summarize(List<CloudDetectionModels.BackendDetection> detections) {
+        CloudDetectionModels.BackendDetection largest = null;
+        float largestArea = 0f;
+        for (CloudDetectionModels.BackendDetection d : detections) {
+            float area = (d.bbox.x_max - d.bbox.x_min) * (d.bbox.y_max - d.bbox.y_min);
+            if (area > largestArea) {
+                largestArea = area;
+                largest = d;
+            }
+        }
+        if (largest == null) return "";
+
+        String label = largest.cls != null && !largest.cls.isEmpty() ? largest.cls : "Obstacle";
+        switch (largest.direction) {
+            case "left":
+                return label + " on your left";
+            case "right":
+                return label + " on your right";
+            default:
+                return label + " ahead";
+        }
+    }
+
+    private static float clamp01(float v) {
+        return v < 0f ? 0f : Math.min(1f, v);
+    }
+}
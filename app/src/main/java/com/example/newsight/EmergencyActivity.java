@@ -50,6 +50,8 @@ public class EmergencyActivity extends AppCompatActivity {
     private static final long CAMERA_STABILIZATION_DELAY_MS = 2000; // 2 seconds for camera to focus
     private static final long LOCATION_TIMEOUT_MS = 3000; // 3 seconds max wait for location
 
+    static final String ALERT_SENT = "Emergency alert sent successfully";
+
     private PreviewView previewView;
     private ImageCapture imageCapture;
 
@@ -90,7 +92,7 @@ public class EmergencyActivity extends AppCompatActivity {
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
 
         // Initialize TTS
-        ttsHelper = new TtsHelper(this);
+        ttsHelper = new TtsHelper(this, SpeechScheduler.Priority.SAFETY);
 
         Toast.makeText(this, "Initializing emergency...", Toast.LENGTH_SHORT).show();
 
@@ -282,7 +284,7 @@ public class EmergencyActivity extends AppCompatActivity {
         Toast.makeText(this, "Sending emergency alert...", Toast.LENGTH_SHORT).show();
         Log.d(TAG, "Preparing to send alert...");
 
-        OkHttpClient client = new OkHttpClient.Builder()
+        OkHttpClient client = NetworkClient.get().newBuilder()
                 .connectTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
                 .writeTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
                 .readTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
@@ -341,7 +343,7 @@ public class EmergencyActivity extends AppCompatActivity {
                         Log.d(TAG, "Alert sent successfully");
 
                         // Speak success message and wait for TTS to complete
-                        speakAndFinish("Emergency alert sent successfully", photoFile);
+                        speakAndFinish(ALERT_SENT, photoFile);
                     } else {
                         String errorMessage = "Error sending alert: " + response.code();
                         Toast.makeText(EmergencyActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
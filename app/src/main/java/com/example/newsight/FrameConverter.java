@@ -0,0 +1,216 @@
+package com.example.newsight;
+
+import android.annotation.SuppressLint;
+import android.graphics.Bitmap;
+import android.graphics.ImageFormat;
+import android.graphics.Matrix;
+import android.hardware.camera2.CameraCharacteristics;
+import android.media.Image;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.camera2.interop.Camera2CameraInfo;
+import androidx.camera.core.Camera;
+import androidx.camera.core.ImageProxy;
+
+/**
+ * FrameConverter - First stage of the FramePipeline.
+ *
+ * Turns a CameraX ImageProxy into an upright NV21 frame at the size a FrameSpec asks for:
+ *   YUV_420_888 planes -> NV21 (downscaled while converting) -> rotate
+ * All intermediate buffers are pooled and reused, and the returned Frame is the same object
+ * every call, so its data is only valid until the next convert().
+ *
+ * Non-YUV images (e.g. an RGBA_8888 analysis stream) fall back to ImageProxy.toBitmap().
+ *
+ * Capture times come from the image's sensor timestamp, not from when analysis got to it,
+ * so they include the time the frame spent in the camera pipeline and analyzer queue. Which
+ * clock that timestamp is on is read from the bound camera, see {@link #useTimestampSourceOf}.
+ */
+public class FrameConverter {
+
+    private static final String TAG = "FrameConverter";
+
+    /** A capture age outside 0..this is a bogus timestamp; treat it as "now". */
+    static final long MAX_CAPTURE_AGE_MS = 2000;
+
+    // Whether sensor timestamps are on elapsedRealtime (SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME)
+    // rather than uptime (SENSOR_INFO_TIMESTAMP_SOURCE_UNKNOWN); set when a camera is bound
+    private static volatile boolean realtimeTimestamps = true;
+
+    /** A converted frame. Exactly one of nv21 / bitmap is set. */
+    public static class Frame {
+        public byte[] nv21;     // width * height * 3/2 valid bytes
+        public Bitmap bitmap;
+        public int width;
+        public int height;
+        public long captureTimeMs;      // System.currentTimeMillis() clock, for the backend
+        public long captureUptimeMs;    // SystemClock.uptimeMillis() clock, for OverlayView
+    }
+
+    private final Nv21Converter nv21Converter = new Nv21Converter();
+    private final Frame frame = new Frame();
+
+    private byte[] fullBuffer = null;
+    private byte[] scaledBuffer = null;
+    private byte[] rotatedBuffer = null;
+
+    // Output of fit(), kept in fields so sizing allocates nothing
+    int fitWidth;
+    int fitHeight;
+
+    /**
+     * Read which clock {@code camera} stamps its frames on. Call after every bindToLifecycle()
+     * whose analyzer converts frames here. Cameras that don't report a source keep the last one.
+     */
+    @SuppressLint("UnsafeOptInUsageError")
+    public static void useTimestampSourceOf(@NonNull Camera camera) {
+        try {
+            Integer source = Camera2CameraInfo.from(camera.getCameraInfo())
+                    .getCameraCharacteristic(CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE);
+            if (source == null) return;
+            realtimeTimestamps = source == CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME;
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Camera has no Camera2 info, keeping the timestamp clock", e);
+        }
+    }
+
+    /**
+     * How long ago a frame with sensor timestamp {@code timestampNs} was captured, where
+     * {@code nowMs} is the current time on the clock the camera stamps frames on; 0 if the
+     * timestamp gives an implausible age.
+     */
+    static long captureAgeMs(long timestampNs, long nowMs) {
+        long age = nowMs - timestampNs / 1_000_000L;
+        return age >= 0 && age <= MAX_CAPTURE_AGE_MS ? age : 0;
+    }
+
+    @Nullable
+    public Frame convert(@NonNull ImageProxy imageProxy, @NonNull FrameSpec spec) {
+        return convert(imageProxy, spec, 1f);
+    }
+
+    /**
+     * As {@link #convert(ImageProxy, FrameSpec)}, shrinking the spec's target box (or the native
+     * size, if the spec has none) by {@code scale}, e.g. when a CongestionController backs off.
+     */
+    @Nullable
+    @SuppressLint("UnsafeOptInUsageError")
+    public Frame convert(@NonNull ImageProxy imageProxy, @NonNull FrameSpec spec, float scale) {
+        long uptimeMs = SystemClock.uptimeMillis();
+        long ageMs = captureAgeMs(imageProxy.getImageInfo().getTimestamp(),
+                realtimeTimestamps ? SystemClock.elapsedRealtime() : uptimeMs);
+        frame.captureUptimeMs = uptimeMs - ageMs;
+        frame.captureTimeMs = System.currentTimeMillis() - ageMs;
+        int rotation = spec.isUpright() ? imageProxy.getImageInfo().getRotationDegrees() : 0;
+
+        Image image = imageProxy.getFormat() == ImageFormat.YUV_420_888 ? imageProxy.getImage() : null;
+        if (image == null) {
+            return convertBitmap(imageProxy, spec, rotation, scale);
+        }
+
+        int width = image.getWidth() & ~1;
+        int height = image.getHeight() & ~1;
+
+        // 1. Planes -> NV21, sampled straight down to the target size when it is smaller
+        //    (sizes are computed for the upright orientation)
+        boolean swapped = rotation == 90 || rotation == 270;
+        fit(width, height, spec, swapped, scale);
+        Image.Plane[] planes = image.getPlanes();
+        byte[] data;
+        if (fitWidth != width || fitHeight != height) {
+            int scaledSize = Nv21Converter.nv21Size(fitWidth, fitHeight);
+            if (scaledBuffer == null || scaledBuffer.length < scaledSize) {
+                scaledBuffer = new byte[scaledSize];
+            }
+            nv21Converter.convertScaled(
+                    planes[0].getBuffer(), planes[0].getRowStride(),
+                    planes[1].getBuffer(), planes[2].getBuffer(),
+                    planes[1].getRowStride(), planes[1].getPixelStride(),
+                    width, height, scaledBuffer, fitWidth, fitHeight);
+            data = scaledBuffer;
+            width = fitWidth;
+            height = fitHeight;
+        } else {
+            int fullSize = Nv21Converter.nv21Size(width, height);
+            if (fullBuffer == null || fullBuffer.length < fullSize) {
+                fullBuffer = new byte[fullSize];
+            }
+            nv21Converter.convert(
+                    planes[0].getBuffer(), planes[0].getRowStride(),
+                    planes[1].getBuffer(), planes[2].getBuffer(),
+                    planes[1].getRowStride(), planes[1].getPixelStride(),
+                    width, height, fullBuffer);
+            data = fullBuffer;
+        }
+
+        // 2. Rotate upright
+        if (rotation != 0) {
+            int rotatedSize = Nv21Converter.nv21Size(width, height);
+            if (rotatedBuffer == null || rotatedBuffer.length < rotatedSize) {
+                rotatedBuffer = new byte[rotatedSize];
+            }
+            Nv21Converter.rotate(data, width, height, rotation, rotatedBuffer);
+            data = rotatedBuffer;
+            if (swapped) {
+                int t = width;
+                width = height;
+                height = t;
+            }
+        }
+
+        frame.nv21 = data;
+        frame.bitmap = null;
+        frame.width = width;
+        frame.height = height;
+        return frame;
+    }
+
+    @Nullable
+    private Frame convertBitmap(ImageProxy imageProxy, FrameSpec spec, int rotation, float scale) {
+        Bitmap bitmap = imageProxy.toBitmap();
+        if (bitmap == null) return null;
+
+        if (rotation != 0) {
+            Matrix matrix = new Matrix();
+            matrix.postRotate(rotation);
+            bitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        }
+
+        fit(bitmap.getWidth(), bitmap.getHeight(), spec, false, scale);
+        if (fitWidth != bitmap.getWidth() || fitHeight != bitmap.getHeight()) {
+            bitmap = Bitmap.createScaledBitmap(bitmap, fitWidth, fitHeight, true);
+        }
+
+        frame.nv21 = null;
+        frame.bitmap = bitmap;
+        frame.width = bitmap.getWidth();
+        frame.height = bitmap.getHeight();
+        return frame;
+    }
+
+    /**
+     * Set fitWidth/fitHeight to the largest even size that fits the spec's target box
+     * (or the native size) shrunk by {@code boxScale}, keeping aspect ratio. Never upscales.
+     * If {@code swapped}, the box applies after a 90/270 rotation.
+     */
+    void fit(int width, int height, FrameSpec spec, boolean swapped, float boxScale) {
+        int boxW = swapped ? spec.getTargetHeight() : spec.getTargetWidth();
+        int boxH = swapped ? spec.getTargetWidth() : spec.getTargetHeight();
+        if (boxW <= 0 || boxH <= 0) {
+            boxW = width;
+            boxH = height;
+        }
+        if (boxScale >= 1f && boxW >= width && boxH >= height) {
+            fitWidth = width;
+            fitHeight = height;
+            return;
+        }
+
+        float scale = Math.min(1f, boxScale * Math.min(boxW * 1f / width, boxH * 1f / height));
+        fitWidth = Math.max(2, Math.round(width * scale) & ~1);
+        fitHeight = Math.max(2, Math.round(height * scale) & ~1);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.newsight;
+
+import android.graphics.Bitmap;
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * FrameEncoder - Second stage of the FramePipeline: turns a converted frame into the payload
+ * a feature's backend expects. The returned array is owned by the caller (safe to hand to a
+ * network thread). Returns null if the frame can't be encoded this way.
+ */
+public interface FrameEncoder {
+
+    @Nullable
+    byte[] encode(@NonNull FrameConverter.Frame frame);
+
+    /** Current quality setting (JPEG 1-100), or 0 if this encoder has none. */
+    default int getQuality() {
+        return 0;
+    }
+
+    /** Adjust quality (ignored by encoders without one). */
+    default void setQuality(int quality) {
+    }
+
+    static FrameEncoder jpeg(int quality) {
+        return new JpegEncoder(quality);
+    }
+
+    /** Y plane only (width * height bytes), e.g. for ASL which runs on grayscale. */
+    static FrameEncoder grayscale() {
+        return frame -> frame.nv21 != null
+                ? Arrays.copyOf(frame.nv21, frame.width * frame.height)
+                : null;
+    }
+
+    /** Full NV21 frame, for backends that decode YUV themselves. */
+    static FrameEncoder raw() {
+        return frame -> frame.nv21 != null
+                ? Arrays.copyOf(frame.nv21, Nv21Converter.nv21Size(frame.width, frame.height))
+                : null;
+    }
+
+    /** Reuses one output stream, so each pipeline needs its own (see FrameSpec#newEncoder). */
+    class JpegEncoder implements FrameEncoder {
+        private volatile int quality;
+        private final ByteArrayOutputStream jpegStream = new ByteArrayOutputStream(256 * 1024);
+        private final Rect rect = new Rect();
+
+        JpegEncoder(int quality) {
+            this.quality = quality;
+        }
+
+        @Override
+        public int getQuality() {
+            return quality;
+        }
+
+        @Override
+        public void setQuality(int quality) {
+            if (quality > 0) this.quality = quality;
+        }
+
+        @Override
+        public byte[] encode(@NonNull FrameConverter.Frame frame) {
+            jpegStream.reset(); // reuse ByteArrayOutputStream
+            if (frame.nv21 != null) {
+                YuvImage yuvImage = new YuvImage(frame.nv21, ImageFormat.NV21, frame.width, frame.height, null);
+                rect.set(0, 0, frame.width, frame.height);
+                yuvImage.compressToJpeg(rect, quality, jpegStream);
+            } else if (frame.bitmap != null) {
+                frame.bitmap.compress(Bitmap.CompressFormat.JPEG, quality, jpegStream);
+            } else {
+                return null;
+            }
+            return jpegStream.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.newsight;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+
+/**
+ * FramePipeline - The one ImageAnalysis.Analyzer behind every camera feature.
+ *
+ *   sink ready? -> throttle -> FrameConverter (pooled YUV->NV21, scale, rotate)
+ *               -> FrameEncoder (JPEG / grayscale / raw) -> FrameSink (WebSocket / HTTP)
+ *
+ * A feature only declares a FrameSpec and a FrameSink; conversion and encoding
+ * improvements here apply to all of them. If the sink has a CongestionController, its
+ * interval, resolution scale and JPEG quality override the spec's on every frame.
+ */
+public class FramePipeline implements ImageAnalysis.Analyzer {
+
+    private static final String TAG = "FramePipeline";
+
+    private final FrameSpec spec;
+    private final FrameSink sink;
+    private final FrameConverter converter = new FrameConverter();
+    private final FrameEncoder encoder;
+
+    private long lastFrameTime = 0;
+    private int frameId = 0;
+
+    public FramePipeline(@NonNull FrameSpec spec, @NonNull FrameSink sink) {
+        this.spec = spec;
+        this.sink = sink;
+        this.encoder = spec.newEncoder();
+    }
+
+    public FrameSpec getSpec() {
+        return spec;
+    }
+
+    @Override
+    public void analyze(@NonNull ImageProxy imageProxy) {
+        try {
+            process(imageProxy);
+        } finally {
+            imageProxy.close();
+        }
+    }
+
+    /**
+     * Run one frame through the pipeline without closing it, for callers that also hand the
+     * same frame to something else (e.g. the hybrid cloud/on-device detector).
+     */
+    public void process(@NonNull ImageProxy imageProxy) {
+        try {
+            if (!sink.isReady()) return;
+
+            CongestionController controller = sink.getController();
+            long interval = controller != null ? controller.getIntervalMs() : spec.getMinIntervalMs();
+
+            long now = System.currentTimeMillis();
+            if (now - lastFrameTime < interval) return;
+            lastFrameTime = now;
+
+            FrameConverter.Frame frame = converter.convert(imageProxy, spec,
+                    controller != null ? controller.getScale() : 1f);
+            if (frame == null) return;
+
+            if (controller != null) encoder.setQuality(controller.getQuality());
+            byte[] payload = encoder.encode(frame);
+            if (payload == null) {
+                Log.w(TAG, spec.getName() + ": encoder cannot handle this frame");
+                return;
+            }
+
+            sink.send(new FrameSink.EncodedFrame(payload, frame.width, frame.height,
+                    frame.captureTimeMs, frame.captureUptimeMs, ++frameId));
+        } catch (Exception e) {
+            Log.e(TAG, spec.getName() + ": frame processing failed", e);
+        }
+    }
+}
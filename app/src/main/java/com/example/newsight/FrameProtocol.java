@@ -0,0 +1,55 @@
+package com.example.newsight;
+
+import androidx.annotation.NonNull;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * FrameProtocol - Binary framing for camera frames sent over the vision WebSocket.
+ *
+ * Each binary message is a fixed 24-byte big-endian header followed by the raw JPEG bytes:
+ *
+ *   offset  size  field
+ *   0       1     version        (VERSION)
+ *   1       1     feature id     (announced to the backend in the hello message)
+ *   2       2     header length  (HEADER_SIZE, lets the backend skip unknown fields)
+ *   4       4     frame sequence number
+ *   8       8     capture timestamp (epoch millis)
+ *   16      2     image width
+ *   18      2     image height
+ *   20      4     payload length
+ *   24      N     JPEG payload
+ *
+ * The mode is negotiated through the hello handshake: the client advertises NAME and
+ * only switches to binary once the backend acknowledges it. Older backends never ack,
+ * so they keep receiving the base64 JSON frames.
+ */
+public final class FrameProtocol {
+
+    public static final String NAME = "binary-v1";
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24;
+
+    private FrameProtocol() {}
+
+    /**
+     * Build a binary frame message. The JPEG is copied exactly once, into okio segments,
+     * which the returned ByteString then shares without a further copy.
+     */
+    @NonNull
+    public static ByteString encode(int featureId, int sequence, long captureTimeMs,
+                                    int width, int height, @NonNull byte[] jpeg) {
+        Buffer buffer = new Buffer();
+        buffer.writeByte(VERSION);
+        buffer.writeByte(featureId);
+        buffer.writeShort(HEADER_SIZE);
+        buffer.writeInt(sequence);
+        buffer.writeLong(captureTimeMs);
+        buffer.writeShort(width);
+        buffer.writeShort(height);
+        buffer.writeInt(jpeg.length);
+        buffer.write(jpeg);
+        return buffer.readByteString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.newsight;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * FrameSink - Last stage of the FramePipeline: the transport that ships encoded frames to a
+ * backend (WebSocket, HTTP, ...).
+ */
+public interface FrameSink {
+
+    /**
+     * Cheap check made before a frame is converted, so frames that would be dropped anyway
+     * (not connected, no active feature, request already in flight) cost nothing.
+     */
+    boolean isReady();
+
+    void send(@NonNull EncodedFrame frame);
+
+    /** Congestion controller for the frames about to be sent, or null to use the spec as-is. */
+    @Nullable
+    default CongestionController getController() {
+        return null;
+    }
+
+    class EncodedFrame {
+        public final byte[] data;
+        public final int width;
+        public final int height;
+        public final long captureTimeMs;      // System.currentTimeMillis() clock
+        public final long captureUptimeMs;    // SystemClock.uptimeMillis() clock
+        public final int frameId;
+
+        public EncodedFrame(byte[] data, int width, int height, long captureTimeMs,
+                            long captureUptimeMs, int frameId) {
+            this.data = data;
+            this.width = width;
+            this.height = height;
+            this.captureTimeMs = captureTimeMs;
+            this.captureUptimeMs = captureUptimeMs;
+            this.frameId = frameId;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.newsight;
+
+import androidx.annotation.NonNull;
+
+import java.util.function.Supplier;
+
+/**
+ * FrameSpec - What a camera feature needs from the shared FramePipeline.
+ *
+ * Usage:
+ *   FrameSpec spec = new FrameSpec.Builder("text_detection")
+ *           .setMinIntervalMs(400)
+ *           .setJpegQuality(90)
+ *           .build();
+ *
+ * Immutable, so one spec can be a shared constant: every FramePipeline gets its own encoder
+ * from {@link #newEncoder()}, and quality changes made by its CongestionController stay there.
+ */
+public class FrameSpec {
+
+    private final String name;
+    private final int targetWidth;
+    private final int targetHeight;
+    private final boolean upright;
+    private final long minIntervalMs;
+    private final Supplier<FrameEncoder> encoderFactory;
+    private final int quality;
+    private final int minQuality;
+    private final long targetRttMs;
+
+    private FrameSpec(Builder builder) {
+        this.name = builder.name;
+        this.targetWidth = builder.targetWidth;
+        this.targetHeight = builder.targetHeight;
+        this.upright = builder.upright;
+        this.minIntervalMs = builder.minIntervalMs;
+        this.encoderFactory = builder.encoderFactory;
+        this.quality = builder.quality;
+        this.minQuality = builder.minQuality;
+        this.targetRttMs = builder.targetRttMs;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Frames are downscaled to fit within this box (keeping aspect ratio). 0 = native size. */
+    public int getTargetWidth() {
+        return targetWidth;
+    }
+
+    public int getTargetHeight() {
+        return targetHeight;
+    }
+
+    /** Whether frames are rotated upright using the camera's rotationDegrees. */
+    public boolean isUpright() {
+        return upright;
+    }
+
+    public long getMinIntervalMs() {
+        return minIntervalMs;
+    }
+
+    /** A new encoder at the spec's settings, owned by one pipeline. */
+    @NonNull
+    public FrameEncoder newEncoder() {
+        return encoderFactory.get();
+    }
+
+    /** JPEG quality the encoder starts at, or 0 if it has no quality setting. */
+    public int getQuality() {
+        return quality;
+    }
+
+    /** Lowest JPEG quality congestion control may go down to before shrinking frames instead. */
+    public int getMinQuality() {
+        return minQuality;
+    }
+
+    /** Result round trip the feature's CongestionController aims for (backend time included). */
+    public long getTargetRttMs() {
+        return targetRttMs;
+    }
+
+    public static class Builder {
+        private final String name;
+        private int targetWidth = 0;
+        private int targetHeight = 0;
+        private boolean upright = true;
+        private long minIntervalMs = 0;
+        private Supplier<FrameEncoder> encoderFactory = () -> FrameEncoder.jpeg(80);
+        private int quality = 80;
+        private int minQuality = CongestionController.MIN_QUALITY;
+        private long targetRttMs = CongestionController.DEFAULT_TARGET_RTT_MS;
+
+        public Builder(@NonNull String name) {
+            this.name = name;
+        }
+
+        public Builder setTargetSize(int width, int height) {
+            this.targetWidth = width;
+            this.targetHeight = height;
+            return this;
+        }
+
+        public Builder setUpright(boolean upright) {
+            this.upright = upright;
+            return this;
+        }
+
+        public Builder setMinIntervalMs(long minIntervalMs) {
+            this.minIntervalMs = minIntervalMs;
+            return this;
+        }
+
+        public Builder setJpegQuality(int quality) {
+            this.encoderFactory = () -> FrameEncoder.jpeg(quality);
+            this.quality = quality;
+            return this;
+        }
+
+        public Builder setMinQuality(int minQuality) {
+            this.minQuality = minQuality;
+            return this;
+        }
+
+        public Builder setTargetRttMs(long targetRttMs) {
+            this.targetRttMs = targetRttMs;
+            return this;
+        }
+
+        /** An encoder without a quality setting, e.g. FrameEncoder::grayscale. */
+        public Builder setEncoder(@NonNull Supplier<FrameEncoder> encoderFactory) {
+            this.encoderFactory = encoderFactory;
+            this.quality = 0;
+            return this;
+        }
+
+        public FrameSpec build() {
+            return new FrameSpec(this);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.newsight;
+
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Heartbeat - Application-level liveness for a socket that carries results back.
+ *
+ * One ping is outstanding at a time; the pong that answers it gives a round-trip time.
+ * Any message from the peer counts as proof of life, so a busy result stream never trips
+ * the timeout. The peer is considered dead once nothing at all has arrived for timeoutMs
+ * after a ping went out - typically a socket left half-open by a cellular handoff, which
+ * TCP alone can take minutes to notice.
+ *
+ * A backend that has never answered a ping (older versions don't) is not judged by this
+ * timeout, since silence there means nothing; WebSocket protocol pings cover that case.
+ */
+public class Heartbeat {
+
+    static final long DEFAULT_INTERVAL_MS = 5000;
+    static final long DEFAULT_TIMEOUT_MS = 15000;
+
+    /** Text of the ping message; peers answer with "pong" or {"type":"pong",...}. */
+    static final String PING = "{\"type\":\"ping\"}";
+    private static final Pattern PONG_TYPE = Pattern.compile("\"type\"\\s*:\\s*\"pong\"");
+
+    private final long intervalMs;
+    private final long timeoutMs;
+    private final LongSupplier clock;
+
+    private long pingSentAtMs = -1;
+    private long lastHeardMs;
+    private float srttMs = 0f;
+    private long lastRttMs = 0;
+    private boolean peerAnswers = false;
+
+    public Heartbeat(long intervalMs, long timeoutMs) {
+        this(intervalMs, timeoutMs, System::currentTimeMillis);
+    }
+
+    Heartbeat(long intervalMs, long timeoutMs, LongSupplier clock) {
+        this.intervalMs = intervalMs;
+        this.timeoutMs = Math.max(timeoutMs, intervalMs);
+        this.clock = clock;
+        this.lastHeardMs = clock.getAsLong();
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    /** A fresh connection: nothing outstanding, and the peer was just heard from. */
+    public synchronized void reset() {
+        pingSentAtMs = -1;
+        lastHeardMs = clock.getAsLong();
+    }
+
+    /** Whether a ping should go out now: none outstanding, or the last one's pong was lost. */
+    public synchronized boolean shouldPing() {
+        return pingSentAtMs < 0 || clock.getAsLong() - pingSentAtMs > timeoutMs;
+    }
+
+    public synchronized void onPingSent() {
+        pingSentAtMs = clock.getAsLong();
+    }
+
+    /** Any message from the peer. */
+    public synchronized void onMessage() {
+        lastHeardMs = clock.getAsLong();
+    }
+
+    /**
+     * The peer answered the outstanding ping.
+     * @return the round trip in ms, or -1 if no ping was outstanding
+     */
+    public synchronized long onPong() {
+        long now = clock.getAsLong();
+        lastHeardMs = now;
+        peerAnswers = true;
+        if (pingSentAtMs < 0) return -1;
+        lastRttMs = now - pingSentAtMs;
+        pingSentAtMs = -1;
+        srttMs = srttMs == 0f ? lastRttMs : srttMs + (lastRttMs - srttMs) / 8f;
+        return lastRttMs;
+    }
+
+    /** True if a ping is outstanding and the peer has been silent for longer than the timeout. */
+    public synchronized boolean isPeerDead() {
+        long now = clock.getAsLong();
+        return peerAnswers && pingSentAtMs >= 0 && now - lastHeardMs > timeoutMs;
+    }
+
+    public synchronized long getLastRttMs() {
+        return lastRttMs;
+    }
+
+    public synchronized long getSmoothedRttMs() {
+        return (long) srttMs;
+    }
+
+    /** "pong" or a JSON object whose type is pong. */
+    static boolean isPong(String text) {
+        if ("pong".equals(text)) return true;
+        return text.length() < 128 && PONG_TYPE.matcher(text).find();
+    }
+}
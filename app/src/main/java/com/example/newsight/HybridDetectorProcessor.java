@@ -0,0 +1,126 @@
+package com.example.newsight;
+
+import android.content.Context;
+import android.util.Log;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+
+/**
+ * Obstacle detection that never goes silent: frames go to the cloud detector while its channel
+ * is up and it is answering in time, and to the on-device DetectorProcessor otherwise. "In time"
+ * is judged from what has not come back as much as from what has: the age of the oldest
+ * unanswered frame, the time since the last answer and the frames lost since then, besides the
+ * smoothed round trip. Detection starts on-device and only moves to the cloud once it has
+ * actually answered. Both feed the same
+ * OverlayView.setBackendResults path (boxes, haptics, TTS), and switching happens per frame on
+ * the analyzer thread, so the camera is never rebound.
+ *
+ * While on-device, a frame is still offered to the cloud every PROBE_INTERVAL_MS so its round
+ * trip keeps being measured and we can switch back once it recovers.
+ */
+public class HybridDetectorProcessor implements ImageAnalysis.Analyzer {
+
+    private static final String TAG = "HybridDetector";
+
+    // Cloud round trips above this are too slow to warn about obstacles in time
+    static final long SLOW_RTT_MS = 1000;
+    // Only return to the cloud once it is comfortably below the threshold again
+    static final long RECOVER_RTT_MS = 600;
+    private static final long PROBE_INTERVAL_MS = 1000;
+    // No answer for this long means the cloud is not keeping up, whatever the last RTT was
+    static final long MAX_SILENCE_MS = 2000;
+    // Frames lost in a row (failed or timed out) before giving up on the cloud
+    static final int MAX_FAILURES = 3;
+
+    private final CloudDetectorProcessor cloud;
+    @Nullable
+    private final DetectorProcessor local;
+    private final OverlayView overlayView;
+    private final Context appContext;
+
+    private boolean usingCloud;
+    private long lastProbeMs = 0L;
+
+    public HybridDetectorProcessor(Context context, OverlayView overlayView) {
+        this.overlayView = overlayView;
+        this.appContext = context.getApplicationContext();
+        this.cloud = new CloudDetectorProcessor(context, overlayView);
+
+        DetectorProcessor detector = null;
+        try {
+            detector = new DetectorProcessor(context, overlayView);
+        } catch (Exception e) {
+            Log.e(TAG, "On-device detector unavailable, cloud only", e);
+        }
+        this.local = detector;
+        // On-device until the cloud has answered; cloud only if there is nothing else
+        this.usingCloud = detector == null;
+        cloud.setRenderResults(usingCloud);
+    }
+
+    public void close() {
+        cloud.close();
+        if (local != null) local.close();
+    }
+
+    @Override
+    public void analyze(@NonNull ImageProxy imageProxy) {
+        try {
+            updateMode();
+
+            if (usingCloud) {
+                cloud.process(imageProxy);
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastProbeMs >= PROBE_INTERVAL_MS) {
+                lastProbeMs = now;
+                cloud.process(imageProxy);
+            }
+            local.process(imageProxy);
+        } catch (Exception e) {
+            Log.e(TAG, "analyze() failed", e);
+        } finally {
+            imageProxy.close();
+        }
+    }
+
+    private void updateMode() {
+        if (local == null) return;
+
+        boolean wantCloud = shouldUseCloud(usingCloud, cloud.isChannelUp(), cloud.getSmoothedRttMs(),
+                cloud.getOldestPendingAgeMs(), cloud.getMsSinceLastResponse(), cloud.getRecentFailures());
+        if (wantCloud == usingCloud) return;
+
+        usingCloud = wantCloud;
+        cloud.setRenderResults(wantCloud);
+        Log.i(TAG, "Switched to " + (wantCloud ? "cloud" : "on-device") + " detection"
+                + " (rtt=" + cloud.getSmoothedRttMs() + "ms, oldest pending="
+                + cloud.getOldestPendingAgeMs() + "ms, failures=" + cloud.getRecentFailures() + ")");
+        String msg = wantCloud ? "Using cloud detection" : "Using on-device detection";
+        overlayView.post(() -> Toast.makeText(appContext, msg, Toast.LENGTH_SHORT).show());
+    }
+
+    /**
+     * Hysteresis between the two paths so a borderline network doesn't flap every frame.
+     * @param oldestPendingMs age of the oldest unanswered frame, 0 if none
+     * @param sinceResponseMs time since the last answer, Long.MAX_VALUE if there was none
+     * @param failures frames lost since the last answer
+     */
+    static boolean shouldUseCloud(boolean usingCloud, boolean channelUp, long rttMs,
+                                  long oldestPendingMs, long sinceResponseMs, int failures) {
+        if (!channelUp || sinceResponseMs == Long.MAX_VALUE) return false;
+        if (usingCloud) {
+            return rttMs <= SLOW_RTT_MS && oldestPendingMs <= SLOW_RTT_MS
+                    && sinceResponseMs <= MAX_SILENCE_MS && failures < MAX_FAILURES;
+        }
+        // Back only on a fresh, fast answer with nothing lost since
+        return rttMs <= RECOVER_RTT_MS && oldestPendingMs <= RECOVER_RTT_MS
+                && sinceResponseMs <= MAX_SILENCE_MS && failures == 0;
+    }
+}
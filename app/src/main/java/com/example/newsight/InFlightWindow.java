@@ -0,0 +1,103 @@
+package com.example.newsight;
+
+/**
+ * InFlightWindow - How many /detect requests may be outstanding at once.
+ *
+ * The limit follows measured latency: to keep one frame every frameIntervalMs moving while each
+ * takes srtt to come back, about srtt / frameIntervalMs requests have to be in flight. It grows by
+ * one per response up to that target, and backs off by one whenever latency climbs well above the
+ * best seen (the link is saturated, so more requests would only queue). A failure drops it to 1.
+ *
+ * Responses are matched by frame_id; anything older than the newest response already accepted is
+ * reported as stale so the caller can drop it instead of drawing boxes from the past.
+ */
+public class InFlightWindow {
+
+    // Latency more than this many times the best observed means requests are queueing
+    private static final float QUEUE_FACTOR = 2f;
+    // Forget the best observed latency now and then, in case the route changed
+    private static final int MIN_RTT_RESET_SAMPLES = 50;
+
+    private final int maxSize;
+    private final long frameIntervalMs;
+
+    private int limit = 1;
+    private int inFlight = 0;
+    private int newestFrameId = 0;
+
+    private float srttMs = 0f;
+    private long minRttMs = Long.MAX_VALUE;
+    private int samples = 0;
+
+    public InFlightWindow(int maxSize, long frameIntervalMs) {
+        this.maxSize = Math.max(1, maxSize);
+        this.frameIntervalMs = Math.max(1, frameIntervalMs);
+    }
+
+    public synchronized boolean hasCapacity() {
+        return inFlight < limit;
+    }
+
+    public synchronized void onSent() {
+        inFlight++;
+    }
+
+    /**
+     * Record a completed request. Returns false if a newer frame has already been accepted,
+     * i.e. this response arrived late or out of order and should be dropped.
+     */
+    public synchronized boolean onResponse(int frameId, long latencyMs) {
+        inFlight = Math.max(0, inFlight - 1);
+        updateLimit(latencyMs);
+
+        if (frameId <= newestFrameId) {
+            return false;
+        }
+        newestFrameId = frameId;
+        return true;
+    }
+
+    /** Record a failed request; the window starts over from a single request. */
+    public synchronized void onFailure() {
+        inFlight = Math.max(0, inFlight - 1);
+        limit = 1;
+    }
+
+    /** Forget everything in flight (e.g. the connection dropped); start over from one request. */
+    public synchronized void reset() {
+        inFlight = 0;
+        limit = 1;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /** Smoothed round-trip time of recent responses, 0 before the first one. */
+    public synchronized long getSmoothedRttMs() {
+        return (long) srttMs;
+    }
+
+    private void updateLimit(long latencyMs) {
+        srttMs = samples == 0 ? latencyMs : srttMs + (latencyMs - srttMs) / 8f;
+        if (++samples % MIN_RTT_RESET_SAMPLES == 0) {
+            minRttMs = (long) srttMs;
+        }
+        minRttMs = Math.min(minRttMs, latencyMs);
+
+        int target = (int) Math.ceil(srttMs / frameIntervalMs);
+        target = Math.max(1, Math.min(maxSize, target));
+
+        if (srttMs > QUEUE_FACTOR * minRttMs) {
+            limit = Math.max(1, limit - 1);
+        } else if (limit < target) {
+            limit++;
+        } else if (limit > target) {
+            limit = target;
+        }
+    }
+}
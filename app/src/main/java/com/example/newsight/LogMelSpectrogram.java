@@ -0,0 +1,167 @@
+package com.example.newsight;
+
+/**
+ * LogMelSpectrogram - Streaming log-mel filterbank features for 16-bit PCM.
+ *
+ * Samples are pushed one at a time; every HOP samples (10ms at 16kHz) a new frame of
+ * melBins log energies is ready, computed over the last WINDOW samples (25ms) with a Hann
+ * window and a radix-2 FFT. This is the standard keyword-spotting front end, so a model
+ * trained on 25ms/10ms/40-mel features can take these frames directly.
+ *
+ * All buffers are allocated up front; pushing samples allocates nothing. Not thread-safe:
+ * use one instance per capture thread.
+ */
+public class LogMelSpectrogram {
+
+    public static final int SAMPLE_RATE = 16000;
+    public static final int WINDOW = 400;   // 25ms
+    public static final int HOP = 160;      // 10ms
+    static final int FFT_SIZE = 512;
+    private static final float MIN_HZ = 20f;
+    private static final float MAX_HZ = 7600f;
+    private static final float LOG_FLOOR = 1e-6f;
+
+    private final int melBins;
+
+    private final float[] samples = new float[WINDOW];
+    private int filled = 0;
+
+    private final float[] hann = new float[WINDOW];
+    private final float[] re = new float[FFT_SIZE];
+    private final float[] im = new float[FFT_SIZE];
+    private final float[] power = new float[FFT_SIZE / 2 + 1];
+    private final float[] cos = new float[FFT_SIZE / 2];
+    private final float[] sin = new float[FFT_SIZE / 2];
+    private final int[] bitReverse = new int[FFT_SIZE];
+
+    // Triangular filters: bin range and weights per mel band
+    private final int[] filterStart;
+    private final float[][] filterWeights;
+
+    private final float[] frame;
+
+    public LogMelSpectrogram(int melBins) {
+        this.melBins = melBins;
+        this.frame = new float[melBins];
+        this.filterStart = new int[melBins];
+        this.filterWeights = new float[melBins][];
+
+        for (int i = 0; i < WINDOW; i++) {
+            hann[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / WINDOW));
+        }
+        for (int i = 0; i < FFT_SIZE / 2; i++) {
+            cos[i] = (float) Math.cos(-2 * Math.PI * i / FFT_SIZE);
+            sin[i] = (float) Math.sin(-2 * Math.PI * i / FFT_SIZE);
+        }
+        int bits = Integer.numberOfTrailingZeros(FFT_SIZE);
+        for (int i = 0; i < FFT_SIZE; i++) {
+            bitReverse[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+        buildFilters();
+    }
+
+    public int getMelBins() {
+        return melBins;
+    }
+
+    /**
+     * Add one sample (-1..1).
+     * @return true if a new frame is ready in {@link #frame()}
+     */
+    public boolean push(float sample) {
+        samples[filled++] = sample;
+        if (filled < WINDOW) return false;
+        compute();
+        System.arraycopy(samples, HOP, samples, 0, WINDOW - HOP);
+        filled = WINDOW - HOP;
+        return true;
+    }
+
+    /** The latest frame; overwritten by the next one, so copy it if it must be kept. */
+    public float[] frame() {
+        return frame;
+    }
+
+    public void reset() {
+        filled = 0;
+    }
+
+    private void compute() {
+        for (int i = 0; i < FFT_SIZE; i++) {
+            int j = bitReverse[i];
+            re[i] = j < WINDOW ? samples[j] * hann[j] : 0f;
+            im[i] = 0f;
+        }
+        fft();
+        for (int k = 0; k <= FFT_SIZE / 2; k++) {
+            power[k] = re[k] * re[k] + im[k] * im[k];
+        }
+        for (int m = 0; m < melBins; m++) {
+            float[] w = filterWeights[m];
+            int start = filterStart[m];
+            float energy = 0f;
+            for (int k = 0; k < w.length; k++) {
+                energy += w[k] * power[start + k];
+            }
+            frame[m] = (float) Math.log(energy + LOG_FLOOR);
+        }
+    }
+
+    /** In-place iterative radix-2 FFT; inputs are already in bit-reversed order. */
+    private void fft() {
+        for (int size = 2; size <= FFT_SIZE; size <<= 1) {
+            int half = size >> 1;
+            int step = FFT_SIZE / size;
+            for (int start = 0; start < FFT_SIZE; start += size) {
+                for (int k = 0; k < half; k++) {
+                    float wr = cos[k * step];
+                    float wi = sin[k * step];
+                    int a = start + k;
+                    int b = a + half;
+                    float tr = wr * re[b] - wi * im[b];
+                    float ti = wr * im[b] + wi * re[b];
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    private void buildFilters() {
+        double melMin = hzToMel(MIN_HZ);
+        double melMax = hzToMel(MAX_HZ);
+        double[] edges = new double[melBins + 2];
+        for (int i = 0; i < edges.length; i++) {
+            double hz = melToHz(melMin + (melMax - melMin) * i / (melBins + 1));
+            edges[i] = hz * FFT_SIZE / SAMPLE_RATE; // in FFT bins
+        }
+        for (int m = 0; m < melBins; m++) {
+            double left = edges[m];
+            double center = edges[m + 1];
+            double right = edges[m + 2];
+            int start = (int) Math.ceil(left);
+            int end = Math.min((int) Math.floor(right), FFT_SIZE / 2);
+            if (end < start) end = start; // narrow low bands still cover one bin
+            float[] w = new float[end - start + 1];
+            for (int k = start; k <= end; k++) {
+                double weight = k <= center
+                        ? (k - left) / Math.max(center - left, 1e-9)
+                        : (right - k) / Math.max(right - center, 1e-9);
+                w[k - start] = (float) Math.max(0.0, Math.min(1.0, weight));
+            }
+            if (w.length == 1) w[0] = 1f;
+            filterStart[m] = start;
+            filterWeights[m] = w;
+        }
+    }
+
+    private static double hzToMel(double hz) {
+        return 2595.0 * Math.log10(1.0 + hz / 700.0);
+    }
+
+    private static double melToHz(double mel) {
+        return 700.0 * (Math.pow(10.0, mel / 2595.0) - 1.0);
+    }
+}
@@ -16,6 +16,7 @@ import android.widget.Toast;
 import androidx.activity.EdgeToEdge;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.Camera;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.Preview;
@@ -395,7 +396,8 @@ public class MainActivity extends AppCompatActivity implements WebSocketManager.
                 imageAnalysis.setAnalyzer(cameraExecutor, new FrameAnalyzer(wsManager, provider));
 
                 cameraProvider.unbindAll();
-                cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+                Camera camera = cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+                FrameConverter.useTimestampSourceOf(camera);
 
                 Log.i(TAG, "Camera started for feature: " + currentFeature);
 
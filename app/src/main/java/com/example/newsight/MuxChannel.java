@@ -0,0 +1,440 @@
+package com.example.newsight;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+/**
+ * MuxChannel - One WebSocket per backend host, shared by every helper that talks to it.
+ *
+ * Instead of each helper owning a socket (/location/ws, /navigation/ws, /ws ...), helpers
+ * subscribe to a topic on the host's MuxChannel (<scheme>://<host>/mux/ws). Text messages
+ * travel in a small envelope:
+ *
+ *   {"topic":"location","data":{...}}
+ *
+ * and binary messages are always camera frames, so frames are never wrapped or copied. The
+ * server is told which topics to route here with {"type":"subscribe","topic":...} /
+ * {"type":"unsubscribe","topic":...}.
+ *
+ * Frame traffic keeps the endpoint it was meant for and the client it came from: each client
+ * of a frames endpoint gets its own topic pair from {@link #clientTopic}, e.g.
+ * "frames:/ws/verify#2" and "results:/ws/verify#2", so the server knows which handler to
+ * run and results reach only the client that sent the frames. Binary frames carry a feature
+ * id that is unique within the process and announced in the client's hello on its frames
+ * topic, which ties them to that client as well.
+ *
+ * The channel is process-wide and outlives the activity that opened it: when the last
+ * subscription goes away the socket lingers for IDLE_CLOSE_MS, so the next activity's
+ * helpers pick it up already open instead of handshaking again. While anyone is subscribed,
+ * a dropped channel is brought back by a Reconnector (backoff, paused while offline).
+ *
+ * If the backend has no /mux/ws endpoint (404, or 426 when it will not upgrade), subscribers
+ * are told via onMuxUnavailable() and fall back to their own dedicated sockets. Other
+ * refusals, such as a 502/503 while the server starts, are retried like a dropped socket.
+ *
+ * Subscriber callbacks arrive on OkHttp threads.
+ */
+public class MuxChannel {
+
+    private static final String TAG = "MuxChannel";
+
+    public static final String TOPIC_LOCATION = "location";
+    public static final String TOPIC_NAVIGATION = "navigation";
+    public static final String TOPIC_FRAMES = "frames";
+    public static final String TOPIC_RESULTS = "results";
+
+    static final String MUX_PATH = "/mux/ws";
+    private static final long IDLE_CLOSE_MS = 30000;
+    private static final long PING_INTERVAL_MS = 20000;
+
+    private static final Map<String, MuxChannel> channels = new HashMap<>();
+    private static final AtomicInteger clients = new AtomicInteger();
+
+    public interface Subscriber {
+        /** The channel is open and the server has been asked to route this topic here. */
+        void onTopicUp();
+
+        /** One message's data for this topic (the envelope already stripped). */
+        void onTopicMessage(@NonNull String data);
+
+        void onTopicDown();
+
+        /** The backend has no multiplexed endpoint; use a dedicated socket instead. */
+        void onMuxUnavailable();
+    }
+
+    /** A helper's handle on one topic. */
+    public class Subscription {
+        final String topic;
+        final Subscriber subscriber;
+
+        Subscription(String topic, Subscriber subscriber) {
+            this.topic = topic;
+            this.subscriber = subscriber;
+        }
+
+        /** Send {@code json} on this topic. */
+        public boolean send(@NonNull String json) {
+            WebSocket ws = webSocket;
+            return up && ws != null && ws.send(envelope(topic, json));
+        }
+
+        /** Send a FrameProtocol message; binary messages need no envelope. */
+        public boolean sendBinary(@NonNull ByteString frame) {
+            WebSocket ws = webSocket;
+            return up && ws != null && ws.send(frame);
+        }
+
+        /** Bytes waiting in the shared socket's send queue. */
+        public long queueSize() {
+            WebSocket ws = webSocket;
+            return ws != null ? ws.queueSize() : 0L;
+        }
+
+        public boolean isUp() {
+            return up;
+        }
+
+        public void unsubscribe() {
+            MuxChannel.this.unsubscribe(this);
+        }
+    }
+
+    private final String url;
+    private final OkHttpClient client;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, List<Subscription>> topics = new HashMap<>();
+    private final Reconnector reconnector = new Reconnector(TAG, this::connect);
+
+    // Replaced on reconnect; written under the lock, read without it by send paths
+    private volatile WebSocket webSocket;
+    private volatile boolean up = false;
+    private volatile boolean unavailable = false;
+    private boolean connecting = false;
+
+    /** The shared channel for the backend host of {@code wsUrl} (any path on that host). */
+    @NonNull
+    public static MuxChannel forUrl(@NonNull String wsUrl) {
+        String url = muxUrl(wsUrl);
+        synchronized (channels) {
+            MuxChannel channel = channels.get(url);
+            if (channel == null) {
+                channel = new MuxChannel(url);
+                channels.put(url, channel);
+            }
+            return channel;
+        }
+    }
+
+    private MuxChannel(String url) {
+        this.url = url;
+        this.client = NetworkClient.get().newBuilder()
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(0, TimeUnit.MILLISECONDS) // infinite for WS
+                .pingInterval(PING_INTERVAL_MS, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /** False once the backend has refused the multiplexed endpoint. */
+    public boolean isAvailable() {
+        return !unavailable;
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    /**
+     * Start receiving {@code topic} and get a handle to send on it. Connects the channel if
+     * needed; if the backend turns out not to support it, the subscriber's onMuxUnavailable()
+     * is called instead of onTopicUp().
+     */
+    @NonNull
+    public Subscription subscribe(@NonNull String topic, @NonNull Subscriber subscriber) {
+        Subscription sub = new Subscription(topic, subscriber);
+        boolean first;
+        synchronized (this) {
+            List<Subscription> subs = topics.get(topic);
+            if (subs == null) {
+                subs = new CopyOnWriteArrayList<>();
+                topics.put(topic, subs);
+            }
+            first = subs.isEmpty();
+            subs.add(sub);
+            handler.removeCallbacks(idleClose);
+        }
+
+        if (unavailable) {
+            subscriber.onMuxUnavailable();
+        } else if (up) {
+            if (first) sendControl(webSocket, "subscribe", topic);
+            subscriber.onTopicUp();
+        } else {
+            connect();
+        }
+        return sub;
+    }
+
+    private void unsubscribe(Subscription sub) {
+        boolean last;
+        synchronized (this) {
+            List<Subscription> subs = topics.get(sub.topic);
+            if (subs == null || !subs.remove(sub)) return;
+            last = subs.isEmpty();
+            if (last) topics.remove(sub.topic);
+            if (topics.isEmpty()) handler.postDelayed(idleClose, IDLE_CLOSE_MS);
+        }
+        if (last && up) sendControl(webSocket, "unsubscribe", sub.topic);
+    }
+
+    private final Runnable idleClose = this::closeIfIdle;
+
+    private void closeIfIdle() {
+        WebSocket ws;
+        synchronized (this) {
+            if (!topics.isEmpty()) return;
+            ws = webSocket;
+            webSocket = null;
+        }
+        reconnector.cancel();
+        up = false;
+        if (ws != null) {
+            Log.i(TAG, "No subscribers left, closing " + url);
+            ws.close(1000, "Idle");
+        }
+    }
+
+    private void connect() {
+        synchronized (this) {
+            if (connecting || up || unavailable || topics.isEmpty()) return;
+            connecting = true;
+        }
+        Log.i(TAG, "Connecting to " + url);
+        Request request = new Request.Builder().url(url).build();
+        synchronized (this) {
+            // Under the lock, so a listener that fails fast can't see the old socket
+            webSocket = client.newWebSocket(request, new SocketListener());
+        }
+    }
+
+    private void scheduleReconnect() {
+        synchronized (this) {
+            if (unavailable || topics.isEmpty()) return;
+        }
+        reconnector.scheduleReconnect();
+    }
+
+    /** Reconnect counts and time-to-reconnect of this channel. */
+    @NonNull
+    public ReconnectPolicy getReconnectMetrics() {
+        return reconnector.getPolicy();
+    }
+
+    private static void sendControl(@Nullable WebSocket ws, String type, String topic) {
+        if (ws != null) {
+            ws.send("{\"type\":\"" + type + "\",\"topic\":\"" + topic + "\"}");
+        }
+    }
+
+    private List<Subscription> snapshot() {
+        List<Subscription> all = new ArrayList<>();
+        synchronized (this) {
+            for (List<Subscription> subs : topics.values()) all.addAll(subs);
+        }
+        return all;
+    }
+
+    /**
+     * Drop the current socket and reconnect, e.g. when a heartbeat shows the peer is gone but
+     * the socket still looks open.
+     */
+    public void forceReconnect() {
+        WebSocket ws = webSocket;
+        if (ws != null) {
+            Log.w(TAG, "Forcing reconnect of " + url);
+            ws.cancel(); // reported through onFailure, which schedules the reconnect
+        }
+    }
+
+    // ---------- Envelope ----------
+
+    /** Wrap one topic message. {@code data} must already be JSON. */
+    @NonNull
+    static String envelope(@NonNull String topic, @NonNull String data) {
+        return "{\"topic\":\"" + topic + "\",\"data\":" + data + "}";
+    }
+
+    /** A received envelope; data is the raw JSON text of the "data" field. */
+    static class Envelope {
+        final String topic;
+        final String data;
+
+        Envelope(String topic, String data) {
+            this.topic = topic;
+            this.data = data;
+        }
+    }
+
+    private static final String TOPIC_PREFIX = "{\"topic\":\"";
+    private static final String DATA_PREFIX = "\",\"data\":";
+
+    /**
+     * Split an envelope without building a JSON tree when it is in the compact form we send
+     * ourselves; anything else goes through the parser. Null for control / unknown messages.
+     */
+    @Nullable
+    static Envelope parseEnvelope(@NonNull String text) {
+        if (text.startsWith(TOPIC_PREFIX) && text.endsWith("}")) {
+            int end = text.indexOf('"', TOPIC_PREFIX.length());
+            if (end > 0 && text.startsWith(DATA_PREFIX, end)) {
+                return new Envelope(text.substring(TOPIC_PREFIX.length(), end),
+                        text.substring(end + DATA_PREFIX.length(), text.length() - 1));
+            }
+        }
+        try {
+            JsonObject obj = JsonParser.parseString(text).getAsJsonObject();
+            JsonElement topic = obj.get("topic");
+            JsonElement data = obj.get("data");
+            if (topic == null || data == null) return null;
+            return new Envelope(topic.getAsString(),
+                    data.isJsonPrimitive() ? data.getAsString() : data.toString());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /** ws(s)://host[:port]/any/path -> ws(s)://host[:port]/mux/ws */
+    @NonNull
+    static String muxUrl(@NonNull String wsUrl) {
+        int pathStart = pathStart(wsUrl);
+        String origin = pathStart < 0 ? wsUrl : wsUrl.substring(0, pathStart);
+        return origin + MUX_PATH;
+    }
+
+    /** A number that tells this process's clients of the same endpoint apart. */
+    public static int newClientId() {
+        return clients.incrementAndGet();
+    }
+
+    /** ("results", ws://host/ws/verify, 2) -> "results:/ws/verify#2" */
+    @NonNull
+    public static String clientTopic(@NonNull String kind, @NonNull String wsUrl, int clientId) {
+        int pathStart = pathStart(wsUrl);
+        String path = pathStart < 0 ? "/" : wsUrl.substring(pathStart);
+        return kind + ":" + path + "#" + clientId;
+    }
+
+    private static int pathStart(String wsUrl) {
+        int schemeEnd = wsUrl.indexOf("://");
+        return schemeEnd < 0 ? -1 : wsUrl.indexOf('/', schemeEnd + 3);
+    }
+
+    // ---------- Listener ----------
+
+    private class SocketListener extends WebSocketListener {
+        @Override
+        public void onOpen(@NonNull WebSocket ws, @NonNull Response r) {
+            synchronized (MuxChannel.this) {
+                connecting = false;
+            }
+            up = true;
+            reconnector.onConnected();
+            Log.i(TAG, "Connected to " + url);
+            List<Subscription> subs = snapshot();
+            synchronized (MuxChannel.this) {
+                for (String topic : topics.keySet()) sendControl(ws, "subscribe", topic);
+            }
+            for (Subscription sub : subs) sub.subscriber.onTopicUp();
+        }
+
+        @Override
+        public void onMessage(@NonNull WebSocket ws, @NonNull String text) {
+            Envelope env = parseEnvelope(text);
+            if (env == null) {
+                Log.d(TAG, "recv(control): " + text);
+                return;
+            }
+            List<Subscription> subs;
+            synchronized (MuxChannel.this) {
+                subs = topics.get(env.topic);
+            }
+            if (subs == null) return;
+            for (Subscription sub : subs) sub.subscriber.onTopicMessage(env.data);
+        }
+
+        @Override
+        public void onFailure(@NonNull WebSocket ws, @NonNull Throwable t, Response r) {
+            Log.e(TAG, "WebSocket failed: " + t
+                    + (r != null ? (" | code=" + r.code()) : " | no HTTP response"));
+            boolean wasUp = up;
+            synchronized (MuxChannel.this) {
+                connecting = false;
+                if (webSocket == ws) webSocket = null;
+            }
+            up = false;
+
+            // No multiplexed endpoint on this backend; anything else is retried
+            if (r != null && NetworkClient.isMissingEndpoint(r.code())) {
+                unavailable = true;
+                for (Subscription sub : snapshot()) sub.subscriber.onMuxUnavailable();
+                return;
+            }
+            if (wasUp) {
+                for (Subscription sub : snapshot()) sub.subscriber.onTopicDown();
+            }
+            scheduleReconnect();
+        }
+
+        @Override
+        public void onClosing(@NonNull WebSocket ws, int code, @NonNull String reason) {
+            Log.i(TAG, "WebSocket closing: " + reason);
+            ws.close(1000, null);
+            boolean wasUp = up;
+            synchronized (MuxChannel.this) {
+                if (webSocket == ws) webSocket = null;
+            }
+            up = false;
+            if (wasUp) {
+                for (Subscription sub : snapshot()) sub.subscriber.onTopicDown();
+            }
+        }
+
+        @Override
+        public void onClosed(@NonNull WebSocket ws, int code, @NonNull String reason) {
+            Log.i(TAG, "WebSocket closed: " + reason);
+            boolean wasUp = up;
+            synchronized (MuxChannel.this) {
+                connecting = false;
+                if (webSocket == ws) webSocket = null;
+            }
+            up = false;
+            if (wasUp) {
+                for (Subscription sub : snapshot()) sub.subscriber.onTopicDown();
+            }
+            scheduleReconnect();
+        }
+    }
+}
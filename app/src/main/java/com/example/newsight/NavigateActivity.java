@@ -29,6 +29,8 @@ import com.example.newsight.helpers.LocationHelper;
 import com.example.newsight.helpers.LocationWebSocketHelper;
 import com.example.newsight.helpers.NavigationHelper;
 import com.example.newsight.models.DirectionsResponse;
+import com.example.newsight.models.ModelAdapters;
+import com.example.newsight.models.NavigationStep;
 import com.example.newsight.models.NavigationUpdate;
 import com.example.newsight.models.VoiceResponse;
 import com.example.newsight.models.TransitInfo;
@@ -36,11 +38,12 @@ import com.example.newsight.models.TransitStop;
 import com.example.newsight.models.TransitOption;
 import com.example.newsight.models.TransitLeg;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.gson.Gson;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
@@ -83,7 +86,6 @@ public class NavigateActivity extends AppCompatActivity {
     private LocationHelper locationHelper;
     private LocationWebSocketHelper locationWebSocketHelper;
     private NavigationHelper navigationHelper;
-    private Gson gson;
     private Handler mainHandler;
 
     // Haptic Feedback Components
@@ -94,6 +96,11 @@ public class NavigateActivity extends AppCompatActivity {
     private long lastHapticTime = 0;
     private static final long HAPTIC_COOLDOWN_MS = 3000;
 
+    // Upcoming step instructions synthesized ahead, so turns are announced without delay
+    private static final int PREFETCH_STEPS = 3;
+    static final String ARRIVED = "You have arrived at your destination";
+    private int prefetchedStep = -1;
+
     // State
     private String sessionId;
     private boolean isNavigating = false;
@@ -114,7 +121,6 @@ public class NavigateActivity extends AppCompatActivity {
 
         // Initialize
         sessionId = UUID.randomUUID().toString();
-        gson = new Gson();
         mainHandler = new Handler(Looper.getMainLooper());
 
         // Bind UI
@@ -161,20 +167,17 @@ public class NavigateActivity extends AppCompatActivity {
 
             mainHandler.postDelayed(() -> {
                 try {
-                    JSONObject navData = new JSONObject(fullNavResponse);
-
-                    Log.d(TAG, "🔍 Full nav data keys: " + navData.keys().toString());
+                    // One streaming pass decodes directions and transit data together
+                    VoiceResponse.ExtractedParams navData =
+                            ModelAdapters.EXTRACTED_PARAMS.fromJson(fullNavResponse);
 
-                    // Parse directions
-                    JSONObject directionsObj = navData.optJSONObject("directions");
-                    if (directionsObj == null) {
+                    DirectionsResponse directions = navData != null ? navData.getDirections() : null;
+                    if (directions == null) {
                         Log.e(TAG, "❌ No directions in navigation response");
                         Toast.makeText(this, "No directions available", Toast.LENGTH_SHORT).show();
                         return;
                     }
 
-                    DirectionsResponse directions = gson.fromJson(directionsObj.toString(), DirectionsResponse.class);
-
                     if (directions == null || directions.getSteps() == null || directions.getSteps().isEmpty()) {
                         Log.e(TAG, "❌ Invalid directions data");
                         Toast.makeText(this, "Error: Invalid directions", Toast.LENGTH_SHORT).show();
@@ -182,28 +185,25 @@ public class NavigateActivity extends AppCompatActivity {
                     }
 
                     // Check if this is transit navigation
-                    boolean isTransit = navData.optBoolean("is_transit_navigation", false);
-                    String navType = navData.optString("navigation_type", "walking");
+                    boolean isTransit = navData.isTransitNavigationFlag();
 
                     Log.d(TAG, "🔍 is_transit_navigation: " + isTransit);
-                    Log.d(TAG, "🔍 navigation_type: " + navType);
+                    Log.d(TAG, "🔍 navigation_type: " + navData.getNavigationType());
 
-                    if (isTransit || "transit".equals(navType)) {
+                    if (isTransit || navData.isTransitNavigation()) {
                         isTransitNavigation = true;
 
                         // Parse transit_info
-                        JSONObject transitInfoObj = navData.optJSONObject("transit_info");
-                        if (transitInfoObj != null) {
-                            transitInfo = gson.fromJson(transitInfoObj.toString(), TransitInfo.class);
+                        transitInfo = navData.getTransitInfo();
+                        if (transitInfo != null) {
                             Log.d(TAG, "✅ Transit info parsed");
                         } else {
                             Log.w(TAG, "⚠️ No transit_info in response");
                         }
 
                         // Parse nearest_stop
-                        JSONObject nearestStopObj = navData.optJSONObject("nearest_stop");
-                        if (nearestStopObj != null) {
-                            nearestStop = gson.fromJson(nearestStopObj.toString(), TransitStop.class);
+                        nearestStop = navData.getNearestStop();
+                        if (nearestStop != null) {
                             Log.d(TAG, "✅ Nearest stop parsed: " + nearestStop.getName());
                         } else {
                             Log.w(TAG, "⚠️ No nearest_stop in response");
@@ -235,7 +235,7 @@ public class NavigateActivity extends AppCompatActivity {
 
             mainHandler.postDelayed(() -> {
                 try {
-                    DirectionsResponse directions = gson.fromJson(directionsJson, DirectionsResponse.class);
+                    DirectionsResponse directions = ModelAdapters.DIRECTIONS.fromJson(directionsJson);
 
                     if (directions != null && directions.getSteps() != null && !directions.getSteps().isEmpty()) {
                         Log.d(TAG, "📍 Starting navigation with " + directions.getSteps().size() + " steps");
@@ -284,7 +284,7 @@ public class NavigateActivity extends AppCompatActivity {
     }
 
     private void initializeHelpers() {
-        ttsHelper = new TtsHelper(this);
+        ttsHelper = new TtsHelper(this, SpeechScheduler.Priority.NAVIGATION);
 
         // Voice Command Helper
         voiceCommandHelper = new VoiceCommandHelper(this);
@@ -469,7 +469,7 @@ public class NavigateActivity extends AppCompatActivity {
         try {
             Log.d(TAG, "📦 RAW Response: " + jsonResponse);
 
-            VoiceResponse response = gson.fromJson(jsonResponse, VoiceResponse.class);
+            VoiceResponse response = ModelAdapters.VOICE_RESPONSE.fromJson(jsonResponse);
 
             if (response == null) {
                 Log.e(TAG, "❌ Response is NULL");
@@ -734,6 +734,8 @@ public class NavigateActivity extends AppCompatActivity {
         }
 
         ttsHelper.speak(announcement);
+        prefetchedStep = -1;
+        prefetchSteps(0);
 
         // Connect to navigation WebSocket
         navigationHelper = new NavigationHelper(NAVIGATION_WS_URL, sessionId);
@@ -746,7 +748,7 @@ public class NavigateActivity extends AppCompatActivity {
             @Override
             public void onNavigationComplete() {
                 Log.d(TAG, "✅ Navigation complete!");
-                ttsHelper.speak("You have arrived at your destination");
+                ttsHelper.speak(ARRIVED);
                 triggerArrivalCelebration();
                 stopNavigation();
             }
@@ -788,6 +790,26 @@ public class NavigateActivity extends AppCompatActivity {
         updateArrowForInstruction(instruction);
     }
 
+    /**
+     * Have the instructions of the next PREFETCH_STEPS steps (and the arrival) synthesized
+     * while the user walks, once per step.
+     */
+    private void prefetchSteps(int fromStep) {
+        if (currentDirections == null || currentDirections.getSteps() == null || fromStep <= prefetchedStep) {
+            return;
+        }
+        prefetchedStep = fromStep;
+
+        List<String> texts = new ArrayList<>();
+        List<NavigationStep> steps = currentDirections.getSteps();
+        for (int i = Math.max(fromStep, 0); i < steps.size() && i < fromStep + PREFETCH_STEPS; i++) {
+            String instruction = steps.get(i).getInstruction();
+            if (instruction != null) texts.add(instruction);
+        }
+        texts.add(ARRIVED);
+        SpeechScheduler.get(this).prefetch(texts);
+    }
+
     private void updateAROverlay(NavigationUpdate update) {
         mainHandler.post(() -> {
             // Safely set instruction with null check
@@ -801,9 +823,12 @@ public class NavigateActivity extends AppCompatActivity {
             // Update arrow
             updateArrowForInstruction(instruction);
 
+            prefetchSteps(update.getCurrentStep());
+
             // Voice announcement
             if (update.isShouldAnnounce() && update.getAnnouncement() != null) {
-                ttsHelper.speak(update.getAnnouncement());
+                // A newer update replaces one that has not been spoken yet
+                ttsHelper.speak(update.getAnnouncement(), "navigation_update");
             }
 
             // Trigger haptic feedback for navigation cues
@@ -1261,7 +1286,7 @@ public class NavigateActivity extends AppCompatActivity {
             navigationHelper.cleanup();
         }
         if (ttsHelper != null) {
-            // ttsHelper.cleanup() if it has one
+            ttsHelper.shutdown();
         }
     }
 }
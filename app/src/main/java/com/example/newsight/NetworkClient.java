@@ -0,0 +1,260 @@
+package com.example.newsight;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dns;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * NetworkClient - The one OkHttpClient the whole app talks to the backend through.
+ *
+ * Every component derives its client from {@link #get()} with newBuilder(), changing only
+ * timeouts / ping interval. Derived clients share the dispatcher threads, the connection pool
+ * and the TLS session cache, so moving between activities reuses warm connections to the
+ * backend instead of handshaking again; HTTP calls to the same host are multiplexed over one
+ * HTTP/2 connection when the server negotiates it.
+ *
+ * DNS answers are cached for DNS_TTL_MS (and served stale if a refresh fails, which on a
+ * flaky mobile link is better than failing the call). Connection-level metrics - new vs
+ * reused connections and TCP+TLS handshake time - are kept in {@link Metrics}.
+ */
+public final class NetworkClient {
+
+    private static final String TAG = "NetworkClient";
+
+    static final long DNS_TTL_MS = 5 * 60 * 1000;
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private static volatile OkHttpClient client;
+    private static final Metrics metrics = new Metrics();
+
+    private NetworkClient() {}
+
+    /** The shared base client. Derive from it with newBuilder() rather than building a new one. */
+    @NonNull
+    public static OkHttpClient get() {
+        OkHttpClient c = client;
+        if (c == null) {
+            synchronized (NetworkClient.class) {
+                c = client;
+                if (c == null) {
+                    c = new OkHttpClient.Builder()
+                            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS,
+                                    KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                            .dns(new CachingDns(Dns.SYSTEM, DNS_TTL_MS, System::currentTimeMillis))
+                            .eventListenerFactory(call -> new MetricsListener())
+                            .connectTimeout(10, TimeUnit.SECONDS)
+                            .retryOnConnectionFailure(true)
+                            .build();
+                    client = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    @NonNull
+    public static Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Whether a refused WebSocket upgrade means the endpoint does not exist (404) or will never
+     * upgrade (426). Anything else - a 502/503 while the server starts, say - is worth retrying.
+     */
+    public static boolean isMissingEndpoint(int code) {
+        return code == 404 || code == 426;
+    }
+
+    // ---------- Metrics ----------
+
+    /** Process-wide connection counters. */
+    public static class Metrics {
+        private final AtomicInteger newConnections = new AtomicInteger();
+        private final AtomicInteger reusedConnections = new AtomicInteger();
+        private final AtomicInteger failedConnections = new AtomicInteger();
+        private final AtomicLong totalConnectMs = new AtomicLong();
+        private final AtomicLong totalTlsMs = new AtomicLong();
+        private volatile long lastConnectMs = 0;
+        private volatile long lastTlsMs = 0;
+
+        /** Connections that needed a TCP (and maybe TLS) handshake. */
+        public int getNewConnections() {
+            return newConnections.get();
+        }
+
+        /** Calls served by an already-open pooled connection. */
+        public int getReusedConnections() {
+            return reusedConnections.get();
+        }
+
+        public int getFailedConnections() {
+            return failedConnections.get();
+        }
+
+        /** Average TCP + TLS setup time of new connections. */
+        public long getAvgConnectMs() {
+            int n = newConnections.get();
+            return n == 0 ? 0 : totalConnectMs.get() / n;
+        }
+
+        /** Average TLS handshake time of new connections. */
+        public long getAvgTlsMs() {
+            int n = newConnections.get();
+            return n == 0 ? 0 : totalTlsMs.get() / n;
+        }
+
+        public long getLastConnectMs() {
+            return lastConnectMs;
+        }
+
+        public long getLastTlsMs() {
+            return lastTlsMs;
+        }
+
+        void onNewConnection(long connectMs, long tlsMs) {
+            newConnections.incrementAndGet();
+            totalConnectMs.addAndGet(connectMs);
+            totalTlsMs.addAndGet(tlsMs);
+            lastConnectMs = connectMs;
+            lastTlsMs = tlsMs;
+        }
+
+        void onReusedConnection() {
+            reusedConnections.incrementAndGet();
+        }
+
+        void onFailedConnection() {
+            failedConnections.incrementAndGet();
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "new=" + getNewConnections()
+                    + " reused=" + getReusedConnections()
+                    + " failed=" + getFailedConnections()
+                    + " avgConnect=" + getAvgConnectMs() + "ms"
+                    + " avgTls=" + getAvgTlsMs() + "ms";
+        }
+    }
+
+    /** One per call: times the connect / TLS phases and tells new connections from reused ones. */
+    private static class MetricsListener extends EventListener {
+        private long connectStartMs = -1;
+        private long tlsStartMs = -1;
+        private long tlsMs = 0;
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress address,
+                                 @NonNull Proxy proxy) {
+            connectStartMs = System.currentTimeMillis();
+        }
+
+        @Override
+        public void secureConnectStart(@NonNull Call call) {
+            tlsStartMs = System.currentTimeMillis();
+        }
+
+        @Override
+        public void secureConnectEnd(@NonNull Call call, @Nullable Handshake handshake) {
+            if (tlsStartMs >= 0) {
+                tlsMs = System.currentTimeMillis() - tlsStartMs;
+            }
+        }
+
+        @Override
+        public void connectFailed(@NonNull Call call, @NonNull InetSocketAddress address,
+                                  @NonNull Proxy proxy, @Nullable Protocol protocol,
+                                  @NonNull IOException e) {
+            metrics.onFailedConnection();
+            connectStartMs = -1;
+        }
+
+        @Override
+        public void connectionAcquired(@NonNull Call call, @NonNull Connection connection) {
+            if (connectStartMs < 0) {
+                metrics.onReusedConnection();
+                return;
+            }
+            long connectMs = System.currentTimeMillis() - connectStartMs;
+            metrics.onNewConnection(connectMs, tlsMs);
+            connectStartMs = -1;
+            Log.d(TAG, "New " + connection.protocol() + " connection in " + connectMs
+                    + "ms (TLS " + tlsMs + "ms) | " + metrics);
+        }
+    }
+
+    // ---------- DNS ----------
+
+    /** Positive DNS cache in front of another resolver; stale answers cover for failed refreshes. */
+    static class CachingDns implements Dns {
+        private static class Entry {
+            final List<InetAddress> addresses;
+            final long expiresAtMs;
+
+            Entry(List<InetAddress> addresses, long expiresAtMs) {
+                this.addresses = addresses;
+                this.expiresAtMs = expiresAtMs;
+            }
+        }
+
+        private final Dns delegate;
+        private final long ttlMs;
+        private final LongSupplier clock;
+        private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+        CachingDns(Dns delegate, long ttlMs, LongSupplier clock) {
+            this.delegate = delegate;
+            this.ttlMs = ttlMs;
+            this.clock = clock;
+        }
+
+        @NonNull
+        @Override
+        public List<InetAddress> lookup(@NonNull String hostname) throws UnknownHostException {
+            long now = clock.getAsLong();
+            Entry entry = cache.get(hostname);
+            if (entry != null && now < entry.expiresAtMs) {
+                return entry.addresses;
+            }
+
+            List<InetAddress> addresses;
+            try {
+                addresses = delegate.lookup(hostname);
+            } catch (UnknownHostException e) {
+                if (entry != null) return entry.addresses;
+                throw e;
+            }
+            if (addresses != null && !addresses.isEmpty()) {
+                cache.put(hostname, new Entry(addresses, now + ttlMs));
+            }
+            return addresses;
+        }
+    }
+}
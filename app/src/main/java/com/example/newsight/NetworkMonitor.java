@@ -0,0 +1,77 @@
+package com.example.newsight;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * NetworkMonitor - Process-wide view of whether the device has a usable network.
+ *
+ * Registered once from NewSightApplication with the default-network callback. Reconnectors
+ * use it to stop retrying while there is no network at all, and to reconnect the moment one
+ * comes back instead of waiting out their backoff.
+ *
+ * Before init() (e.g. in unit tests) the network is assumed to be available.
+ */
+public final class NetworkMonitor {
+
+    private static final String TAG = "NetworkMonitor";
+
+    public interface Listener {
+        /** A network became available; called on a ConnectivityManager thread. */
+        void onNetworkAvailable();
+    }
+
+    private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static volatile boolean available = true;
+    private static boolean initialized = false;
+
+    private NetworkMonitor() {}
+
+    public static synchronized void init(@NonNull Context context) {
+        if (initialized) return;
+        ConnectivityManager cm = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return;
+        initialized = true;
+
+        available = cm.getActiveNetwork() != null;
+        try {
+            cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    boolean wasAvailable = available;
+                    available = true;
+                    if (!wasAvailable) Log.i(TAG, "Network available");
+                    for (Listener l : listeners) l.onNetworkAvailable();
+                }
+
+                @Override
+                public void onLost(@NonNull Network network) {
+                    available = false;
+                    Log.i(TAG, "Network lost");
+                }
+            });
+        } catch (SecurityException e) {
+            Log.e(TAG, "Cannot watch network state", e);
+            available = true;
+        }
+    }
+
+    public static boolean isAvailable() {
+        return available;
+    }
+
+    public static void addListener(@NonNull Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public static void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+}
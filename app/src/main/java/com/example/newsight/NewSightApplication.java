@@ -0,0 +1,28 @@
+package com.example.newsight;
+
+import android.app.Application;
+
+import java.util.Arrays;
+
+/**
+ * NewSightApplication - Process-wide setup that has to happen before any activity runs.
+ */
+public class NewSightApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Reconnectors pause while offline and retry as soon as a network is back
+        NetworkMonitor.init(this);
+        // Start the shared TTS engine now so the first screen doesn't wait for it
+        SpeechScheduler speech = SpeechScheduler.get(this);
+        // Fixed prompts are synthesized to clips in the background, most urgent first, and
+        // pinned so the obstacle and navigation phrases can never push them out
+        speech.prefetch(Arrays.asList(
+                VoiceCommandHelper.GREETING,
+                VoiceCommandHelper.PROCESSING,
+                EmergencyActivity.ALERT_SENT,
+                NavigateActivity.ARRIVED), true);
+        speech.prefetch(OverlayView.commonAnnouncements());
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.newsight;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Nv21Converter - Converts YUV_420_888 planes into an NV21 byte array.
+ *
+ * Works on the raw plane buffers and strides (not android.media.Image) so it can run and be
+ * benchmarked on the JVM. Copies are done row-by-row with bulk ByteBuffer.get(byte[], off, len);
+ * scratch rows are kept between calls, so steady-state conversion allocates nothing.
+ *
+ * {@link #convertScaled} samples the planes straight to a smaller target size, reading only the
+ * source rows it needs, so a 1080p frame headed for 640x480 is never copied in full.
+ *
+ * {@link #scale} and {@link #rotate} resize and turn an NV21 frame upright before JPEG encoding,
+ * so each frame is encoded exactly once instead of encode -> decode -> rotate -> re-encode.
+ *
+ * Not thread-safe: use one instance per analyzer thread.
+ */
+public class Nv21Converter {
+
+    private byte[] uRow = new byte[0];
+    private byte[] vRow = new byte[0];
+    private final YuvRowReader rowReader = new YuvRowReader();
+    private final InterleaveCache interleave = new InterleaveCache();
+
+    // Nearest-neighbour column maps for scale()/convertScaled(), rebuilt only when sizes change
+    private int[] xMap = new int[0];
+    private int[] uvXMap = new int[0];
+    private int mapSrcWidth = -1;
+    private int mapDstWidth = -1;
+
+    /** Size of the NV21 output for the given frame size. */
+    public static int nv21Size(int width, int height) {
+        return width * height * 3 / 2;
+    }
+
+    /**
+     * Fill {@code out} (at least nv21Size(width, height) bytes) with NV21 data.
+     * Buffer positions are used for the copies and reset to 0 afterwards.
+     */
+    public void convert(@NonNull ByteBuffer yBuffer, int yRowStride,
+                        @NonNull ByteBuffer uBuffer, @NonNull ByteBuffer vBuffer,
+                        int uvRowStride, int uvPixelStride,
+                        int width, int height, @NonNull byte[] out) {
+        copyLuma(yBuffer, yRowStride, width, height, out);
+
+        int uvWidth = width / 2;
+        int uvHeight = height / 2;
+        int uvOffset = width * height;
+
+        if (uvPixelStride == 2 && interleave.isInterleavedNv21(uBuffer, vBuffer, uvWidth, uvHeight, uvRowStride)) {
+            copyInterleavedChroma(uBuffer, vBuffer, uvRowStride, uvWidth, uvHeight, out, uvOffset);
+        } else {
+            copyPlanarChroma(uBuffer, vBuffer, uvRowStride, uvPixelStride, uvWidth, uvHeight, out, uvOffset);
+        }
+
+        yBuffer.position(0);
+        uBuffer.position(0);
+        vBuffer.position(0);
+    }
+
+    /**
+     * Downscale-first conversion: nearest-neighbour sample the planes directly into a
+     * dstWidth x dstHeight NV21 frame (sizes even, no larger than the source).
+     */
+    public void convertScaled(@NonNull ByteBuffer yBuffer, int yRowStride,
+                              @NonNull ByteBuffer uBuffer, @NonNull ByteBuffer vBuffer,
+                              int uvRowStride, int uvPixelStride,
+                              int width, int height,
+                              @NonNull byte[] out, int dstWidth, int dstHeight) {
+        ensureMaps(width, dstWidth);
+
+        int d = 0;
+        for (int y = 0; y < dstHeight; y++) {
+            byte[] row = rowReader.luma(yBuffer, yRowStride, y * height / dstHeight, width);
+            for (int x = 0; x < dstWidth; x++) {
+                out[d++] = row[xMap[x]];
+            }
+        }
+
+        int uvWidth = width / 2;
+        int uvHeight = height / 2;
+        int uvDstWidth = dstWidth / 2;
+        int uvDstHeight = dstHeight / 2;
+        boolean interleaved = uvPixelStride == 2
+                && interleave.isInterleavedNv21(uBuffer, vBuffer, uvWidth, uvHeight, uvRowStride);
+        for (int y = 0; y < uvDstHeight; y++) {
+            byte[] row = rowReader.chromaVu(uBuffer, vBuffer, uvRowStride, uvPixelStride,
+                    interleaved, y * uvHeight / uvDstHeight, uvWidth);
+            for (int x = 0; x < uvDstWidth; x++) {
+                int s = uvXMap[x];
+                out[d++] = row[s];
+                out[d++] = row[s + 1];
+            }
+        }
+
+        yBuffer.position(0);
+        uBuffer.position(0);
+        vBuffer.position(0);
+    }
+
+    private void ensureMaps(int width, int dstWidth) {
+        if (width == mapSrcWidth && dstWidth == mapDstWidth) return;
+        int uvDstWidth = dstWidth / 2;
+        xMap = new int[dstWidth];
+        uvXMap = new int[uvDstWidth];
+        for (int x = 0; x < dstWidth; x++) xMap[x] = x * width / dstWidth;
+        for (int x = 0; x < uvDstWidth; x++) uvXMap[x] = 2 * (x * (width / 2) / uvDstWidth);
+        mapSrcWidth = width;
+        mapDstWidth = dstWidth;
+    }
+
+    private static void copyLuma(ByteBuffer yBuffer, int rowStride, int width, int height, byte[] out) {
+        if (rowStride == width) {
+            yBuffer.position(0);
+            yBuffer.get(out, 0, width * height);
+            return;
+        }
+        // Padded rows: skip the padding at the end of each row
+        for (int row = 0; row < height; row++) {
+            yBuffer.position(row * rowStride);
+            yBuffer.get(out, row * width, width);
+        }
+    }
+
+    /**
+     * Most devices back U and V with one VUVU... buffer where V starts one byte before U.
+     * We can't compare native addresses from Java, so probe it: write two different values
+     * to vBuffer[1] and check whether uBuffer[0] follows both. (A single value can match by
+     * chance, e.g. on UVUV devices in grey scenes where neighbouring U samples sum to 255.)
+     */
+    static boolean isInterleavedNv21(ByteBuffer uBuffer, ByteBuffer vBuffer,
+                                     int uvWidth, int uvHeight, int uvRowStride) {
+        if (vBuffer.isReadOnly() || vBuffer.limit() < 2 || uBuffer.limit() < 1) return false;
+        // Both planes must span the full interleaved rows
+        int expected = uvRowStride * (uvHeight - 1) + 2 * uvWidth - 1;
+        if (vBuffer.limit() < expected || uBuffer.limit() < expected) return false;
+
+        byte saved = vBuffer.get(1);
+        vBuffer.put(1, (byte) 0x00);
+        boolean aliased = uBuffer.get(0) == 0x00;
+        vBuffer.put(1, (byte) 0xFF);
+        aliased &= uBuffer.get(0) == (byte) 0xFF;
+        vBuffer.put(1, saved);
+        return aliased;
+    }
+
+    /**
+     * Remembers the probe's answer for a plane layout. Whether the HAL aliases U and V does
+     * not change while the stream does, so camera buffers are only written to when the
+     * layout (strides, sizes, buffer extents) changes, not on every frame.
+     */
+    static final class InterleaveCache {
+        private int rowStride = -1;
+        private int width = -1;
+        private int height = -1;
+        private int uLimit = -1;
+        private int vLimit = -1;
+        private boolean interleaved;
+
+        boolean isInterleavedNv21(ByteBuffer uBuffer, ByteBuffer vBuffer,
+                                  int uvWidth, int uvHeight, int uvRowStride) {
+            if (uvRowStride != rowStride || uvWidth != width || uvHeight != height
+                    || uBuffer.limit() != uLimit || vBuffer.limit() != vLimit) {
+                interleaved = Nv21Converter.isInterleavedNv21(uBuffer, vBuffer, uvWidth, uvHeight, uvRowStride);
+                rowStride = uvRowStride;
+                width = uvWidth;
+                height = uvHeight;
+                uLimit = uBuffer.limit();
+                vLimit = vBuffer.limit();
+            }
+            return interleaved;
+        }
+    }
+
+    /** Chroma is already VUVU...: copy it straight through, one memcpy per row at most. */
+    private static void copyInterleavedChroma(ByteBuffer uBuffer, ByteBuffer vBuffer, int rowStride,
+                                              int uvWidth, int uvHeight, byte[] out, int offset) {
+        int rowBytes = 2 * uvWidth;
+        int total = rowBytes * uvHeight;
+
+        if (rowStride == rowBytes) {
+            // Whole chroma block in one copy; the final U byte lies just past vBuffer's end
+            vBuffer.position(0);
+            vBuffer.get(out, offset, total - 1);
+            out[offset + total - 1] = uBuffer.get(total - 2);
+            return;
+        }
+
+        for (int row = 0; row < uvHeight; row++) {
+            int src = row * rowStride;
+            int dst = offset + row * rowBytes;
+            vBuffer.position(src);
+            vBuffer.get(out, dst, rowBytes - 1);
+            out[dst + rowBytes - 1] = uBuffer.get(src + rowBytes - 2);
+        }
+    }
+
+    /** Planar or non-aliased semi-planar chroma: bulk-read each row, then interleave as V,U. */
+    private void copyPlanarChroma(ByteBuffer uBuffer, ByteBuffer vBuffer, int rowStride, int pixelStride,
+                                  int uvWidth, int uvHeight, byte[] out, int offset) {
+        int rowLen = (uvWidth - 1) * pixelStride + 1;
+        if (uRow.length < rowLen) {
+            uRow = new byte[rowLen];
+            vRow = new byte[rowLen];
+        }
+
+        int pos = offset;
+        for (int row = 0; row < uvHeight; row++) {
+            int src = row * rowStride;
+            uBuffer.position(src);
+            uBuffer.get(uRow, 0, rowLen);
+            vBuffer.position(src);
+            vBuffer.get(vRow, 0, rowLen);
+
+            for (int col = 0, i = 0; col < uvWidth; col++, i += pixelStride) {
+                // NV21 format: VUVUVU... (V first, then U)
+                out[pos++] = vRow[i];
+                out[pos++] = uRow[i];
+            }
+        }
+    }
+
+    /**
+     * Nearest-neighbour downscale of an NV21 frame into {@code dst}
+     * (at least nv21Size(dstWidth, dstHeight) bytes). Sizes must be even.
+     */
+    public void scale(@NonNull byte[] src, int width, int height,
+                      @NonNull byte[] dst, int dstWidth, int dstHeight) {
+        int uvDstWidth = dstWidth / 2;
+        ensureMaps(width, dstWidth);
+
+        int d = 0;
+        for (int y = 0; y < dstHeight; y++) {
+            int row = (y * height / dstHeight) * width;
+            for (int x = 0; x < dstWidth; x++) {
+                dst[d++] = src[row + xMap[x]];
+            }
+        }
+
+        int ySize = width * height;
+        int uvHeight = height / 2;
+        int uvDstHeight = dstHeight / 2;
+        for (int y = 0; y < uvDstHeight; y++) {
+            int row = ySize + (y * uvHeight / uvDstHeight) * width;
+            for (int x = 0; x < uvDstWidth; x++) {
+                int s = row + uvXMap[x];
+                dst[d++] = src[s];
+                dst[d++] = src[s + 1];
+            }
+        }
+    }
+
+    /**
+     * Rotate an NV21 frame clockwise by 90, 180 or 270 degrees into {@code dst}
+     * (at least nv21Size(width, height) bytes). For 90/270 the output is height x width.
+     */
+    public static void rotate(@NonNull byte[] src, int width, int height, int degrees, @NonNull byte[] dst) {
+        int uvWidth = width / 2;
+        int uvHeight = height / 2;
+        int ySize = width * height;
+
+        switch (degrees) {
+            case 90:
+                // dst(x', y') = src(y', height - 1 - x'), dst is height wide
+                for (int dy = 0, d = 0; dy < width; dy++) {
+                    for (int dx = 0, s = (height - 1) * width + dy; dx < height; dx++, s -= width) {
+                        dst[d++] = src[s];
+                    }
+                }
+                for (int dy = 0, d = ySize; dy < uvWidth; dy++) {
+                    for (int dx = 0, s = ySize + (uvHeight - 1) * width + 2 * dy; dx < uvHeight; dx++, s -= width) {
+                        dst[d++] = src[s];
+                        dst[d++] = src[s + 1];
+                    }
+                }
+                break;
+
+            case 180:
+                for (int d = 0, s = ySize - 1; d < ySize; d++, s--) {
+                    dst[d] = src[s];
+                }
+                for (int d = ySize, s = ySize + ySize / 2 - 2; s >= ySize; d += 2, s -= 2) {
+                    dst[d] = src[s];
+                    dst[d + 1] = src[s + 1];
+                }
+                break;
+
+            case 270:
+                // dst(x', y') = src(width - 1 - y', x'), dst is height wide
+                for (int dy = 0, d = 0; dy < width; dy++) {
+                    for (int dx = 0, s = width - 1 - dy; dx < height; dx++, s += width) {
+                        dst[d++] = src[s];
+                    }
+                }
+                for (int dy = 0, d = ySize; dy < uvWidth; dy++) {
+                    for (int dx = 0, s = ySize + 2 * (uvWidth - 1 - dy); dx < uvHeight; dx++, s += width) {
+                        dst[d++] = src[s];
+                        dst[d++] = src[s + 1];
+                    }
+                }
+                break;
+
+            default:
+                System.arraycopy(src, 0, dst, 0, nv21Size(width, height));
+                break;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.example.newsight;
+
+import android.graphics.RectF;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * ObjectTracker - SORT-style multi-object tracking over per-frame detections.
+ *
+ * Each track runs a constant-velocity Kalman filter on its box (center x/y, width, height, as
+ * four independent position/velocity filters) in normalized [0,1] coordinates, so tracks
+ * survive the detector switching between cloud and on-device input sizes. On every update
+ * the tracks are predicted to the new timestamp, matched to detections by IoU with the
+ * Hungarian algorithm, and corrected with their matched box. Matching ignores class labels
+ * (the detector may flip "car" / "truck" between frames); a track takes its latest label.
+ *
+ * A track is confirmed after MIN_HITS matches and dropped after MAX_MISSES updates without
+ * one (immediately, if it was never confirmed) or MAX_COAST_MS without a match. IDs are
+ * never reused, so callers can key announcements and haptics off them.
+ *
+ * Tracks, the cost matrix and the assignment buffers are preallocated; update() allocates
+ * nothing. Not thread-safe: call it from the thread that delivers results.
+ */
+public class ObjectTracker {
+
+    static final int MAX_TRACKS = 32;
+    static final float IOU_THRESHOLD = 0.3f;
+    static final int MIN_HITS = 2;
+    static final int MAX_MISSES = 3;
+    static final long MAX_COAST_MS = 1000;
+    static final float APPROACH_RATE = 0.25f;   // box area growing 25%/s
+
+    // Noise in normalized units: ~2% box jitter, accelerations of ~0.2 frame/s^2
+    private static final float MEASUREMENT_VAR = 0.02f * 0.02f;
+    private static final float ACCEL_VAR = 0.05f;
+    private static final float INITIAL_VELOCITY_VAR = 1f;
+    private static final float MAX_SPEED = 2f;   // frames per second
+    private static final float MIN_SIZE = 1e-3f;
+
+    private static final int CX = 0, CY = 1, W = 2, H = 3;
+
+    public static class Track {
+        int id;
+        String label;
+        float score;
+        int hits;
+        int misses;
+        long lastUpdateMs;
+        long timestampMs;
+        boolean confirmed;
+        boolean confirmedNow;
+        boolean approaching;
+        boolean approachingNow;
+
+        // Per coordinate (cx, cy, w, h): position, velocity (per second) and covariance
+        final float[] x = new float[4];
+        final float[] v = new float[4];
+        final float[] p00 = new float[4];
+        final float[] p01 = new float[4];
+        final float[] p11 = new float[4];
+
+        public int getId() {
+            return id;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public float getScore() {
+            return score;
+        }
+
+        /** Matched often enough to be reported / announced. */
+        public boolean isConfirmed() {
+            return confirmed;
+        }
+
+        /** Became confirmed in the latest update. */
+        public boolean isNew() {
+            return confirmedNow;
+        }
+
+        /** Its box is growing by more than APPROACH_RATE per second. */
+        public boolean isApproaching() {
+            return approaching;
+        }
+
+        /** Started approaching in the latest update (after having been confirmed). */
+        public boolean startedApproaching() {
+            return approachingNow;
+        }
+
+        /** Matched in the latest update (otherwise it is coasting on its prediction). */
+        public boolean isMatched() {
+            return misses == 0;
+        }
+
+        /** Filtered box, normalized [0,1], as of the latest update. */
+        public void getBox(@NonNull RectF out) {
+            out.set(x[CX] - x[W] / 2, x[CY] - x[H] / 2, x[CX] + x[W] / 2, x[CY] + x[H] / 2);
+        }
+
+        /** Box velocity in normalized units per second: left, top, right, bottom edges. */
+        public void getVelocity(@NonNull RectF out) {
+            out.set(v[CX] - v[W] / 2, v[CY] - v[H] / 2, v[CX] + v[W] / 2, v[CY] + v[H] / 2);
+        }
+
+        /**
+         * Box extrapolated at constant velocity to {@code timestampMs} (e.g. display time, when
+         * the detections describe a frame captured a round trip ago), normalized.
+         */
+        public void getBoxAt(long timestampMs, @NonNull RectF out) {
+            float dt = Math.max(0, timestampMs - this.timestampMs) / 1000f;
+            float cx = x[CX] + v[CX] * dt;
+            float cy = x[CY] + v[CY] * dt;
+            float w = Math.max(x[W] + v[W] * dt, MIN_SIZE);
+            float h = Math.max(x[H] + v[H] * dt, MIN_SIZE);
+            out.set(cx - w / 2, cy - h / 2, cx + w / 2, cy + h / 2);
+        }
+
+        /** When the box was last predicted or corrected. */
+        public long getTimestampMs() {
+            return timestampMs;
+        }
+
+        /** Fraction of the frame covered. */
+        public float getArea() {
+            return x[W] * x[H];
+        }
+
+        /** Horizontal center, 0 (left edge) .. 1 (right edge). */
+        public float getCenterX() {
+            return x[CX];
+        }
+    }
+
+    private final Track[] tracks = new Track[MAX_TRACKS];
+    private int trackCount = 0;
+    private int nextId = 1;
+
+    // Detections of the current update, normalized as left/top/right/bottom
+    private final float[][] detBoxes = new float[MAX_TRACKS][4];
+    private final String[] detLabels = new String[MAX_TRACKS];
+    private final float[] detScores = new float[MAX_TRACKS];
+    private final boolean[] detMatched = new boolean[MAX_TRACKS];
+    private final int[] trackMatch = new int[MAX_TRACKS];
+
+    private final Hungarian hungarian = new Hungarian(MAX_TRACKS);
+    private final RectF scratch = new RectF();
+    private final float[] measured = new float[4];
+
+    public ObjectTracker() {
+        for (int i = 0; i < MAX_TRACKS; i++) tracks[i] = new Track();
+    }
+
+    /** Live tracks, confirmed or not; valid until the next update(). */
+    public int size() {
+        return trackCount;
+    }
+
+    public Track get(int index) {
+        return tracks[index];
+    }
+
+    public void reset() {
+        trackCount = 0;
+    }
+
+    /**
+     * Advance to {@code timestampMs} and fold in one frame of detections (normalized boxes).
+     * Detections beyond MAX_TRACKS are ignored.
+     */
+    public void update(@Nullable List<CloudDetectionModels.BackendDetection> detections, long timestampMs) {
+        int detCount = 0;
+        if (detections != null) {
+            for (int i = 0; i < detections.size() && detCount < MAX_TRACKS; i++) {
+                CloudDetectionModels.BackendDetection d = detections.get(i);
+                CloudDetectionModels.BBox b = d.bbox;
+                if (b == null || b.x_max <= b.x_min || b.y_max <= b.y_min) continue;
+                float[] box = detBoxes[detCount];
+                box[0] = b.x_min;
+                box[1] = b.y_min;
+                box[2] = b.x_max;
+                box[3] = b.y_max;
+                detLabels[detCount] = d.cls != null ? d.cls : "obj";
+                detScores[detCount] = d.confidence;
+                detMatched[detCount] = false;
+                detCount++;
+            }
+        }
+
+        for (int t = 0; t < trackCount; t++) {
+            Track track = tracks[t];
+            track.confirmedNow = false;
+            track.approachingNow = false;
+            predict(track, timestampMs);
+        }
+
+        match(detCount);
+
+        for (int t = 0; t < trackCount; t++) {
+            Track track = tracks[t];
+            int d = trackMatch[t];
+            if (d >= 0) {
+                correct(track, detBoxes[d]);
+                track.label = detLabels[d];
+                track.score = detScores[d];
+                track.hits++;
+                track.misses = 0;
+                track.lastUpdateMs = timestampMs;
+                if (!track.confirmed && track.hits >= MIN_HITS) {
+                    track.confirmed = true;
+                    track.confirmedNow = true;
+                }
+            } else {
+                track.misses++;
+            }
+            boolean approaching = growthRate(track) > APPROACH_RATE;
+            track.approachingNow = approaching && !track.approaching && track.confirmed && !track.confirmedNow;
+            track.approaching = approaching;
+        }
+
+        removeLost(timestampMs);
+
+        for (int d = 0; d < detCount && trackCount < MAX_TRACKS; d++) {
+            if (!detMatched[d]) start(detBoxes[d], detLabels[d], detScores[d], timestampMs);
+        }
+    }
+
+    private void match(int detCount) {
+        for (int t = 0; t < trackCount; t++) trackMatch[t] = -1;
+        if (trackCount == 0 || detCount == 0) return;
+
+        int n = Math.max(trackCount, detCount);
+        float[][] cost = hungarian.cost;
+        for (int t = 0; t < n; t++) {
+            if (t < trackCount) tracks[t].getBox(scratch);
+            for (int d = 0; d < n; d++) {
+                cost[t][d] = t < trackCount && d < detCount ? 1f - iou(scratch, detBoxes[d]) : 1f;
+            }
+        }
+        int[] assignment = hungarian.solve(n);
+        for (int t = 0; t < trackCount; t++) {
+            int d = assignment[t];
+            if (d < detCount && 1f - cost[t][d] >= IOU_THRESHOLD) {
+                trackMatch[t] = d;
+                detMatched[d] = true;
+            }
+        }
+    }
+
+    private void removeLost(long timestampMs) {
+        int kept = 0;
+        for (int t = 0; t < trackCount; t++) {
+            Track track = tracks[t];
+            boolean lost = track.misses > 0 && !track.confirmed
+                    || track.misses > MAX_MISSES
+                    || timestampMs - track.lastUpdateMs > MAX_COAST_MS;
+            if (lost) continue;
+            // Swap so the dropped Track object stays in the pool past trackCount
+            tracks[t] = tracks[kept];
+            tracks[kept++] = track;
+        }
+        trackCount = kept;
+    }
+
+    private void start(float[] box, String label, float score, long timestampMs) {
+        Track track = tracks[trackCount++];
+        track.id = nextId++;
+        track.label = label;
+        track.score = score;
+        track.hits = 1;
+        track.misses = 0;
+        track.lastUpdateMs = timestampMs;
+        track.timestampMs = timestampMs;
+        track.confirmed = false;
+        track.confirmedNow = false;
+        track.approaching = false;
+        track.approachingNow = false;
+        measure(box);
+        for (int i = 0; i < 4; i++) {
+            track.x[i] = measured[i];
+            track.v[i] = 0f;
+            track.p00[i] = MEASUREMENT_VAR;
+            track.p01[i] = 0f;
+            track.p11[i] = INITIAL_VELOCITY_VAR;
+        }
+    }
+
+    private static void predict(Track track, long timestampMs) {
+        float dt = (timestampMs - track.timestampMs) / 1000f;
+        track.timestampMs = timestampMs;
+        if (dt <= 0f) return;
+        float dt2 = dt * dt;
+        for (int i = 0; i < 4; i++) {
+            track.x[i] += track.v[i] * dt;
+            float p00 = track.p00[i], p01 = track.p01[i], p11 = track.p11[i];
+            track.p00[i] = p00 + dt * (2 * p01 + dt * p11) + ACCEL_VAR * dt2 * dt / 3;
+            track.p01[i] = p01 + dt * p11 + ACCEL_VAR * dt2 / 2;
+            track.p11[i] = p11 + ACCEL_VAR * dt;
+        }
+        track.x[W] = Math.max(track.x[W], MIN_SIZE);
+        track.x[H] = Math.max(track.x[H], MIN_SIZE);
+    }
+
+    private void measure(float[] box) {
+        measured[CX] = (box[0] + box[2]) / 2;
+        measured[CY] = (box[1] + box[3]) / 2;
+        measured[W] = box[2] - box[0];
+        measured[H] = box[3] - box[1];
+    }
+
+    private void correct(Track track, float[] box) {
+        measure(box);
+        for (int i = 0; i < 4; i++) {
+            float p00 = track.p00[i], p01 = track.p01[i], p11 = track.p11[i];
+            float s = p00 + MEASUREMENT_VAR;
+            float k0 = p00 / s;
+            float k1 = p01 / s;
+            float residual = measured[i] - track.x[i];
+            track.x[i] += k0 * residual;
+            track.v[i] = Math.max(-MAX_SPEED, Math.min(MAX_SPEED, track.v[i] + k1 * residual));
+            track.p00[i] = (1 - k0) * p00;
+            track.p01[i] = (1 - k0) * p01;
+            track.p11[i] = p11 - k1 * p01;
+        }
+    }
+
+    /** Relative growth of the box area per second. */
+    private static float growthRate(Track track) {
+        return track.v[W] / Math.max(track.x[W], MIN_SIZE) + track.v[H] / Math.max(track.x[H], MIN_SIZE);
+    }
+
+    static float iou(RectF a, float[] b) {
+        float w = Math.min(a.right, b[2]) - Math.max(a.left, b[0]);
+        float h = Math.min(a.bottom, b[3]) - Math.max(a.top, b[1]);
+        if (w <= 0f || h <= 0f) return 0f;
+        float inter = w * h;
+        float union = (a.right - a.left) * (a.bottom - a.top) + (b[2] - b[0]) * (b[3] - b[1]) - inter;
+        return union > 0f ? inter / union : 0f;
+    }
+
+    /**
+     * Minimum-cost assignment on an n x n matrix (Kuhn-Munkres with potentials, O(n^3)),
+     * on buffers sized once for the largest n.
+     */
+    static class Hungarian {
+        final float[][] cost;
+        private final float[] u, v, minv;
+        private final int[] p, way, assignment;
+        private final boolean[] used;
+
+        Hungarian(int capacity) {
+            cost = new float[capacity][capacity];
+            u = new float[capacity + 1];
+            v = new float[capacity + 1];
+            minv = new float[capacity + 1];
+            p = new int[capacity + 1];
+            way = new int[capacity + 1];
+            used = new boolean[capacity + 1];
+            assignment = new int[capacity];
+        }
+
+        /** @return for each row of cost[0..n)[0..n), the column assigned to it (valid until the next call) */
+        int[] solve(int n) {
+            for (int i = 0; i <= n; i++) {
+                u[i] = 0f;
+                v[i] = 0f;
+                p[i] = 0;
+                way[i] = 0;
+            }
+            for (int i = 1; i <= n; i++) {
+                p[0] = i;
+                int j0 = 0;
+                for (int j = 0; j <= n; j++) {
+                    minv[j] = Float.MAX_VALUE;
+                    used[j] = false;
+                }
+                do {
+                    used[j0] = true;
+                    int i0 = p[j0];
+                    int j1 = 0;
+                    float delta = Float.MAX_VALUE;
+                    for (int j = 1; j <= n; j++) {
+                        if (used[j]) continue;
+                        float cur = cost[i0 - 1][j - 1] - u[i0] - v[j];
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                    for (int j = 0; j <= n; j++) {
+                        if (used[j]) {
+                            u[p[j]] += delta;
+                            v[j] -= delta;
+                        } else {
+                            minv[j] -= delta;
+                        }
+                    }
+                    j0 = j1;
+                } while (p[j0] != 0);
+                do {
+                    int j1 = way[j0];
+                    p[j0] = p[j1];
+                    j0 = j1;
+                } while (j0 != 0);
+            }
+            for (int j = 1; j <= n; j++) {
+                if (p[j] != 0) assignment[p[j] - 1] = j - 1;
+            }
+            return assignment;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ActivityInfo;
 import android.content.pm.PackageManager;
+import android.hardware.SensorManager;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Vibrator;
@@ -19,6 +20,7 @@ import com.example.newsight.models.VoiceResponse;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.Camera;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.Preview;
@@ -42,6 +44,8 @@ public class ObstacleActivity extends AppCompatActivity {
     private OverlayView overlayView;
     private VoiceCommandHelper voiceCommandHelper;
     private TtsHelper ttsHelper;
+    private HybridDetectorProcessor detector;
+    private CameraMotion cameraMotion;
     private String sessionId;
     private com.example.newsight.helpers.LocationHelper locationHelper;
     private com.example.newsight.helpers.LocationWebSocketHelper locationWebSocketHelper;
@@ -64,11 +68,21 @@ public class ObstacleActivity extends AppCompatActivity {
         voiceCommandHelper = new VoiceCommandHelper(this);
         voiceCommandHelper.setSessionId(sessionId);
         ttsHelper = new TtsHelper(this);
-        overlayView.setTtsHelper(ttsHelper);
+        // Obstacle announcements interrupt anything else being said
+        overlayView.setTtsHelper(new TtsHelper(this, SpeechScheduler.Priority.SAFETY));
 
         // Initialize haptic feedback
         initializeHapticFeedback();
 
+        // Follow the camera's turning so boxes stay on their objects between results
+        cameraMotion = new CameraMotion((SensorManager) getSystemService(Context.SENSOR_SERVICE),
+                getWindowManager().getDefaultDisplay());
+        if (cameraMotion.isAvailable()) {
+            overlayView.setCameraMotion(cameraMotion);
+        } else {
+            Log.w(TAG, "No gyroscope; boxes follow track velocities only");
+        }
+
         setupVoiceCommands();
         setupBottomNavigation();
 
@@ -166,7 +180,8 @@ public class ObstacleActivity extends AppCompatActivity {
                 .build();
 
         try {
-            CloudDetectorProcessor detector = new CloudDetectorProcessor(this, overlayView);
+            if (detector != null) detector.close();
+            detector = new HybridDetectorProcessor(this, overlayView);
             imageAnalysis.setAnalyzer(Executors.newSingleThreadExecutor(), detector);
         } catch (Exception e) {
             Log.e(TAG, "Could not initialize detector.", e);
@@ -176,7 +191,8 @@ public class ObstacleActivity extends AppCompatActivity {
 
         CameraSelector cameraSelector = CameraSelector.DEFAULT_BACK_CAMERA;
 
-        cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+        Camera camera = cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageAnalysis);
+        FrameConverter.useTimestampSourceOf(camera);
     }
 
     @Override
@@ -289,6 +305,9 @@ public class ObstacleActivity extends AppCompatActivity {
         if (voiceCommandHelper != null) {
             voiceCommandHelper.stopListening();
         }
+        if (cameraMotion != null) {
+            cameraMotion.stop();
+        }
     }
 
     @Override
@@ -297,6 +316,9 @@ public class ObstacleActivity extends AppCompatActivity {
         if (voiceCommandHelper != null && checkMicrophonePermission()) {
             voiceCommandHelper.startWakeWordDetection();
         }
+        if (cameraMotion != null) {
+            cameraMotion.start();
+        }
     }
 
     @Override
@@ -311,6 +333,9 @@ public class ObstacleActivity extends AppCompatActivity {
         if (locationWebSocketHelper != null) {
             locationWebSocketHelper.cleanup();
         }
+        if (detector != null) {
+            detector.close();
+        }
     }
 
     private void navigateToOtherFeature(String feature, JSONObject extractedParams) {
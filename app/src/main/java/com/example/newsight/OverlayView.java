@@ -6,6 +6,7 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.RectF;
 import android.os.Build;
+import android.os.SystemClock;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.util.AttributeSet;
@@ -13,21 +14,79 @@ import android.util.Log;
 import android.view.View;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Draws detection boxes, the scene summary and an FPS / latency HUD over the camera preview.
+ *
+ * Detection state lives in three preallocated Frames: the producer (setBackendResults) fills
+ * its back frame and swaps it into the ready slot atomically, and onDraw swaps the ready frame
+ * in as its front frame when there is a new one. Neither side ever waits on the other, and a
+ * frame is never written while it is being drawn. Boxes and their RectFs are pooled per frame,
+ * label widths are measured once per class name and the HUD text is formatted into a reused
+ * buffer, so neither path allocates once the pools have grown to the busiest scene seen.
+ *
+ * Detections go through an ObjectTracker first: what is drawn are the tracks' Kalman-filtered
+ * boxes, haptics follow confirmed tracks, and speech announces a track once when it is
+ * confirmed ("car approaching on your left") or starts approaching, instead of re-reading the
+ * backend summary every time its wording changes.
+ *
+ * Results describe the frame they were computed from, which for cloud detection was captured
+ * a round trip earlier. Each frame keeps its capture time and each box its track's velocity,
+ * so onDraw extrapolates the boxes to the moment they are drawn (up to MAX_EXTRAPOLATION_MS)
+ * and keeps redrawing while they move. With a CameraMotion, the camera's own turning since
+ * capture is taken from the gyroscope rather than from the tracks. Proximity haptics use the
+ * same prediction.
+ */
 public class OverlayView extends View {
 
     private static final String TAG = "OverlayView";
 
+    private static final float BAR_HEIGHT = 60f;
+    private static final float TEXT_MARGIN = 8f;
+    private static final float HUD_PADDING = 10f;
+    private static final float HUD_HEIGHT = 40f;
+
+    // Boxes are not moved further ahead than this past their capture time
+    static final long MAX_EXTRAPOLATION_MS = 500;
+    // Window over which the camera's own panning is measured before capture
+    private static final long PAN_WINDOW_MS = 200;
+
+    // " 0%" .. " 100%", so a label is drawn as the class name followed by one of these
+    private static final String[] PERCENT = new String[101];
+    static {
+        for (int i = 0; i < PERCENT.length; i++) PERCENT[i] = " " + i + "%";
+    }
+
     private static class Box {
-        RectF rect;     // in "backend image" coordinates
+        final RectF rect = new RectF();     // in "backend image" coordinates, at capture time
+        final RectF velocity = new RectF(); // of each edge, image coordinates per ms
         String label;
         float score;
+        int percent;
+        float labelWidth;   // of the class name alone, in textPaint units
+    }
 
-        Box(RectF rect, String label, float score) {
-            this.rect = rect;
-            this.label = label;
-            this.score = score;
+    /** Everything onDraw needs for one set of results; owned by one side at a time. */
+    private static class Frame {
+        final List<Box> pool = new ArrayList<>();
+        int boxCount = 0;
+        int imageWidth = 0;   // backend input width
+        int imageHeight = 0;  // backend input height
+        long captureTimeMs = 0L;  // SystemClock.uptimeMillis() of the analyzed camera frame
+        boolean moving = false;
+        String summaryMessage = "";
+        final char[] hud = new char[64];
+        int hudLength = 0;
+        float hudWidth = 0f;
+        boolean fresh = false;
+
+        Box add() {
+            if (boxCount == pool.size()) pool.add(new Box());
+            return pool.get(boxCount++);
         }
     }
 
@@ -36,24 +95,61 @@ public class OverlayView extends View {
     private final Paint bgPaint = new Paint();
     private final Paint hudTextPaint = new Paint();
 
-    private final List<Box> boxes = new ArrayList<>();
-    private final List<Box> lastBoxes = new ArrayList<>();
+    // Producer side
+    private Frame back = new Frame();
+    private final AtomicReference<Frame> ready = new AtomicReference<>(new Frame());
+    private final ObjectTracker tracker = new ObjectTracker();
+    private long lastCaptureTimeMs = Long.MIN_VALUE;
+    private final RectF predicted = new RectF();
+    private final float[] hapticShift = new float[2];
+    // Draw side
+    private Frame front = new Frame();
+
+    // Producer side text measuring; the draw Paints stay with the UI thread
+    private final Paint labelMeasurePaint = new Paint();
+    private final Paint hudMeasurePaint = new Paint();
+    private final Map<String, Float> labelWidths = new HashMap<>();
+    private final float[] percentWidths = new float[PERCENT.length];
+    private float labelHeight;
+    private final StringBuilder hudBuilder = new StringBuilder(64);
+    private int hudFpsTenths = -1;
+    private long hudLatency = -1;
+    private float hudWidth = 0f;
+
+    // Reused by onDraw
+    private final RectF bar = new RectF();
+    private final RectF scaled = new RectF();
+    private final RectF labelBg = new RectF();
+    private final RectF hudBg = new RectF();
+    private final float[] drawShift = new float[2];
+    private final float[] panShift = new float[2];
+
+    private CameraMotion cameraMotion;
 
-    private int imageWidth = 0;   // backend input width
-    private int imageHeight = 0;  // backend input height
-
-    private String summaryMessage = "";
     private String lastSpokenSummary = ""; // Track last spoken message to avoid repetition
-    private long hudLatencyMs = 0L;
-    private float hudFps = 0f;
 
     private TtsHelper ttsHelper; // TTS helper for speaking summary messages
 
     // Haptic feedback components
     private Vibrator vibrator;
     private long lastVibrationTime = 0;
+    // Moving obstacles announced often enough to keep as pre-synthesized clips (6 phrases
+    // each); every clip stays decoded in SoundPool, so the list is kept short
+    private static final String[] COMMON_LABELS = {
+            "person", "car", "bicycle", "bus", "truck"
+    };
+
     private static final long VIBRATION_COOLDOWN_MS = 500; // 500ms cooldown between vibrations
 
+    private static final long[] CRITICAL_TIMINGS = {0, 100, 100, 100, 100, 100};
+    private static final int[] CRITICAL_AMPLITUDES = {0, 255, 0, 255, 0, 255};
+    private static final long[] WARNING_TIMINGS = {0, 300};
+    private static final int[] WARNING_AMPLITUDES = {0, 220};
+    private static final long[] CAUTION_TIMINGS = {0, 250};
+    private static final int[] CAUTION_AMPLITUDES = {0, 180};
+    private static final long[] NOTICE_TIMINGS = {0, 200};
+    private static final int[] NOTICE_AMPLITUDES = {0, 120};
+
     public OverlayView(Context context) {
         super(context);
         init();
@@ -84,6 +180,13 @@ public class OverlayView extends View {
         hudTextPaint.setColor(Color.WHITE);
         hudTextPaint.setTextSize(30f);
         hudTextPaint.setAntiAlias(true);
+
+        labelHeight = textPaint.getTextSize() + 12f;
+        labelMeasurePaint.set(textPaint);
+        hudMeasurePaint.set(hudTextPaint);
+        for (int i = 0; i < PERCENT.length; i++) {
+            percentWidths[i] = labelMeasurePaint.measureText(PERCENT[i]);
+        }
     }
 
     /**
@@ -103,80 +206,182 @@ public class OverlayView extends View {
         Log.d(TAG, "Vibrator service set for haptic feedback");
     }
 
+    /**
+     * Set the gyroscope source used to follow the camera's turning between capture and display.
+     * The caller starts and stops it with its lifecycle; null disables the correction.
+     */
+    public void setCameraMotion(CameraMotion cameraMotion) {
+        this.cameraMotion = cameraMotion;
+    }
+
+    /**
+     * Results whose capture time is not known; the frame is taken to be {@code latencyMs} old.
+     */
+    public void setBackendResults(
+            List<CloudDetectionModels.BackendDetection> detections,
+            int imageWidth,
+            int imageHeight,
+            String summaryMessage,
+            long latencyMs,
+            float fps
+    ) {
+        setBackendResults(detections, imageWidth, imageHeight, summaryMessage, latencyMs, fps,
+                SystemClock.uptimeMillis() - latencyMs);
+    }
+
     /**
      * Called from the detector thread (via post()) when new results are available.
      * All bbox coordinates are normalized [0,1] on backend input image; we convert
      * them into absolute image coords here.
+     *
+     * Never blocks drawing; callers must not invoke it from more than one thread at a time.
+     *
+     * @param captureTimeMs when the analyzed frame was captured, on the SystemClock.uptimeMillis() clock
      */
-    public synchronized void setBackendResults(
+    public void setBackendResults(
             List<CloudDetectionModels.BackendDetection> detections,
             int imageWidth,
             int imageHeight,
             String summaryMessage,
             long latencyMs,
-            float fps
+            float fps,
+            long captureTimeMs
     ) {
-        this.imageWidth = imageWidth;
-        this.imageHeight = imageHeight;
-        this.summaryMessage = summaryMessage != null ? summaryMessage : "";
-        this.hudLatencyMs = latencyMs;
-        this.hudFps = fps;
-
-        // Speak the summary message if it has changed and TtsHelper is available
-        if (ttsHelper != null && !this.summaryMessage.isEmpty() && !this.summaryMessage.equals(lastSpokenSummary)) {
-            ttsHelper.speak(this.summaryMessage);
-            lastSpokenSummary = this.summaryMessage;
+        // A late answer for an older frame must not move the tracks back in time
+        captureTimeMs = Math.max(captureTimeMs, lastCaptureTimeMs);
+        lastCaptureTimeMs = captureTimeMs;
+
+        Frame frame = back;
+        frame.imageWidth = imageWidth;
+        frame.imageHeight = imageHeight;
+        frame.captureTimeMs = captureTimeMs;
+        frame.summaryMessage = summaryMessage != null ? summaryMessage : "";
+        formatHud(frame, latencyMs, fps);
+
+        tracker.update(detections, captureTimeMs);
+
+        // New detections show up right away; confirmed tracks coast through a missed frame
+        frame.boxCount = 0;
+        frame.moving = false;
+        for (int i = 0; i < tracker.size(); i++) {
+            ObjectTracker.Track track = tracker.get(i);
+            Box box = frame.add();
+            track.getBox(box.rect);
+            box.rect.left *= imageWidth;
+            box.rect.right *= imageWidth;
+            box.rect.top *= imageHeight;
+            box.rect.bottom *= imageHeight;
+            track.getVelocity(box.velocity);
+            box.velocity.left *= imageWidth / 1000f;
+            box.velocity.right *= imageWidth / 1000f;
+            box.velocity.top *= imageHeight / 1000f;
+            box.velocity.bottom *= imageHeight / 1000f;
+            frame.moving |= box.velocity.left != 0f || box.velocity.top != 0f
+                    || box.velocity.right != 0f || box.velocity.bottom != 0f;
+            box.label = track.getLabel();
+            box.score = track.getScore();
+            box.percent = Math.max(0, Math.min(100, Math.round(box.score * 100)));
+            box.labelWidth = labelWidth(box.label);
         }
 
-        lastBoxes.clear();
-        lastBoxes.addAll(boxes);
-
-        boxes.clear();
-        if (detections != null) {
-            for (CloudDetectionModels.BackendDetection d : detections) {
-                CloudDetectionModels.BBox b = d.bbox;
-                if (b == null) continue;
-
-                RectF rect = new RectF(
-                        b.x_min * imageWidth,
-                        b.y_min * imageHeight,
-                        b.x_max * imageWidth,
-                        b.y_max * imageHeight
-                );
-                String label = d.cls != null ? d.cls : "obj";
-                float score = d.confidence;
-
-                boxes.add(new Box(rect, label, score));
+        announce(frame.summaryMessage);
+
+        // Trigger haptic feedback if confirmed obstacles are present
+        triggerHapticFeedback(captureTimeMs);
+
+        // Publish; whatever was waiting undrawn comes back as the next back frame
+        frame.fresh = true;
+        back = ready.getAndSet(frame);
+
+        postInvalidate();
+    }
+
+    /**
+     * Speak tracks that were just confirmed or just started approaching, most prominent first.
+     * The summary is only spoken for status messages (nothing tracked), and only when it changes.
+     */
+    private void announce(String summaryMessage) {
+        if (ttsHelper == null) return;
+
+        ObjectTracker.Track first = null;
+        ObjectTracker.Track second = null;
+        for (int i = 0; i < tracker.size(); i++) {
+            ObjectTracker.Track track = tracker.get(i);
+            if (!track.isNew() && !track.startedApproaching()) continue;
+            if (first == null || track.getArea() > first.getArea()) {
+                second = first;
+                first = track;
+            } else if (second == null || track.getArea() > second.getArea()) {
+                second = track;
             }
         }
 
-        // Trigger haptic feedback if detections are present
-        if (!boxes.isEmpty()) {
-            triggerHapticFeedback();
+        if (first != null) {
+            // One phrase per track, so each can be played from the pre-synthesized clips
+            ttsHelper.speak(describe(first));
+            if (second != null) ttsHelper.speak(describe(second));
+        } else if (tracker.size() == 0 && !summaryMessage.isEmpty() && !summaryMessage.equals(lastSpokenSummary)) {
+            ttsHelper.speak(summaryMessage);
+            lastSpokenSummary = summaryMessage;
         }
+    }
+
+    /** e.g. "car approaching on your left", "person ahead". */
+    static String describe(ObjectTracker.Track track) {
+        return describe(track.getLabel(), track.isApproaching(), track.getCenterX());
+    }
 
-        // Simple exponential smoothing to reduce jitter when box counts match
-        if (!lastBoxes.isEmpty() && lastBoxes.size() == boxes.size()) {
-            float alpha = 0.4f; // 0..1, lower = smoother
-            for (int i = 0; i < boxes.size(); i++) {
-                Box cur = boxes.get(i);
-                Box prev = lastBoxes.get(i);
-
-                cur.rect.left   = prev.rect.left   * (1 - alpha) + cur.rect.left   * alpha;
-                cur.rect.top    = prev.rect.top    * (1 - alpha) + cur.rect.top    * alpha;
-                cur.rect.right  = prev.rect.right  * (1 - alpha) + cur.rect.right  * alpha;
-                cur.rect.bottom = prev.rect.bottom * (1 - alpha) + cur.rect.bottom * alpha;
+    static String describe(String label, boolean approaching, float cx) {
+        if (approaching) label = label + " approaching";
+        if (cx < 1f / 3f) return label + " on your left";
+        if (cx > 2f / 3f) return label + " on your right";
+        return label + " ahead";
+    }
+
+    /** Every announcement for the most common obstacle classes, to be pre-synthesized. */
+    static List<String> commonAnnouncements() {
+        List<String> texts = new ArrayList<>();
+        for (String label : COMMON_LABELS) {
+            for (boolean approaching : new boolean[] {false, true}) {
+                texts.add(describe(label, approaching, 0.5f));
+                texts.add(describe(label, approaching, 0f));
+                texts.add(describe(label, approaching, 1f));
             }
         }
+        return texts;
+    }
 
-        invalidate();
+    private float labelWidth(String label) {
+        Float width = labelWidths.get(label);
+        if (width == null) {
+            width = labelMeasurePaint.measureText(label);
+            labelWidths.put(label, width);
+        }
+        return width;
+    }
+
+    /** "FPS: 12.3   Latency: 85 ms" into the frame's chars; formatted and measured only when it changes. */
+    private void formatHud(Frame frame, long latencyMs, float fps) {
+        int fpsTenths = Math.round(fps * 10);
+        if (fpsTenths != hudFpsTenths || latencyMs != hudLatency) {
+            hudFpsTenths = fpsTenths;
+            hudLatency = latencyMs;
+            hudBuilder.setLength(0);
+            hudBuilder.append("FPS: ").append(fpsTenths / 10).append('.').append(Math.abs(fpsTenths % 10))
+                    .append("   Latency: ").append(latencyMs).append(" ms");
+            hudWidth = hudMeasurePaint.measureText(hudBuilder, 0, hudBuilder.length()) + 2 * HUD_PADDING;
+        }
+        int length = Math.min(hudBuilder.length(), frame.hud.length);
+        hudBuilder.getChars(0, length, frame.hud, 0);
+        frame.hudLength = length;
+        frame.hudWidth = hudWidth;
     }
 
     /**
      * Trigger haptic feedback based on detected obstacles.
      * Vibration intensity varies based on the size of the largest obstacle.
      */
-    private void triggerHapticFeedback() {
+    private void triggerHapticFeedback(long captureTimeMs) {
         if (vibrator == null || !vibrator.hasVibrator()) {
             return;
         }
@@ -187,26 +392,26 @@ public class OverlayView extends View {
             return;
         }
 
-        // Calculate the maximum relative area of all detected boxes
-        float maxRelativeArea = calculateMaxRelativeArea();
+        // Calculate the maximum relative area of all confirmed tracks
+        float maxRelativeArea = calculateMaxRelativeArea(captureTimeMs);
 
         if (maxRelativeArea > 0) {
             // Determine proximity zone and trigger appropriate vibration pattern
             if (maxRelativeArea > 0.60f) {
                 // CRITICAL: Very close obstacle (>60% of view)
-                vibratePattern(new long[]{0, 100, 100, 100, 100, 100}, new int[]{0, 255, 0, 255, 0, 255});
+                vibratePattern(CRITICAL_TIMINGS, CRITICAL_AMPLITUDES);
                 Log.d(TAG, "CRITICAL proximity: " + String.format("%.1f%%", maxRelativeArea * 100));
             } else if (maxRelativeArea > 0.40f) {
                 // WARNING: Close obstacle (40-60% of view)
-                vibratePattern(new long[]{0, 300}, new int[]{0, 220});
+                vibratePattern(WARNING_TIMINGS, WARNING_AMPLITUDES);
                 Log.d(TAG, "WARNING proximity: " + String.format("%.1f%%", maxRelativeArea * 100));
             } else if (maxRelativeArea > 0.20f) {
                 // CAUTION: Medium distance obstacle (20-40% of view)
-                vibratePattern(new long[]{0, 250}, new int[]{0, 180});
+                vibratePattern(CAUTION_TIMINGS, CAUTION_AMPLITUDES);
                 Log.d(TAG, "CAUTION proximity: " + String.format("%.1f%%", maxRelativeArea * 100));
             } else {
                 // NOTICE: Far obstacle (<20% of view)
-                vibratePattern(new long[]{0, 200}, new int[]{0, 120});
+                vibratePattern(NOTICE_TIMINGS, NOTICE_AMPLITUDES);
                 Log.d(TAG, "NOTICE proximity: " + String.format("%.1f%%", maxRelativeArea * 100));
             }
 
@@ -215,23 +420,24 @@ public class OverlayView extends View {
     }
 
     /**
-     * Calculate the maximum relative area of all detected bounding boxes.
+     * Calculate the maximum relative area of all confirmed tracks, where they are predicted to
+     * be now rather than where they were when the frame was captured.
      * Returns a value between 0.0 and 1.0 representing the percentage of the view covered.
      */
-    private float calculateMaxRelativeArea() {
-        if (boxes.isEmpty() || imageWidth == 0 || imageHeight == 0) {
-            return 0f;
-        }
-
-        float totalImageArea = imageWidth * imageHeight;
+    private float calculateMaxRelativeArea(long captureTimeMs) {
+        long now = Math.min(SystemClock.uptimeMillis(), captureTimeMs + MAX_EXTRAPOLATION_MS);
+        cameraShift(captureTimeMs, now, hapticShift);
         float maxArea = 0f;
 
-        for (Box box : boxes) {
-            float boxWidth = box.rect.right - box.rect.left;
-            float boxHeight = box.rect.bottom - box.rect.top;
-            float boxArea = boxWidth * boxHeight;
-            float relativeArea = boxArea / totalImageArea;
+        for (int i = 0; i < tracker.size(); i++) {
+            ObjectTracker.Track track = tracker.get(i);
+            if (!track.isConfirmed()) continue;
 
+            track.getBoxAt(now, predicted);
+            // Only the part still in view counts
+            float w = Math.min(predicted.right + hapticShift[0], 1f) - Math.max(predicted.left + hapticShift[0], 0f);
+            float h = Math.min(predicted.bottom + hapticShift[1], 1f) - Math.max(predicted.top + hapticShift[1], 0f);
+            float relativeArea = w > 0f && h > 0f ? w * h : 0f;
             if (relativeArea > maxArea) {
                 maxArea = relativeArea;
             }
@@ -240,6 +446,23 @@ public class OverlayView extends View {
         return maxArea;
     }
 
+    /**
+     * Extra normalized shift of still objects between {@code captureTimeMs} and {@code toMs}
+     * from the camera turning, beyond what the track velocities already carry. Velocities were
+     * estimated while the camera moved as it did just before capture; that panning is replaced
+     * by the rotation the gyroscope measured since.
+     */
+    private void cameraShift(long captureTimeMs, long toMs, float[] out) {
+        out[0] = 0f;
+        out[1] = 0f;
+        if (cameraMotion == null || !cameraMotion.getShift(captureTimeMs, toMs, out)) return;
+        if (cameraMotion.getShift(captureTimeMs - PAN_WINDOW_MS, captureTimeMs, panShift)) {
+            float f = (float) (toMs - captureTimeMs) / PAN_WINDOW_MS;
+            out[0] -= panShift[0] * f;
+            out[1] -= panShift[1] * f;
+        }
+    }
+
     /**
      * Trigger a vibration pattern with specified timings and amplitudes.
      * Supports both modern VibrationEffect (API 26+) and legacy vibration.
@@ -262,9 +485,18 @@ public class OverlayView extends View {
     }
 
     @Override
-    protected synchronized void onDraw(Canvas canvas) {
+    protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
 
+        Frame frame = front;
+        if (ready.get().fresh) {
+            frame.fresh = false;
+            frame = ready.getAndSet(frame);
+            front = frame;
+        }
+
+        int imageWidth = frame.imageWidth;
+        int imageHeight = frame.imageHeight;
         if (imageWidth == 0 || imageHeight == 0) return;
 
         float viewW = getWidth();
@@ -277,77 +509,83 @@ public class OverlayView extends View {
         float offsetX = (viewW - drawnImgW) / 2f;
         float offsetY = (viewH - drawnImgH) / 2f;
 
+        // Where the boxes are expected to be by now
+        long now = SystemClock.uptimeMillis();
+        long ahead = Math.max(0L, Math.min(now - frame.captureTimeMs, MAX_EXTRAPOLATION_MS));
+        cameraShift(frame.captureTimeMs, frame.captureTimeMs + ahead, drawShift);
+        float shiftX = drawShift[0] * imageWidth;
+        float shiftY = drawShift[1] * imageHeight;
+
         // Summary bar at the top of the image region
-        float barHeight = 60f;
-        if (!summaryMessage.isEmpty()) {
-            RectF bar = new RectF(offsetX, offsetY, offsetX + drawnImgW, offsetY + barHeight);
+        if (!frame.summaryMessage.isEmpty()) {
+            bar.set(offsetX, offsetY, offsetX + drawnImgW, offsetY + BAR_HEIGHT);
             canvas.drawRect(bar, bgPaint);
-            canvas.drawText(summaryMessage, offsetX + 16f, offsetY + 40f, textPaint);
+            canvas.drawText(frame.summaryMessage, offsetX + 16f, offsetY + 40f, textPaint);
         }
 
         // Draw boxes
-        for (Box box : boxes) {
-            RectF scaled = new RectF(
-                    offsetX + box.rect.left * scale,
-                    offsetY + box.rect.top * scale,
-                    offsetX + box.rect.right * scale,
-                    offsetY + box.rect.bottom * scale
+        for (int i = 0; i < frame.boxCount; i++) {
+            Box box = frame.pool.get(i);
+            scaled.set(
+                    offsetX + (box.rect.left + box.velocity.left * ahead + shiftX) * scale,
+                    offsetY + (box.rect.top + box.velocity.top * ahead + shiftY) * scale,
+                    offsetX + (box.rect.right + box.velocity.right * ahead + shiftX) * scale,
+                    offsetY + (box.rect.bottom + box.velocity.bottom * ahead + shiftY) * scale
             );
 
             canvas.drawRoundRect(scaled, 12f, 12f, boxPaint);
 
-            String text = box.label + " " + Math.round(box.score * 100) + "%";
-
-            float textMargin = 8f;
-            float labelTextSize = textPaint.getTextSize();
-            float th = labelTextSize + 12f;
-            float tw = textPaint.measureText(text) + 16f;
+            float th = labelHeight;
+            float tw = box.labelWidth + percentWidths[box.percent] + 16f;
 
             // Default: try to place label above the box
-            float tx = scaled.left + textMargin;
-            float ty = scaled.top - textMargin;
+            float tx = scaled.left + TEXT_MARGIN;
+            float ty = scaled.top - TEXT_MARGIN;
 
             float labelTop = ty - th;
-            float minTopAllowed = offsetY + barHeight + 8f; // avoid overlapping summary bar
+            float minTopAllowed = offsetY + BAR_HEIGHT + 8f; // avoid overlapping summary bar
 
             if (labelTop < minTopAllowed) {
                 // If it would overlap the summary, move label inside the box at the top.
-                labelTop = scaled.top + textMargin;
+                labelTop = scaled.top + TEXT_MARGIN;
                 ty = labelTop + th - 12f;
             }
 
-            RectF bg = new RectF(
+            labelBg.set(
                     tx - 8f,
                     labelTop,
                     tx - 8f + tw,
                     labelTop + th
             );
 
-            canvas.drawRoundRect(bg, 8f, 8f, bgPaint);
-            canvas.drawText(text, tx, ty, textPaint);
+            canvas.drawRoundRect(labelBg, 8f, 8f, bgPaint);
+            canvas.drawText(box.label, tx, ty, textPaint);
+            canvas.drawText(PERCENT[box.percent], tx + box.labelWidth, ty, textPaint);
         }
 
         // HUD at the bottom-left: FPS + latency
-        String hudText = String.format("FPS: %.1f   Latency: %d ms", hudFps, hudLatencyMs);
-        float hudPadding = 10f;
-        float hudHeight = 40f;
-        float hudWidth = hudTextPaint.measureText(hudText) + 2 * hudPadding;
-
         float hudLeft = offsetX;
-        float hudTop = offsetY + drawnImgH - hudHeight - hudPadding;
+        float hudTop = offsetY + drawnImgH - HUD_HEIGHT - HUD_PADDING;
 
-        RectF hudBg = new RectF(
+        hudBg.set(
                 hudLeft,
                 hudTop,
-                hudLeft + hudWidth,
-                hudTop + hudHeight
+                hudLeft + frame.hudWidth,
+                hudTop + HUD_HEIGHT
         );
         canvas.drawRoundRect(hudBg, 10f, 10f, bgPaint);
         canvas.drawText(
-                hudText,
-                hudLeft + hudPadding,
-                hudTop + hudHeight - 12f,
+                frame.hud,
+                0,
+                frame.hudLength,
+                hudLeft + HUD_PADDING,
+                hudTop + HUD_HEIGHT - 12f,
                 hudTextPaint
         );
+
+        // Keep moving the boxes until the next results or the extrapolation limit
+        if (frame.boxCount > 0 && ahead < MAX_EXTRAPOLATION_MS && (frame.moving || cameraMotion != null)) {
+            postInvalidateOnAnimation();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package com.example.newsight;
+
+import androidx.annotation.NonNull;
+
+/**
+ * PcmRingBuffer - Fixed-capacity history of 16-bit mono PCM, filled in place by the recorder.
+ *
+ * The capture loop hands the ring's own array to AudioRecord.read(short[], ...), so samples
+ * land in their final place and every consumer (wake word spotter, VAD, the voice stream)
+ * reads the span that was just written straight out of {@link #array()}:
+ *
+ *   int offset = ring.writeOffset();
+ *   int n = ring.fill(source, chunk);   // new audio is array()[offset, offset + n)
+ *
+ * fill() never wraps within one call, so that span is always contiguous. Older audio is
+ * addressed by absolute sample position; {@link #copyTo} is the only copying operation and
+ * is meant for the rare one-off uploads (a WAV for the backend), not the per-chunk path.
+ *
+ * Nothing is allocated after construction. Single writer; not thread-safe.
+ */
+public class PcmRingBuffer {
+
+    /** Where samples come from; matches AudioRecord.read(short[], int, int). */
+    public interface Source {
+        int read(@NonNull short[] buffer, int offset, int length);
+    }
+
+    private final short[] samples;
+    private long position = 0;
+
+    public PcmRingBuffer(int capacitySamples) {
+        this.samples = new short[capacitySamples];
+    }
+
+    public int capacity() {
+        return samples.length;
+    }
+
+    /** Total samples ever written; the next sample's absolute position. */
+    public long position() {
+        return position;
+    }
+
+    /** Samples still held, up to capacity. */
+    public int available() {
+        return (int) Math.min(position, samples.length);
+    }
+
+    /** The backing array; valid spans are given by writeOffset()/fill() and offsetOf(). */
+    @NonNull
+    public short[] array() {
+        return samples;
+    }
+
+    /** Index in array() where the next fill() starts writing. */
+    public int writeOffset() {
+        return (int) (position % samples.length);
+    }
+
+    /** Index in array() of absolute sample position {@code pos}. */
+    public int offsetOf(long pos) {
+        return (int) (pos % samples.length);
+    }
+
+    /**
+     * Read up to {@code maxSamples} from {@code source} directly into the ring, stopping at the
+     * end of the array so the new samples are contiguous.
+     * @return samples written (0 or a negative error code from the source is passed through)
+     */
+    public int fill(@NonNull Source source, int maxSamples) {
+        int offset = writeOffset();
+        int n = source.read(samples, offset, Math.min(maxSamples, samples.length - offset));
+        if (n > 0) position += n;
+        return n;
+    }
+
+    /** Append samples by copying; for feeds that don't read in place (and tests). */
+    public void write(@NonNull short[] data, int offset, int length) {
+        while (length > 0) {
+            int at = writeOffset();
+            int n = Math.min(length, samples.length - at);
+            System.arraycopy(data, offset, samples, at, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Copy {@code length} samples starting at absolute position {@code from} into {@code out}
+     * as 16-bit little-endian PCM, starting at {@code outOffset}.
+     * @throws IllegalArgumentException if that audio is no longer (or not yet) in the ring
+     */
+    public void copyTo(@NonNull byte[] out, int outOffset, long from, int length) {
+        if (from < position - samples.length || from + length > position || length < 0) {
+            throw new IllegalArgumentException("Samples [" + from + ", " + (from + length)
+                    + ") not held; ring has [" + (position - available()) + ", " + position + ")");
+        }
+        for (int i = 0; i < length; i++) {
+            short s = samples[offsetOf(from + i)];
+            out[outOffset++] = (byte) s;
+            out[outOffset++] = (byte) (s >> 8);
+        }
+    }
+
+    /** Forget all audio (the next capture starts a fresh history). */
+    public void clear() {
+        position = 0;
+    }
+}
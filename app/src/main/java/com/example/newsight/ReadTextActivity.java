@@ -12,6 +12,7 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.Camera;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.Preview;
@@ -20,9 +21,10 @@ import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.example.newsight.models.TextDetectionResult;
+import com.example.newsight.models.TextDetectionResultAdapter;
 import com.google.common.util.concurrent.ListenableFuture;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -344,8 +346,9 @@ public class ReadTextActivity extends AppCompatActivity implements WebSocketMana
                 cameraProvider.unbindAll();
 
                 // Bind use cases to camera
-                cameraProvider.bindToLifecycle(
+                Camera camera = cameraProvider.bindToLifecycle(
                         this, cameraSelector, preview, imageAnalyzer);
+                FrameConverter.useTimestampSourceOf(camera);
 
                 Log.i(TAG, "Camera initialized successfully with ReadTextFrameAnalyzer");
             } catch (Exception e) {
@@ -360,7 +363,9 @@ public class ReadTextActivity extends AppCompatActivity implements WebSocketMana
     // WebSocketManager.WsListener implementation
     @Override
     public void onResultsReceived(String results) {
-        runOnUiThread(() -> processTextDetectionResults(results));
+        // Parsed on the decoder thread; only the finished result is posted to the UI thread
+        ResultDecoder.decodeToMain(results, TextDetectionResultAdapter.INSTANCE,
+                this::processTextDetectionResults);
     }
 
     @Override
@@ -378,144 +383,83 @@ public class ReadTextActivity extends AppCompatActivity implements WebSocketMana
     }
 
     /**
-     * Process text detection results from backend
-     * Expected JSON format:
-     * {
-     *   "detections": [
-     *     {"text": "detected text", "confidence": 0.95, "bbox": [[x1,y1], [x2,y2], ...]}
-     *   ],
-     *   "text_string": "combined detected text"
-     * }
+     * Act on one decoded text detection result (see TextDetectionResultAdapter for the JSON
+     * format and which field the text is taken from). Runs on the UI thread.
      */
-    private void processTextDetectionResults(String jsonResults) {
+    private void processTextDetectionResults(TextDetectionResult result) {
         if (!isDetecting) {
             return; // Don't process if detection is stopped
         }
 
-        try {
-            JSONObject json = new JSONObject(jsonResults);
-            long currentTime = System.currentTimeMillis();
+        long currentTime = System.currentTimeMillis();
+        String normalizedText = result.getText();
+        String normalizedLower = normalizedText.toLowerCase();
 
-            // Try to get the combined text string first
-            String detectedText = "";
+        Log.d(TAG, "Got " + result.getSource() + ": '" + normalizedText + "' (empty=" + normalizedText.isEmpty() + ")");
 
-            // Try text_string first (what we send from backend)
-            if (json.has("text_string") && !json.isNull("text_string")) {
-                detectedText = json.getString("text_string");
-                Log.d(TAG, "Got text_string: " + detectedText);
-            }
-            // Fallback to stable_text if available
-            else if (json.has("stable_text") && !json.isNull("stable_text")) {
-                detectedText = json.getString("stable_text");
-                Log.d(TAG, "Got stable_text: " + detectedText);
-            }
-            // Fallback to full_text if available
-            else if (json.has("full_text") && !json.isNull("full_text")) {
-                detectedText = json.getString("full_text");
-                Log.d(TAG, "Got full_text: " + detectedText);
-            }
-            // Last resort: combine text from individual detections
-            else if (json.has("detections")) {
-                JSONArray detections = json.getJSONArray("detections");
-                StringBuilder textBuilder = new StringBuilder();
-
-                for (int i = 0; i < detections.length(); i++) {
-                    JSONObject detection = detections.getJSONObject(i);
-                    if (detection.has("text")) {
-                        String text = detection.getString("text");
-                        double confidence = detection.optDouble("confidence", 0.0);
-
-                        // Only include text with confidence above threshold
-                        if (confidence >= 0.5) {
-                            if (textBuilder.length() > 0) {
-                                textBuilder.append(" ");
-                            }
-                            textBuilder.append(text);
-                        }
-                    }
-                }
+        // Update UI if text is detected
+        if (!normalizedText.isEmpty()) {
+            lastTextDetectedTime = currentTime;
+            consecutiveEmptyResults = 0; // Reset empty counter when text is found
 
-                detectedText = textBuilder.toString();
-                Log.d(TAG, "Got detections array: " + detectedText);
-            }
+            if (currentTime - lastUpdateTime >= UPDATE_INTERVAL_MS) {
+                lastDetectedText = normalizedText;
+                lastUpdateTime = currentTime;
 
-            // Normalize text (trim, handle null/"null" string)
-            if (detectedText == null || detectedText.equals("null")) {
-                detectedText = "";
-            }
-            String normalizedText = detectedText.trim();
-            String normalizedLower = normalizedText.toLowerCase();
-
-            Log.d(TAG, "Normalized text: '" + normalizedText + "' (empty=" + normalizedText.isEmpty() + ")");
-
-            // Update UI if text is detected
-            if (!normalizedText.isEmpty()) {
-                lastTextDetectedTime = currentTime;
-                consecutiveEmptyResults = 0; // Reset empty counter when text is found
-
-                if (currentTime - lastUpdateTime >= UPDATE_INTERVAL_MS) {
-                    lastDetectedText = normalizedText;
-                    lastUpdateTime = currentTime;
-
-                    // Update text display
-                    tvDetectedText.setText(normalizedText);
-
-                    Log.d(TAG, "✅ Detected text: " + normalizedText);
-
-                    // AUTO-SPEAK: Speak if this is new/different text
-                    String lastSpokenLower = lastSpokenText.toLowerCase();
-                    boolean isNewText = lastSpokenLower.isEmpty() || !normalizedLower.equals(lastSpokenLower);
-                    boolean enoughTimePassed = (currentTime - lastSpeechTime) >= SPEECH_COOLDOWN_MS;
-
-                    Log.d(TAG, "Speech check: isNewText=" + isNewText +
-                            " ('" + normalizedLower + "' vs '" + lastSpokenLower + "'), " +
-                            "enoughTimePassed=" + enoughTimePassed +
-                            " (" + (currentTime - lastSpeechTime) + "ms / " + SPEECH_COOLDOWN_MS + "ms)");
-
-                    if (isNewText || enoughTimePassed) {
-                        if (ttsHelper != null && ttsHelper.isReady()) {
-                            Log.d(TAG, "🔊 Auto-speaking: " + normalizedText);
-                            ttsHelper.speak(normalizedText);
-                            lastSpokenText = normalizedText;
-                            lastSpeechTime = currentTime;
-                        } else {
-                            Log.w(TAG, "⚠️ TTS not ready, cannot speak");
-                        }
+                // Update text display
+                tvDetectedText.setText(normalizedText);
+
+                Log.d(TAG, "✅ Detected text: " + normalizedText);
+
+                // AUTO-SPEAK: Speak if this is new/different text
+                String lastSpokenLower = lastSpokenText.toLowerCase();
+                boolean isNewText = lastSpokenLower.isEmpty() || !normalizedLower.equals(lastSpokenLower);
+                boolean enoughTimePassed = (currentTime - lastSpeechTime) >= SPEECH_COOLDOWN_MS;
+
+                Log.d(TAG, "Speech check: isNewText=" + isNewText +
+                        " ('" + normalizedLower + "' vs '" + lastSpokenLower + "'), " +
+                        "enoughTimePassed=" + enoughTimePassed +
+                        " (" + (currentTime - lastSpeechTime) + "ms / " + SPEECH_COOLDOWN_MS + "ms)");
+
+                if (isNewText || enoughTimePassed) {
+                    if (ttsHelper != null && ttsHelper.isReady()) {
+                        Log.d(TAG, "🔊 Auto-speaking: " + normalizedText);
+                        ttsHelper.speak(normalizedText);
+                        lastSpokenText = normalizedText;
+                        lastSpeechTime = currentTime;
                     } else {
-                        Log.d(TAG, "⏭️ Skipping speech (same text, too soon)");
+                        Log.w(TAG, "⚠️ TTS not ready, cannot speak");
                     }
+                } else {
+                    Log.d(TAG, "⏭️ Skipping speech (same text, too soon)");
                 }
-            } else {
-                // No text detected - increment empty counter
-                consecutiveEmptyResults++;
-
-                // Clear state more aggressively after consecutive empty results
-                if (consecutiveEmptyResults >= CLEAR_AFTER_EMPTY_COUNT && !lastDetectedText.isEmpty()) {
-                    Log.d(TAG, "🧹 Clearing state after " + consecutiveEmptyResults + " empty results");
+            }
+        } else {
+            // No text detected - increment empty counter
+            consecutiveEmptyResults++;
+
+            // Clear state more aggressively after consecutive empty results
+            if (consecutiveEmptyResults >= CLEAR_AFTER_EMPTY_COUNT && !lastDetectedText.isEmpty()) {
+                Log.d(TAG, "🧹 Clearing state after " + consecutiveEmptyResults + " empty results");
+                tvDetectedText.setText("Detecting text...");
+                lastDetectedText = "";
+                lastSpokenText = "";
+                lastSpeechTime = 0;
+                lastUpdateTime = 0;
+                consecutiveEmptyResults = 0;
+            } else if (!lastDetectedText.isEmpty()) {
+                // Also clear based on time
+                long timeSinceLastText = currentTime - lastTextDetectedTime;
+                if (timeSinceLastText >= NO_TEXT_TIMEOUT_MS) {
+                    Log.d(TAG, "🧹 Clearing display after " + timeSinceLastText + "ms of no text");
                     tvDetectedText.setText("Detecting text...");
                     lastDetectedText = "";
                     lastSpokenText = "";
                     lastSpeechTime = 0;
                     lastUpdateTime = 0;
                     consecutiveEmptyResults = 0;
-                } else if (!lastDetectedText.isEmpty()) {
-                    // Also clear based on time
-                    long timeSinceLastText = currentTime - lastTextDetectedTime;
-                    if (timeSinceLastText >= NO_TEXT_TIMEOUT_MS) {
-                        Log.d(TAG, "🧹 Clearing display after " + timeSinceLastText + "ms of no text");
-                        tvDetectedText.setText("Detecting text...");
-                        lastDetectedText = "";
-                        lastSpokenText = "";
-                        lastSpeechTime = 0;
-                        lastUpdateTime = 0;
-                        consecutiveEmptyResults = 0;
-                    }
                 }
             }
-
-        } catch (JSONException e) {
-            Log.e(TAG, "❌ Error parsing text detection results: " + e.getMessage());
-            e.printStackTrace();
         }
     }
 
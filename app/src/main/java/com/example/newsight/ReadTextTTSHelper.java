@@ -1,23 +1,21 @@
 package com.example.newsight;
 
 import android.content.Context;
-import android.speech.tts.TextToSpeech;
-import android.speech.tts.UtteranceProgressListener;
 import android.util.Log;
 
-import java.util.HashMap;
-import java.util.Locale;
-
 /**
  * Helper class for Text-to-Speech functionality
- * Manages TTS initialization and provides methods to speak text aloud
+ * Speaks detected text aloud through the shared SpeechScheduler, as informational speech:
+ * new text replaces this helper's previous text, and obstacle or navigation announcements
+ * interrupt the reading instead of being flushed by it.
  */
 public class ReadTextTTSHelper {
     private static final String TAG = "ReadTextTTSHelper";
-    private TextToSpeech tts;
-    private boolean isReady = false;
-    private Context context;
+    private static final String KEY = "read_text";
+
+    private final SpeechScheduler scheduler;
     private TTSListener listener;
+    private boolean isShutdown = false;
 
     public interface TTSListener {
         void onTTSReady();
@@ -26,77 +24,60 @@ public class ReadTextTTSHelper {
         void onSpeechComplete();
     }
 
-    public ReadTextTTSHelper(Context context, TTSListener listener) {
-        this.context = context;
-        this.listener = listener;
-        initializeTTS();
-    }
+    private final SpeechScheduler.EngineListener engineListener = new SpeechScheduler.EngineListener() {
+        @Override
+        public void onEngineReady() {
+            Log.d(TAG, "TTS initialized successfully");
+            if (listener != null) {
+                listener.onTTSReady();
+            }
+        }
+
+        @Override
+        public void onEngineError(String error) {
+            Log.e(TAG, error);
+            if (listener != null) {
+                listener.onTTSError(error);
+            }
+        }
+    };
+
+    private final SpeechScheduler.Callback progress = new SpeechScheduler.Callback() {
+        @Override
+        public void onStart() {
+            if (listener != null) {
+                listener.onSpeechStart();
+            }
+        }
+
+        @Override
+        public void onDone() {
+            if (listener != null) {
+                listener.onSpeechComplete();
+            }
+        }
 
-    private void initializeTTS() {
-        tts = new TextToSpeech(context, status -> {
-            if (status == TextToSpeech.SUCCESS) {
-                int result = tts.setLanguage(Locale.US);
-
-                if (result == TextToSpeech.LANG_MISSING_DATA ||
-                        result == TextToSpeech.LANG_NOT_SUPPORTED) {
-                    Log.e(TAG, "Language not supported");
-                    isReady = false;
-                    if (listener != null) {
-                        listener.onTTSError("Language not supported");
-                    }
-                } else {
-                    isReady = true;
-                    Log.d(TAG, "TTS initialized successfully");
-
-                    // Set speech parameters
-                    tts.setSpeechRate(1.0f);
-                    tts.setPitch(1.0f);
-
-                    // Set up progress listener
-                    tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
-                        @Override
-                        public void onStart(String utteranceId) {
-                            if (listener != null) {
-                                listener.onSpeechStart();
-                            }
-                        }
-
-                        @Override
-                        public void onDone(String utteranceId) {
-                            if (listener != null) {
-                                listener.onSpeechComplete();
-                            }
-                        }
-
-                        @Override
-                        public void onError(String utteranceId) {
-                            Log.e(TAG, "TTS error for utterance: " + utteranceId);
-                            if (listener != null) {
-                                listener.onTTSError("Speech synthesis error");
-                            }
-                        }
-                    });
-
-                    if (listener != null) {
-                        listener.onTTSReady();
-                    }
-                }
-            } else {
-                Log.e(TAG, "TTS initialization failed");
-                isReady = false;
-                if (listener != null) {
-                    listener.onTTSError("TTS initialization failed");
-                }
+        @Override
+        public void onError() {
+            Log.e(TAG, "TTS error while reading text");
+            if (listener != null) {
+                listener.onTTSError("Speech synthesis error");
             }
-        });
+        }
+    };
+
+    public ReadTextTTSHelper(Context context, TTSListener listener) {
+        this.listener = listener;
+        this.scheduler = SpeechScheduler.get(context);
+        scheduler.addEngineListener(engineListener);
     }
 
     /**
-     * Speak text aloud
+     * Speak text aloud, replacing whatever this helper was still reading
      * @param text The text to speak
      */
     public void speak(String text) {
-        if (!isReady) {
+        if (!isReady()) {
             Log.w(TAG, "TTS not ready yet");
             if (listener != null) {
                 listener.onTTSError("TTS not ready");
@@ -109,69 +90,55 @@ public class ReadTextTTSHelper {
             return;
         }
 
-        // Stop any ongoing speech first
-        stop();
-
-        // Create parameters for this utterance
-        HashMap<String, String> params = new HashMap<>();
-        params.put(TextToSpeech.Engine.KEY_PARAM_UTTERANCE_ID, "textDetection_" + System.currentTimeMillis());
-
-        tts.speak(text, TextToSpeech.QUEUE_FLUSH, params);
+        scheduler.speak(text, SpeechScheduler.Priority.INFORMATIONAL, KEY, this, progress);
         Log.d(TAG, "Speaking: " + text);
     }
 
     /**
-     * Stop current speech
+     * Stop current speech (this helper's only)
      */
     public void stop() {
-        if (tts != null) {
-            tts.stop();
-        }
+        scheduler.cancel(this, true);
     }
 
     /**
-     * Check if TTS is currently speaking
+     * Check if TTS is currently speaking this helper's text
      */
     public boolean isSpeaking() {
-        return tts != null && tts.isSpeaking();
+        return scheduler.isSpeaking(this);
     }
 
     /**
-     * Set speech rate
+     * Set speech rate; the engine is shared, so this applies to all speech
      * @param rate Speech rate (0.5 to 2.0, 1.0 is normal)
      */
     public void setSpeechRate(float rate) {
-        if (tts != null) {
-            tts.setSpeechRate(rate);
-        }
+        scheduler.setSpeechRate(rate);
     }
 
     /**
-     * Set speech pitch
+     * Set speech pitch; the engine is shared, so this applies to all speech
      * @param pitch Speech pitch (0.5 to 2.0, 1.0 is normal)
      */
     public void setPitch(float pitch) {
-        if (tts != null) {
-            tts.setPitch(pitch);
-        }
+        scheduler.setPitch(pitch);
     }
 
     /**
      * Check if TTS is ready to use
      */
     public boolean isReady() {
-        return isReady;
+        return !isShutdown && scheduler.isReady();
     }
 
     /**
-     * Clean up TTS resources
+     * Stop this helper's speech and detach from the shared engine, which keeps running
      */
     public void shutdown() {
-        if (tts != null) {
-            tts.stop();
-            tts.shutdown();
-            tts = null;
-            isReady = false;
+        if (!isShutdown) {
+            scheduler.cancel(this, true);
+            scheduler.removeEngineListener(engineListener);
+            isShutdown = true;
             Log.d(TAG, "TTS shutdown");
         }
     }
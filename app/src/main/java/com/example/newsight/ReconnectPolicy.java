@@ -0,0 +1,98 @@
+package com.example.newsight;
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * ReconnectPolicy - Exponential backoff with jitter for reconnecting sockets.
+ *
+ * The n-th consecutive attempt waits a random time in [d/2, d], where
+ * d = min(MAX_DELAY_MS, BASE_DELAY_MS * 2^n): a backend that is down (e.g. a cold start)
+ * is not hammered, and clients that lost it at the same moment don't all come back in
+ * lockstep. A successful connection resets the sequence.
+ *
+ * Also keeps the reconnect metrics: how many outages ended in a reconnect, and how long
+ * each took from the first failure to being connected again.
+ */
+public class ReconnectPolicy {
+
+    static final long BASE_DELAY_MS = 500;
+    static final long MAX_DELAY_MS = 30000;
+
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final Random random;
+    private final LongSupplier clock;
+
+    private int attempt = 0;
+    private long downSinceMs = -1;
+
+    private int reconnects = 0;
+    private long lastTimeToReconnectMs = 0;
+    private long totalTimeToReconnectMs = 0;
+
+    public ReconnectPolicy() {
+        this(BASE_DELAY_MS, MAX_DELAY_MS, new Random(), System::currentTimeMillis);
+    }
+
+    ReconnectPolicy(long baseDelayMs, long maxDelayMs, Random random, LongSupplier clock) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.random = random;
+        this.clock = clock;
+    }
+
+    /** The connection was lost; starts the time-to-reconnect clock if it isn't running. */
+    public synchronized void onDisconnected() {
+        if (downSinceMs < 0) downSinceMs = clock.getAsLong();
+    }
+
+    /** The connection was lost or an attempt failed; how long to wait before the next one. */
+    public synchronized long nextDelayMs() {
+        onDisconnected();
+        // Shift capped well below overflow; the max delay caps it long before that anyway
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt, 20));
+        attempt++;
+        long half = ceiling / 2;
+        return half + (long) (random.nextDouble() * (ceiling - half));
+    }
+
+    /**
+     * Connected: start over from the base delay, and record the outage if there was one.
+     * @return whether this ended an outage (i.e. was a reconnect)
+     */
+    public synchronized boolean onConnected() {
+        boolean reconnected = downSinceMs >= 0;
+        if (reconnected) {
+            lastTimeToReconnectMs = clock.getAsLong() - downSinceMs;
+            totalTimeToReconnectMs += lastTimeToReconnectMs;
+            reconnects++;
+        }
+        attempt = 0;
+        downSinceMs = -1;
+        return reconnected;
+    }
+
+    /** Forget the current outage without counting it (e.g. the caller gave up on purpose). */
+    public synchronized void reset() {
+        attempt = 0;
+        downSinceMs = -1;
+    }
+
+    /** Consecutive failed attempts in the current outage. */
+    public synchronized int getAttempt() {
+        return attempt;
+    }
+
+    public synchronized int getReconnects() {
+        return reconnects;
+    }
+
+    public synchronized long getLastTimeToReconnectMs() {
+        return lastTimeToReconnectMs;
+    }
+
+    public synchronized long getAvgTimeToReconnectMs() {
+        return reconnects == 0 ? 0 : totalTimeToReconnectMs / reconnects;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.newsight;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Reconnector - Schedules a socket's reconnect attempts under a ReconnectPolicy.
+ *
+ * Attempts back off exponentially (with jitter) while the backend stays unreachable, are
+ * paused entirely while NetworkMonitor reports no network, and fire at once when a network
+ * comes back. The connect action always runs on the main thread.
+ *
+ * Usage: call scheduleReconnect() whenever the connection drops or an attempt fails,
+ * onConnected() when it opens, and cancel() when the owner disconnects on purpose.
+ */
+public class Reconnector implements NetworkMonitor.Listener {
+
+    private final String tag;
+    private final Runnable connect;
+    private final ReconnectPolicy policy = new ReconnectPolicy();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private boolean pending = false;
+
+    private final Runnable attempt = this::attempt;
+
+    /** @param tag log tag of the owner, so reconnect logs read as the owner's own */
+    public Reconnector(@NonNull String tag, @NonNull Runnable connect) {
+        this.tag = tag;
+        this.connect = connect;
+    }
+
+    /** The connection dropped or an attempt failed: try again later (at most one pending). */
+    public void scheduleReconnect() {
+        synchronized (this) {
+            if (pending) return;
+            pending = true;
+        }
+        NetworkMonitor.addListener(this);
+
+        if (!NetworkMonitor.isAvailable()) {
+            policy.onDisconnected();
+            Log.d(tag, "No network, waiting for one before reconnecting");
+            return;
+        }
+        long delay = policy.nextDelayMs();
+        Log.d(tag, "Reconnect attempt " + policy.getAttempt() + " in " + delay + "ms");
+        handler.postDelayed(attempt, delay);
+    }
+
+    public void onConnected() {
+        cancelPending();
+        if (policy.onConnected()) {
+            Log.i(tag, "Reconnected after " + policy.getLastTimeToReconnectMs() + "ms"
+                    + " (reconnects=" + policy.getReconnects()
+                    + ", avg=" + policy.getAvgTimeToReconnectMs() + "ms)");
+        }
+    }
+
+    /** Stop retrying; the owner disconnected on purpose. */
+    public void cancel() {
+        cancelPending();
+        policy.reset();
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    @NonNull
+    public ReconnectPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public void onNetworkAvailable() {
+        synchronized (this) {
+            if (!pending) return;
+        }
+        // The network just came back: the last failure was most likely just the network
+        Log.d(tag, "Network available, reconnecting now");
+        handler.removeCallbacks(attempt);
+        handler.post(attempt);
+    }
+
+    private void attempt() {
+        synchronized (this) {
+            if (!pending) return;
+            pending = false;
+        }
+        NetworkMonitor.removeListener(this);
+        connect.run();
+    }
+
+    private void cancelPending() {
+        synchronized (this) {
+            pending = false;
+        }
+        handler.removeCallbacks(attempt);
+        NetworkMonitor.removeListener(this);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.newsight;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ResultDecoder - Decodes backend result messages off the socket reader thread.
+ *
+ * OkHttp delivers every message of a socket on one reader thread; parsing there delays the
+ * next message (and heartbeat pongs), and parsing on the UI thread costs frames. Messages are
+ * handed to one background decoder thread instead, decoded in a single streaming pass by a
+ * typed TypeAdapter, and only the finished model is delivered - to the main thread, or to
+ * any other executor the caller names. Messages are decoded and delivered in arrival order.
+ */
+public final class ResultDecoder {
+
+    private static final String TAG = "ResultDecoder";
+
+    public interface Callback<T> {
+        void onDecoded(@NonNull T result);
+
+        /** The message was not valid JSON for this model. */
+        default void onError(@NonNull Exception e) {}
+    }
+
+    private static final ExecutorService decoder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ResultDecoder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final Executor MAIN = mainHandler::post;
+
+    /** Runs the callback on the decoder thread itself, for callers that do their own posting. */
+    public static final Executor DECODER_THREAD = Runnable::run;
+
+    private ResultDecoder() {}
+
+    /** Decode {@code json} in the background and deliver the model on the main thread. */
+    public static <T> void decodeToMain(@NonNull String json, @NonNull TypeAdapter<T> adapter,
+                                        @NonNull Callback<T> callback) {
+        decode(json, adapter, MAIN, callback);
+    }
+
+    /** Decode {@code json} in the background and deliver the model through {@code deliverOn}. */
+    public static <T> void decode(@NonNull String json, @NonNull TypeAdapter<T> adapter,
+                                  @NonNull Executor deliverOn, @NonNull Callback<T> callback) {
+        decoder.execute(() -> {
+            T result;
+            try {
+                result = parse(json, adapter);
+            } catch (Exception e) {
+                Log.e(TAG, "Cannot decode " + adapter.getClass().getSimpleName() + ": " + json, e);
+                deliverOn.execute(() -> callback.onError(e));
+                return;
+            }
+            if (result == null) return; // a JSON null carries nothing to deliver
+            deliverOn.execute(() -> callback.onDecoded(result));
+        });
+    }
+
+    /** Synchronous single-pass decode, for callers already off the reader and UI threads. */
+    static <T> T parse(@NonNull String json, @NonNull TypeAdapter<T> adapter) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(json));
+        return adapter.read(reader);
+    }
+}
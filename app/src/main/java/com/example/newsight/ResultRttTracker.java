@@ -0,0 +1,89 @@
+package com.example.newsight;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ResultRttTracker - Pairs feature results with the frames they answer, for result RTTs.
+ *
+ * Frames are remembered by the sequence number they were sent with (the FrameProtocol header's,
+ * or frame_id in JSON frames); results that echo it as frame_id are matched exactly. Frames sent
+ * before an answered one were skipped by the backend and are forgotten, so a backend that drops
+ * frames doesn't make later results look slower than they were. A result without a sequence
+ * number is only paired when exactly one frame is outstanding.
+ *
+ * Thread-safe.
+ */
+public class ResultRttTracker {
+
+    static final int MAX_PENDING = 16;
+
+    // Oldest first
+    private final LinkedHashMap<Integer, Long> sentAt = new LinkedHashMap<Integer, Long>(32, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+            return size() > MAX_PENDING;
+        }
+    };
+
+    public synchronized void onSent(int sequence, long nowMs) {
+        sentAt.put(sequence, nowMs);
+    }
+
+    /**
+     * A result arrived.
+     * @param sequence the frame it answers, or -1 if the result doesn't say
+     * @return the round trip in ms, or -1 if it can't be paired with a frame
+     */
+    public synchronized long onResult(int sequence, long nowMs) {
+        Long sent = null;
+        if (sequence >= 0) {
+            sent = sentAt.remove(sequence);
+            if (sent != null) {
+                Iterator<Integer> it = sentAt.keySet().iterator();
+                while (it.hasNext() && it.next() < sequence) {
+                    it.remove();
+                }
+            }
+        } else if (sentAt.size() == 1) {
+            Iterator<Long> it = sentAt.values().iterator();
+            sent = it.next();
+            it.remove();
+        }
+        return sent != null ? nowMs - sent : -1;
+    }
+
+    /** Forget all outstanding frames (new connection or feature). */
+    public synchronized void clear() {
+        sentAt.clear();
+    }
+
+    public synchronized int size() {
+        return sentAt.size();
+    }
+
+    /** Top-level "frame_id" of a result object, or -1 if it has none. Nested objects are skipped. */
+    static int sequenceOf(@NonNull String json) {
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) return -1;
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("frame_id".equals(in.nextName()) && in.peek() == JsonToken.NUMBER) {
+                    return in.nextInt();
+                }
+                in.skipValue();
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            // Not a JSON object (or a malformed one): no sequence number
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.newsight;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * SpeechClipCache - Pre-synthesized WAV clips of phrases that are spoken over and over.
+ *
+ * Prompts like "Processing you request" or "person ahead" are requested up front; SpeechScheduler
+ * synthesizes them one at a time with TextToSpeech.synthesizeToFile while nothing is being
+ * said, and later plays the clip instead of going through the engine. Clips live in one
+ * directory named by a hash of the voice settings and the text, so they survive restarts and
+ * a change of voice simply stops matching. The directory is a byte-bounded LRU (file
+ * modification time is the access time); only phrases up to MAX_TEXT_LENGTH are cached.
+ *
+ * The byte bound follows what is asked for: every requested phrase adds its estimated size
+ * (BYTES_PER_CHAR), so the whole prefetched set fits, between the constructor's minimum and
+ * MAX_BYTES. Pinned phrases (the fixed prompts) are never evicted; only clips of phrases
+ * that come and go, like navigation steps, make room.
+ *
+ * Disk work stays off the callers' paths: load() scans and reads headers before taking the
+ * lock, access times are written on a background thread, and the listener is told about
+ * clips outside the lock. Synthesis only starts once load() is done.
+ *
+ * Pure bookkeeping: the scheduler does the synthesis and playback and reports back. Thread-safe.
+ */
+public class SpeechClipCache {
+
+    private static final String TAG = "SpeechClipCache";
+
+    static final long MIN_BYTES = 1024L * 1024;
+    static final long MAX_BYTES = 8L * 1024 * 1024;
+    // ~48 KB/s of 16-bit WAV at about 12 spoken characters per second, with some headroom
+    static final long BYTES_PER_CHAR = 6 * 1024;
+    static final int MAX_TEXT_LENGTH = 80;
+    private static final int MAX_FAILURES = 2;
+    private static final String SUFFIX = ".wav";
+    private static final String PARTIAL = ".part";
+
+    /** One playable clip. */
+    public static class Clip {
+        final String key;
+        final File file;
+        final long durationMs;
+
+        Clip(String key, File file, long durationMs) {
+            this.key = key;
+            this.file = file;
+            this.durationMs = durationMs;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+
+    /** Clips entering and leaving the cache, so a player can load and unload them. */
+    public interface Listener {
+        void onClipAdded(@NonNull Clip clip);
+        void onClipRemoved(@NonNull Clip clip);
+    }
+
+    // Access times are written here rather than on the caller's (speaking) thread
+    private static final ExecutorService touches = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "SpeechClipCache");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final File dir;
+    private final long minBytes;
+    private Listener listener;
+    private String voice = "";
+    private boolean loaded = false;
+
+    // Access-ordered: the eldest entry is the least recently played
+    private final LinkedHashMap<String, Clip> clips = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes = 0;
+    private final Set<String> pending = new LinkedHashSet<>();
+    private final Set<String> requested = new LinkedHashSet<>();
+    private final Set<String> pinned = new LinkedHashSet<>();
+    private long requestedBytes = 0;
+    private final Map<String, Integer> failures = new LinkedHashMap<>();
+    private String synthesizing;
+    private String synthesisId;
+    private int attempts = 0;
+
+    public SpeechClipCache(@NonNull File dir) {
+        this(dir, MIN_BYTES);
+    }
+
+    /** @param minBytes the byte bound before any phrase is requested */
+    SpeechClipCache(@NonNull File dir, long minBytes) {
+        this.dir = dir;
+        this.minBytes = minBytes;
+    }
+
+    /**
+     * Index the clips already on disk, oldest first, and drop leftovers of interrupted
+     * synthesis. Call once, off the main thread: the directory is read without the lock.
+     */
+    public void load(@Nullable Listener listener) {
+        List<Clip> found = new ArrayList<>();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.w(TAG, "Cannot create " + dir);
+        } else {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+                for (File file : files) {
+                    String name = file.getName();
+                    // No synthesis runs before load() is done, so any partial clip is a leftover
+                    long durationMs = name.endsWith(SUFFIX) ? wavDurationMs(file) : -1;
+                    if (durationMs <= 0) {
+                        if (!file.delete()) Log.w(TAG, "Cannot delete " + file);
+                        continue;
+                    }
+                    found.add(new Clip(name.substring(0, name.length() - SUFFIX.length()), file, durationMs));
+                }
+            }
+        }
+
+        List<Clip> added = new ArrayList<>();
+        List<Clip> removed;
+        synchronized (this) {
+            this.listener = listener;
+            for (Clip clip : found) {
+                if (!clips.containsKey(clip.key)) {
+                    add(clip);
+                    added.add(clip);
+                }
+            }
+            removed = evict();
+            loaded = true;
+            Log.d(TAG, clips.size() + " clips, " + totalBytes / 1024 + " KB");
+        }
+        notifyListener(listener, added, removed);
+    }
+
+    /** Voice settings the clips are synthesized with (language, rate, pitch). */
+    public synchronized void setVoice(@NonNull String voice) {
+        this.voice = voice;
+    }
+
+    /** The clip for {@code text} in the current voice, or null. Counts as a use. */
+    @Nullable
+    public synchronized Clip get(@NonNull String text) {
+        Clip clip = clips.get(key(text));
+        if (clip != null) {
+            long now = System.currentTimeMillis();
+            touches.execute(() -> {
+                if (!clip.file.setLastModified(now)) Log.d(TAG, "Cannot touch " + clip.file);
+            });
+        }
+        return clip;
+    }
+
+    /** Ask for {@code text} to be synthesized ahead of use. */
+    public void request(@NonNull String text) {
+        request(text, false);
+    }
+
+    /**
+     * Ask for {@code text} to be synthesized ahead of use; a {@code pin}ned phrase is never
+     * evicted once cached (keep this to a few fixed prompts).
+     */
+    public synchronized void request(@NonNull String text, boolean pin) {
+        text = text.trim();
+        if (text.isEmpty() || text.length() > MAX_TEXT_LENGTH) return;
+        if (requested.add(text)) requestedBytes += estimatedBytes(text);
+        if (pin) pinned.add(text);
+        String key = key(text);
+        if (clips.containsKey(key)) return;
+        Integer failed = failures.get(key);
+        if (failed != null && failed >= MAX_FAILURES) return;
+        pending.add(text);
+    }
+
+    /** Whether requested phrases are waiting and none is being synthesized. */
+    public synchronized boolean hasWork() {
+        return loaded && synthesizing == null && !pending.isEmpty();
+    }
+
+    /**
+     * Take the next phrase to synthesize; it is written to {@link #partialFile} and finished
+     * with {@link #onSynthesized} or {@link #onInterrupted}.
+     * @return null if there is nothing to do or a synthesis is already running
+     */
+    @Nullable
+    public synchronized String startNext() {
+        if (!loaded || synthesizing != null) return null;
+        Iterator<String> it = pending.iterator();
+        while (it.hasNext()) {
+            String text = it.next();
+            it.remove();
+            if (!clips.containsKey(key(text))) {
+                synthesizing = text;
+                // Unique per attempt, so a late callback for a flushed run is not taken for this one
+                synthesisId = "clip:" + (++attempts);
+                return text;
+            }
+        }
+        return null;
+    }
+
+    /** Synthesis id (for UtteranceProgressListener) of the phrase being synthesized, or null. */
+    @Nullable
+    public synchronized String synthesisId() {
+        return synthesizing != null ? synthesisId : null;
+    }
+
+    @NonNull
+    public synchronized File partialFile(@NonNull String text) {
+        return new File(dir, key(text) + PARTIAL);
+    }
+
+    /** The running synthesis finished (or failed); a good clip joins the cache. */
+    public void onSynthesized(boolean success) {
+        Clip clip;
+        List<Clip> removed;
+        Listener listener;
+        synchronized (this) {
+            String text = synthesizing;
+            synthesizing = null;
+            if (text == null) return;
+
+            String key = key(text);
+            File partial = new File(dir, key + PARTIAL);
+            File file = new File(dir, key + SUFFIX);
+            long durationMs = success ? wavDurationMs(partial) : -1;
+            if (durationMs <= 0 || !partial.renameTo(file)) {
+                // Not a WAV we can play (or the engine failed): leave this phrase to live TTS
+                Integer failed = failures.get(key);
+                failures.put(key, failed == null ? 1 : failed + 1);
+                if (!partial.delete()) Log.d(TAG, "No partial clip for " + text);
+                return;
+            }
+            clip = new Clip(key, file, durationMs);
+            add(clip);
+            removed = evict();
+            listener = this.listener;
+        }
+        notifyListener(listener, Arrays.asList(clip), removed);
+    }
+
+    /** The running synthesis was flushed by live speech; it goes back in line. */
+    public synchronized void onInterrupted() {
+        String text = synthesizing;
+        synthesizing = null;
+        if (text == null) return;
+        if (!new File(dir, key(text) + PARTIAL).delete()) Log.d(TAG, "No partial clip for " + text);
+        pending.add(text);
+    }
+
+    public synchronized int size() {
+        return clips.size();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    /** The current byte bound: room for everything requested so far, within [min, MAX_BYTES]. */
+    public synchronized long maxBytes() {
+        return Math.max(minBytes, Math.min(MAX_BYTES, requestedBytes));
+    }
+
+    static long estimatedBytes(@NonNull String text) {
+        return 44 + text.length() * BYTES_PER_CHAR;
+    }
+
+    private void add(Clip clip) {
+        Clip old = clips.put(clip.key, clip);
+        if (old != null) totalBytes -= old.file.length();
+        totalBytes += clip.file.length();
+    }
+
+    /** Least recently used first, skipping pinned phrases; returns what was removed. */
+    private List<Clip> evict() {
+        List<Clip> removed = new ArrayList<>();
+        long limit = maxBytes();
+        if (totalBytes <= limit) return removed;
+
+        Set<String> keep = new LinkedHashSet<>();
+        for (String text : pinned) keep.add(key(text));
+        Iterator<Clip> it = clips.values().iterator();
+        while (totalBytes > limit && it.hasNext()) {
+            Clip clip = it.next();
+            if (keep.contains(clip.key)) continue;
+            it.remove();
+            totalBytes -= clip.file.length();
+            if (!clip.file.delete()) Log.w(TAG, "Cannot delete " + clip.file);
+            removed.add(clip);
+        }
+        return removed;
+    }
+
+    /** Called without the lock: the listener loads and unloads clips, which is slow. */
+    private static void notifyListener(@Nullable Listener listener, List<Clip> added, List<Clip> removed) {
+        if (listener == null) return;
+        for (Clip clip : added) listener.onClipAdded(clip);
+        for (Clip clip : removed) listener.onClipRemoved(clip);
+    }
+
+    private String key(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest((voice + '\n' + text).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Playing time of a PCM WAV file from its header.
+     * @return -1 if it is not a PCM WAV (some engines synthesize to other formats)
+     */
+    static long wavDurationMs(@NonNull File file) {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            if (in.length() < 44 || in.readInt() != 0x52494646) return -1;   // "RIFF"
+            in.skipBytes(4);
+            if (in.readInt() != 0x57415645) return -1;                       // "WAVE"
+
+            int byteRate = 0;
+            while (in.getFilePointer() + 8 <= in.length()) {
+                int id = in.readInt();
+                int size = Integer.reverseBytes(in.readInt());
+                if (id == 0x666d7420) {                                       // "fmt "
+                    if (Short.reverseBytes(in.readShort()) != 1) return -1;   // PCM only
+                    in.skipBytes(2 + 4);
+                    byteRate = Integer.reverseBytes(in.readInt());
+                    in.skipBytes(size - 12);
+                } else if (id == 0x64617461) {                                // "data"
+                    if (byteRate <= 0) return -1;
+                    // Streaming writers may leave the size unset; trust the file then
+                    long bytes = size > 0 ? Math.min(size, in.length() - in.getFilePointer())
+                            : in.length() - in.getFilePointer();
+                    return bytes * 1000 / byteRate;
+                } else {
+                    in.skipBytes(size + (size & 1));
+                }
+            }
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
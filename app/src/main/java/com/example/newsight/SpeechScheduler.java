@@ -0,0 +1,580 @@
+package com.example.newsight;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SpeechScheduler - The one TextToSpeech engine in the process, and the rules for sharing it.
+ *
+ * Every helper (TtsHelper, ReadTextTTSHelper) speaks through here instead of owning an engine,
+ * so the engine starts once (NewSightApplication warms it up at launch) and one feature can no
+ * longer flush another's speech. Requests have a priority class:
+ *
+ *   SAFETY        obstacle warnings, emergency flow
+ *   NAVIGATION    turn-by-turn and transit announcements
+ *   INFORMATIONAL everything else (menus, text reading, voice prompts)
+ *
+ * One utterance is handed to the engine at a time. A more urgent request interrupts it; the
+ * interrupted utterance goes back to the front of its class and is spoken again from the
+ * start, its wait counted from the interruption. Equal or lower priority requests wait, most
+ * urgent class first, FIFO within a class.
+ * A request with a coalescing key replaces a queued (or playing) request of the same class and
+ * key, so rapid updates ("in 80 meters", "in 60 meters") do not pile up. The same text in the
+ * same class is dropped while it is queued, playing or was started within DEDUP_WINDOW_MS,
+ * and requests that waited longer than MAX_WAIT_MS for their class are dropped as stale.
+ * Requests dropped as repeated, stale or over MAX_QUEUED get onError(); ones the caller
+ * dropped itself, through cancel() or a newer request with the same key, get no callbacks.
+ *
+ * Frequent fixed phrases can be {@link #prefetch}ed: while nothing is being said, they are
+ * synthesized one by one into a SpeechClipCache, and from then on played from a SoundPool
+ * with no engine latency. Live speech flushes a running synthesis, which is retried later.
+ *
+ * Thread-safe; callbacks run on the engine's binder thread (or the caller's thread).
+ */
+public class SpeechScheduler {
+
+    private static final String TAG = "SpeechScheduler";
+
+    public enum Priority { SAFETY, NAVIGATION, INFORMATIONAL }
+
+    /** Progress of one utterance. */
+    public interface Callback {
+        void onStart();
+        void onDone();
+        void onError();
+    }
+
+    /** Engine startup outcome; delivered immediately if it is already known. */
+    public interface EngineListener {
+        void onEngineReady();
+        void onEngineError(String error);
+    }
+
+    /** What actually produces sound; TextToSpeech (and cached clips) outside of tests. */
+    interface Engine {
+        void speak(@NonNull String text, @NonNull String utteranceId);
+        void stop();
+
+        /** Nothing is queued or being said; a chance for background work. */
+        default void onIdle() {}
+    }
+
+    // Indexed by Priority.ordinal()
+    static final long[] DEDUP_WINDOW_MS = {4000, 8000, 1500};
+    static final long[] MAX_WAIT_MS = {3000, 15000, 60000};
+    static final int MAX_QUEUED = 8;   // per class; the oldest goes first
+    private static final int RECENT_TEXTS = 32;
+
+    private static SpeechScheduler instance;
+
+    private static class Utterance {
+        final String text;
+        final Priority priority;
+        final String key;
+        final Object owner;
+        final Callback callback;
+        long requestedMs;   // when its wait for the engine started
+        String id;
+
+        Utterance(String text, Priority priority, String key, Object owner, Callback callback, long requestedMs) {
+            this.text = text;
+            this.priority = priority;
+            this.key = key;
+            this.owner = owner;
+            this.callback = callback;
+            this.requestedMs = requestedMs;
+        }
+    }
+
+    private final TextToSpeech tts;
+    private final Engine engine;
+    private final SpeechClipCache clips;
+    private final List<ArrayDeque<Utterance>> queues = new ArrayList<>();
+    private final Map<String, Long> recent = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > RECENT_TEXTS;
+        }
+    };
+    private final List<EngineListener> engineListeners = new CopyOnWriteArrayList<>();
+    // Callbacks of dropped utterances, told once the lock is released
+    private final List<Callback> dropped = new ArrayList<>();
+    private Utterance current;
+    private int sequence = 0;
+    private float speechRate = 1.0f;
+    private float pitch = 1.0f;
+    private boolean ready = false;
+    private String engineError;
+
+    /** The process-wide scheduler, starting the engine on first use. */
+    public static synchronized SpeechScheduler get(@NonNull Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new SpeechScheduler(app != null ? app : context);
+        }
+        return instance;
+    }
+
+    private SpeechScheduler(Context context) {
+        for (int i = 0; i < Priority.values().length; i++) queues.add(new ArrayDeque<>());
+        tts = new TextToSpeech(context, this::onInit);
+        File cacheDir = context.getCacheDir();
+        clips = cacheDir != null ? new SpeechClipCache(new File(cacheDir, "speech_clips")) : null;
+        TtsEngine ttsEngine = new TtsEngine();
+        engine = ttsEngine;
+        if (clips != null) {
+            new Thread(() -> {
+                clips.load(ttsEngine);
+                // Phrases requested while the directory was being read can be synthesized now
+                onClipWork();
+            }, "SpeechClipCache").start();
+        }
+    }
+
+    /** For tests: schedule onto {@code engine}, ready immediately. */
+    SpeechScheduler(@NonNull Engine engine) {
+        for (int i = 0; i < Priority.values().length; i++) queues.add(new ArrayDeque<>());
+        this.tts = null;
+        this.engine = engine;
+        this.clips = null;
+        this.ready = true;
+    }
+
+    private void onInit(int status) {
+        if (status != TextToSpeech.SUCCESS) {
+            onEngineInit("TTS initialization failed");
+            return;
+        }
+        int result = tts.setLanguage(Locale.US);
+        if (result == TextToSpeech.LANG_MISSING_DATA || result == TextToSpeech.LANG_NOT_SUPPORTED) {
+            onEngineInit("Language not supported");
+            return;
+        }
+        tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+            @Override
+            public void onStart(String utteranceId) {
+                onUtteranceStart(utteranceId);
+            }
+
+            @Override
+            public void onDone(String utteranceId) {
+                if (isSynthesis(utteranceId)) {
+                    onSynthesisEnd(true);
+                } else {
+                    onUtteranceEnd(utteranceId, false, SystemClock.uptimeMillis());
+                }
+            }
+
+            @Override
+            public void onError(String utteranceId) {
+                if (isSynthesis(utteranceId)) {
+                    onSynthesisEnd(false);
+                } else {
+                    onUtteranceEnd(utteranceId, true, SystemClock.uptimeMillis());
+                }
+            }
+        });
+        updateVoice();
+        onEngineInit(null);
+    }
+
+    /** @param error null when the engine is ready */
+    private void onEngineInit(@Nullable String error) {
+        synchronized (this) {
+            ready = error == null;
+            engineError = error;
+            if (ready) next(SystemClock.uptimeMillis());
+        }
+        notifyDropped();
+        if (error == null) {
+            Log.d(TAG, "TTS engine ready");
+        } else {
+            Log.e(TAG, error);
+        }
+        for (EngineListener listener : engineListeners) notifyEngine(listener);
+    }
+
+    public void addEngineListener(@NonNull EngineListener listener) {
+        engineListeners.add(listener);
+        notifyEngine(listener);
+    }
+
+    public void removeEngineListener(@NonNull EngineListener listener) {
+        engineListeners.remove(listener);
+    }
+
+    private void notifyEngine(EngineListener listener) {
+        boolean isReady;
+        String error;
+        synchronized (this) {
+            isReady = ready;
+            error = engineError;
+        }
+        if (isReady) {
+            listener.onEngineReady();
+        } else if (error != null) {
+            listener.onEngineError(error);
+        }
+    }
+
+    public synchronized boolean isReady() {
+        return ready;
+    }
+
+    /** Whether an utterance requested by {@code owner} is being spoken. */
+    public synchronized boolean isSpeaking(@NonNull Object owner) {
+        return current != null && current.owner == owner;
+    }
+
+    /**
+     * Queue {@code text} for speaking.
+     * @param key     coalescing key: replaces anything of the same priority and key not yet finished
+     * @param owner   for {@link #cancel}; usually the requesting helper
+     * @param callback progress of this utterance, if it is spoken
+     */
+    public void speak(@NonNull String text, @NonNull Priority priority, @Nullable String key,
+                      @Nullable Object owner, @Nullable Callback callback) {
+        speak(text, priority, key, owner, callback, SystemClock.uptimeMillis());
+    }
+
+    void speak(@NonNull String text, @NonNull Priority priority, @Nullable String key,
+               @Nullable Object owner, @Nullable Callback callback, long nowMs) {
+        enqueue(text, priority, key, owner, callback, nowMs);
+        notifyDropped();
+    }
+
+    private synchronized void enqueue(String text, Priority priority, String key, Object owner,
+                                      Callback callback, long nowMs) {
+        text = text.trim();
+        Utterance utterance = new Utterance(text, priority, key, owner, callback, nowMs);
+        if (text.isEmpty()) {
+            drop(utterance, "empty");
+            return;
+        }
+
+        if (isDuplicate(text, priority, nowMs)) {
+            drop(utterance, "repeated");
+            return;
+        }
+
+        ArrayDeque<Utterance> queue = queues.get(priority.ordinal());
+        if (key != null) {
+            Iterator<Utterance> it = queue.iterator();
+            while (it.hasNext()) {
+                if (key.equals(it.next().key)) it.remove();
+            }
+        }
+
+        if (queue.size() >= MAX_QUEUED) drop(queue.pollFirst(), "overflowing");
+        queue.addLast(utterance);
+
+        if (current != null) {
+            boolean supersedes = key != null && current.priority == priority && key.equals(current.key);
+            if (supersedes) {
+                current = null;
+            } else if (priority.ordinal() < current.priority.ordinal()) {
+                Log.d(TAG, priority + " interrupts " + current.priority + ": " + current.text);
+                // Back in line, waiting afresh: it was being spoken until now
+                current.requestedMs = nowMs;
+                queues.get(current.priority.ordinal()).addFirst(current);
+                current = null;
+            }
+            // The next speak() flushes whatever the engine is still saying
+        }
+        next(nowMs);
+    }
+
+    /**
+     * Drop everything {@code owner} has queued; with {@code interrupt}, also stop what it is
+     * saying now. Other owners' speech is untouched.
+     */
+    public void cancel(@NonNull Object owner, boolean interrupt) {
+        cancel(owner, interrupt, SystemClock.uptimeMillis());
+    }
+
+    void cancel(@NonNull Object owner, boolean interrupt, long nowMs) {
+        synchronized (this) {
+            for (ArrayDeque<Utterance> queue : queues) {
+                Iterator<Utterance> it = queue.iterator();
+                while (it.hasNext()) {
+                    if (it.next().owner == owner) it.remove();
+                }
+            }
+            if (interrupt && current != null && current.owner == owner) {
+                current = null;
+                engine.stop();
+                next(nowMs);
+            }
+        }
+        notifyDropped();
+    }
+
+    /**
+     * Have {@code texts} synthesized into the clip cache in idle time, in order, so they play
+     * without engine latency when they are spoken. Already cached phrases are skipped.
+     */
+    public void prefetch(@NonNull Collection<String> texts) {
+        prefetch(texts, false);
+    }
+
+    /**
+     * As {@link #prefetch(Collection)}; {@code pinned} clips are never evicted, for the few
+     * fixed prompts that must always play without latency.
+     */
+    public void prefetch(@NonNull Collection<String> texts, boolean pinned) {
+        if (clips == null) return;
+        for (String text : texts) {
+            if (text != null) clips.request(text, pinned);
+        }
+        onClipWork();
+    }
+
+    /** Start synthesizing if the engine is free. */
+    private void onClipWork() {
+        synchronized (this) {
+            if (ready && current == null) engine.onIdle();
+        }
+    }
+
+    /** Engine-wide; affects every owner's speech. */
+    public void setSpeechRate(float rate) {
+        if (tts == null) return;
+        tts.setSpeechRate(rate);
+        speechRate = rate;
+        updateVoice();
+    }
+
+    /** Engine-wide; affects every owner's speech. */
+    public void setPitch(float pitch) {
+        if (tts == null) return;
+        tts.setPitch(pitch);
+        this.pitch = pitch;
+        updateVoice();
+    }
+
+    private void updateVoice() {
+        // Clips made with other settings stop matching and age out of the cache
+        if (clips != null) clips.setVoice(Locale.US.toLanguageTag() + "|" + speechRate + "|" + pitch);
+    }
+
+    private boolean isSynthesis(String utteranceId) {
+        return clips != null && utteranceId != null && utteranceId.equals(clips.synthesisId());
+    }
+
+    private void onSynthesisEnd(boolean success) {
+        clips.onSynthesized(success);
+        synchronized (this) {
+            if (ready && current == null) engine.onIdle();
+        }
+    }
+
+    void onUtteranceStart(String utteranceId) {
+        Callback callback;
+        synchronized (this) {
+            if (current == null || !current.id.equals(utteranceId)) return;
+            callback = current.callback;
+        }
+        if (callback != null) callback.onStart();
+    }
+
+    void onUtteranceEnd(String utteranceId, boolean error, long nowMs) {
+        Callback callback;
+        synchronized (this) {
+            if (current == null || !current.id.equals(utteranceId)) return;
+            callback = current.callback;
+            current = null;
+            next(nowMs);
+        }
+        if (callback != null) {
+            if (error) {
+                callback.onError();
+            } else {
+                callback.onDone();
+            }
+        }
+        notifyDropped();
+    }
+
+    /** Note a request that will not be spoken after all; its owner hears of it in notifyDropped(). */
+    private void drop(Utterance utterance, String why) {
+        Log.d(TAG, "Dropping " + why + " " + utterance.priority + ": " + utterance.text);
+        if (utterance.callback != null) dropped.add(utterance.callback);
+    }
+
+    /** Report drops through onError(); called without the lock, like the other callbacks. */
+    private void notifyDropped() {
+        List<Callback> callbacks;
+        synchronized (this) {
+            if (dropped.isEmpty()) return;
+            callbacks = new ArrayList<>(dropped);
+            dropped.clear();
+        }
+        for (Callback callback : callbacks) callback.onError();
+    }
+
+    private boolean isDuplicate(String text, Priority priority, long nowMs) {
+        if (current != null && current.priority == priority && current.text.equals(text)) return true;
+        for (Utterance queued : queues.get(priority.ordinal())) {
+            if (queued.text.equals(text)) return true;
+        }
+        Long started = recent.get(priority.ordinal() + text);
+        return started != null && nowMs - started < DEDUP_WINDOW_MS[priority.ordinal()];
+    }
+
+    /** Hand the most urgent fresh utterance to the engine, if it is free. */
+    private void next(long nowMs) {
+        if (!ready || current != null) return;
+
+        for (Priority priority : Priority.values()) {
+            ArrayDeque<Utterance> queue = queues.get(priority.ordinal());
+            Utterance utterance;
+            while ((utterance = queue.pollFirst()) != null) {
+                if (nowMs - utterance.requestedMs > MAX_WAIT_MS[priority.ordinal()]) {
+                    drop(utterance, "stale");
+                    continue;
+                }
+                utterance.id = "speech_" + (++sequence);
+                current = utterance;
+                recent.put(priority.ordinal() + utterance.text, nowMs);
+                engine.speak(utterance.text, utterance.id);
+                return;
+            }
+        }
+        engine.onIdle();
+    }
+
+    /**
+     * TextToSpeech, except for phrases with a loaded clip, which SoundPool plays right away.
+     * Called under the scheduler's lock; clip bookkeeping is guarded by this object.
+     */
+    private final class TtsEngine implements Engine, SpeechClipCache.Listener,
+            SoundPool.OnLoadCompleteListener {
+
+        private final SoundPool soundPool = new SoundPool.Builder()
+                .setMaxStreams(1)
+                // Same volume stream as TextToSpeech's default
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_MEDIA)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                        .build())
+                .build();
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private final Map<Integer, String> loading = new HashMap<>();
+        private final Map<String, Integer> loaded = new HashMap<>();
+        private int streamId = 0;
+        private Runnable finish;
+
+        TtsEngine() {
+            soundPool.setOnLoadCompleteListener(this);
+        }
+
+        @Override
+        public void speak(@NonNull String text, @NonNull String utteranceId) {
+            stopClip();
+            interruptSynthesis();
+            SpeechClipCache.Clip clip = clips != null ? clips.get(text) : null;
+            if (clip != null && playClip(clip, utteranceId)) {
+                // Flush whatever the engine was still saying or synthesizing
+                tts.stop();
+                return;
+            }
+            // The scheduler keeps at most one utterance in the engine
+            tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, utteranceId);
+        }
+
+        @Override
+        public void stop() {
+            stopClip();
+            interruptSynthesis();
+            tts.stop();
+        }
+
+        /** Live speech flushes the engine's queue, including a running synthesis. */
+        private void interruptSynthesis() {
+            if (clips != null && clips.synthesisId() != null) clips.onInterrupted();
+        }
+
+        @Override
+        public void onIdle() {
+            if (clips == null || !clips.hasWork()) return;
+            String text = clips.startNext();
+            if (text == null) return;
+            int result = tts.synthesizeToFile(text, new Bundle(), clips.partialFile(text), clips.synthesisId());
+            if (result != TextToSpeech.SUCCESS) {
+                Log.w(TAG, "synthesizeToFile failed for: " + text);
+                clips.onSynthesized(false);
+            }
+        }
+
+        private synchronized boolean playClip(SpeechClipCache.Clip clip, String utteranceId) {
+            Integer soundId = loaded.get(clip.getKey());
+            if (soundId == null) return false;
+            streamId = soundPool.play(soundId, 1f, 1f, 1, 0, 1f);
+            if (streamId == 0) return false;
+
+            handler.post(() -> onUtteranceStart(utteranceId));
+            finish = () -> onUtteranceEnd(utteranceId, false, SystemClock.uptimeMillis());
+            handler.postDelayed(finish, clip.getDurationMs());
+            return true;
+        }
+
+        private synchronized void stopClip() {
+            if (finish != null) {
+                handler.removeCallbacks(finish);
+                finish = null;
+            }
+            if (streamId != 0) {
+                soundPool.stop(streamId);
+                streamId = 0;
+            }
+        }
+
+        @Override
+        public synchronized void onClipAdded(@NonNull SpeechClipCache.Clip clip) {
+            int soundId = soundPool.load(clip.getFile().getPath(), 1);
+            if (soundId != 0) loading.put(soundId, clip.getKey());
+        }
+
+        @Override
+        public synchronized void onClipRemoved(@NonNull SpeechClipCache.Clip clip) {
+            Integer soundId = loaded.remove(clip.getKey());
+            if (soundId != null) soundPool.unload(soundId);
+            loading.values().remove(clip.getKey());
+        }
+
+        @Override
+        public synchronized void onLoadComplete(SoundPool pool, int sampleId, int status) {
+            String key = loading.remove(sampleId);
+            if (key == null) return;
+            if (status == 0) {
+                loaded.put(key, sampleId);
+            } else {
+                Log.w(TAG, "SoundPool could not load clip " + key);
+                soundPool.unload(sampleId);
+            }
+        }
+    }
+}
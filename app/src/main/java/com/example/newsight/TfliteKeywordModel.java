@@ -0,0 +1,75 @@
+package com.example.newsight;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.support.common.FileUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * TfliteKeywordModel - The bundled wake word classifier (assets/hey_guide.tflite).
+ *
+ * Expects float log-mel input shaped [1, frames, melBins] or [1, frames, melBins, 1] and a
+ * softmax output [1, classes] whose last class is the keyword (class 0 being background /
+ * other speech), or a single sigmoid output. Frame count and mel bins are read from the
+ * model, so a retrained model with a different window needs no code change.
+ */
+class TfliteKeywordModel implements WakeWordSpotter.KeywordModel {
+
+    static final String MODEL = "hey_guide.tflite";
+
+    private final Interpreter interpreter;
+    private final int frames;
+    private final int melBins;
+    private final int keywordIndex;
+    private final ByteBuffer input;
+    private final float[][] output;
+
+    static TfliteKeywordModel load(@NonNull Context context) throws IOException {
+        Interpreter.Options options = new Interpreter.Options().setNumThreads(1);
+        return new TfliteKeywordModel(new Interpreter(FileUtil.loadMappedFile(context, MODEL), options));
+    }
+
+    private TfliteKeywordModel(Interpreter interpreter) {
+        this.interpreter = interpreter;
+        int[] inShape = interpreter.getInputTensor(0).shape();
+        int[] outShape = interpreter.getOutputTensor(0).shape();
+        this.frames = inShape[1];
+        this.melBins = inShape[2];
+        int classes = outShape[outShape.length - 1];
+        this.keywordIndex = classes - 1;
+        this.input = ByteBuffer.allocateDirect(4 * frames * melBins).order(ByteOrder.nativeOrder());
+        this.output = new float[1][classes];
+    }
+
+    @Override
+    public int getFrames() {
+        return frames;
+    }
+
+    @Override
+    public int getMelBins() {
+        return melBins;
+    }
+
+    @Override
+    public float score(@NonNull float[][] features) {
+        input.rewind();
+        for (float[] frame : features) {
+            for (float v : frame) input.putFloat(v);
+        }
+        input.rewind();
+        interpreter.run(input, output);
+        return output[0][keywordIndex];
+    }
+
+    @Override
+    public void close() {
+        interpreter.close();
+    }
+}
@@ -1,33 +1,53 @@
 package com.example.newsight;
 
 import android.content.Context;
-import android.speech.tts.TextToSpeech;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.Locale;
-
+/**
+ * Speaks short messages for one screen or feature through the shared SpeechScheduler, at the
+ * priority it was created with (INFORMATIONAL unless told otherwise).
+ */
 public class TtsHelper {
 
-    private TextToSpeech tts;
-    private boolean isReady = false;
+    private final SpeechScheduler scheduler;
+    private final SpeechScheduler.Priority priority;
 
     public TtsHelper(Context context) {
-        tts = new TextToSpeech(context, status -> {
-            if (status == TextToSpeech.SUCCESS) {
-                tts.setLanguage(Locale.US);
-                isReady = true;
-            }
-        });
+        this(context, SpeechScheduler.Priority.INFORMATIONAL);
+    }
+
+    public TtsHelper(Context context, SpeechScheduler.Priority priority) {
+        this.scheduler = SpeechScheduler.get(context);
+        this.priority = priority;
     }
 
     public void speak(String text) {
-        // Check if TextToSpeech is ready and text is not null or empty
-        if (!isReady || text == null || text.trim().isEmpty()) return;
+        // Check if text is not null or empty; speech before the engine is up is queued
+        if (text == null || text.trim().isEmpty()) return;
+
+        scheduler.speak(text.trim(), priority, null, this, null);
+    }
+
+    /** Speak {@code text} and follow its progress, e.g. to listen only once a prompt is over. */
+    public void speak(String text, SpeechScheduler.Callback callback) {
+        if (text == null || text.trim().isEmpty()) {
+            if (callback != null) callback.onError();
+            return;
+        }
 
-        text = text.trim();
-        tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, "TTS_ID");
+        scheduler.speak(text.trim(), priority, null, this, callback);
+    }
+
+    /**
+     * Speak an update that supersedes earlier ones with the same key (e.g. the distance to the
+     * next turn): a queued or playing update with that key is replaced rather than followed.
+     */
+    public void speak(String text, String key) {
+        if (text == null || text.trim().isEmpty()) return;
+
+        scheduler.speak(text.trim(), priority, key, this, null);
     }
 
     /**
@@ -40,8 +60,8 @@ public class TtsHelper {
      * }
      */
     public void speakFromJson(String jsonString) {
-        // Check if TextToSpeech is ready and jsonString is not null
-        if (!isReady || jsonString == null) return;
+        // Check if jsonString is not null
+        if (jsonString == null) return;
 
         try {
             JSONObject root = new JSONObject(jsonString);
@@ -61,10 +81,11 @@ public class TtsHelper {
         }
     }
 
+    /**
+     * Drop this helper's queued messages. The shared engine keeps running, and a message
+     * already being spoken is allowed to finish (e.g. "Activating ..." while the screen closes).
+     */
     public void shutdown() {
-        if (tts != null) {
-            tts.stop();
-            tts.shutdown();
-        }
+        scheduler.cancel(this, false);
     }
 }
@@ -0,0 +1,198 @@
+package com.example.newsight;
+
+import androidx.annotation.NonNull;
+
+/**
+ * VoiceActivityDetector - Speech / no-speech decisions that adapt to the surrounding noise.
+ *
+ * Every 10ms frame (LogMelSpectrogram's hop) is described by its energy, its zero-crossing
+ * rate and its mel band energies. Each of those levels is compared against a noise floor of
+ * its own, so a frame counts as speech when it is clearly louder than the background
+ * (SNR_DB), raises the spectrum across the speech bands rather than in one rumble band
+ * (BAND_SNR_DB), and is not hiss-like (MAX_ZCR). The floors follow the background outside
+ * of speech (pauses between syllables do not count) and are lifted to the quietest frame of
+ * the last NOISE_WINDOW_FRAMES, so a street that suddenly gets louder becomes the new
+ * baseline within a couple of seconds.
+ *
+ * Decisions are smoothed: speech starts after ONSET_FRAMES speech frames in a row and ends
+ * HANGOVER_FRAMES after the last one, which is the end-of-utterance latency (400ms).
+ *
+ * While the app's own prompt is playing (setPromptPlaying), nothing counts as speech and the
+ * noise floor is not learned: the microphone hears the prompt too. Speech has to start after
+ * the prompt has ended, and a prompt whose end is never reported stops holding speech back
+ * after MAX_PROMPT_FRAMES.
+ *
+ * All state is allocated up front; accept() allocates nothing. Not thread-safe: feed it from
+ * the capture thread.
+ */
+public class VoiceActivityDetector {
+
+    static final int MEL_BINS = 20;
+    static final float SNR_DB = 8f;
+    static final float BAND_SNR_DB = 5f;
+    static final float MAX_ZCR = 0.45f;
+    static final float MIN_SPEECH_DB = 30f;          // RMS ~30 of 32768: digital silence
+    static final int ONSET_FRAMES = 3;               // 30ms
+    static final int HANGOVER_FRAMES = 40;           // 400ms
+    static final int NOISE_WINDOW_FRAMES = 150;      // 1.5s
+    static final int MAX_PROMPT_FRAMES = 500;        // 5s
+    private static final float NOISE_RISE = 0.02f;
+    private static final float NOISE_FALL = 0.3f;
+    private static final float LN_TO_DB = (float) (10 / Math.log(10));
+
+    private final LogMelSpectrogram melSpectrogram = new LogMelSpectrogram(MEL_BINS);
+
+    // Feature 0 is frame energy, 1..MEL_BINS the mel bands; all in dB
+    private final float[] features = new float[MEL_BINS + 1];
+    private final float[] noise = new float[MEL_BINS + 1];
+    private final float[][] history = new float[NOISE_WINDOW_FRAMES][MEL_BINS + 1];
+    private int historyCount = 0;
+
+    // Accumulated over the samples since the previous frame
+    private double sumSquares = 0;
+    private int zeroCrossings = 0;
+    private int hopSamples = 0;
+    private short previousSample = 0;
+
+    private int speechRun = 0;
+    private int silenceRun = 0;
+    private boolean speaking = false;
+    private boolean spoken = false;
+    private float lastSnrDb = 0f;
+
+    // Set from whichever thread reports the prompt's progress
+    private volatile boolean promptPlaying = false;
+    private int promptFrames = 0;
+
+    /**
+     * Feed 16-bit mono PCM at 16kHz.
+     * @return whether speech is in progress at the end of this audio (see {@link #isSpeaking()})
+     */
+    public boolean accept(@NonNull short[] pcm, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            short sample = pcm[i];
+            sumSquares += (double) sample * sample;
+            if ((sample < 0) != (previousSample < 0)) zeroCrossings++;
+            previousSample = sample;
+            hopSamples++;
+            if (melSpectrogram.push(sample / 32768f)) onFrame();
+        }
+        return speaking;
+    }
+
+    /** Speech is in progress (including the hangover after the last speech frame). */
+    public boolean isSpeaking() {
+        return speaking;
+    }
+
+    /** Speech was heard since the last reset() and has now ended. */
+    public boolean isEndOfUtterance() {
+        return spoken && !speaking;
+    }
+
+    /** Current background level (dB re 1 LSB RMS), for logging. */
+    public float getNoiseFloorDb() {
+        return noise[0];
+    }
+
+    /** Energy SNR of the latest frame, for logging and tuning. */
+    public float getLastSnrDb() {
+        return lastSnrDb;
+    }
+
+    /**
+     * The app's own prompt started (true) or finished (false) playing. Unlike the rest of the
+     * state this survives reset(), so a prompt can be announced before the recording starts.
+     */
+    public void setPromptPlaying(boolean playing) {
+        promptPlaying = playing;
+    }
+
+    /** Start over, e.g. when the microphone is reopened; the noise floor is learned again. */
+    public void reset() {
+        melSpectrogram.reset();
+        historyCount = 0;
+        sumSquares = 0;
+        zeroCrossings = 0;
+        hopSamples = 0;
+        previousSample = 0;
+        speechRun = 0;
+        silenceRun = 0;
+        speaking = false;
+        spoken = false;
+        lastSnrDb = 0f;
+        promptFrames = 0;
+    }
+
+    private void onFrame() {
+        features[0] = (float) (10 * Math.log10(sumSquares / hopSamples + 1));
+        float zcr = (float) zeroCrossings / hopSamples;
+        float[] mel = melSpectrogram.frame();
+        for (int b = 0; b < MEL_BINS; b++) features[b + 1] = mel[b] * LN_TO_DB;
+        sumSquares = 0;
+        zeroCrossings = 0;
+        hopSamples = 0;
+
+        if (historyCount == 0) {
+            System.arraycopy(features, 0, noise, 0, features.length);
+        }
+
+        // The prompt's echo is loud but is neither the user nor the background
+        boolean prompt = promptPlaying && promptFrames < MAX_PROMPT_FRAMES;
+        if (prompt) promptFrames++;
+
+        lastSnrDb = features[0] - noise[0];
+        float bandSnr = 0f;
+        for (int b = 1; b <= MEL_BINS; b++) bandSnr += Math.max(0f, features[b] - noise[b]);
+        bandSnr /= MEL_BINS;
+
+        boolean speech = features[0] >= MIN_SPEECH_DB
+                && lastSnrDb >= SNR_DB
+                && bandSnr >= BAND_SNR_DB
+                && zcr <= MAX_ZCR;
+
+        if (prompt) {
+            smooth(false);
+            return;
+        }
+        updateNoise(speech);
+        smooth(speech);
+    }
+
+    private void updateNoise(boolean speech) {
+        float[] slot = history[historyCount++ % NOISE_WINDOW_FRAMES];
+        System.arraycopy(features, 0, slot, 0, features.length);
+        int frames = Math.min(historyCount, NOISE_WINDOW_FRAMES);
+
+        for (int i = 0; i < features.length; i++) {
+            float f = features[i];
+            if (f < noise[i]) {
+                noise[i] += NOISE_FALL * (f - noise[i]);
+            } else if (!speech && !speaking) {
+                noise[i] += NOISE_RISE * (f - noise[i]);
+            }
+            // Nothing in the window was quieter: the background itself got louder
+            if (frames == NOISE_WINDOW_FRAMES) {
+                float min = Float.MAX_VALUE;
+                for (int h = 0; h < frames; h++) min = Math.min(min, history[h][i]);
+                if (min > noise[i]) noise[i] = min;
+            }
+        }
+    }
+
+    private void smooth(boolean speech) {
+        if (speech) {
+            speechRun++;
+            silenceRun = 0;
+            if (speechRun >= ONSET_FRAMES) {
+                speaking = true;
+                spoken = true;
+            }
+        } else {
+            speechRun = 0;
+            if (speaking && ++silenceRun >= HANGOVER_FRAMES) {
+                speaking = false;
+            }
+        }
+    }
+}
@@ -18,7 +18,6 @@ import androidx.core.app.ActivityCompat;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -39,6 +38,10 @@ public class VoiceCommandHelper {
 
     private static final String TAG = "VoiceCommandHelper";
 
+    // Fixed prompts, pre-synthesized by NewSightApplication
+    static final String GREETING = "Hello, How Can I help you?";
+    static final String PROCESSING = "Processing you request";
+
     // Audio recording parameters
     private static final int RECORDING_SAMPLE_RATE = 16000;
     private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_IN_MONO;
@@ -46,15 +49,20 @@ public class VoiceCommandHelper {
 
     private TtsHelper ttsHelper;
 
-    // Voice Activity Detection parameters
-    private static final double SILENCE_THRESHOLD = 1500.0;
-    private static final long SILENCE_DURATION_MS = 2000;
+    // Voice Activity Detection parameters (end of speech itself is up to VoiceActivityDetector)
     private static final long MAX_RECORDING_DURATION_MS = 15000;
     private static final long MIN_RECORDING_DURATION_MS = 500;
 
     // Wake word detection parameters
-    private static final double WAKE_WORD_ENERGY_THRESHOLD = 2000.0;
     private static final long WAKE_WORD_CHECK_INTERVAL_MS = 5000;
+    private static final int WAKE_WORD_WINDOW_SAMPLES = RECORDING_SAMPLE_RATE * 5;
+    private static final int WAKE_WORD_VERIFY_SAMPLES = RECORDING_SAMPLE_RATE * 2;
+
+    // Capture history, enough for the longest command. AudioRecord reads straight into it and
+    // every consumer reads from it in place; only uploads copy. Whoever captures holds its lock.
+    private final PcmRingBuffer ring =
+            new PcmRingBuffer(RECORDING_SAMPLE_RATE * (int) (MAX_RECORDING_DURATION_MS / 1000 + 1));
+    private final VoiceActivityDetector vad = new VoiceActivityDetector();
 
     private Context context;
     private AudioRecord audioRecord;
@@ -62,12 +70,16 @@ public class VoiceCommandHelper {
     private AtomicBoolean isListeningForWakeWord = new AtomicBoolean(false);
     private ExecutorService executorService;
     private OkHttpClient httpClient;
+    private WakeWordSpotter wakeWordSpotter;
+    private boolean spotterLoaded = false;
+    private volatile boolean verifyWakeWordWithBackend = false;
     private NoiseSuppressor noiseSuppressor;
     private AcousticEchoCanceler echoCanceler;
     private Handler mainHandler;
 
     private static final String BACKEND_URL = "https://cis4398-project-newsight-backend.onrender.com/voice/transcribe";
     private static final String WAKE_WORD_URL = "https://cis4398-project-newsight-backend.onrender.com/voice/wake-word";
+    private static final String STREAM_URL = "wss://cis4398-project-newsight-backend.onrender.com/voice/stream";
 
     private String sessionId; // Session ID for navigation tracking
 
@@ -86,7 +98,7 @@ public class VoiceCommandHelper {
     public VoiceCommandHelper(Context context) {
         this.context = context;
         this.executorService = Executors.newFixedThreadPool(2);
-        this.httpClient = new OkHttpClient.Builder()
+        this.httpClient = NetworkClient.get().newBuilder()
                 .connectTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
                 .writeTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
                 .readTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
@@ -107,6 +119,14 @@ public class VoiceCommandHelper {
         this.callback = callback;
     }
 
+    /**
+     * Also confirm on-device wake word detections with the backend before recording a command
+     * (fewer false triggers, at the cost of a round trip). Off by default.
+     */
+    public void setWakeWordVerification(boolean enabled) {
+        this.verifyWakeWordWithBackend = enabled;
+    }
+
     public void startWakeWordDetection() {
         if (isListeningForWakeWord.get() || isRecording.get()) {
             Log.w(TAG, "Already listening, skipping wake word start");
@@ -137,20 +157,14 @@ public class VoiceCommandHelper {
 
         executorService.execute(() -> {
             try {
-                mainHandler.post(()-> ttsHelper.speak("Hello, How Can I help you?"));
+                speakGreeting();
                 recordCommandWithVAD();
             } catch (Exception e) {
                 Log.e(TAG, "Error in recording: " + e.getMessage(), e);
                 notifyError("Recording error");
 
                 // Restart wake word detection even on error
-                mainHandler.postDelayed(() -> {
-                    try {
-                        startWakeWordDetection();
-                    } catch (Exception ex) {
-                        Log.e(TAG, "Error restarting wake word detection: " + ex.getMessage());
-                    }
-                }, 1000);
+                restartWakeWordDetectionLater();
             }
         });
     }
@@ -161,14 +175,25 @@ public class VoiceCommandHelper {
         cleanupAudioRecord();
     }
 
-    private void listenForWakeWord() throws IOException {
+    private void listenForWakeWord() throws IOException, InterruptedException {
+        boolean spotted;
+        synchronized (ring) {
+            spotted = captureUntilWakeWord();
+        }
+        if (spotted) {
+            onWakeWordConfirmed();
+        }
+    }
+
+    /** @return true if the on-device spotter heard the wake word (and no backend check is wanted) */
+    private boolean captureUntilWakeWord() throws IOException {
         int bufferSize = AudioRecord.getMinBufferSize(RECORDING_SAMPLE_RATE, CHANNEL_CONFIG, AUDIO_FORMAT);
         bufferSize = Math.max(bufferSize, RECORDING_SAMPLE_RATE * 2);
 
         if (ActivityCompat.checkSelfPermission(context, Manifest.permission.RECORD_AUDIO)
                 != PackageManager.PERMISSION_GRANTED) {
             notifyError("Microphone permission required");
-            return;
+            return false;
         }
 
         audioRecord = new AudioRecord(
@@ -182,54 +207,107 @@ public class VoiceCommandHelper {
         if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
             Log.e(TAG, "AudioRecord initialization failed");
             notifyError("Failed to initialize microphone");
-            return;
+            return false;
         }
 
         setupAudioProcessing();
         audioRecord.startRecording();
         isRecording.set(true);
 
-        ByteArrayOutputStream bufferStream = new ByteArrayOutputStream();
-        byte[] buffer = new byte[bufferSize / 4];
+        ring.clear();
+        PcmRingBuffer.Source source = audioRecord::read;
+        short[] samples = ring.array();
+        int chunkSamples = bufferSize / 8;
         long lastCheckTime = System.currentTimeMillis();
-        double maxEnergyInWindow = 0;
+        boolean speechInWindow = false;
+        vad.reset();
 
-        Log.d(TAG, "👂 Listening for wake word...");
+        // On-device spotting when the app ships a keyword model; backend checks otherwise
+        WakeWordSpotter spotter = getWakeWordSpotter();
+        boolean spotted = false;
+        if (spotter != null) spotter.reset();
 
-        while (isRecording.get() && isListeningForWakeWord.get()) {
-            int bytesRead = audioRecord.read(buffer, 0, buffer.length);
-            if (bytesRead > 0) {
-                bufferStream.write(buffer, 0, bytesRead);
+        Log.d(TAG, "👂 Listening for wake word" + (spotter != null ? " (on-device)..." : "..."));
 
-                double rms = calculateRMS(buffer, bytesRead);
-                maxEnergyInWindow = Math.max(maxEnergyInWindow, rms);
+        while (isRecording.get() && isListeningForWakeWord.get()) {
+            int offset = ring.writeOffset();
+            int samplesRead = ring.fill(source, chunkSamples);
+            if (samplesRead > 0 && spotter != null) {
+                if (spotter.accept(samples, offset, samplesRead)) {
+                    Log.d(TAG, "Wake word spotted on-device (score " + spotter.getLastScore() + ")");
+                    if (!verifyWakeWordWithBackend) {
+                        spotted = true;
+                        break;
+                    }
+                    // Let the backend confirm; keep listening meanwhile
+                    checkForWakeWordAsync(createWavFile(
+                            toWav(Math.min(ring.available(), WAKE_WORD_VERIFY_SAMPLES))));
+                }
+            } else if (samplesRead > 0) {
+                if (vad.accept(samples, offset, samplesRead)) {
+                    speechInWindow = true;
+                }
 
                 long currentTime = System.currentTimeMillis();
 
-                if (currentTime - lastCheckTime >= WAKE_WORD_CHECK_INTERVAL_MS &&
-                        maxEnergyInWindow > WAKE_WORD_ENERGY_THRESHOLD) {
-
-                    byte[] audioData = bufferStream.toByteArray();
-                    int bytesToCheck = Math.min(audioData.length, RECORDING_SAMPLE_RATE * 2 * 5);
-                    byte[] checkData = new byte[bytesToCheck];
-                    System.arraycopy(audioData, audioData.length - bytesToCheck, checkData, 0, bytesToCheck);
+                if (currentTime - lastCheckTime >= WAKE_WORD_CHECK_INTERVAL_MS && speechInWindow) {
 
-                    File tempFile = createWavFile(checkData, RECORDING_SAMPLE_RATE);
+                    // The last 5s; the ring keeps the overlap with the previous check by itself
+                    File tempFile = createWavFile(toWav(Math.min(ring.available(), WAKE_WORD_WINDOW_SAMPLES)));
                     checkForWakeWordAsync(tempFile);
 
                     lastCheckTime = currentTime;
-                    maxEnergyInWindow = 0;
-
-                    bufferStream.reset();
-                    int keepBytes = RECORDING_SAMPLE_RATE * 2 * 2;
-                    if (audioData.length > keepBytes) {
-                        bufferStream.write(audioData, audioData.length - keepBytes, keepBytes);
-                    }
+                    speechInWindow = false;
                 }
             }
         }
 
         cleanupAudioRecord();
+        return spotted;
+    }
+
+    private WakeWordSpotter getWakeWordSpotter() {
+        if (!spotterLoaded) {
+            spotterLoaded = true;
+            wakeWordSpotter = WakeWordSpotter.create(context);
+        }
+        return wakeWordSpotter;
+    }
+
+    /** The wake word was heard: hand the microphone over to command recording. */
+    private void onWakeWordConfirmed() throws IOException, InterruptedException {
+        Log.d(TAG, "✅ Wake word 'Hey Guide' detected!");
+        isListeningForWakeWord.set(false);
+        cleanupAudioRecord();
+
+        if (callback != null) {
+            mainHandler.post(() -> callback.onWakeWordDetected());
+            speakGreeting();
+        }
+        showToast("Listening for command...");
+
+        Thread.sleep(300);
+        recordCommandWithVAD();
+    }
+
+    /** The greeting plays while the command recording starts; the VAD ignores it until it ends. */
+    private void speakGreeting() {
+        vad.setPromptPlaying(true);
+        mainHandler.post(() -> ttsHelper.speak(GREETING, new SpeechScheduler.Callback() {
+            @Override
+            public void onStart() {
+            }
+
+            @Override
+            public void onDone() {
+                vad.setPromptPlaying(false);
+            }
+
+            @Override
+            public void onError() {
+                vad.setPromptPlaying(false);
+            }
+        }));
     }
 
     private void checkForWakeWordAsync(File audioFile) {
@@ -258,20 +336,7 @@ public class VoiceCommandHelper {
                         Log.d(TAG, "Wake word check: '" + text + "' -> " + wakeWordDetected);
 
                         if (wakeWordDetected) {
-                            Log.d(TAG, "✅ Wake word 'Hey Guide' detected!");
-                            isListeningForWakeWord.set(false);
-                            cleanupAudioRecord();
-
-                            if (callback != null) {
-                                mainHandler.post(() -> {
-                                    callback.onWakeWordDetected();
-                                    ttsHelper.speak("Hello, How Can I help you?");
-                                });
-                            }
-                            showToast("Listening for command...");
-
-                            Thread.sleep(300);
-                            recordCommandWithVAD();
+                            onWakeWordConfirmed();
                         }
                     } catch (JSONException e) {
                         Log.e(TAG, "JSON parse error: " + e.getMessage());
@@ -286,7 +351,14 @@ public class VoiceCommandHelper {
         });
     }
 
-    private void recordCommandWithVAD() throws IOException {
+    private void recordCommandWithVAD() {
+        // Waits for a wake word loop that is still winding down to release the microphone
+        synchronized (ring) {
+            captureCommand();
+        }
+    }
+
+    private void captureCommand() {
         int bufferSize = AudioRecord.getMinBufferSize(RECORDING_SAMPLE_RATE, CHANNEL_CONFIG, AUDIO_FORMAT);
 
         if (ActivityCompat.checkSelfPermission(context, Manifest.permission.RECORD_AUDIO)
@@ -317,12 +389,18 @@ public class VoiceCommandHelper {
         }
         showToast("Speak now");
 
-        ByteArrayOutputStream recordingStream = new ByteArrayOutputStream();
-        byte[] buffer = new byte[bufferSize / 4];
+        // Audio goes to the backend as it is captured; the ring is only copied for the fallback upload
+        CommandStream command = new CommandStream();
+        VoiceStream stream = VoiceStream.isSupported()
+                ? VoiceStream.open(httpClient, STREAM_URL, sessionId, RECORDING_SAMPLE_RATE, command)
+                : null;
+        ring.clear();
+        PcmRingBuffer.Source source = audioRecord::read;
+        short[] samples = ring.array();
+        int chunkSamples = bufferSize / 8;
 
         long recordingStartTime = System.currentTimeMillis();
-        long lastSpeechTime = System.currentTimeMillis();
-        boolean speechDetected = false;
+        vad.reset();
 
         Log.d(TAG, "🎙️ Recording command...");
 
@@ -335,48 +413,84 @@ public class VoiceCommandHelper {
                 break;
             }
 
-            int bytesRead = audioRecord.read(buffer, 0, buffer.length);
-            if (bytesRead > 0) {
-                recordingStream.write(buffer, 0, bytesRead);
+            int offset = ring.writeOffset();
+            int samplesRead = ring.fill(source, chunkSamples);
+            if (samplesRead > 0) {
+                if (stream != null) stream.write(samples, offset, samplesRead);
 
-                double rms = calculateRMS(buffer, bytesRead);
+                vad.accept(samples, offset, samplesRead);
 
-                if (rms > SILENCE_THRESHOLD) {
-                    lastSpeechTime = currentTime;
-                    speechDetected = true;
-                } else if (speechDetected) {
-                    long silenceDuration = currentTime - lastSpeechTime;
-
-                    if (silenceDuration > SILENCE_DURATION_MS &&
-                            recordingDuration > MIN_RECORDING_DURATION_MS) {
-                        Log.d(TAG, "🔇 Silence detected");
-                        break;
-                    }
+                if (vad.isEndOfUtterance() && recordingDuration > MIN_RECORDING_DURATION_MS) {
+                    Log.d(TAG, "🔇 Silence detected (noise floor " + vad.getNoiseFloorDb() + " dB)");
+                    break;
                 }
             }
         }
 
         isRecording.set(false);
+        vad.setPromptPlaying(false);
         cleanupAudioRecord();
 
-        byte[] audioData = recordingStream.toByteArray();
-        Log.d(TAG, "📊 Recorded " + audioData.length + " bytes");
+        byte[] wav = toWav(ring.available());
+        Log.d(TAG, "📊 Recorded " + (wav.length - 44) + " bytes");
 
         if (callback != null) {
             mainHandler.post(() -> callback.onCommandProcessing());
-            mainHandler.post(() -> ttsHelper.speak("Processing you request"));
+            mainHandler.post(() -> ttsHelper.speak(PROCESSING));
         }
         showToast("Processing...");
 
-        File wavFile = createWavFile(audioData, RECORDING_SAMPLE_RATE);
-        sendAudioToBackend(wavFile);
+        command.onRecorded(stream, wav);
+    }
+
+    /**
+     * One streamed command. The stream may fail at any point - before the recording ends
+     * (then onRecorded() uploads) or while waiting for the result (then onUnavailable()
+     * uploads) - and the recorded audio is uploaded exactly once either way.
+     */
+    private class CommandStream implements VoiceStream.Listener {
+        private byte[] audio;
+        private boolean failed = false;
+
+        @Override
+        public void onResult(String json) {
+            Log.d(TAG, "📦 Streamed response received: " + json);
+            handleTranscribeResponse(json);
+        }
+
+        @Override
+        public void onUnavailable() {
+            byte[] recorded;
+            synchronized (this) {
+                failed = true;
+                recorded = audio;
+            }
+            if (recorded != null) {
+                Log.w(TAG, "Voice stream failed, uploading the recording instead");
+                sendAudioToBackend(recorded);
+            }
+        }
+
+        void onRecorded(VoiceStream stream, byte[] recorded) {
+            boolean upload;
+            synchronized (this) {
+                audio = recorded;
+                upload = stream == null || failed;
+            }
+            if (upload) {
+                sendAudioToBackend(recorded);
+            } else {
+                stream.finish();
+            }
+        }
     }
 
-    private void sendAudioToBackend(File audioFile) {
+    /** One-shot upload of a recorded command (an in-memory WAV from toWav()). */
+    private void sendAudioToBackend(byte[] wav) {
         RequestBody requestBody = new MultipartBody.Builder()
                 .setType(MultipartBody.FORM)
-                .addFormDataPart("audio", audioFile.getName(),
-                        RequestBody.create(audioFile, MediaType.parse("audio/wav")))
+                .addFormDataPart("audio", "vc_" + System.currentTimeMillis() + ".wav",
+                        RequestBody.create(wav, MediaType.parse("audio/wav")))
                 .build();
 
         Request.Builder requestBuilder = new Request.Builder()
@@ -400,103 +514,78 @@ public class VoiceCommandHelper {
                 notifyError("Connection error: " + e.getMessage());
 
                 // Restart wake word detection after error
-                mainHandler.postDelayed(() -> {
-                    try {
-                        startWakeWordDetection();
-                    } catch (Exception ex) {
-                        Log.e(TAG, "Error restarting wake word detection: " + ex.getMessage());
-                    }
-                }, 1000);
+                restartWakeWordDetectionLater();
             }
 
             @Override
             public void onResponse(Call call, Response response) throws IOException {
-                audioFile.delete(); // Clean up the audio file
-
                 if (response.isSuccessful() && response.body() != null) {
                     String responseBody = response.body().string();
                     Log.d(TAG, "📦 Response received: " + responseBody);
+                    handleTranscribeResponse(responseBody);
+                } else {
+                    notifyError("Server error: " + response.code());
 
-                    try {
-                        JSONObject jsonResponse = new JSONObject(responseBody);
-
-                        // Extract feature from extracted_params
-                        JSONObject extractedParams = jsonResponse.optJSONObject("extracted_params");
-                        String feature = null;
-
-                        if (extractedParams != null) {
-                            feature = extractedParams.optString("feature", null);
-                        }
+                    // Restart wake word detection after error
+                    restartWakeWordDetectionLater();
+                }
+                response.close();
+            }
+        });
+    }
 
-                        // First notify with full response
-                        if (callback != null) {
-                            final String finalFeature = feature;
-                            final JSONObject finalExtractedParams = extractedParams;
+    /** Dispatch a /voice/transcribe response (streamed or uploaded), then resume wake word detection. */
+    private void handleTranscribeResponse(String responseBody) {
+        try {
+            JSONObject jsonResponse = new JSONObject(responseBody);
 
-                            mainHandler.post(() -> {
-                                callback.onResponseReceived(responseBody);
+            // Extract feature from extracted_params
+            JSONObject extractedParams = jsonResponse.optJSONObject("extracted_params");
+            String feature = null;
 
-                                // If feature is present and not null, trigger navigation
-                                if (finalFeature != null && !finalFeature.isEmpty() &&
-                                        !finalFeature.equals("null") && !finalFeature.equals("None")) {
-                                    Log.d(TAG, "🧭 Navigating to feature: " + finalFeature);
-                                    callback.onNavigateToFeature(finalFeature, finalExtractedParams);
-                                }
+            if (extractedParams != null) {
+                feature = extractedParams.optString("feature", null);
+            }
 
-                                callback.onComplete();
-                            });
-                        }
+            // First notify with full response
+            if (callback != null) {
+                final String finalFeature = feature;
+                final JSONObject finalExtractedParams = extractedParams;
 
-                        // Restart wake word detection after processing
-                        mainHandler.postDelayed(() -> {
-                            try {
-                                startWakeWordDetection();
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error restarting wake word detection: " + e.getMessage());
-                            }
-                        }, 1000);
+                mainHandler.post(() -> {
+                    callback.onResponseReceived(responseBody);
 
-                    } catch (JSONException e) {
-                        Log.e(TAG, "JSON parsing error: " + e.getMessage());
-                        notifyError("Error parsing response");
-
-                        // Still restart wake word detection
-                        mainHandler.postDelayed(() -> {
-                            try {
-                                startWakeWordDetection();
-                            } catch (Exception ex) {
-                                Log.e(TAG, "Error restarting wake word detection: " + ex.getMessage());
-                            }
-                        }, 1000);
+                    // If feature is present and not null, trigger navigation
+                    if (finalFeature != null && !finalFeature.isEmpty() &&
+                            !finalFeature.equals("null") && !finalFeature.equals("None")) {
+                        Log.d(TAG, "🧭 Navigating to feature: " + finalFeature);
+                        callback.onNavigateToFeature(finalFeature, finalExtractedParams);
                     }
 
-                } else {
-                    notifyError("Server error: " + response.code());
-
-                    // Restart wake word detection after error
-                    mainHandler.postDelayed(() -> {
-                        try {
-                            startWakeWordDetection();
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error restarting wake word detection: " + e.getMessage());
-                        }
-                    }, 1000);
-                }
+                    callback.onComplete();
+                });
             }
-        });
-    }
 
-    private double calculateRMS(byte[] audioData, int length) {
-        long sum = 0;
-        int samples = 0;
+            // Restart wake word detection after processing
+            restartWakeWordDetectionLater();
 
-        for (int i = 0; i < length - 1; i += 2) {
-            short sample = (short) ((audioData[i + 1] << 8) | (audioData[i] & 0xFF));
-            sum += sample * sample;
-            samples++;
+        } catch (JSONException e) {
+            Log.e(TAG, "JSON parsing error: " + e.getMessage());
+            notifyError("Error parsing response");
+
+            // Still restart wake word detection
+            restartWakeWordDetectionLater();
         }
+    }
 
-        return samples == 0 ? 0 : Math.sqrt((double) sum / samples);
+    private void restartWakeWordDetectionLater() {
+        mainHandler.postDelayed(() -> {
+            try {
+                startWakeWordDetection();
+            } catch (Exception e) {
+                Log.e(TAG, "Error restarting wake word detection: " + e.getMessage());
+            }
+        }, 1000);
     }
 
     private void setupAudioProcessing() {
@@ -543,15 +632,29 @@ public class VoiceCommandHelper {
         }
     }
 
-    private File createWavFile(byte[] audioData, int sampleRate) throws IOException {
+    /** The last {@code samples} samples of the ring as an in-memory WAV; the one copy out of the ring. */
+    private byte[] toWav(int samples) {
+        byte[] wav = new byte[44 + samples * 2];
+        writeWavHeader(wav, samples * 2, RECORDING_SAMPLE_RATE);
+        ring.copyTo(wav, 44, ring.position() - samples, samples);
+        return wav;
+    }
+
+    private File createWavFile(byte[] wav) throws IOException {
         File wavFile = new File(context.getCacheDir(), "vc_" + System.currentTimeMillis() + ".wav");
         FileOutputStream fos = new FileOutputStream(wavFile);
+        fos.write(wav);
+        fos.close();
 
-        int totalDataLen = audioData.length + 36;
+        return wavFile;
+    }
+
+    /** 44-byte PCM 16-bit mono WAV header for {@code dataLength} bytes of audio, at the start of {@code header}. */
+    private static void writeWavHeader(byte[] header, int dataLength, int sampleRate) {
+        int totalDataLen = dataLength + 36;
         int channels = 1;
         int byteRate = sampleRate * channels * 2;
 
-        byte[] header = new byte[44];
         header[0] = 'R'; header[1] = 'I'; header[2] = 'F'; header[3] = 'F';
         header[4] = (byte) (totalDataLen & 0xff);
         header[5] = (byte) ((totalDataLen >> 8) & 0xff);
@@ -572,16 +675,10 @@ public class VoiceCommandHelper {
         header[32] = (byte) (channels * 2); header[33] = 0;
         header[34] = 16; header[35] = 0;
         header[36] = 'd'; header[37] = 'a'; header[38] = 't'; header[39] = 'a';
-        header[40] = (byte) (audioData.length & 0xff);
-        header[41] = (byte) ((audioData.length >> 8) & 0xff);
-        header[42] = (byte) ((audioData.length >> 16) & 0xff);
-        header[43] = (byte) ((audioData.length >> 24) & 0xff);
-
-        fos.write(header);
-        fos.write(audioData);
-        fos.close();
-
-        return wavFile;
+        header[40] = (byte) (dataLength & 0xff);
+        header[41] = (byte) ((dataLength >> 8) & 0xff);
+        header[42] = (byte) ((dataLength >> 16) & 0xff);
+        header[43] = (byte) ((dataLength >> 24) & 0xff);
     }
 
     private void showToast(String message) {
@@ -602,5 +699,9 @@ public class VoiceCommandHelper {
         if (executorService != null) {
             executorService.shutdownNow();
         }
+        if (wakeWordSpotter != null) {
+            wakeWordSpotter.close();
+            wakeWordSpotter = null;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,207 @@
+package com.example.newsight;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.newsight.models.ModelAdapters;
+import com.google.gson.JsonObject;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+/**
+ * VoiceStream - Streams one spoken command to the backend while it is still being spoken.
+ *
+ * PCM goes out over a WebSocket (/voice/stream) in CHUNK_MS binary chunks as AudioRecord
+ * delivers it, so the backend can transcribe during the utterance instead of after it. When
+ * local VAD decides the user has finished, finish() sends the end marker and the backend
+ * answers with the same JSON /voice/transcribe returns:
+ *
+ *   -> {"type":"start","sample_rate":16000,"encoding":"pcm_s16le","session_id":"..."}
+ *   -> binary PCM chunks (16-bit little-endian mono)
+ *   -> {"type":"end"}
+ *   <- {"type":"partial","text":"take me to"}     (optional, logged only)
+ *   <- {...transcribe response...}
+ *
+ * Exactly one of Listener.onResult() / onUnavailable() is called per stream, on an OkHttp
+ * thread. The caller keeps its recording, so any failure before the result is reported as
+ * onUnavailable() and handled by uploading the utterance the old way. Only a backend without
+ * the endpoint (404/426) is remembered for the process; after any other failure the next
+ * utterance tries streaming again.
+ */
+public class VoiceStream {
+
+    private static final String TAG = "VoiceStream";
+
+    /** Audio per binary message; small enough to keep the backend busy, big enough to batch reads. */
+    static final int CHUNK_MS = 100;
+
+    /** How long to wait for the transcription once the end marker is sent. */
+    private static final long RESULT_TIMEOUT_MS = 10000;
+
+    private static volatile boolean unsupported = false;
+
+    public interface Listener {
+        /** The backend's transcription response for the whole utterance. */
+        void onResult(@NonNull String json);
+
+        /** The stream failed before a result; the caller should upload the recording instead. */
+        void onUnavailable();
+    }
+
+    private final Listener listener;
+    private final byte[] chunk;
+    private int chunkLen = 0;
+    private final WebSocket webSocket;
+    private final AtomicBoolean done = new AtomicBoolean(false);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable timeout = this::onTimeout;
+    private volatile long endSentAtMs = 0;
+
+    /** False once the backend has turned out to have no stream endpoint; callers should go straight to upload. */
+    public static boolean isSupported() {
+        return !unsupported;
+    }
+
+    /** Forget a missing endpoint, e.g. after the backend changed. */
+    static void resetSupport() {
+        unsupported = false;
+    }
+
+    /**
+     * Open a stream. Audio can be written right away: OkHttp queues it until the socket opens.
+     */
+    @NonNull
+    public static VoiceStream open(@NonNull OkHttpClient client, @NonNull String url,
+                                   @Nullable String sessionId, int sampleRate,
+                                   @NonNull Listener listener) {
+        return new VoiceStream(client, url, sessionId, sampleRate, listener);
+    }
+
+    private VoiceStream(OkHttpClient client, String url, String sessionId, int sampleRate,
+                        Listener listener) {
+        this.listener = listener;
+        this.chunk = new byte[sampleRate * 2 * CHUNK_MS / 1000];
+
+        Request.Builder request = new Request.Builder().url(url);
+        if (sessionId != null && !sessionId.isEmpty()) {
+            request.addHeader("X-Session-Id", sessionId);
+        }
+        webSocket = client.newWebSocket(request.build(), new StreamListener());
+
+        JsonObject start = new JsonObject();
+        start.addProperty("type", "start");
+        start.addProperty("sample_rate", sampleRate);
+        start.addProperty("encoding", "pcm_s16le");
+        if (sessionId != null) start.addProperty("session_id", sessionId);
+        webSocket.send(start.toString());
+    }
+
+    /**
+     * Queue captured samples, as read straight into a short[] (PcmRingBuffer); called from the
+     * recording thread. Ignored once the stream is over.
+     */
+    public void write(@NonNull short[] pcm, int offset, int length) {
+        if (done.get()) return;
+        for (int i = offset; i < offset + length; i++) {
+            chunk[chunkLen++] = (byte) pcm[i];
+            chunk[chunkLen++] = (byte) (pcm[i] >> 8);
+            if (chunkLen == chunk.length) flush();
+        }
+    }
+
+    /** End of utterance: send what is left and ask for the result. */
+    public void finish() {
+        if (done.get()) return;
+        flush();
+        webSocket.send("{\"type\":\"end\"}");
+        endSentAtMs = System.currentTimeMillis();
+        handler.postDelayed(timeout, RESULT_TIMEOUT_MS);
+    }
+
+    private void flush() {
+        if (chunkLen == 0) return;
+        webSocket.send(ByteString.of(chunk, 0, chunkLen));
+        chunkLen = 0;
+    }
+
+    private void onTimeout() {
+        Log.w(TAG, "No result " + RESULT_TIMEOUT_MS + "ms after end of speech");
+        fail();
+        webSocket.cancel();
+    }
+
+    private void fail() {
+        if (!done.compareAndSet(false, true)) return;
+        handler.removeCallbacks(timeout);
+        listener.onUnavailable();
+    }
+
+    /** Top-level "type" of a backend message; "" for the transcription result, which has none. */
+    @NonNull
+    static String typeOf(@NonNull String json) {
+        try {
+            String type = ResultDecoder.parse(json, ModelAdapters.MESSAGE_TYPE);
+            return type != null ? type : "";
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private class StreamListener extends WebSocketListener {
+
+        @Override
+        public void onOpen(@NonNull WebSocket ws, @NonNull Response response) {
+            Log.d(TAG, "Voice stream open");
+        }
+
+        @Override
+        public void onMessage(@NonNull WebSocket ws, @NonNull String text) {
+            String type = typeOf(text);
+            if ("partial".equals(type)) {
+                Log.d(TAG, "Partial: " + text);
+                return;
+            }
+            if ("error".equals(type)) {
+                Log.e(TAG, "Backend error: " + text);
+                fail();
+                ws.close(1000, null);
+                return;
+            }
+            if (!done.compareAndSet(false, true)) return;
+            handler.removeCallbacks(timeout);
+            if (endSentAtMs > 0) {
+                Log.d(TAG, "Result " + (System.currentTimeMillis() - endSentAtMs) + "ms after end of speech");
+            }
+            ws.close(1000, null);
+            listener.onResult(text);
+        }
+
+        @Override
+        public void onClosing(@NonNull WebSocket ws, int code, @NonNull String reason) {
+            ws.close(1000, null);
+            fail();
+        }
+
+        @Override
+        public void onFailure(@NonNull WebSocket ws, @NonNull Throwable t, Response r) {
+            Log.e(TAG, "Voice stream failed: " + t
+                    + (r != null ? (" | code=" + r.code()) : " | no HTTP response"));
+            // No streaming endpoint on this backend; anything else is worth another try next time
+            if (r != null && NetworkClient.isMissingEndpoint(r.code())) {
+                unsupported = true;
+            }
+            fail();
+        }
+    }
+}
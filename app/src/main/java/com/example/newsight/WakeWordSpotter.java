@@ -0,0 +1,135 @@
+package com.example.newsight;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * WakeWordSpotter - On-device "Hey Guide" detection over the live microphone stream.
+ *
+ * PCM is turned into log-mel frames as it arrives (LogMelSpectrogram) and kept in a ring
+ * holding the model's input window (about a second of audio). Every INFERENCE_HOP_FRAMES
+ * frames the window is scored by a small keyword model; the last SMOOTHING scores are
+ * averaged so one noisy frame cannot trigger, and after a detection the spotter stays quiet
+ * for REFRACTORY_FRAMES. Detection latency is therefore the model hop (100ms) plus the
+ * smoothing, instead of a 5s upload window plus a round trip.
+ *
+ * Time is counted in audio frames rather than wall-clock, so behaviour does not depend on
+ * how AudioRecord batches its reads. Not thread-safe: feed it from the capture thread.
+ */
+public class WakeWordSpotter {
+
+    private static final String TAG = "WakeWordSpotter";
+
+    static final float DEFAULT_THRESHOLD = 0.8f;
+    static final int INFERENCE_HOP_FRAMES = 10;   // score every 100ms
+    static final int SMOOTHING = 3;
+    static final int REFRACTORY_FRAMES = 200;     // 2s
+
+    /** A keyword classifier over a window of log-mel frames. */
+    public interface KeywordModel {
+        int getFrames();
+
+        int getMelBins();
+
+        /** Keyword probability (0..1) for {@code features}, oldest frame first. */
+        float score(@NonNull float[][] features);
+
+        void close();
+    }
+
+    private final KeywordModel model;
+    private final float threshold;
+    private final LogMelSpectrogram melSpectrogram;
+
+    private final float[][] ring;
+    private final float[][] window;
+    private int head = 0;
+    private int framesSeen = 0;
+
+    private final float[] scores = new float[SMOOTHING];
+    private int scoreCount = 0;
+    private int framesSinceTrigger = Integer.MAX_VALUE / 2;
+    private float lastScore = 0f;
+
+    public WakeWordSpotter(@NonNull KeywordModel model, float threshold) {
+        this.model = model;
+        this.threshold = threshold;
+        this.melSpectrogram = new LogMelSpectrogram(model.getMelBins());
+        this.ring = new float[model.getFrames()][model.getMelBins()];
+        this.window = new float[model.getFrames()][];
+    }
+
+    /**
+     * The spotter for the bundled keyword model, or null if the app ships without one (callers
+     * then fall back to backend wake word checks).
+     */
+    @Nullable
+    public static WakeWordSpotter create(@NonNull Context context) {
+        try {
+            return new WakeWordSpotter(TfliteKeywordModel.load(context), DEFAULT_THRESHOLD);
+        } catch (Exception e) {
+            Log.w(TAG, "No on-device wake word model (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    /**
+     * Feed 16-bit mono PCM at 16kHz, as read into a short[] (PcmRingBuffer).
+     * @return true if the wake word was detected in this audio
+     */
+    public boolean accept(@NonNull short[] pcm, int offset, int length) {
+        boolean detected = false;
+        for (int i = offset; i < offset + length; i++) {
+            if (melSpectrogram.push(pcm[i] / 32768f) && onFrame(melSpectrogram.frame())) {
+                detected = true;
+            }
+        }
+        return detected;
+    }
+
+    /** Forget buffered audio, e.g. when the microphone is reopened. */
+    public void reset() {
+        melSpectrogram.reset();
+        head = 0;
+        framesSeen = 0;
+        scoreCount = 0;
+        lastScore = 0f;
+    }
+
+    /** Smoothed score of the last inference, for logging and threshold tuning. */
+    public float getLastScore() {
+        return lastScore;
+    }
+
+    public void close() {
+        model.close();
+    }
+
+    private boolean onFrame(float[] frame) {
+        System.arraycopy(frame, 0, ring[head], 0, frame.length);
+        head = (head + 1) % ring.length;
+        framesSeen++;
+        framesSinceTrigger++;
+
+        if (framesSeen < ring.length || framesSeen % INFERENCE_HOP_FRAMES != 0) return false;
+
+        // Oldest frame first; the rows are shared with the ring, nothing is copied
+        for (int i = 0; i < ring.length; i++) {
+            window[i] = ring[(head + i) % ring.length];
+        }
+        scores[scoreCount++ % SMOOTHING] = model.score(window);
+
+        int n = Math.min(scoreCount, SMOOTHING);
+        float sum = 0f;
+        for (int i = 0; i < n; i++) sum += scores[i];
+        lastScore = sum / SMOOTHING;
+
+        if (lastScore < threshold || framesSinceTrigger < REFRACTORY_FRAMES) return false;
+        framesSinceTrigger = 0;
+        scoreCount = 0;
+        return true;
+    }
+}
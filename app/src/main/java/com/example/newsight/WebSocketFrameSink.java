@@ -0,0 +1,60 @@
+package com.example.newsight;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+/**
+ * WebSocketFrameSink - Sends pipeline frames for the currently active feature through a
+ * WebSocketManager, under that feature's CongestionController.
+ */
+public class WebSocketFrameSink implements FrameSink {
+
+    private static final String TAG = "WebSocketFrameSink";
+
+    private final WebSocketManager wsManager;
+    private final FrameAnalyzer.FeatureProvider featureProvider;
+    private final FrameSpec spec;
+    private long lastLogTime = 0;
+
+    public WebSocketFrameSink(WebSocketManager wsManager, FrameAnalyzer.FeatureProvider featureProvider,
+                              FrameSpec spec) {
+        this.wsManager = wsManager;
+        this.featureProvider = featureProvider;
+        this.spec = spec;
+    }
+
+    @Override
+    public CongestionController getController() {
+        String feature = featureProvider.getActiveFeature();
+        if (wsManager == null || feature == null) return null;
+        return wsManager.controllerFor(feature, spec);
+    }
+
+    @Override
+    public boolean isReady() {
+        boolean connected = wsManager != null && wsManager.isConnected();
+        boolean featureOk = featureProvider.getActiveFeature() != null;
+        if (connected && featureOk) return true;
+
+        long now = System.currentTimeMillis();
+        if (now - lastLogTime > 2000) {
+            if (!connected && !featureOk) {
+                Log.d(TAG, "Skipping frame: ALL systems down (wsManager not connected AND no feature selected)");
+            } else if (!connected) {
+                Log.d(TAG, "Skipping frame: wsManager is not connected");
+            } else {
+                Log.d(TAG, "Skipping frame: No feature selected");
+            }
+            lastLogTime = now;
+        }
+        return false;
+    }
+
+    @Override
+    public void send(@NonNull EncodedFrame frame) {
+        String feature = featureProvider.getActiveFeature();
+        if (feature == null) return;
+        wsManager.sendFrame(frame.data, feature, frame.width, frame.height, frame.captureTimeMs);
+    }
+}
@@ -8,7 +8,10 @@ import androidx.annotation.NonNull;
 
 import org.json.JSONObject;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -20,23 +23,56 @@ import okio.ByteString;
 // IMPORTANT: use Android's Base64 for API < 26
 import android.util.Base64;
 
+/**
+ * WebSocketManager - Camera frames out, feature results back.
+ *
+ * Frames travel on this manager's own "frames" topic and results on its "results" topic of
+ * the backend host's shared MuxChannel (named after {@code url}'s path, see
+ * MuxChannel.clientTopic), next to whatever location / navigation traffic other helpers
+ * have on it. If the backend has no multiplexed endpoint, the manager opens its own socket
+ * to {@code url} and speaks the same messages there unwrapped.
+ *
+ * While connected, a Heartbeat pings the backend every few seconds. Its pongs give the link
+ * RTT (fed to every feature's CongestionController), and a backend that goes silent past
+ * the heartbeat timeout gets the socket torn down and reconnected instead of frames
+ * silently queueing into a half-open connection.
+ */
 public class WebSocketManager {
 
     private static final String TAG = "WebSocketManager";
     private static final boolean ENABLE_RECONNECT = true;
-    private static final long RECONNECT_DELAY_MS = 5000;
     private static final long MIN_FRAME_INTERVAL_MS = 250;
 
     private final OkHttpClient client;
     private final String serverUrl;
     private final WsListener listener;
+    private final MuxChannel mux;
 
+    private MuxChannel.Subscription framesTopic;
+    private MuxChannel.Subscription resultsTopic;
     private WebSocket webSocket;
     private volatile boolean connected = false;
-    private boolean tryingToReconnect = false;
+    private final Reconnector reconnector = new Reconnector(TAG, this::connectDirect);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private volatile Heartbeat heartbeat =
+            new Heartbeat(Heartbeat.DEFAULT_INTERVAL_MS, Heartbeat.DEFAULT_TIMEOUT_MS);
+    private final Runnable heartbeatTick = this::heartbeatTick;
 
     private volatile String currentFeature = null;
     private long lastSend = 0;
+
+    // Binary frame protocol, switched on per connection once the backend acks the hello
+    private volatile boolean binaryFrames = false;
+    private final Map<String, Integer> featureIds = new HashMap<>();
+    // Feature ids are unique within the process, so on a shared channel they also identify the client
+    private static final AtomicInteger nextFeatureId = new AtomicInteger();
+    private final int clientId = MuxChannel.newClientId();
+    private final AtomicInteger frameSeq = new AtomicInteger(0);
+
+    // Per-feature congestion control, plus send times of frames still waiting for a result
+    private final Map<String, CongestionController> controllers = new HashMap<>();
+    private final ResultRttTracker resultRtt = new ResultRttTracker();
+
     private final java.util.concurrent.atomic.AtomicInteger framesSent = new java.util.concurrent.atomic.AtomicInteger(0);
     public int getFramesSent() { return framesSent.get(); }
     public interface WsListener {
@@ -47,10 +83,13 @@ public class WebSocketManager {
     public WebSocketManager(String url, WsListener listener) {
         this.serverUrl = url;
         this.listener = listener;
+        this.mux = MuxChannel.forUrl(url);
 
-        this.client = new OkHttpClient.Builder()
+        this.client = NetworkClient.get().newBuilder()
                 .connectTimeout(5, TimeUnit.SECONDS)
                 .readTimeout(0, TimeUnit.MILLISECONDS) // infinite for WS
+                // Protocol-level backstop for backends that don't answer heartbeat pings
+                .pingInterval(2 * Heartbeat.DEFAULT_INTERVAL_MS, TimeUnit.MILLISECONDS)
                 .retryOnConnectionFailure(true)
                 .build();
     }
@@ -58,12 +97,35 @@ public class WebSocketManager {
     // ---------- Public API ----------
 
     public void connect() {
+        if (mux.isAvailable()) {
+            if (resultsTopic == null) {
+                Log.i(TAG, "Subscribing to frames/results on shared channel");
+                ResultsSubscriber subscriber = new ResultsSubscriber();
+                framesTopic = mux.subscribe(MuxChannel.clientTopic(MuxChannel.TOPIC_FRAMES, serverUrl, clientId),
+                        subscriber.framesSide);
+                resultsTopic = mux.subscribe(MuxChannel.clientTopic(MuxChannel.TOPIC_RESULTS, serverUrl, clientId),
+                        subscriber);
+            }
+            return;
+        }
+        connectDirect();
+    }
+
+    private void connectDirect() {
         Log.i(TAG, "Connecting to " + serverUrl);
         Request request = new Request.Builder().url(serverUrl).build();
         webSocket = client.newWebSocket(request, new SocketListener());
     }
 
     public void disconnect() {
+        if (resultsTopic != null) {
+            framesTopic.unsubscribe();
+            resultsTopic.unsubscribe();
+            framesTopic = null;
+            resultsTopic = null;
+            onTransportDown();
+        }
+        reconnector.cancel();
         if (webSocket != null) {
             webSocket.close(1000, "Client disconnect");
         }
@@ -73,21 +135,127 @@ public class WebSocketManager {
         return connected;
     }
 
+    /**
+     * Ping every {@code intervalMs}; if the backend has answered pings before and then stays
+     * silent for {@code timeoutMs}, the connection is treated as dead and reconnected.
+     */
+    public void setHeartbeat(long intervalMs, long timeoutMs) {
+        heartbeat = new Heartbeat(intervalMs, timeoutMs);
+        if (connected) startHeartbeat();
+    }
+
+    /** Smoothed heartbeat round trip (network only), 0 until the backend has answered a ping. */
+    public long getHeartbeatRttMs() {
+        return heartbeat.getSmoothedRttMs();
+    }
+
+    /** Reconnect counts and time-to-reconnect of the dedicated socket (see MuxChannel otherwise). */
+    @NonNull
+    public ReconnectPolicy getReconnectMetrics() {
+        return reconnector.getPolicy();
+    }
+
+    /**
+     * The congestion controller for a feature's frames, created from its FrameSpec on first use.
+     * Frames sent for a feature with a controller are paced by the FramePipeline instead of
+     * MIN_FRAME_INTERVAL_MS, and dropped rather than queued when the socket is backed up.
+     */
+    @NonNull
+    public synchronized CongestionController controllerFor(@NonNull String feature, @NonNull FrameSpec spec) {
+        CongestionController controller = controllers.get(feature);
+        if (controller == null) {
+            controller = CongestionController.forSpec(spec);
+            controllers.put(feature, controller);
+        }
+        return controller;
+    }
+
+    /** True once the backend has accepted the binary frame protocol on this connection. */
+    public boolean isBinaryFrames() {
+        return binaryFrames;
+    }
+
     public void setFeature(@NonNull String feature) {
         this.currentFeature = feature;
         Log.d(TAG, "setFeature -> " + feature);
-        if (connected && webSocket != null) {
+        if (connected) {
             sendText(buildHello(feature));
         }
     }
 
-    /** Preferred: control JSON then binary JPEG */
     public void sendFrame(byte[] frameBytes, @NonNull String feature) {
-        if (!connected || webSocket == null) {
+        sendFrame(frameBytes, feature, 0, 0, System.currentTimeMillis());
+    }
+
+    /**
+     * Preferred: one binary message (FrameProtocol header + raw JPEG) when the backend
+     * negotiated it, otherwise the legacy base64 JSON frame.
+     */
+    public void sendFrame(byte[] frameBytes, @NonNull String feature,
+                          int width, int height, long captureTimeMs) {
+        if (!connected) {
             Log.d(TAG, "Skipping frame — not connected.");
             return;
         }
 
+        CongestionController controller;
+        synchronized (this) {
+            controller = controllers.get(feature);
+        }
+
+        long now = System.currentTimeMillis();
+        if (controller == null) {
+            if (now - lastSend < MIN_FRAME_INTERVAL_MS) return;
+        } else {
+            // Don't pile frames up behind a backed-up socket; they'd only arrive stale
+            long queued = queueSize();
+            controller.onQueueSample(queued);
+            if (controller.shouldDrop(queued)) {
+                Log.d(TAG, "Dropping frame: " + queued + " bytes already queued");
+                controller.onDrop();
+                return;
+            }
+        }
+        lastSend = now;
+
+        if (currentFeature == null || !currentFeature.equals(feature)) {
+            // Announce the new feature (and its id) before frames tagged with it arrive
+            setFeature(feature);
+            resultRtt.clear();
+        }
+
+        int sequence = frameSeq.incrementAndGet();
+        boolean sent = binaryFrames
+                ? sendBinaryFrame(frameBytes, feature, sequence, width, height, captureTimeMs)
+                : sendJsonFrame(frameBytes, feature, sequence);
+        if (sent) {
+            resultRtt.onSent(sequence, now);
+        } else if (controller != null) {
+            controller.onDrop();
+        }
+    }
+
+    /** A result arrived: pair it with the frame it answers (by frame_id) to measure the round trip. */
+    private void recordResultRtt(String text) {
+        long rtt = resultRtt.onResult(ResultRttTracker.sequenceOf(text), System.currentTimeMillis());
+        String feature = currentFeature;
+        if (rtt < 0 || feature == null) return;
+
+        CongestionController controller;
+        synchronized (this) {
+            controller = controllers.get(feature);
+        }
+        if (controller != null) {
+            controller.onRtt(rtt);
+        }
+    }
+
+    public void sendFrameAsJsonBase64(@NonNull byte[] frameBytes, @NonNull String feature) {
+        if (!connected) {
+            Log.d(TAG, "Skipping frame (JSON mode) — not connected.");
+            return;
+        }
+
         long now = System.currentTimeMillis();
         if (now - lastSend < MIN_FRAME_INTERVAL_MS) return;
         lastSend = now;
@@ -105,33 +273,96 @@ public class WebSocketManager {
             obj.put("image_b64", b64);
             obj.put("len", frameBytes.length);
 
-            boolean sent = webSocket.send(obj.toString());
+            boolean sent = send(obj.toString());
             if (!sent) {
-                Log.w(TAG, "Failed to send frame.");
+                Log.w(TAG, "Failed to send JSON base64 frame.");
             } else {
-                framesSent.incrementAndGet();
-                Log.d(TAG, "Sent frame: feature=" + feature + " (" + frameBytes.length + " bytes)");
+                Log.d(TAG, "Sent JSON base64 frame: feature=" + feature + " (" + frameBytes.length + " bytes)");
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error sending frame: " + e.getMessage(), e);
+            Log.e(TAG, "Error sending JSON base64 frame: " + e.getMessage(), e);
         }
     }
 
+    // ---------- Internals ----------
 
-    public void sendFrameAsJsonBase64(@NonNull byte[] frameBytes, @NonNull String feature) {
-        if (!connected || webSocket == null) {
-            Log.d(TAG, "Skipping frame (JSON mode) — not connected.");
+    // Whichever transport is in use: the shared channel's topics, or our own socket
+
+    private boolean send(String text) {
+        MuxChannel.Subscription topic = framesTopic;
+        if (topic != null) return topic.send(text);
+        WebSocket ws = webSocket;
+        return ws != null && ws.send(text);
+    }
+
+    private boolean send(ByteString bytes) {
+        MuxChannel.Subscription topic = framesTopic;
+        if (topic != null) return topic.sendBinary(bytes);
+        WebSocket ws = webSocket;
+        return ws != null && ws.send(bytes);
+    }
+
+    private long queueSize() {
+        MuxChannel.Subscription topic = framesTopic;
+        if (topic != null) return topic.queueSize();
+        WebSocket ws = webSocket;
+        return ws != null ? ws.queueSize() : 0L;
+    }
+
+    private void onTransportUp() {
+        connected = true;
+        startHeartbeat();
+        binaryFrames = false; // renegotiated on every connection
+        resultRtt.clear();
+
+        if (currentFeature != null) {
+            sendText(buildHello(currentFeature));
+        }
+
+        if (listener != null) listener.onConnectionStatus(true);
+    }
+
+    private void onResultText(String text) {
+        Log.d(TAG, "recv(text): " + text);
+        if (Heartbeat.isPong(text)) {
+            onPong();
             return;
         }
+        heartbeat.onMessage();
+        if (handleHelloAck(text)) return;
+        recordResultRtt(text);
+        if (listener != null) listener.onResultsReceived(text);
+    }
 
-        long now = System.currentTimeMillis();
-        if (now - lastSend < MIN_FRAME_INTERVAL_MS) return;
-        lastSend = now;
+    private void onTransportDown() {
+        connected = false;
+        handler.removeCallbacks(heartbeatTick);
+        binaryFrames = false;
+        if (listener != null) listener.onConnectionStatus(false);
+    }
 
+    private boolean sendBinaryFrame(byte[] frameBytes, String feature, int sequence,
+                                    int width, int height, long captureTimeMs) {
         try {
-            if (currentFeature == null || !currentFeature.equals(feature)) {
-                currentFeature = feature;
+            ByteString msg = FrameProtocol.encode(featureIdFor(feature), sequence,
+                    captureTimeMs, width, height, frameBytes);
+
+            boolean sent = send(msg);
+            if (!sent) {
+                Log.w(TAG, "Failed to send binary frame.");
+            } else {
+                framesSent.incrementAndGet();
+                Log.d(TAG, "Sent binary frame: feature=" + feature + " (" + frameBytes.length + " bytes)");
             }
+            return sent;
+        } catch (Exception e) {
+            Log.e(TAG, "Error sending binary frame: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private boolean sendJsonFrame(byte[] frameBytes, String feature, int sequence) {
+        try {
             // Android Base64
             String b64 = Base64.encodeToString(frameBytes, Base64.NO_WRAP);
 
@@ -140,24 +371,50 @@ public class WebSocketManager {
             obj.put("feature", feature);
             obj.put("image_b64", b64);
             obj.put("len", frameBytes.length);
+            obj.put("frame_id", sequence);
 
-            boolean sent = webSocket.send(obj.toString());
+            boolean sent = send(obj.toString());
             if (!sent) {
-                Log.w(TAG, "Failed to send JSON base64 frame.");
+                Log.w(TAG, "Failed to send frame.");
             } else {
-                Log.d(TAG, "Sent JSON base64 frame: feature=" + feature + " (" + frameBytes.length + " bytes)");
+                framesSent.incrementAndGet();
+                Log.d(TAG, "Sent frame: feature=" + feature + " (" + frameBytes.length + " bytes)");
             }
+            return sent;
         } catch (Exception e) {
-            Log.e(TAG, "Error sending JSON base64 frame: " + e.getMessage(), e);
+            Log.e(TAG, "Error sending frame: " + e.getMessage(), e);
+            return false;
         }
     }
 
-    // ---------- Internals ----------
+    private synchronized int featureIdFor(String feature) {
+        Integer id = featureIds.get(feature);
+        if (id == null) {
+            // Ids fit in the single header byte; 0 is reserved for "unknown"
+            id = (nextFeatureId.getAndIncrement() % 255) + 1;
+            featureIds.put(feature, id);
+        }
+        return id;
+    }
+
+    /** Backend reply to hello: {"type":"hello_ack","frame_protocol":"binary-v1"} */
+    private boolean handleHelloAck(String text) {
+        if (!text.contains("hello_ack")) return false;
+        try {
+            JSONObject obj = new JSONObject(text);
+            if (!"hello_ack".equals(obj.optString("type"))) return false;
+            binaryFrames = FrameProtocol.NAME.equals(obj.optString("frame_protocol"));
+            Log.i(TAG, "Frame protocol: " + (binaryFrames ? FrameProtocol.NAME : "json"));
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
 
     private void sendText(String payload) {
-        if (!connected || webSocket == null) return;
+        if (!connected) return;
         try {
-            boolean ok = webSocket.send(payload);
+            boolean ok = send(payload);
             if (!ok) Log.w(TAG, "sendText failed");
             else Log.d(TAG, "sendText: " + payload);
         } catch (Exception e) {
@@ -165,12 +422,97 @@ public class WebSocketManager {
         }
     }
 
-    private static String buildHello(String feature) {
-        return "{\"type\":\"hello\",\"feature\":\"" + feature + "\"}";
+    private String buildHello(String feature) {
+        return "{\"type\":\"hello\",\"feature\":\"" + feature + "\""
+                + ",\"feature_id\":" + featureIdFor(feature)
+                + ",\"frame_protocols\":[\"" + FrameProtocol.NAME + "\",\"json\"]}";
     }
 
-    private static String buildFrameControl(String feature, int len) {
-        return "{\"type\":\"frame\",\"feature\":\"" + feature + "\",\"len\":" + len + "}";
+    // ---------- Heartbeat ----------
+
+    private void startHeartbeat() {
+        heartbeat.reset();
+        handler.removeCallbacks(heartbeatTick);
+        handler.post(heartbeatTick);
+    }
+
+    private void heartbeatTick() {
+        if (!connected) return;
+        Heartbeat hb = heartbeat;
+        if (hb.isPeerDead()) {
+            Log.w(TAG, "No reply from backend in time, dropping the connection");
+            onPeerDead();
+            return;
+        }
+        if (hb.shouldPing() && send(Heartbeat.PING)) {
+            hb.onPingSent();
+        }
+        handler.postDelayed(heartbeatTick, hb.getIntervalMs());
+    }
+
+    private void onPong() {
+        long rtt = heartbeat.onPong();
+        if (rtt < 0) return;
+        Log.d(TAG, "Heartbeat RTT " + rtt + "ms");
+        synchronized (this) {
+            for (CongestionController controller : controllers.values()) {
+                controller.onLinkRtt(rtt);
+            }
+        }
+    }
+
+    /** Stop sending into a dead socket right away; the reconnect is reported as usual. */
+    private void onPeerDead() {
+        connected = false;
+        binaryFrames = false;
+        if (listener != null) listener.onConnectionStatus(false);
+        if (framesTopic != null) {
+            mux.forceReconnect();
+        } else if (webSocket != null) {
+            webSocket.cancel(); // onFailure schedules the reconnect
+        }
+    }
+
+    // ---------- Shared channel ----------
+
+    /** Results drive the connection state; the frames topic is only used for sending. */
+    private class ResultsSubscriber implements MuxChannel.Subscriber {
+        final MuxChannel.Subscriber framesSide = new MuxChannel.Subscriber() {
+            @Override public void onTopicUp() { }
+            @Override public void onTopicMessage(@NonNull String data) { }
+            @Override public void onTopicDown() { }
+            @Override public void onMuxUnavailable() { }
+        };
+
+        @Override
+        public void onTopicUp() {
+            Log.i(TAG, "Frames/results topics up on shared channel");
+            onTransportUp();
+        }
+
+        @Override
+        public void onTopicMessage(@NonNull String data) {
+            onResultText(data);
+        }
+
+        @Override
+        public void onTopicDown() {
+            // The shared channel reconnects by itself
+            onTransportDown();
+        }
+
+        @Override
+        public void onMuxUnavailable() {
+            new Handler(Looper.getMainLooper()).post(() -> {
+                if (resultsTopic == null) return; // disconnected meanwhile
+                framesTopic.unsubscribe();
+                resultsTopic.unsubscribe();
+                framesTopic = null;
+                resultsTopic = null;
+                Log.i(TAG, "Shared channel unavailable, using dedicated socket");
+                connectDirect();
+            });
+        }
     }
 
     // ---------- Listener ----------
@@ -178,26 +520,20 @@ public class WebSocketManager {
     private class SocketListener extends WebSocketListener {
         @Override
         public void onOpen(@NonNull WebSocket ws, @NonNull Response r) {
-            connected = true;
             Log.i(TAG, "WebSocket connected");
-            ws.send("ping");
-
-            if (currentFeature != null) {
-                ws.send(buildHello(currentFeature));
-            }
-
-            if (listener != null) listener.onConnectionStatus(true);
+            reconnector.onConnected();
+            onTransportUp();
         }
 
         @Override
         public void onMessage(@NonNull WebSocket webSocket, @NonNull String text) {
-            Log.d(TAG, "recv(text): " + text);
-            if (listener != null) listener.onResultsReceived(text);
+            onResultText(text);
         }
 
         @Override
         public void onFailure(@NonNull WebSocket ws, @NonNull Throwable t, Response r) {
             connected = false;
+            binaryFrames = false;
             Log.e(TAG, "WebSocket failed: " + t +
                     (r != null ? (" | code=" + r.code() + " msg=" + r.message()) : " | no HTTP response"));
 
@@ -211,15 +547,7 @@ public class WebSocketManager {
             }
 
             if (listener != null) listener.onConnectionStatus(false);
-            if (ENABLE_RECONNECT && !tryingToReconnect) scheduleReconnect();
-        }
-
-        private void scheduleReconnect() {
-            tryingToReconnect = true;
-            new Handler(Looper.getMainLooper()).postDelayed(() -> {
-                tryingToReconnect = false;
-                connect();
-            }, RECONNECT_DELAY_MS);
+            if (ENABLE_RECONNECT) reconnector.scheduleReconnect();
         }
 
         @Override
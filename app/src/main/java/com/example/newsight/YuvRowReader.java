@@ -0,0 +1,54 @@
+package com.example.newsight;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads single rows of YUV_420_888 planes into reused scratch arrays with bulk gets.
+ * Used by the downscale-first converters, which only touch the source rows they sample.
+ */
+class YuvRowReader {
+
+    private byte[] yRow = new byte[0];
+    private byte[] vuRow = new byte[0];
+    private byte[] uRow = new byte[0];
+    private byte[] vRow = new byte[0];
+
+    /** Luma row {@code row}; the first {@code width} bytes are valid. */
+    byte[] luma(ByteBuffer yBuffer, int rowStride, int row, int width) {
+        if (yRow.length < width) yRow = new byte[width];
+        yBuffer.position(row * rowStride);
+        yBuffer.get(yRow, 0, width);
+        return yRow;
+    }
+
+    /** Chroma row {@code row} as interleaved V,U pairs; the first 2 * uvWidth bytes are valid. */
+    byte[] chromaVu(ByteBuffer uBuffer, ByteBuffer vBuffer, int rowStride, int pixelStride,
+                    boolean interleaved, int row, int uvWidth) {
+        int rowBytes = 2 * uvWidth;
+        if (vuRow.length < rowBytes) vuRow = new byte[rowBytes];
+        int src = row * rowStride;
+
+        if (interleaved) {
+            // VUVU... already; the row's last U byte lies just past the V row
+            vBuffer.position(src);
+            vBuffer.get(vuRow, 0, rowBytes - 1);
+            vuRow[rowBytes - 1] = uBuffer.get(src + rowBytes - 2);
+            return vuRow;
+        }
+
+        int rowLen = (uvWidth - 1) * pixelStride + 1;
+        if (uRow.length < rowLen) {
+            uRow = new byte[rowLen];
+            vRow = new byte[rowLen];
+        }
+        uBuffer.position(src);
+        uBuffer.get(uRow, 0, rowLen);
+        vBuffer.position(src);
+        vBuffer.get(vRow, 0, rowLen);
+        for (int col = 0, i = 0, d = 0; col < uvWidth; col++, i += pixelStride) {
+            vuRow[d++] = vRow[i];
+            vuRow[d++] = uRow[i];
+        }
+        return vuRow;
+    }
+}
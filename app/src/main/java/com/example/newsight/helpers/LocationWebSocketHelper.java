@@ -6,7 +6,10 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
-import com.google.gson.Gson;
+import com.example.newsight.MuxChannel;
+import com.example.newsight.NetworkClient;
+import com.example.newsight.Reconnector;
+import com.example.newsight.models.ModelAdapters;
 import com.google.gson.JsonObject;
 
 import java.util.concurrent.TimeUnit;
@@ -18,23 +21,29 @@ import okhttp3.WebSocket;
 import okhttp3.WebSocketListener;
 
 /**
- * LocationWebSocketHelper - Sends continuous location updates to /location/ws
+ * LocationWebSocketHelper - Sends continuous location updates to the backend
  * This allows the backend to track user location in the background
+ *
+ * Updates go out on the "location" topic of the host's shared MuxChannel, so the socket
+ * stays open across activities; if the backend has no multiplexed endpoint, the helper
+ * falls back to its own /location/ws socket.
  */
 public class LocationWebSocketHelper {
 
     private static final String TAG = "LocationWebSocketHelper";
-    private static final long RECONNECT_DELAY_MS = 5000;
 
     private final String serverUrl;
     private final String sessionId;
     private final OkHttpClient client;
     private final Handler mainHandler;
-    private final Gson gson;
+    private final MuxChannel mux;
 
+    private MuxChannel.Subscription subscription;
     private WebSocket webSocket;
     private boolean connected = false;
-    private boolean tryingToReconnect = false;
+    private final Reconnector reconnector = new Reconnector(TAG, () -> {
+        if (!connected) connectDirect();
+    });
     private ConnectionCallback callback;
 
     public interface ConnectionCallback {
@@ -47,9 +56,9 @@ public class LocationWebSocketHelper {
         this.serverUrl = serverUrl;
         this.sessionId = sessionId;
         this.mainHandler = new Handler(Looper.getMainLooper());
-        this.gson = new Gson();
+        this.mux = MuxChannel.forUrl(serverUrl);
 
-        this.client = new OkHttpClient.Builder()
+        this.client = NetworkClient.get().newBuilder()
                 .connectTimeout(10, TimeUnit.SECONDS)
                 .readTimeout(0, TimeUnit.MILLISECONDS)
                 .retryOnConnectionFailure(true)
@@ -66,6 +75,17 @@ public class LocationWebSocketHelper {
             return;
         }
 
+        if (mux.isAvailable()) {
+            if (subscription == null) {
+                Log.i(TAG, "🔌 Subscribing to location on shared channel");
+                subscription = mux.subscribe(MuxChannel.TOPIC_LOCATION, new LocationSubscriber());
+            }
+            return;
+        }
+        connectDirect();
+    }
+
+    private void connectDirect() {
         Log.i(TAG, "🔌 Connecting to " + serverUrl);
         Request request = new Request.Builder()
                 .url(serverUrl)
@@ -75,7 +95,7 @@ public class LocationWebSocketHelper {
     }
 
     public void sendLocation(double latitude, double longitude) {
-        if (!connected || webSocket == null) {
+        if (!connected || (webSocket == null && subscription == null)) {
             Log.w(TAG, "Cannot send location - not connected");
             return;
         }
@@ -87,8 +107,8 @@ public class LocationWebSocketHelper {
             locationData.addProperty("session_id", sessionId);
             locationData.addProperty("timestamp", System.currentTimeMillis() / 1000); // Unix timestamp in seconds
 
-            String json = gson.toJson(locationData);
-            boolean sent = webSocket.send(json);
+            String json = ModelAdapters.gson().toJson(locationData);
+            boolean sent = subscription != null ? subscription.send(json) : webSocket.send(json);
 
             if (sent) {
                 Log.d(TAG, String.format("📤 Sent location to WS [%s]: (%.6f, %.6f)", 
@@ -102,6 +122,11 @@ public class LocationWebSocketHelper {
     }
 
     public void disconnect() {
+        if (subscription != null) {
+            subscription.unsubscribe();
+            subscription = null;
+        }
+        reconnector.cancel();
         if (webSocket != null) {
             webSocket.close(1000, "Client disconnect");
             webSocket = null;
@@ -117,11 +142,50 @@ public class LocationWebSocketHelper {
         disconnect();
     }
 
+    private class LocationSubscriber implements MuxChannel.Subscriber {
+
+        @Override
+        public void onTopicUp() {
+            connected = true;
+            Log.i(TAG, "✅ Location topic up on shared channel");
+
+            if (callback != null) {
+                mainHandler.post(() -> callback.onConnected());
+            }
+        }
+
+        @Override
+        public void onTopicMessage(@NonNull String data) {
+            Log.d(TAG, "📥 Received: " + data);
+        }
+
+        @Override
+        public void onTopicDown() {
+            // The shared channel reconnects by itself
+            connected = false;
+            if (callback != null) {
+                mainHandler.post(() -> callback.onDisconnected());
+            }
+        }
+
+        @Override
+        public void onMuxUnavailable() {
+            mainHandler.post(() -> {
+                if (subscription == null) return; // disconnected meanwhile
+                subscription.unsubscribe();
+                subscription = null;
+                Log.i(TAG, "Shared channel unavailable, using dedicated socket");
+                connectDirect();
+            });
+        }
+    }
+
     private class LocationWebSocketListener extends WebSocketListener {
 
         @Override
         public void onOpen(@NonNull WebSocket ws, @NonNull Response response) {
             connected = true;
+            reconnector.onConnected();
             Log.i(TAG, "✅ Location WebSocket connected");
 
             if (callback != null) {
@@ -146,9 +210,7 @@ public class LocationWebSocketHelper {
                 });
             }
 
-            if (!tryingToReconnect) {
-                scheduleReconnect();
-            }
+            reconnector.scheduleReconnect();
         }
 
         @Override
@@ -170,19 +232,6 @@ public class LocationWebSocketHelper {
                 mainHandler.post(() -> callback.onDisconnected());
             }
         }
-
-        private void scheduleReconnect() {
-            tryingToReconnect = true;
-            Log.d(TAG, "⏳ Scheduling reconnect in " + (RECONNECT_DELAY_MS / 1000) + "s");
-
-            mainHandler.postDelayed(() -> {
-                tryingToReconnect = false;
-                if (!connected) {
-                    Log.d(TAG, "🔄 Attempting to reconnect...");
-                    connect();
-                }
-            }, RECONNECT_DELAY_MS);
-        }
     }
 }
 
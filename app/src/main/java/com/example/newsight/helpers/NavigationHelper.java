@@ -6,10 +6,14 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.example.newsight.MuxChannel;
+import com.example.newsight.NetworkClient;
+import com.example.newsight.Reconnector;
+import com.example.newsight.ResultDecoder;
+import com.example.newsight.models.ModelAdapters;
 import com.example.newsight.models.NavigationUpdate;
-import com.google.gson.Gson;
+import com.example.newsight.models.NavigationUpdateAdapter;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import java.util.concurrent.TimeUnit;
 
@@ -22,7 +26,8 @@ import okhttp3.WebSocketListener;
 /**
  * NavigationHelper - Manages WebSocket connection for real-time navigation updates
  * 
- * Connects to: ws://<backend>/navigation/ws
+ * Connects to: the "navigation" topic of the backend's shared MuxChannel
+ *             (ws://<backend>/navigation/ws if the backend has no multiplexed endpoint)
  * 
  * Sends: Location updates { "latitude": ..., "longitude": ..., "session_id": ... }
  * Receives: Navigation updates { "status": ..., "instruction": ..., "distance_to_next": ... }
@@ -39,17 +44,19 @@ import okhttp3.WebSocketListener;
 public class NavigationHelper {
 
     private static final String TAG = "NavigationHelper";
-    private static final long RECONNECT_DELAY_MS = 5000;
 
     private final String serverUrl;
     private final String sessionId;
     private final OkHttpClient client;
     private final Handler mainHandler;
-    private final Gson gson;
+    private final MuxChannel mux;
 
+    private MuxChannel.Subscription subscription;
     private WebSocket webSocket;
     private boolean connected = false;
-    private boolean tryingToReconnect = false;
+    private final Reconnector reconnector = new Reconnector(TAG, () -> {
+        if (!connected) connectDirect();
+    });
     private NavigationCallback callback;
 
     public interface NavigationCallback {
@@ -63,9 +70,9 @@ public class NavigationHelper {
         this.serverUrl = serverUrl;
         this.sessionId = sessionId;
         this.mainHandler = new Handler(Looper.getMainLooper());
-        this.gson = new Gson();
+        this.mux = MuxChannel.forUrl(serverUrl);
 
-        this.client = new OkHttpClient.Builder()
+        this.client = NetworkClient.get().newBuilder()
                 .connectTimeout(10, TimeUnit.SECONDS)
                 .readTimeout(0, TimeUnit.MILLISECONDS) // Infinite for WebSocket
                 .retryOnConnectionFailure(true)
@@ -77,7 +84,7 @@ public class NavigationHelper {
     }
 
     /**
-     * Connect to the navigation WebSocket
+     * Connect to the navigation stream
      */
     public void connect() {
         if (connected) {
@@ -85,6 +92,17 @@ public class NavigationHelper {
             return;
         }
 
+        if (mux.isAvailable()) {
+            if (subscription == null) {
+                Log.i(TAG, "🔌 Subscribing to navigation on shared channel");
+                subscription = mux.subscribe(MuxChannel.TOPIC_NAVIGATION, new NavigationSubscriber());
+            }
+            return;
+        }
+        connectDirect();
+    }
+
+    private void connectDirect() {
         Log.i(TAG, "🔌 Connecting to " + serverUrl);
         Request request = new Request.Builder()
                 .url(serverUrl)
@@ -97,7 +115,7 @@ public class NavigationHelper {
      * Send location update to backend
      */
     public void sendLocation(double latitude, double longitude) {
-        if (!connected || webSocket == null) {
+        if (!connected || (webSocket == null && subscription == null)) {
             Log.w(TAG, "Cannot send location - not connected");
             return;
         }
@@ -108,8 +126,8 @@ public class NavigationHelper {
             locationData.addProperty("longitude", longitude);
             locationData.addProperty("session_id", sessionId);
 
-            String json = gson.toJson(locationData);
-            boolean sent = webSocket.send(json);
+            String json = ModelAdapters.gson().toJson(locationData);
+            boolean sent = subscription != null ? subscription.send(json) : webSocket.send(json);
 
             if (sent) {
                 Log.d(TAG, String.format("📤 Sent location: (%.6f, %.6f)", latitude, longitude));
@@ -122,9 +140,14 @@ public class NavigationHelper {
     }
 
     /**
-     * Disconnect from the navigation WebSocket
+     * Disconnect from the navigation stream
      */
     public void disconnect() {
+        if (subscription != null) {
+            subscription.unsubscribe();
+            subscription = null;
+        }
+        reconnector.cancel();
         if (webSocket != null) {
             webSocket.close(1000, "Client disconnect");
             webSocket = null;
@@ -143,6 +166,70 @@ public class NavigationHelper {
         disconnect();
     }
 
+    private void handleMessage(String text) {
+        Log.d(TAG, "📥 Received: " + text);
+
+        // Decoded in one streaming pass on the decoder thread; only the model reaches the UI thread
+        ResultDecoder.decodeToMain(text, NavigationUpdateAdapter.INSTANCE,
+                new ResultDecoder.Callback<NavigationUpdate>() {
+                    @Override
+                    public void onDecoded(@NonNull NavigationUpdate update) {
+                        if (callback == null) return;
+                        if ("arrived".equals(update.getStatus())) {
+                            callback.onNavigationComplete();
+                        } else {
+                            callback.onNavigationUpdate(update);
+                        }
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        Log.e(TAG, "Error parsing navigation update: " + e.getMessage(), e);
+                        if (callback != null) callback.onError("Failed to parse update");
+                    }
+                });
+    }
+
+    // ========== Shared channel subscriber ==========
+
+    private class NavigationSubscriber implements MuxChannel.Subscriber {
+
+        @Override
+        public void onTopicUp() {
+            connected = true;
+            Log.i(TAG, "✅ Navigation topic up on shared channel");
+
+            if (callback != null) {
+                mainHandler.post(() -> callback.onConnectionStatus(true));
+            }
+        }
+
+        @Override
+        public void onTopicMessage(@NonNull String data) {
+            handleMessage(data);
+        }
+
+        @Override
+        public void onTopicDown() {
+            // The shared channel reconnects by itself
+            connected = false;
+            if (callback != null) {
+                mainHandler.post(() -> callback.onConnectionStatus(false));
+            }
+        }
+
+        @Override
+        public void onMuxUnavailable() {
+            mainHandler.post(() -> {
+                if (subscription == null) return; // disconnected meanwhile
+                subscription.unsubscribe();
+                subscription = null;
+                Log.i(TAG, "Shared channel unavailable, using dedicated socket");
+                connectDirect();
+            });
+        }
+    }
+
     // ========== WebSocket Listener ==========
 
     private class NavigationWebSocketListener extends WebSocketListener {
@@ -150,6 +237,7 @@ public class NavigationHelper {
         @Override
         public void onOpen(@NonNull WebSocket ws, @NonNull Response response) {
             connected = true;
+            reconnector.onConnected();
             Log.i(TAG, "✅ Navigation WebSocket connected");
 
             if (callback != null) {
@@ -159,29 +247,7 @@ public class NavigationHelper {
 
         @Override
         public void onMessage(@NonNull WebSocket ws, @NonNull String text) {
-            Log.d(TAG, "📥 Received: " + text);
-
-            try {
-                JsonObject json = JsonParser.parseString(text).getAsJsonObject();
-                
-                // Parse navigation update
-                NavigationUpdate update = gson.fromJson(json, NavigationUpdate.class);
-
-                if (update != null && callback != null) {
-                    mainHandler.post(() -> {
-                        if ("arrived".equals(update.getStatus())) {
-                            callback.onNavigationComplete();
-                        } else {
-                            callback.onNavigationUpdate(update);
-                        }
-                    });
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error parsing navigation update: " + e.getMessage(), e);
-                if (callback != null) {
-                    mainHandler.post(() -> callback.onError("Failed to parse update"));
-                }
-            }
+            handleMessage(text);
         }
 
         @Override
@@ -197,9 +263,7 @@ public class NavigationHelper {
             }
 
             // Auto-reconnect
-            if (!tryingToReconnect) {
-                scheduleReconnect();
-            }
+            reconnector.scheduleReconnect();
         }
 
         @Override
@@ -221,19 +285,6 @@ public class NavigationHelper {
                 mainHandler.post(() -> callback.onConnectionStatus(false));
             }
         }
-
-        private void scheduleReconnect() {
-            tryingToReconnect = true;
-            Log.d(TAG, "⏳ Scheduling reconnect in " + (RECONNECT_DELAY_MS / 1000) + "s");
-
-            mainHandler.postDelayed(() -> {
-                tryingToReconnect = false;
-                if (!connected) {
-                    Log.d(TAG, "🔄 Attempting to reconnect...");
-                    connect();
-                }
-            }, RECONNECT_DELAY_MS);
-        }
     }
 }
 
@@ -0,0 +1,688 @@
+package com.example.newsight.models;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ModelAdapters - Streaming (reflection-free) JSON adapters for the navigation and voice models,
+ * and the one Gson instance the app shares.
+ *
+ * Each adapter reads its model in a single pass through the setters, with the same field names
+ * Gson's reflective adapter would use; unknown keys are skipped and JSON nulls leave the field
+ * at its default. The shared {@link #gson()} has every adapter registered, so code that still
+ * goes through Gson.fromJson(json, Model.class) never touches reflection either.
+ */
+public final class ModelAdapters {
+
+    public static final TypeAdapter<LocationCoordinates> LOCATION = new LocationCoordinatesAdapter();
+    public static final TypeAdapter<NavigationStep> STEP = new NavigationStepAdapter();
+    public static final TypeAdapter<DirectionsResponse> DIRECTIONS = new DirectionsResponseAdapter();
+    public static final TypeAdapter<TransitLeg.DepartureStatus> DEPARTURE_STATUS = new DepartureStatusAdapter();
+    public static final TypeAdapter<TransitLeg> TRANSIT_LEG = new TransitLegAdapter();
+    public static final TypeAdapter<TransitOption> TRANSIT_OPTION = new TransitOptionAdapter();
+    public static final TypeAdapter<TransitInfo.TransitAlert> TRANSIT_ALERT = new TransitAlertAdapter();
+    public static final TypeAdapter<TransitInfo> TRANSIT_INFO = new TransitInfoAdapter();
+    public static final TypeAdapter<TransitStop> TRANSIT_STOP = new TransitStopAdapter();
+    public static final TypeAdapter<VoiceResponse.ExtractedParams> EXTRACTED_PARAMS = new ExtractedParamsAdapter();
+    public static final TypeAdapter<VoiceResponse.TtsOutput> TTS_OUTPUT = new TtsOutputAdapter();
+    public static final TypeAdapter<VoiceResponse> VOICE_RESPONSE = new VoiceResponseAdapter();
+    /** Just the top-level "type" of a socket message (null if it has none); the rest is skipped. */
+    public static final TypeAdapter<String> MESSAGE_TYPE = new MessageTypeAdapter();
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(LocationCoordinates.class, LOCATION)
+            .registerTypeAdapter(NavigationStep.class, STEP)
+            .registerTypeAdapter(DirectionsResponse.class, DIRECTIONS)
+            .registerTypeAdapter(TransitLeg.DepartureStatus.class, DEPARTURE_STATUS)
+            .registerTypeAdapter(TransitLeg.class, TRANSIT_LEG)
+            .registerTypeAdapter(TransitOption.class, TRANSIT_OPTION)
+            .registerTypeAdapter(TransitInfo.TransitAlert.class, TRANSIT_ALERT)
+            .registerTypeAdapter(TransitInfo.class, TRANSIT_INFO)
+            .registerTypeAdapter(TransitStop.class, TRANSIT_STOP)
+            .registerTypeAdapter(VoiceResponse.ExtractedParams.class, EXTRACTED_PARAMS)
+            .registerTypeAdapter(VoiceResponse.TtsOutput.class, TTS_OUTPUT)
+            .registerTypeAdapter(VoiceResponse.class, VOICE_RESPONSE)
+            .registerTypeAdapter(NavigationUpdate.class, NavigationUpdateAdapter.INSTANCE)
+            .registerTypeAdapter(TextDetectionResult.class, TextDetectionResultAdapter.INSTANCE)
+            .create();
+
+    private ModelAdapters() {}
+
+    /** The app-wide Gson; build no other, each instance rebuilds its own reflection caches. */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    // ---------- Base ----------
+
+    /** Object-shaped adapter: null handling, unknown keys and null values are dealt with here. */
+    private abstract static class ObjectAdapter<T> extends TypeAdapter<T> {
+
+        abstract T create();
+
+        /** Read the value of {@code name} into {@code model}; false if the key is unknown. */
+        abstract boolean readField(JsonReader in, String name, T model) throws IOException;
+
+        abstract void writeFields(JsonWriter out, T model) throws IOException;
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            T model = create();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                if (!readField(in, name, model)) {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return model;
+        }
+
+        @Override
+        public void write(JsonWriter out, T model) throws IOException {
+            if (model == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeFields(out, model);
+            out.endObject();
+        }
+    }
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(adapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    private static <T> void writeList(JsonWriter out, List<T> list, TypeAdapter<T> adapter) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T item : list) {
+            adapter.write(out, item);
+        }
+        out.endArray();
+    }
+
+    /** Free-form JSON as Gson reads it into Object: maps, lists, strings, doubles and booleans. */
+    private static Object readAny(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                in.beginObject();
+                while (in.hasNext()) {
+                    map.put(in.nextName(), readAny(in));
+                }
+                in.endObject();
+                return map;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    list.add(readAny(in));
+                }
+                in.endArray();
+                return list;
+            case NUMBER:
+                return in.nextDouble();
+            case BOOLEAN:
+                return in.nextBoolean();
+            case NULL:
+                in.nextNull();
+                return null;
+            default:
+                return in.nextString();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeAny(JsonWriter out, Object value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else if (value instanceof Map) {
+            out.beginObject();
+            for (Map.Entry<String, Object> e : ((Map<String, Object>) value).entrySet()) {
+                out.name(e.getKey());
+                writeAny(out, e.getValue());
+            }
+            out.endObject();
+        } else if (value instanceof List) {
+            out.beginArray();
+            for (Object item : (List<Object>) value) {
+                writeAny(out, item);
+            }
+            out.endArray();
+        } else if (value instanceof Number) {
+            out.value((Number) value);
+        } else if (value instanceof Boolean) {
+            out.value((Boolean) value);
+        } else {
+            out.value(value.toString());
+        }
+    }
+
+    // ---------- Directions ----------
+
+    private static class LocationCoordinatesAdapter extends ObjectAdapter<LocationCoordinates> {
+        @Override
+        LocationCoordinates create() {
+            return new LocationCoordinates();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, LocationCoordinates c) throws IOException {
+            switch (name) {
+                case "lat":
+                    c.setLat(in.nextDouble());
+                    return true;
+                case "lng":
+                    c.setLng(in.nextDouble());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, LocationCoordinates c) throws IOException {
+            out.name("lat").value(c.getLat());
+            out.name("lng").value(c.getLng());
+        }
+    }
+
+    private static class NavigationStepAdapter extends ObjectAdapter<NavigationStep> {
+        @Override
+        NavigationStep create() {
+            return new NavigationStep();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, NavigationStep s) throws IOException {
+            switch (name) {
+                case "instruction":
+                    s.setInstruction(in.nextString());
+                    return true;
+                case "distance":
+                    s.setDistance(in.nextString());
+                    return true;
+                case "duration":
+                    s.setDuration(in.nextString());
+                    return true;
+                case "distance_meters":
+                    s.setDistanceMeters(in.nextInt());
+                    return true;
+                case "duration_seconds":
+                    s.setDurationSeconds(in.nextInt());
+                    return true;
+                case "start_location":
+                    s.setStartLocation(LOCATION.read(in));
+                    return true;
+                case "end_location":
+                    s.setEndLocation(LOCATION.read(in));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, NavigationStep s) throws IOException {
+            out.name("instruction").value(s.getInstruction());
+            out.name("distance").value(s.getDistance());
+            out.name("duration").value(s.getDuration());
+            out.name("distance_meters").value(s.getDistanceMeters());
+            out.name("duration_seconds").value(s.getDurationSeconds());
+            out.name("start_location");
+            LOCATION.write(out, s.getStartLocation());
+            out.name("end_location");
+            LOCATION.write(out, s.getEndLocation());
+        }
+    }
+
+    private static class DirectionsResponseAdapter extends ObjectAdapter<DirectionsResponse> {
+        @Override
+        DirectionsResponse create() {
+            return new DirectionsResponse();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, DirectionsResponse d) throws IOException {
+            switch (name) {
+                case "status":
+                    d.setStatus(in.nextString());
+                    return true;
+                case "destination":
+                    d.setDestination(in.nextString());
+                    return true;
+                case "origin":
+                    d.setOrigin(LOCATION.read(in));
+                    return true;
+                case "total_distance":
+                    d.setTotalDistance(in.nextString());
+                    return true;
+                case "total_duration":
+                    d.setTotalDuration(in.nextString());
+                    return true;
+                case "total_distance_meters":
+                    d.setTotalDistanceMeters(in.nextInt());
+                    return true;
+                case "total_duration_seconds":
+                    d.setTotalDurationSeconds(in.nextInt());
+                    return true;
+                case "steps":
+                    d.setSteps(readList(in, STEP));
+                    return true;
+                case "message":
+                    d.setMessage(in.nextString());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, DirectionsResponse d) throws IOException {
+            out.name("status").value(d.getStatus());
+            out.name("destination").value(d.getDestination());
+            out.name("origin");
+            LOCATION.write(out, d.getOrigin());
+            out.name("total_distance").value(d.getTotalDistance());
+            out.name("total_duration").value(d.getTotalDuration());
+            out.name("total_distance_meters").value(d.getTotalDistanceMeters());
+            out.name("total_duration_seconds").value(d.getTotalDurationSeconds());
+            out.name("steps");
+            writeList(out, d.getSteps(), STEP);
+            out.name("message").value(d.getMessage());
+        }
+    }
+
+    // ---------- Transit ----------
+
+    private static class DepartureStatusAdapter extends ObjectAdapter<TransitLeg.DepartureStatus> {
+        @Override
+        TransitLeg.DepartureStatus create() {
+            return new TransitLeg.DepartureStatus();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, TransitLeg.DepartureStatus s) throws IOException {
+            switch (name) {
+                case "status":
+                    s.setStatus(in.nextString());
+                    return true;
+                case "delay_min":
+                    s.setDelayMin(in.nextInt());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, TransitLeg.DepartureStatus s) throws IOException {
+            out.name("status").value(s.getStatus());
+            out.name("delay_min").value(s.getDelayMin());
+        }
+    }
+
+    private static class TransitLegAdapter extends ObjectAdapter<TransitLeg> {
+        @Override
+        TransitLeg create() {
+            return new TransitLeg();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, TransitLeg leg) throws IOException {
+            switch (name) {
+                case "type":
+                    leg.setType(in.nextString());
+                    return true;
+                case "duration_min":
+                    leg.setDurationMin(in.nextInt());
+                    return true;
+                case "distance_m":
+                    leg.setDistanceM(in.nextInt());
+                    return true;
+                case "mode_name":
+                    leg.setModeName(in.nextString());
+                    return true;
+                case "route_short_name":
+                    leg.setRouteShortName(in.nextString());
+                    return true;
+                case "route_long_name":
+                    leg.setRouteLongName(in.nextString());
+                    return true;
+                case "departure_status":
+                    leg.setDepartureStatus(DEPARTURE_STATUS.read(in));
+                    return true;
+                case "departure_time":
+                    leg.setDepartureTime(in.nextLong());
+                    return true;
+                case "scheduled_time":
+                    leg.setScheduledTime(in.nextLong());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, TransitLeg leg) throws IOException {
+            out.name("type").value(leg.getType());
+            out.name("duration_min").value(leg.getDurationMin());
+            out.name("distance_m").value(leg.getDistanceM());
+            out.name("mode_name").value(leg.getModeName());
+            out.name("route_short_name").value(leg.getRouteShortName());
+            out.name("route_long_name").value(leg.getRouteLongName());
+            out.name("departure_status");
+            DEPARTURE_STATUS.write(out, leg.getDepartureStatus());
+            out.name("departure_time").value(leg.getDepartureTime());
+            out.name("scheduled_time").value(leg.getScheduledTime());
+        }
+    }
+
+    private static class TransitOptionAdapter extends ObjectAdapter<TransitOption> {
+        @Override
+        TransitOption create() {
+            return new TransitOption();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, TransitOption o) throws IOException {
+            switch (name) {
+                case "duration_min":
+                    o.setDurationMin(in.nextInt());
+                    return true;
+                case "start_time":
+                    o.setStartTime(in.nextLong());
+                    return true;
+                case "end_time":
+                    o.setEndTime(in.nextLong());
+                    return true;
+                case "legs":
+                    o.setLegs(readList(in, TRANSIT_LEG));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, TransitOption o) throws IOException {
+            out.name("duration_min").value(o.getDurationMin());
+            out.name("start_time").value(o.getStartTime());
+            out.name("end_time").value(o.getEndTime());
+            out.name("legs");
+            writeList(out, o.getLegs(), TRANSIT_LEG);
+        }
+    }
+
+    private static class TransitAlertAdapter extends ObjectAdapter<TransitInfo.TransitAlert> {
+        @Override
+        TransitInfo.TransitAlert create() {
+            return new TransitInfo.TransitAlert();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, TransitInfo.TransitAlert a) throws IOException {
+            switch (name) {
+                case "type":
+                    a.setType(in.nextString());
+                    return true;
+                case "route":
+                    a.setRoute(in.nextString());
+                    return true;
+                case "message":
+                    a.setMessage(in.nextString());
+                    return true;
+                case "delay_minutes":
+                    a.setDelayMinutes(in.nextInt());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, TransitInfo.TransitAlert a) throws IOException {
+            out.name("type").value(a.getType());
+            out.name("route").value(a.getRoute());
+            out.name("message").value(a.getMessage());
+            out.name("delay_minutes").value(a.getDelayMinutes());
+        }
+    }
+
+    private static class TransitInfoAdapter extends ObjectAdapter<TransitInfo> {
+        @Override
+        TransitInfo create() {
+            return new TransitInfo();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        boolean readField(JsonReader in, String name, TransitInfo t) throws IOException {
+            switch (name) {
+                case "best_option":
+                    t.setBestOption(TRANSIT_OPTION.read(in));
+                    return true;
+                case "alerts":
+                    t.setAlerts(readList(in, TRANSIT_ALERT));
+                    return true;
+                case "destination":
+                    if (in.peek() != JsonToken.BEGIN_OBJECT) return false;
+                    t.setDestination((Map<String, Object>) readAny(in));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, TransitInfo t) throws IOException {
+            out.name("best_option");
+            TRANSIT_OPTION.write(out, t.getBestOption());
+            out.name("alerts");
+            writeList(out, t.getAlerts(), TRANSIT_ALERT);
+            out.name("destination");
+            writeAny(out, t.getDestination());
+        }
+    }
+
+    private static class TransitStopAdapter extends ObjectAdapter<TransitStop> {
+        @Override
+        TransitStop create() {
+            return new TransitStop();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, TransitStop s) throws IOException {
+            switch (name) {
+                case "name":
+                    s.setName(in.nextString());
+                    return true;
+                case "lat":
+                    s.setLat(in.nextDouble());
+                    return true;
+                case "lng":
+                    s.setLng(in.nextDouble());
+                    return true;
+                case "distance_m":
+                    s.setDistanceM(in.nextInt());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, TransitStop s) throws IOException {
+            out.name("name").value(s.getName());
+            out.name("lat").value(s.getLat());
+            out.name("lng").value(s.getLng());
+            out.name("distance_m").value(s.getDistanceM());
+        }
+    }
+
+    // ---------- Voice ----------
+
+    private static class ExtractedParamsAdapter extends ObjectAdapter<VoiceResponse.ExtractedParams> {
+        @Override
+        VoiceResponse.ExtractedParams create() {
+            return new VoiceResponse.ExtractedParams();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, VoiceResponse.ExtractedParams p) throws IOException {
+            switch (name) {
+                case "feature":
+                    p.setFeature(in.nextString());
+                    return true;
+                case "query":
+                    p.setQuery(in.nextString());
+                    return true;
+                case "destination":
+                    p.setDestination(in.nextString());
+                    return true;
+                case "directions":
+                    p.setDirections(DIRECTIONS.read(in));
+                    return true;
+                case "navigation_type":
+                    p.setNavigationType(in.nextString());
+                    return true;
+                case "is_transit_navigation":
+                    p.setTransitNavigationFlag(in.nextBoolean());
+                    return true;
+                case "transit_info":
+                    p.setTransitInfo(TRANSIT_INFO.read(in));
+                    return true;
+                case "nearest_stop":
+                    p.setNearestStop(TRANSIT_STOP.read(in));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, VoiceResponse.ExtractedParams p) throws IOException {
+            out.name("feature").value(p.getFeature());
+            out.name("query").value(p.getQuery());
+            out.name("destination").value(p.getDestination());
+            out.name("directions");
+            DIRECTIONS.write(out, p.getDirections());
+            out.name("navigation_type").value(p.getNavigationType());
+            out.name("is_transit_navigation").value(p.isTransitNavigationFlag());
+            out.name("transit_info");
+            TRANSIT_INFO.write(out, p.getTransitInfo());
+            out.name("nearest_stop");
+            TRANSIT_STOP.write(out, p.getNearestStop());
+        }
+    }
+
+    private static class TtsOutputAdapter extends ObjectAdapter<VoiceResponse.TtsOutput> {
+        @Override
+        VoiceResponse.TtsOutput create() {
+            return new VoiceResponse.TtsOutput();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, VoiceResponse.TtsOutput t) throws IOException {
+            if (!"message".equals(name)) return false;
+            t.setMessage(in.nextString());
+            return true;
+        }
+
+        @Override
+        void writeFields(JsonWriter out, VoiceResponse.TtsOutput t) throws IOException {
+            out.name("message").value(t.getMessage());
+        }
+    }
+
+    private static class MessageTypeAdapter extends TypeAdapter<String> {
+        @Override
+        public String read(JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                return null;
+            }
+            String type = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("type".equals(in.nextName()) && in.peek() == JsonToken.STRING) {
+                    type = in.nextString();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return type;
+        }
+
+        @Override
+        public void write(JsonWriter out, String type) throws IOException {
+            out.beginObject();
+            out.name("type").value(type);
+            out.endObject();
+        }
+    }
+
+    private static class VoiceResponseAdapter extends ObjectAdapter<VoiceResponse> {
+        @Override
+        VoiceResponse create() {
+            return new VoiceResponse();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String name, VoiceResponse r) throws IOException {
+            switch (name) {
+                case "confidence":
+                    r.setConfidence(in.nextDouble());
+                    return true;
+                case "extracted_params":
+                    r.setExtractedParams(EXTRACTED_PARAMS.read(in));
+                    return true;
+                case "TTS_Output":
+                    r.setTtsOutput(TTS_OUTPUT.read(in));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, VoiceResponse r) throws IOException {
+            out.name("confidence").value(r.getConfidence());
+            out.name("extracted_params");
+            EXTRACTED_PARAMS.write(out, r.getExtractedParams());
+            out.name("TTS_Output");
+            TTS_OUTPUT.write(out, r.getTtsOutput());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.newsight.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * NavigationUpdateAdapter - Streaming (reflection-free) JSON adapter for NavigationUpdate
+ * Reads the /navigation/ws message straight into the model in one pass; unknown keys are skipped
+ */
+public class NavigationUpdateAdapter extends TypeAdapter<NavigationUpdate> {
+
+    public static final NavigationUpdateAdapter INSTANCE = new NavigationUpdateAdapter();
+
+    @Override
+    public NavigationUpdate read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        NavigationUpdate update = new NavigationUpdate();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "status":
+                    update.setStatus(in.nextString());
+                    break;
+                case "current_step":
+                    update.setCurrentStep(in.nextInt());
+                    break;
+                case "total_steps":
+                    update.setTotalSteps(in.nextInt());
+                    break;
+                case "instruction":
+                    update.setInstruction(in.nextString());
+                    break;
+                case "distance_to_next":
+                    update.setDistanceToNext(in.nextDouble());
+                    break;
+                case "should_announce":
+                    update.setShouldAnnounce(in.nextBoolean());
+                    break;
+                case "announcement":
+                    update.setAnnouncement(in.nextString());
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return update;
+    }
+
+    @Override
+    public void write(JsonWriter out, NavigationUpdate update) throws IOException {
+        if (update == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("status").value(update.getStatus());
+        out.name("current_step").value(update.getCurrentStep());
+        out.name("total_steps").value(update.getTotalSteps());
+        out.name("instruction").value(update.getInstruction());
+        out.name("distance_to_next").value(update.getDistanceToNext());
+        out.name("should_announce").value(update.isShouldAnnounce());
+        out.name("announcement").value(update.getAnnouncement());
+        out.endObject();
+    }
+}
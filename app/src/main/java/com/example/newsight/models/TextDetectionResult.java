@@ -0,0 +1,43 @@
+package com.example.newsight.models;
+
+import androidx.annotation.NonNull;
+
+/**
+ * TextDetectionResult - One text_detection result from the vision WebSocket, reduced to the
+ * text to show/speak
+ * Immutable: built once on the decoder thread and handed to the UI as-is
+ */
+public final class TextDetectionResult {
+
+    public static final TextDetectionResult EMPTY = new TextDetectionResult("", "none");
+
+    private final String text;
+    private final String source;
+
+    public TextDetectionResult(@NonNull String text, @NonNull String source) {
+        this.text = text;
+        this.source = source;
+    }
+
+    /** Detected text, trimmed; empty if nothing was read. */
+    @NonNull
+    public String getText() {
+        return text;
+    }
+
+    /** Which field the text came from: text_string, stable_text, full_text or detections. */
+    @NonNull
+    public String getSource() {
+        return source;
+    }
+
+    public boolean isEmpty() {
+        return text.isEmpty();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return source + ": '" + text + "'";
+    }
+}
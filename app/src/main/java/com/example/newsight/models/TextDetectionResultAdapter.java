@@ -0,0 +1,122 @@
+package com.example.newsight.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * TextDetectionResultAdapter - Streaming JSON adapter for text_detection results
+ *
+ * Expected JSON format:
+ * {
+ *   "detections": [
+ *     {"text": "detected text", "confidence": 0.95, "bbox": [[x1,y1], [x2,y2], ...]}
+ *   ],
+ *   "text_string": "combined detected text"
+ * }
+ *
+ * The text is taken from text_string, else stable_text, else full_text, else the detections
+ * with confidence >= MIN_CONFIDENCE joined by spaces. Boxes are skipped without being built.
+ */
+public class TextDetectionResultAdapter extends TypeAdapter<TextDetectionResult> {
+
+    public static final TextDetectionResultAdapter INSTANCE = new TextDetectionResultAdapter();
+
+    static final double MIN_CONFIDENCE = 0.5;
+
+    @Override
+    public TextDetectionResult read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String textString = null;
+        String stableText = null;
+        String fullText = null;
+        StringBuilder fromDetections = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "text_string":
+                    textString = in.nextString();
+                    break;
+                case "stable_text":
+                    stableText = in.nextString();
+                    break;
+                case "full_text":
+                    fullText = in.nextString();
+                    break;
+                case "detections":
+                    fromDetections = readDetections(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (textString != null) return result(textString, "text_string");
+        if (stableText != null) return result(stableText, "stable_text");
+        if (fullText != null) return result(fullText, "full_text");
+        if (fromDetections != null) return result(fromDetections.toString(), "detections");
+        return TextDetectionResult.EMPTY;
+    }
+
+    private static StringBuilder readDetections(JsonReader in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        in.beginArray();
+        while (in.hasNext()) {
+            String text = null;
+            double confidence = 0.0;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                } else if ("text".equals(name)) {
+                    text = in.nextString();
+                } else if ("confidence".equals(name)) {
+                    confidence = in.nextDouble();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+
+            // Only include text with confidence above threshold
+            if (text != null && confidence >= MIN_CONFIDENCE) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(text);
+            }
+        }
+        in.endArray();
+        return sb;
+    }
+
+    private static TextDetectionResult result(String text, String source) {
+        // Normalize text (trim, handle "null" string)
+        if ("null".equals(text)) text = "";
+        return new TextDetectionResult(text.trim(), source);
+    }
+
+    @Override
+    public void write(JsonWriter out, TextDetectionResult result) throws IOException {
+        if (result == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("text_string").value(result.getText());
+        out.endObject();
+    }
+}
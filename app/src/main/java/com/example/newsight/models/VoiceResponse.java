@@ -17,6 +17,7 @@ public class VoiceResponse {
         private String destination;
         private DirectionsResponse directions;
         private String navigation_type;  // "walking" or "transit"
+        private boolean is_transit_navigation;
         private TransitInfo transit_info;
         private TransitStop nearest_stop;
 
@@ -60,6 +61,14 @@ public class VoiceResponse {
             this.navigation_type = navigation_type;
         }
 
+        public boolean isTransitNavigationFlag() {
+            return is_transit_navigation;
+        }
+
+        public void setTransitNavigationFlag(boolean is_transit_navigation) {
+            this.is_transit_navigation = is_transit_navigation;
+        }
+
         public TransitInfo getTransitInfo() {
             return transit_info;
         }
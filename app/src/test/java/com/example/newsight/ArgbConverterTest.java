@@ -0,0 +1,72 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArgbConverterTest {
+
+    private static final int W = 8;
+    private static final int H = 6;
+
+    @Test
+    public void testFixedPointMatchesFloatConversion() {
+        ByteBuffer y = ByteBuffer.allocateDirect(W * H);
+        ByteBuffer u = ByteBuffer.allocateDirect(W * H / 4);
+        ByteBuffer v = ByteBuffer.allocateDirect(W * H / 4);
+        for (int i = 0; i < W * H; i++) y.put(i, (byte) (i * 37));
+        for (int i = 0; i < W * H / 4; i++) {
+            u.put(i, (byte) (i * 53 + 7));
+            v.put(i, (byte) (255 - i * 41));
+        }
+
+        int[] argb = new ArgbConverter().convert(y, W, u, v, W / 2, 1, W, H, W, H);
+
+        for (int row = 0; row < H; row++) {
+            for (int col = 0; col < W; col++) {
+                int uvIndex = (row / 2) * (W / 2) + col / 2;
+                int expected = floatArgb(y.get(row * W + col) & 0xff,
+                        (u.get(uvIndex) & 0xff) - 128, (v.get(uvIndex) & 0xff) - 128);
+                int actual = argb[row * W + col];
+                assertEquals(0xFF, actual >>> 24);
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    int diff = Math.abs(((expected >> shift) & 0xff) - ((actual >> shift) & 0xff));
+                    assertTrue("pixel " + col + "," + row + " off by " + diff, diff <= 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDownscaleSamplesSourcePixels() {
+        // Grey frame with a luma ramp: every output pixel must be the sampled source luma
+        ByteBuffer y = ByteBuffer.allocateDirect(W * H);
+        ByteBuffer uv = ByteBuffer.allocateDirect(W * H / 4);
+        for (int i = 0; i < W * H; i++) y.put(i, (byte) (i * 5));
+        for (int i = 0; i < W * H / 4; i++) uv.put(i, (byte) 128);
+
+        int[] argb = new ArgbConverter().convert(y, W, uv, uv.duplicate(), W / 2, 1, W, H, W / 2, H / 2);
+
+        for (int row = 0; row < H / 2; row++) {
+            for (int col = 0; col < W / 2; col++) {
+                int expected = ((row * 2) * W + col * 2) * 5 & 0xff;
+                assertEquals(0xFF000000 | expected << 16 | expected << 8 | expected, argb[row * (W / 2) + col]);
+            }
+        }
+    }
+
+    /** Rounded float BT.601, the reference the fixed-point coefficients were derived from. */
+    private static int floatArgb(int y, int u, int v) {
+        int r = clamp(Math.round(y + 1.370705f * v));
+        int g = clamp(Math.round(y - 0.337633f * u - 0.698001f * v));
+        int b = clamp(Math.round(y + 1.732446f * u));
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    private static int clamp(int c) {
+        return c < 0 ? 0 : Math.min(255, c);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.newsight;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CameraMotionTest {
+
+    private CameraMotion motion;
+    private final float[] shift = new float[2];
+
+    @Before
+    public void setUp() {
+        motion = new CameraMotion(null, null);
+    }
+
+    /** Readings every 10ms from {@code fromMs} for {@code ms}, sensor clock in ns. */
+    private void turn(long fromMs, int ms, float panRate, float tiltRate) {
+        for (long t = fromMs; t <= fromMs + ms; t += 10) {
+            motion.accept(panRate, tiltRate, t * 1_000_000L, t);
+        }
+    }
+
+    @Test
+    public void testNoReadingsNoShift() {
+        assertFalse(motion.isAvailable());
+        assertFalse(motion.getShift(0, 500, shift));
+        assertEquals(0f, shift[0], 0f);
+        assertEquals(0f, shift[1], 0f);
+    }
+
+    @Test
+    public void testTurningLeftMovesTheSceneRight() {
+        motion.setFieldOfView(60f, 45f);
+        turn(1000, 1000, 0.5f, 0f);
+
+        assertTrue(motion.getShift(1200, 1700, shift));
+        // 0.25 rad over half a 60 degree field of view
+        float expected = (float) (Math.tan(0.25) * 0.5 / Math.tan(Math.toRadians(30)));
+        assertEquals(expected, shift[0], 1e-3f);
+        assertEquals(0f, shift[1], 1e-6f);
+
+        // Between readings the angle is interpolated; past the newest one it holds
+        motion.getShift(1200, 1205, shift);
+        assertTrue(shift[0] > 0f && shift[0] < expected / 50);
+        motion.getShift(2000, 3000, shift);
+        assertEquals(0f, shift[0], 1e-6f);
+    }
+
+    @Test
+    public void testTiltingDownMovesTheSceneUp() {
+        turn(0, 400, 0f, -0.3f);
+        motion.getShift(0, 400, shift);
+        assertTrue(shift[1] < 0f);
+        assertEquals(0f, shift[0], 1e-6f);
+    }
+}
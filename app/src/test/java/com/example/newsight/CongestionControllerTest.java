@@ -0,0 +1,139 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CongestionControllerTest {
+
+    private long now = 0L;
+
+    private CongestionController controller() {
+        return new CongestionController(250, 80, 600, () -> now);
+    }
+
+    @Test
+    public void testStartsAtSpecSettings() {
+        CongestionController c = controller();
+        assertEquals(250, c.getIntervalMs());
+        assertEquals(80, c.getQuality());
+        assertEquals(1f, c.getScale(), 0.001);
+    }
+
+    @Test
+    public void testForSpecReadsIntervalAndQuality() {
+        FrameSpec spec = new FrameSpec.Builder("test")
+                .setMinIntervalMs(400)
+                .setJpegQuality(90)
+                .build();
+        CongestionController c = CongestionController.forSpec(spec);
+        assertEquals(400, c.getIntervalMs());
+        assertEquals(90, c.getQuality());
+    }
+
+    @Test
+    public void testSpecSetsTargetRttAndQualityFloor() {
+        FrameSpec spec = new FrameSpec.Builder("test")
+                .setJpegQuality(90)
+                .setMinQuality(75)
+                .setTargetRttMs(1500)
+                .build();
+        CongestionController c = new CongestionController(spec.getMinIntervalMs(), spec.getQuality(),
+                spec.getMinQuality(), spec.getTargetRttMs(), () -> now);
+
+        // A 1.2s OCR round trip is on target for this feature
+        c.onRtt(1200);
+        assertEquals(90, c.getQuality());
+
+        for (int i = 0; i < 10; i++) {
+            now += 10_000;
+            c.onDrop();
+        }
+        assertEquals(75, c.getQuality());
+        assertEquals(0.5f, c.getScale(), 0.001);
+    }
+
+    @Test
+    public void testDegradedEncoderDoesNotCarryOverToTheNextPipeline() {
+        FrameSpec spec = new FrameSpec.Builder("test")
+                .setJpegQuality(90)
+                .build();
+        FrameEncoder first = spec.newEncoder();
+        first.setQuality(CongestionController.MIN_QUALITY);
+
+        FrameEncoder second = spec.newEncoder();
+        assertEquals(90, second.getQuality());
+        assertEquals(90, CongestionController.forSpec(spec).getQuality());
+        assertEquals(CongestionController.MIN_QUALITY, first.getQuality());
+    }
+
+    @Test
+    public void testSlowResultsBackOffMultiplicatively() {
+        CongestionController c = controller();
+        c.onRtt(2000);
+        assertEquals(375, c.getIntervalMs());
+        assertEquals(70, c.getQuality());
+
+        // A second sample within one RTT doesn't count again
+        now += 100;
+        c.onRtt(2000);
+        assertEquals(375, c.getIntervalMs());
+    }
+
+    @Test
+    public void testResolutionDropsOnceQualityBottomsOut() {
+        CongestionController c = controller();
+        for (int i = 0; i < 10; i++) {
+            now += 10_000;
+            c.onDrop();
+        }
+        assertEquals(CongestionController.MIN_QUALITY, c.getQuality());
+        assertEquals(CongestionController.MAX_INTERVAL_MS, c.getIntervalMs());
+        assertEquals(0.5f, c.getScale(), 0.001);
+        assertEquals(10, c.getDrops());
+    }
+
+    @Test
+    public void testRecoversAdditivelyInOrder() {
+        CongestionController c = controller();
+        now += 10_000;
+        c.onDrop();           // 375ms, q70
+
+        c.onRtt(100);
+        assertEquals(355, c.getIntervalMs());
+        assertEquals(70, c.getQuality());
+
+        for (int i = 0; i < 100; i++) c.onRtt(100);
+        assertEquals(250, c.getIntervalMs());
+        assertEquals(80, c.getQuality());
+    }
+
+    @Test
+    public void testQueueDepthSignals() {
+        CongestionController c = controller();
+        c.onQueueSample(CongestionController.CONGESTED_QUEUE_BYTES / 2);
+        assertEquals(250, c.getIntervalMs());
+
+        c.onQueueSample(CongestionController.CONGESTED_QUEUE_BYTES + 1);
+        assertTrue(c.getIntervalMs() > 250);
+
+        assertFalse(c.shouldDrop(CongestionController.CONGESTED_QUEUE_BYTES + 1));
+        assertTrue(c.shouldDrop(CongestionController.DROP_QUEUE_BYTES + 1));
+    }
+
+    @Test
+    public void testSlowLinkBacksOffButFastLinkDoesNotSpeedUp() {
+        CongestionController c = controller();
+        c.onLinkRtt(100);
+        assertEquals(250, c.getIntervalMs());
+
+        c.onLinkRtt(900);
+        assertEquals(375, c.getIntervalMs());
+
+        now += 10000;
+        c.onLinkRtt(100);
+        assertEquals(375, c.getIntervalMs());
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.newsight;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * JVM micro-benchmarks for the analyzer-thread frame conversions, fed with synthetic planes.
+ *
+ * Skipped by default; run with:
+ *   ./gradlew :app:testDebugUnitTest --tests "*FrameConversionBenchmark" -Dnewsight.benchmarks=true
+ */
+public class FrameConversionBenchmark {
+
+    private static final int[][] SIZES = {{640, 480}, {1280, 720}, {1920, 1080}};
+    private static final int WARMUP_FRAMES = 50;
+    private static final int MEASURED_FRAMES = 200;
+
+    @Before
+    public void checkEnabled() {
+        Assume.assumeTrue(Boolean.getBoolean("newsight.benchmarks"));
+    }
+
+    @Test
+    public void benchmarkYuv420ToNv21() {
+        Nv21Converter converter = new Nv21Converter();
+
+        for (int[] size : SIZES) {
+            int w = size[0];
+            int h = size[1];
+            Planes planes = Planes.interleaved(w, h);
+            byte[] legacyOut = new byte[Nv21Converter.nv21Size(w, h)];
+            byte[] out = new byte[Nv21Converter.nv21Size(w, h)];
+
+            long legacyNs = time(() -> legacyYuv420ToNv21(planes, w, h, legacyOut));
+            long bulkNs = time(() -> converter.convert(planes.y, w, planes.u, planes.v, w, 2, w, h, out));
+            assertArrayEquals(legacyOut, out);
+
+            report("yuv420ToNv21", w, h, legacyNs, bulkNs);
+        }
+    }
+
+    /**
+     * Object detection path at 640x480: the old full-resolution float ARGB loop (then a
+     * downscale) against the fixed-point downscale-first ArgbConverter, plus the NV21
+     * equivalent (full convert + scale vs convertScaled).
+     */
+    @Test
+    public void benchmarkDetectorDownscale() {
+        ArgbConverter argbConverter = new ArgbConverter();
+        Nv21Converter nv21Converter = new Nv21Converter();
+        int dw = 640;
+        int dh = 480;
+
+        for (int[] size : SIZES) {
+            int w = size[0];
+            int h = size[1];
+            Planes planes = Planes.interleaved(w, h);
+
+            int[] fullArgb = new int[w * h];
+            int[] legacyArgb = new int[dw * dh];
+            long legacyArgbNs = time(() -> {
+                legacyYuv420ToArgb(planes, w, h, fullArgb);
+                downscaleArgb(fullArgb, w, h, legacyArgb, dw, dh);
+            });
+            long argbNs = time(() -> argbConverter.convert(planes.y, w, planes.u, planes.v, w, 2, w, h, dw, dh));
+            report("yuv420ToArgb", w, h, legacyArgbNs, argbNs);
+
+            if (w == dw && h == dh) continue; // FrameConverter only samples when it shrinks
+
+            byte[] full = new byte[Nv21Converter.nv21Size(w, h)];
+            byte[] scaled = new byte[Nv21Converter.nv21Size(dw, dh)];
+            byte[] direct = new byte[Nv21Converter.nv21Size(dw, dh)];
+            long twoPassNs = time(() -> {
+                nv21Converter.convert(planes.y, w, planes.u, planes.v, w, 2, w, h, full);
+                nv21Converter.scale(full, w, h, scaled, dw, dh);
+            });
+            long directNs = time(() -> nv21Converter.convertScaled(planes.y, w, planes.u, planes.v, w, 2, w, h, direct, dw, dh));
+            assertArrayEquals(scaled, direct);
+            report("nv21Scaled", w, h, twoPassNs, directNs);
+        }
+    }
+
+    // ---------- Harness ----------
+
+    private static long time(Runnable frame) {
+        for (int i = 0; i < WARMUP_FRAMES; i++) frame.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) frame.run();
+        return (System.nanoTime() - start) / MEASURED_FRAMES;
+    }
+
+    private static void report(String name, int w, int h, long beforeNs, long afterNs) {
+        System.out.println(String.format(Locale.US, "%-14s %4dx%-4d  before: %,10d ns/frame  after: %,10d ns/frame  (%.1fx)",
+                name, w, h, beforeNs, afterNs, beforeNs / (double) Math.max(1, afterNs)));
+    }
+
+    /** Synthetic camera planes in the common layout: packed Y, U/V aliasing one VUVU... buffer. */
+    static class Planes {
+        final ByteBuffer y;
+        final ByteBuffer u;
+        final ByteBuffer v;
+
+        private Planes(ByteBuffer y, ByteBuffer u, ByteBuffer v) {
+            this.y = y;
+            this.u = u;
+            this.v = v;
+        }
+
+        static Planes interleaved(int w, int h) {
+            ByteBuffer y = ByteBuffer.allocateDirect(w * h);
+            for (int i = 0; i < w * h; i++) y.put(i, (byte) (i * 31));
+
+            ByteBuffer vu = ByteBuffer.allocateDirect(w * h / 2);
+            for (int i = 0; i < w * h / 2; i++) vu.put(i, (byte) (i * 7 + 128));
+            vu.position(0).limit(vu.capacity() - 1);
+            ByteBuffer v = vu.slice();
+            vu.clear().position(1);
+            ByteBuffer u = vu.slice();
+            return new Planes(y, u, v);
+        }
+    }
+
+    /** The per-byte ByteBuffer.get(index) loop FrameAnalyzer used before Nv21Converter. */
+    private static void legacyYuv420ToNv21(Planes planes, int width, int height, byte[] out) {
+        int ySize = planes.y.remaining();
+        planes.y.get(out, 0, ySize);
+        planes.y.position(0);
+
+        int uvPos = ySize;
+        for (int row = 0; row < height / 2; row++) {
+            for (int col = 0; col < width / 2; col++) {
+                int uvIndex = row * width + col * 2;
+                out[uvPos++] = planes.v.get(uvIndex);
+                out[uvPos++] = planes.u.get(uvIndex);
+            }
+        }
+    }
+
+    /** The float loop CloudDetectorProcessor ran over every pixel before downscaling. */
+    private static void legacyYuv420ToArgb(Planes planes, int width, int height, int[] out) {
+        for (int y = 0; y < height; y++) {
+            int yRow = width * y;
+            int uvRow = width * (y / 2);
+            for (int x = 0; x < width; x++) {
+                int uvIndex = uvRow + (x / 2) * 2;
+
+                int Y = planes.y.get(yRow + x) & 0xff;
+                int U = (planes.u.get(uvIndex) & 0xff) - 128;
+                int V = (planes.v.get(uvIndex) & 0xff) - 128;
+
+                float fY = (float) Y;
+                int r = Math.max(0, Math.min(255, (int) (fY + 1.370705f * V)));
+                int g = Math.max(0, Math.min(255, (int) (fY - 0.337633f * U - 0.698001f * V)));
+                int b = Math.max(0, Math.min(255, (int) (fY + 1.732446f * U)));
+
+                out[y * width + x] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    /**
+     * Nearest-neighbour stand-in for the old Bitmap.createScaledBitmap step (not available on
+     * the JVM); the real bilinear filter was slower, so this understates the old cost.
+     */
+    private static void downscaleArgb(int[] src, int width, int height, int[] dst, int dw, int dh) {
+        for (int y = 0, d = 0; y < dh; y++) {
+            int row = (y * height / dh) * width;
+            for (int x = 0; x < dw; x++) {
+                dst[d++] = src[row + x * width / dw];
+            }
+        }
+    }
+}
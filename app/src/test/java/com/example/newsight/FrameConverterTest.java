@@ -0,0 +1,32 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrameConverterTest {
+
+    @Test
+    public void testCaptureAge() {
+        long now = 5_000_000L;
+        assertEquals(120, FrameConverter.captureAgeMs((now - 120) * 1_000_000L, now));
+        assertEquals(0, FrameConverter.captureAgeMs(now * 1_000_000L, now));
+    }
+
+    @Test
+    public void testShortSleepDoesNotMatter() {
+        // elapsedRealtime only 500ms ahead of uptime: the age is taken on the camera's clock
+        long uptime = 5_000_000L;
+        long elapsed = uptime + 500;
+        assertEquals(80, FrameConverter.captureAgeMs((uptime - 80) * 1_000_000L, uptime));
+        assertEquals(80, FrameConverter.captureAgeMs((elapsed - 80) * 1_000_000L, elapsed));
+    }
+
+    @Test
+    public void testImplausibleTimestampsMeanNow() {
+        long now = 5_000_000L;
+        assertEquals(0, FrameConverter.captureAgeMs(0, now));
+        assertEquals(0, FrameConverter.captureAgeMs((now + 50) * 1_000_000L, now));
+        assertEquals(0, FrameConverter.captureAgeMs((now - 3_600_000L) * 1_000_000L, now));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import okio.ByteString;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class FrameProtocolTest {
+
+    @Test
+    public void testEncodeHeaderLayout() {
+        byte[] jpeg = new byte[]{(byte) 0xFF, (byte) 0xD8, 1, 2, 3, (byte) 0xFF, (byte) 0xD9};
+
+        ByteString msg = FrameProtocol.encode(3, 42, 1700000000123L, 1280, 720, jpeg);
+        assertEquals(FrameProtocol.HEADER_SIZE + jpeg.length, msg.size());
+
+        ByteBuffer buf = ByteBuffer.wrap(msg.toByteArray()); // big-endian by default
+        assertEquals(FrameProtocol.VERSION, buf.get());
+        assertEquals(3, buf.get());
+        assertEquals(FrameProtocol.HEADER_SIZE, buf.getShort());
+        assertEquals(42, buf.getInt());
+        assertEquals(1700000000123L, buf.getLong());
+        assertEquals(1280, buf.getShort() & 0xFFFF);
+        assertEquals(720, buf.getShort() & 0xFFFF);
+        assertEquals(jpeg.length, buf.getInt());
+
+        byte[] payload = new byte[jpeg.length];
+        buf.get(payload);
+        assertArrayEquals(jpeg, payload);
+    }
+
+    @Test
+    public void testEncodeLargePayload() {
+        // Larger than an okio segment, so the ByteString shares segments instead of copying
+        byte[] jpeg = new byte[200_000];
+        for (int i = 0; i < jpeg.length; i++) jpeg[i] = (byte) i;
+
+        ByteString msg = FrameProtocol.encode(1, 1, 0L, 640, 480, jpeg);
+        assertEquals(FrameProtocol.HEADER_SIZE + jpeg.length, msg.size());
+        assertEquals(jpeg[jpeg.length - 1], msg.getByte(msg.size() - 1));
+        assertEquals(jpeg[0], msg.getByte(FrameProtocol.HEADER_SIZE));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HeartbeatTest {
+
+    private long now = 0L;
+
+    private Heartbeat heartbeat() {
+        return new Heartbeat(5000, 15000, () -> now);
+    }
+
+    @Test
+    public void testPongGivesRoundTrip() {
+        Heartbeat hb = heartbeat();
+        assertTrue(hb.shouldPing());
+        hb.onPingSent();
+        assertFalse(hb.shouldPing());
+        now = 120;
+        assertEquals(120, hb.onPong());
+        assertEquals(120, hb.getSmoothedRttMs());
+        assertTrue(hb.shouldPing());
+    }
+
+    @Test
+    public void testUnsolicitedPongHasNoRoundTrip() {
+        assertEquals(-1, heartbeat().onPong());
+    }
+
+    @Test
+    public void testSilentPeerIsDeadAfterTimeout() {
+        Heartbeat hb = heartbeat();
+        hb.onPingSent();
+        now = 100;
+        hb.onPong(); // backend answers pings
+
+        hb.onPingSent();
+        now = 15100;
+        assertFalse(hb.isPeerDead());
+        now = 15101;
+        assertTrue(hb.isPeerDead());
+    }
+
+    @Test
+    public void testResultsKeepPeerAlive() {
+        Heartbeat hb = heartbeat();
+        hb.onPingSent();
+        hb.onPong();
+
+        hb.onPingSent();
+        now = 14000;
+        hb.onMessage();
+        now = 20000;
+        assertFalse(hb.isPeerDead());
+    }
+
+    @Test
+    public void testLostPongIsRetried() {
+        Heartbeat hb = heartbeat();
+        hb.onPingSent();
+        now = 15001;
+        assertTrue(hb.shouldPing());
+    }
+
+    @Test
+    public void testBackendWithoutPongsIsNeverJudged() {
+        Heartbeat hb = heartbeat();
+        hb.onPingSent();
+        now = 60000;
+        assertFalse(hb.isPeerDead());
+    }
+
+    @Test
+    public void testResetClearsOutstandingPing() {
+        Heartbeat hb = heartbeat();
+        hb.onPingSent();
+        hb.onPong();
+        hb.onPingSent();
+        now = 20000;
+        hb.reset();
+        assertTrue(hb.shouldPing());
+        assertFalse(hb.isPeerDead());
+    }
+
+    @Test
+    public void testPongRecognized() {
+        assertTrue(Heartbeat.isPong("pong"));
+        assertTrue(Heartbeat.isPong("{\"type\":\"pong\"}"));
+        assertTrue(Heartbeat.isPong("{\"type\": \"pong\", \"ts\": 12}"));
+        assertFalse(Heartbeat.isPong("{\"type\":\"hello_ack\",\"frame_protocol\":\"binary-v1\"}"));
+        assertFalse(Heartbeat.isPong("{\"type\":\"text\",\"text\":\"pong\"}"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InFlightWindowTest {
+
+    @Test
+    public void testStartsWithOneRequest() {
+        InFlightWindow window = new InFlightWindow(4, 200);
+        assertTrue(window.hasCapacity());
+        window.onSent();
+        assertFalse(window.hasCapacity());
+    }
+
+    @Test
+    public void testGrowsToCoverLatency() {
+        // 600ms round trips at one frame per 200ms need 3 requests in flight
+        InFlightWindow window = new InFlightWindow(4, 200);
+        for (int id = 1; id <= 10; id++) {
+            window.onSent();
+            window.onResponse(id, 600);
+        }
+        assertEquals(3, window.getLimit());
+    }
+
+    @Test
+    public void testCappedAtMaxSize() {
+        InFlightWindow window = new InFlightWindow(2, 100);
+        for (int id = 1; id <= 10; id++) {
+            window.onSent();
+            window.onResponse(id, 1000);
+        }
+        assertEquals(2, window.getLimit());
+    }
+
+    @Test
+    public void testShrinksWhenRequestsQueue() {
+        InFlightWindow window = new InFlightWindow(4, 200);
+        for (int id = 1; id <= 10; id++) {
+            window.onSent();
+            window.onResponse(id, 600);
+        }
+        int before = window.getLimit();
+        for (int id = 11; id <= 30; id++) {
+            window.onSent();
+            window.onResponse(id, 3000);
+        }
+        assertTrue(window.getLimit() < before);
+        assertEquals(1, window.getLimit());
+    }
+
+    @Test
+    public void testFailureResetsWindow() {
+        InFlightWindow window = new InFlightWindow(4, 200);
+        for (int id = 1; id <= 10; id++) {
+            window.onSent();
+            window.onResponse(id, 600);
+        }
+        window.onSent();
+        window.onFailure();
+        assertEquals(1, window.getLimit());
+        assertEquals(0, window.getInFlight());
+    }
+
+    @Test
+    public void testResetForgetsOutstandingRequests() {
+        InFlightWindow window = new InFlightWindow(4, 200);
+        window.onSent();
+        window.reset();
+        assertTrue(window.hasCapacity());
+        assertEquals(0, window.getInFlight());
+    }
+
+    @Test
+    public void testDropsStaleResponses() {
+        InFlightWindow window = new InFlightWindow(4, 200);
+        window.onSent();
+        window.onSent();
+        window.onSent();
+        assertTrue(window.onResponse(2, 300));
+        assertFalse(window.onResponse(1, 400));   // older than frame 2, already drawn
+        assertTrue(window.onResponse(3, 300));
+        assertEquals(0, window.getInFlight());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LogMelSpectrogramTest {
+
+    private static final int MELS = 40;
+
+    /** Push {@code n} samples of a sine and return the number of frames produced. */
+    private static int pushTone(LogMelSpectrogram mel, double hz, double amplitude, int n) {
+        int frames = 0;
+        for (int i = 0; i < n; i++) {
+            if (mel.push((float) (amplitude * Math.sin(2 * Math.PI * hz * i / LogMelSpectrogram.SAMPLE_RATE)))) {
+                frames++;
+            }
+        }
+        return frames;
+    }
+
+    private static int argMax(float[] v) {
+        int best = 0;
+        for (int i = 1; i < v.length; i++) if (v[i] > v[best]) best = i;
+        return best;
+    }
+
+    @Test
+    public void testFrameEveryHopAfterFirstWindow() {
+        LogMelSpectrogram mel = new LogMelSpectrogram(MELS);
+        for (int i = 0; i < LogMelSpectrogram.WINDOW - 1; i++) assertFalse(mel.push(0f));
+        assertTrue(mel.push(0f));
+        for (int i = 0; i < LogMelSpectrogram.HOP - 1; i++) assertFalse(mel.push(0f));
+        assertTrue(mel.push(0f));
+    }
+
+    @Test
+    public void testToneLandsInItsBand() {
+        LogMelSpectrogram low = new LogMelSpectrogram(MELS);
+        LogMelSpectrogram high = new LogMelSpectrogram(MELS);
+        pushTone(low, 500, 0.5, 1600);
+        pushTone(high, 3000, 0.5, 1600);
+        int lowBand = argMax(low.frame());
+        int highBand = argMax(high.frame());
+        assertTrue(lowBand < highBand);
+        // Well above the bands far from the tone
+        assertTrue(low.frame()[lowBand] - low.frame()[MELS - 1] > 5f);
+    }
+
+    @Test
+    public void testSilenceIsAtTheFloor() {
+        LogMelSpectrogram mel = new LogMelSpectrogram(MELS);
+        pushTone(mel, 1000, 0.0, 800);
+        for (float v : mel.frame()) assertEquals(Math.log(1e-6), v, 1e-3);
+    }
+
+    @Test
+    public void testDoublingAmplitudeAddsLogFour() {
+        LogMelSpectrogram quiet = new LogMelSpectrogram(MELS);
+        LogMelSpectrogram loud = new LogMelSpectrogram(MELS);
+        pushTone(quiet, 1000, 0.25, 1600);
+        pushTone(loud, 1000, 0.5, 1600);
+        int band = argMax(quiet.frame());
+        assertEquals(Math.log(4), loud.frame()[band] - quiet.frame()[band], 1e-3);
+    }
+}
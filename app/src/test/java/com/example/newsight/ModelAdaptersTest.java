@@ -0,0 +1,135 @@
+package com.example.newsight;
+
+import com.example.newsight.models.DirectionsResponse;
+import com.example.newsight.models.ModelAdapters;
+import com.example.newsight.models.NavigationStep;
+import com.example.newsight.models.NavigationUpdate;
+import com.example.newsight.models.NavigationUpdateAdapter;
+import com.example.newsight.models.TransitInfo;
+import com.example.newsight.models.TransitLeg;
+import com.example.newsight.models.VoiceResponse;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ModelAdaptersTest {
+
+    /** Backend payloads recorded from /voice/transcribe and /navigation/ws, in test resources. */
+    static String payload(String name) throws IOException {
+        try (InputStream in = ModelAdaptersTest.class.getClassLoader().getResourceAsStream("payloads/" + name)) {
+            if (in == null) throw new IOException("Missing payload " + name);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testWalkingResponseDecodes() throws Exception {
+        VoiceResponse r = ModelAdapters.VOICE_RESPONSE.fromJson(payload("voice_walking.json"));
+        assertEquals(0.94, r.getConfidence(), 1e-9);
+        assertEquals("Starting walking directions to Central Public Library. It is 0.8 miles, about 17 minutes.",
+                r.getTtsOutput().getMessage());
+
+        VoiceResponse.ExtractedParams p = r.getExtractedParams();
+        assertEquals("NAVIGATION", p.getFeature());
+        assertFalse(p.isTransitNavigation());
+        assertNull(p.getTransitInfo());
+
+        DirectionsResponse d = p.getDirections();
+        assertEquals(1287, d.getTotalDistanceMeters());
+        assertEquals(40.4406, d.getOrigin().getLat(), 1e-9);
+        assertEquals(5, d.getSteps().size());
+        NavigationStep step = d.getSteps().get(1);
+        assertEquals("Turn right onto 5th Ave", step.getInstruction());
+        assertEquals(360, step.getDurationSeconds());
+        assertEquals(-79.9902, step.getEndLocation().getLng(), 1e-9);
+    }
+
+    @Test
+    public void testTransitResponseDecodes() throws Exception {
+        VoiceResponse.ExtractedParams p =
+                ModelAdapters.VOICE_RESPONSE.fromJson(payload("voice_transit.json")).getExtractedParams();
+        assertTrue(p.isTransitNavigation());
+        assertTrue(p.isTransitNavigationFlag());
+        assertEquals("Forbes Ave & Murray Ave", p.getNearestStop().getName());
+        assertEquals(290, p.getNearestStop().getDistanceM());
+
+        TransitInfo info = p.getTransitInfo();
+        assertEquals(Integer.valueOf(58), info.getBestOption().getDurationMin());
+        assertEquals(Long.valueOf(1760803200L), info.getBestOption().getStartTime());
+        assertEquals(4, info.getBestOption().getLegs().size());
+
+        TransitLeg walk = info.getBestOption().getLegs().get(0);
+        assertTrue(walk.isWalk());
+        assertNull(walk.getModeName());
+        assertNull(walk.getDepartureTime());
+
+        TransitLeg bus = info.getBestOption().getLegs().get(1);
+        assertEquals("61C", bus.getRouteShortName());
+        assertEquals("delayed", bus.getDepartureStatus().getStatus());
+        assertEquals(Integer.valueOf(3), bus.getDepartureStatus().getDelayMin());
+        assertEquals(Long.valueOf(1760803620L), bus.getDepartureTime());
+
+        assertEquals(Integer.valueOf(3), info.getAlerts().get(0).getDelayMinutes());
+        assertEquals("Pittsburgh International Airport", info.getDestination().get("text"));
+        assertEquals(40.4915, (Double) info.getDestination().get("lat"), 1e-9);
+    }
+
+    @Test
+    public void testMatchesReflectiveGson() throws Exception {
+        String json = payload("voice_transit.json");
+        Gson reflective = new Gson();
+        VoiceResponse expected = reflective.fromJson(json, VoiceResponse.class);
+        VoiceResponse actual = ModelAdapters.VOICE_RESPONSE.fromJson(json);
+
+        // Serializing both through the same reflective Gson compares every field at once
+        assertEquals(reflective.toJson(expected), reflective.toJson(actual));
+    }
+
+    @Test
+    public void testRoundTrips() throws Exception {
+        VoiceResponse r = ModelAdapters.VOICE_RESPONSE.fromJson(payload("voice_transit.json"));
+        String json = ModelAdapters.VOICE_RESPONSE.toJson(r);
+        Gson reflective = new Gson();
+        assertEquals(reflective.toJson(r), reflective.toJson(ModelAdapters.VOICE_RESPONSE.fromJson(json)));
+    }
+
+    @Test
+    public void testUnknownKeysAndNullsAreSkipped() throws Exception {
+        DirectionsResponse d = ModelAdapters.DIRECTIONS.fromJson(
+                "{\"status\":\"success\",\"steps\":null,\"total_distance_meters\":null,"
+                        + "\"polyline\":{\"points\":\"a~l~Fjk~uOwHJy@P\"},\"origin\":{\"lat\":1.5,\"alt\":9}}");
+        assertEquals("success", d.getStatus());
+        assertNull(d.getSteps());
+        assertEquals(0, d.getTotalDistanceMeters());
+        assertEquals(1.5, d.getOrigin().getLat(), 0.0);
+        assertNull(ModelAdapters.DIRECTIONS.fromJson("null"));
+    }
+
+    @Test
+    public void testSharedGsonUsesAdapters() throws Exception {
+        Gson gson = ModelAdapters.gson();
+        assertSame(ModelAdapters.DIRECTIONS, gson.getAdapter(DirectionsResponse.class));
+        assertSame(ModelAdapters.VOICE_RESPONSE, gson.getAdapter(VoiceResponse.class));
+        assertSame(NavigationUpdateAdapter.INSTANCE, gson.getAdapter(NavigationUpdate.class));
+
+        NavigationUpdate update = gson.fromJson(payload("navigation_update.json"), NavigationUpdate.class);
+        assertNotNull(update);
+        assertEquals(37.4, update.getDistanceToNext(), 1e-9);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.newsight;
+
+import com.example.newsight.models.DirectionsResponse;
+import com.example.newsight.models.ModelAdapters;
+import com.example.newsight.models.NavigationUpdate;
+import com.example.newsight.models.NavigationUpdateAdapter;
+import com.example.newsight.models.TransitInfo;
+import com.example.newsight.models.TransitStop;
+import com.example.newsight.models.VoiceResponse;
+import com.google.gson.Gson;
+
+import org.json.JSONObject;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * JVM micro-benchmarks for model decoding, over the recorded backend payloads in test resources.
+ * "before" is the reflective path each call site used (a fresh Gson per helper or activity,
+ * and JSONObject -> toString() -> Gson per sub-object for auto-started navigation); "after"
+ * is the shared streaming adapters. Reports time and bytes allocated per parse.
+ *
+ * Runs under Robolectric only for the real org.json the old auto-start path needs.
+ *
+ * Skipped by default; run with:
+ *   ./gradlew :app:testDebugUnitTest --tests "*ModelParsingBenchmark" -Dnewsight.benchmarks=true
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ModelParsingBenchmark {
+
+    private static final int WARMUP_PARSES = 2000;
+    private static final int MEASURED_PARSES = 5000;
+
+    private String walking;
+    private String transit;
+    private String update;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("newsight.benchmarks"));
+        walking = ModelAdaptersTest.payload("voice_walking.json");
+        transit = ModelAdaptersTest.payload("voice_transit.json");
+        update = ModelAdaptersTest.payload("navigation_update.json");
+    }
+
+    @Test
+    public void benchmarkVoiceResponse() {
+        Gson reflective = new Gson();
+        for (String[] p : new String[][]{{"voice/walking", walking}, {"voice/transit", transit}}) {
+            String json = p[1];
+            Result before = measure(() -> reflective.fromJson(json, VoiceResponse.class));
+            Result after = measure(() -> ModelAdapters.VOICE_RESPONSE.fromJson(json));
+            report(p[0], before, after);
+        }
+    }
+
+    @Test
+    public void benchmarkNavigationUpdate() {
+        Gson reflective = new Gson();
+        Result before = measure(() -> reflective.fromJson(update, NavigationUpdate.class));
+        Result after = measure(() -> NavigationUpdateAdapter.INSTANCE.fromJson(update));
+        report("nav/update", before, after);
+    }
+
+    /** A helper or activity created, parsing its first message: the reflection caches are cold. */
+    @Test
+    public void benchmarkFirstParseWithNewGson() {
+        Result before = measure(() -> new Gson().fromJson(transit, VoiceResponse.class));
+        Result after = measure(() -> ModelAdapters.gson().fromJson(transit, VoiceResponse.class));
+        report("voice/new-gson", before, after);
+    }
+
+    /** NavigateActivity.checkForAutoStartNavigation, given HomeActivity's extracted_params. */
+    @Test
+    public void benchmarkAutoStartNavigation() throws Exception {
+        String extracted = new JSONObject(transit).getJSONObject("extracted_params").toString();
+        Gson reflective = new Gson();
+
+        Result before = measure(() -> {
+            JSONObject navData = new JSONObject(extracted);
+            DirectionsResponse d = reflective.fromJson(
+                    navData.getJSONObject("directions").toString(), DirectionsResponse.class);
+            reflective.fromJson(navData.getJSONObject("transit_info").toString(), TransitInfo.class);
+            reflective.fromJson(navData.getJSONObject("nearest_stop").toString(), TransitStop.class);
+            return d;
+        });
+        Result after = measure(() -> ModelAdapters.EXTRACTED_PARAMS.fromJson(extracted).getDirections());
+        report("nav/auto-start", before, after);
+    }
+
+    // ---------- Harness ----------
+
+    static class Result {
+        final long nsPerParse;
+        final long bytesPerParse;
+
+        Result(long nsPerParse, long bytesPerParse) {
+            this.nsPerParse = nsPerParse;
+            this.bytesPerParse = bytesPerParse;
+        }
+    }
+
+    private static Result measure(Callable<Object> parse) {
+        try {
+            Object sink = null;
+            for (int i = 0; i < WARMUP_PARSES; i++) sink = parse.call();
+            long bytesStart = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_PARSES; i++) sink = parse.call();
+            long ns = (System.nanoTime() - start) / MEASURED_PARSES;
+            long bytes = (allocatedBytes() - bytesStart) / MEASURED_PARSES;
+            assertNotNull(sink);
+            return new Result(ns, bytes);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** Bytes allocated so far by this thread, or -1 when the JVM can't tell. */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void report(String name, Result before, Result after) {
+        System.out.println(String.format(Locale.US,
+                "%-15s before: %,9d ns %,9d B/parse  after: %,9d ns %,9d B/parse  (%.1fx faster, %.1fx less garbage)",
+                name, before.nsPerParse, before.bytesPerParse, after.nsPerParse, after.bytesPerParse,
+                before.nsPerParse / (double) Math.max(1, after.nsPerParse),
+                before.bytesPerParse / (double) Math.max(1, after.bytesPerParse)));
+    }
+}
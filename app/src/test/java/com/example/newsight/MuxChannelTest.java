@@ -0,0 +1,63 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MuxChannelTest {
+
+    @Test
+    public void testEnvelopeRoundTrip() {
+        String data = "{\"latitude\":39.98,\"longitude\":-75.15,\"session_id\":\"abc\"}";
+        MuxChannel.Envelope env = MuxChannel.parseEnvelope(
+                MuxChannel.envelope(MuxChannel.TOPIC_LOCATION, data));
+        assertNotNull(env);
+        assertEquals(MuxChannel.TOPIC_LOCATION, env.topic);
+        assertEquals(data, env.data);
+    }
+
+    @Test
+    public void testEnvelopeWithOtherFieldOrderIsParsed() {
+        MuxChannel.Envelope env = MuxChannel.parseEnvelope(
+                "{ \"data\": {\"status\":\"arrived\"}, \"topic\": \"navigation\" }");
+        assertNotNull(env);
+        assertEquals(MuxChannel.TOPIC_NAVIGATION, env.topic);
+        assertEquals("{\"status\":\"arrived\"}", env.data);
+    }
+
+    @Test
+    public void testControlMessagesAreNotEnvelopes() {
+        assertNull(MuxChannel.parseEnvelope("{\"type\":\"subscribed\",\"topic\":\"location\"}"));
+        assertNull(MuxChannel.parseEnvelope("pong"));
+    }
+
+    @Test
+    public void testMuxUrlKeepsOnlyHost() {
+        assertEquals("wss://backend.example.com/mux/ws",
+                MuxChannel.muxUrl("wss://backend.example.com/location/ws"));
+        assertEquals("ws://100.19.30.133:8000/mux/ws",
+                MuxChannel.muxUrl("ws://100.19.30.133:8000/ws/verify"));
+        assertEquals("ws://100.19.30.133/mux/ws", MuxChannel.muxUrl("ws://100.19.30.133"));
+    }
+
+    @Test
+    public void testClientTopicsKeepTheEndpointPath() {
+        assertEquals("frames:/ws/verify#2",
+                MuxChannel.clientTopic(MuxChannel.TOPIC_FRAMES, "ws://100.19.30.133:8000/ws/verify", 2));
+        assertEquals("results:/ws/read-text#3",
+                MuxChannel.clientTopic(MuxChannel.TOPIC_RESULTS, "wss://backend.example.com/ws/read-text", 3));
+        assertEquals("results:/#1", MuxChannel.clientTopic(MuxChannel.TOPIC_RESULTS, "ws://100.19.30.133", 1));
+    }
+
+    @Test
+    public void testOnlyAMissingEndpointIsPermanent() {
+        assertTrue(NetworkClient.isMissingEndpoint(404));
+        assertTrue(NetworkClient.isMissingEndpoint(426));
+        assertFalse(NetworkClient.isMissingEndpoint(502));
+        assertFalse(NetworkClient.isMissingEndpoint(503));
+    }
+}
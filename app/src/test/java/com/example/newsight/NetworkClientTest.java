@@ -0,0 +1,82 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.Dns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class NetworkClientTest {
+
+    private long now = 0L;
+    private int lookups = 0;
+    private boolean resolverDown = false;
+
+    private final Dns resolver = hostname -> {
+        lookups++;
+        if (resolverDown) throw new UnknownHostException(hostname);
+        return Collections.singletonList(InetAddress.getByAddress(hostname, new byte[]{10, 0, 0, 1}));
+    };
+
+    private NetworkClient.CachingDns dns() {
+        return new NetworkClient.CachingDns(resolver, 1000, () -> now);
+    }
+
+    @Test
+    public void testDnsAnswerCachedWithinTtl() throws Exception {
+        NetworkClient.CachingDns dns = dns();
+        List<InetAddress> first = dns.lookup("backend.example.com");
+        now = 999;
+        assertSame(first, dns.lookup("backend.example.com"));
+        assertEquals(1, lookups);
+    }
+
+    @Test
+    public void testDnsRefreshedAfterTtl() throws Exception {
+        NetworkClient.CachingDns dns = dns();
+        dns.lookup("backend.example.com");
+        now = 1000;
+        dns.lookup("backend.example.com");
+        assertEquals(2, lookups);
+    }
+
+    @Test
+    public void testStaleDnsAnswerServedWhenRefreshFails() throws Exception {
+        NetworkClient.CachingDns dns = dns();
+        List<InetAddress> first = dns.lookup("backend.example.com");
+        now = 5000;
+        resolverDown = true;
+        assertSame(first, dns.lookup("backend.example.com"));
+    }
+
+    @Test
+    public void testUnknownHostStillFails() {
+        resolverDown = true;
+        try {
+            dns().lookup("backend.example.com");
+            fail("Expected UnknownHostException");
+        } catch (UnknownHostException expected) {
+            // no cached answer to fall back on
+        }
+    }
+
+    @Test
+    public void testMetricsAverageNewConnections() {
+        NetworkClient.Metrics m = new NetworkClient.Metrics();
+        m.onNewConnection(300, 200);
+        m.onNewConnection(100, 0);
+        m.onReusedConnection();
+        assertEquals(2, m.getNewConnections());
+        assertEquals(1, m.getReusedConnections());
+        assertEquals(200, m.getAvgConnectMs());
+        assertEquals(100, m.getAvgTlsMs());
+        assertEquals(100, m.getLastConnectMs());
+    }
+}
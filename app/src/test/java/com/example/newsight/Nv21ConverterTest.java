@@ -0,0 +1,207 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Nv21ConverterTest {
+
+    private static final int W = 8;
+    private static final int H = 6;
+
+    @Test
+    public void testPlanarPaddedRows() {
+        int yStride = W + 4;
+        int uvStride = W / 2 + 3;
+        ByteBuffer y = ByteBuffer.allocateDirect(yStride * H);
+        ByteBuffer u = ByteBuffer.allocateDirect(uvStride * H / 2);
+        ByteBuffer v = ByteBuffer.allocateDirect(uvStride * H / 2);
+        fillPlanes(y, yStride, u, v, uvStride, 1);
+
+        byte[] out = new byte[Nv21Converter.nv21Size(W, H)];
+        new Nv21Converter().convert(y, yStride, u, v, uvStride, 1, W, H, out);
+
+        assertArrayEquals(expectedNv21(), out);
+    }
+
+    @Test
+    public void testSemiPlanarNotAliased() {
+        int uvStride = W + 2;
+        ByteBuffer y = ByteBuffer.allocateDirect(W * H);
+        ByteBuffer u = ByteBuffer.allocateDirect(uvStride * (H / 2 - 1) + W - 1);
+        ByteBuffer v = ByteBuffer.allocateDirect(uvStride * (H / 2 - 1) + W - 1);
+        fillPlanes(y, W, u, v, uvStride, 2);
+
+        assertFalse(Nv21Converter.isInterleavedNv21(u, v, W / 2, H / 2, uvStride));
+
+        byte[] out = new byte[Nv21Converter.nv21Size(W, H)];
+        new Nv21Converter().convert(y, W, u, v, uvStride, 2, W, H, out);
+
+        assertArrayEquals(expectedNv21(), out);
+    }
+
+    @Test
+    public void testInterleavedNv21FastPath() {
+        for (int uvStride : new int[]{W, W + 6}) {
+            ByteBuffer y = ByteBuffer.allocateDirect(W * H);
+            ByteBuffer vu = ByteBuffer.allocateDirect(uvStride * (H / 2 - 1) + W);
+            for (int i = 0; i < W * H; i++) y.put(i, lumaAt(i % W, i / W));
+            for (int row = 0; row < H / 2; row++) {
+                for (int col = 0; col < W / 2; col++) {
+                    vu.put(row * uvStride + 2 * col, vAt(col, row));
+                    vu.put(row * uvStride + 2 * col + 1, uAt(col, row));
+                }
+            }
+            // V plane starts at offset 0, U plane one byte later, sharing memory like the camera HAL
+            vu.position(0).limit(vu.capacity() - 1);
+            ByteBuffer v = vu.slice();
+            vu.clear().position(1);
+            ByteBuffer u = vu.slice();
+
+            assertTrue(Nv21Converter.isInterleavedNv21(u, v, W / 2, H / 2, uvStride));
+
+            byte[] out = new byte[Nv21Converter.nv21Size(W, H)];
+            new Nv21Converter().convert(y, W, u, v, uvStride, 2, W, H, out);
+
+            assertArrayEquals(expectedNv21(), out);
+        }
+    }
+
+    @Test
+    public void testNv12OrderIsNotTakenForNv21() {
+        // UVUV... in one buffer, U plane first; grey chroma where U0 + U1 == 255
+        ByteBuffer y = ByteBuffer.allocateDirect(W * H);
+        ByteBuffer uv = ByteBuffer.allocateDirect(W * H / 2);
+        byte[] expected = new byte[Nv21Converter.nv21Size(W, H)];
+        for (int i = 0; i < W * H / 4; i++) {
+            byte u = (byte) (i % 2 == 0 ? 127 : 128);
+            byte v = (byte) (126 + i % 3);
+            uv.put(2 * i, u);
+            uv.put(2 * i + 1, v);
+            expected[W * H + 2 * i] = v;
+            expected[W * H + 2 * i + 1] = u;
+        }
+        uv.position(0).limit(uv.capacity() - 1);
+        ByteBuffer u = uv.slice();
+        uv.clear().position(1);
+        ByteBuffer v = uv.slice();
+
+        assertFalse(Nv21Converter.isInterleavedNv21(u, v, W / 2, H / 2, W));
+        // The probe leaves the camera's data as it was
+        assertEquals((byte) 128, u.get(2));
+
+        byte[] out = new byte[Nv21Converter.nv21Size(W, H)];
+        new Nv21Converter().convert(y, W, u, v, W, 2, W, H, out);
+        assertArrayEquals(expected, out);
+    }
+
+    @Test
+    public void testRotateMatchesPixelMapping() {
+        byte[] src = expectedNv21();
+        byte[] dst = new byte[src.length];
+
+        for (int degrees : new int[]{0, 90, 180, 270}) {
+            Nv21Converter.rotate(src, W, H, degrees, dst);
+
+            boolean swapped = degrees == 90 || degrees == 270;
+            int outW = swapped ? H : W;
+            for (int y = 0; y < H; y++) {
+                for (int x = 0; x < W; x++) {
+                    int[] p = rotatePoint(x, y, W, H, degrees);
+                    assertEquals("Y " + degrees, lumaAt(x, y), dst[p[1] * outW + p[0]]);
+                }
+            }
+            for (int y = 0; y < H / 2; y++) {
+                for (int x = 0; x < W / 2; x++) {
+                    int[] p = rotatePoint(x, y, W / 2, H / 2, degrees);
+                    int d = W * H + p[1] * outW + 2 * p[0];
+                    assertEquals("V " + degrees, vAt(x, y), dst[d]);
+                    assertEquals("U " + degrees, uAt(x, y), dst[d + 1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testScaleHalvesFrame() {
+        byte[] src = expectedNv21();
+        byte[] dst = new byte[Nv21Converter.nv21Size(W / 2, 2)];
+        new Nv21Converter().scale(src, W, H, dst, W / 2, 2);
+
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < W / 2; x++) {
+                assertEquals(lumaAt(x * 2, y * H / 2), dst[y * (W / 2) + x]);
+            }
+        }
+        int uv = (W / 2) * 2;
+        for (int x = 0; x < W / 4; x++) {
+            assertEquals(vAt(x * 2, 0), dst[uv + 2 * x]);
+            assertEquals(uAt(x * 2, 0), dst[uv + 2 * x + 1]);
+        }
+    }
+
+    @Test
+    public void testConvertScaledMatchesConvertThenScale() {
+        int uvStride = W / 2 + 3;
+        ByteBuffer y = ByteBuffer.allocateDirect((W + 4) * H);
+        ByteBuffer u = ByteBuffer.allocateDirect(uvStride * H / 2);
+        ByteBuffer v = ByteBuffer.allocateDirect(uvStride * H / 2);
+        fillPlanes(y, W + 4, u, v, uvStride, 1);
+
+        Nv21Converter converter = new Nv21Converter();
+        byte[] full = new byte[Nv21Converter.nv21Size(W, H)];
+        converter.convert(y, W + 4, u, v, uvStride, 1, W, H, full);
+        byte[] expected = new byte[Nv21Converter.nv21Size(W / 2, 4)];
+        converter.scale(full, W, H, expected, W / 2, 4);
+
+        byte[] out = new byte[expected.length];
+        converter.convertScaled(y, W + 4, u, v, uvStride, 1, W, H, out, W / 2, 4);
+
+        assertArrayEquals(expected, out);
+    }
+
+    /** Where (x, y) of a w x h image lands after a clockwise rotation. */
+    private static int[] rotatePoint(int x, int y, int w, int h, int degrees) {
+        switch (degrees) {
+            case 90: return new int[]{h - 1 - y, x};
+            case 180: return new int[]{w - 1 - x, h - 1 - y};
+            case 270: return new int[]{y, w - 1 - x};
+            default: return new int[]{x, y};
+        }
+    }
+
+    private static void fillPlanes(ByteBuffer y, int yStride, ByteBuffer u, ByteBuffer v,
+                                   int uvStride, int pixelStride) {
+        for (int row = 0; row < H; row++) {
+            for (int col = 0; col < W; col++) y.put(row * yStride + col, lumaAt(col, row));
+        }
+        for (int row = 0; row < H / 2; row++) {
+            for (int col = 0; col < W / 2; col++) {
+                u.put(row * uvStride + col * pixelStride, uAt(col, row));
+                v.put(row * uvStride + col * pixelStride, vAt(col, row));
+            }
+        }
+    }
+
+    private static byte[] expectedNv21() {
+        byte[] out = new byte[Nv21Converter.nv21Size(W, H)];
+        for (int i = 0; i < W * H; i++) out[i] = lumaAt(i % W, i / W);
+        int pos = W * H;
+        for (int row = 0; row < H / 2; row++) {
+            for (int col = 0; col < W / 2; col++) {
+                out[pos++] = vAt(col, row);
+                out[pos++] = uAt(col, row);
+            }
+        }
+        return out;
+    }
+
+    private static byte lumaAt(int x, int y) { return (byte) (y * 16 + x); }
+    private static byte uAt(int x, int y) { return (byte) (100 + y * 8 + x); }
+    private static byte vAt(int x, int y) { return (byte) (200 + y * 8 + x); }
+}
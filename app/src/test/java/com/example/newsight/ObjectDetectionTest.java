@@ -1,14 +1,22 @@
 package com.example.newsight;
 
 import android.content.Intent;
+import android.graphics.RectF;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
+import org.tensorflow.lite.support.label.Category;
+import org.tensorflow.lite.task.vision.detector.Detection;
+
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
 @org.robolectric.annotation.Config(sdk = 33)
@@ -46,4 +54,82 @@ public class ObjectDetectionTest {
                 
         assertNotNull(activity);
     }
+
+    @Test
+    public void testLocalDetectionsMapToBackendShape() {
+        Detection detection = Detection.create(new RectF(0f, 120f, 160f, 480f),
+                Collections.singletonList(Category.create("chair", "chair", 0.8f)));
+
+        List<CloudDetectionModels.BackendDetection> results =
+                DetectorProcessor.toBackendDetections(Collections.singletonList(detection), 640, 480, 0);
+
+        assertEquals(1, results.size());
+        CloudDetectionModels.BackendDetection d = results.get(0);
+        assertEquals("chair", d.cls);
+        assertEquals(0.8f, d.confidence, 0.001);
+        assertEquals(0.25f, d.bbox.x_max, 0.001);
+        assertEquals(0.25f, d.bbox.y_min, 0.001);
+        assertEquals("left", d.direction);
+        assertEquals("chair on your left", DetectorProcessor.summarize(results));
+    }
+
+    @Test
+    public void testLocalBoxesRotatedUpright() {
+        // Box in the top-left corner of a sensor-oriented frame...
+        CloudDetectionModels.BBox b = DetectorProcessor.uprightBox(0f, 0f, 0.25f, 0.5f, 90);
+        // ...ends up in the top-right corner once turned 90 degrees clockwise
+        assertEquals(0.5f, b.x_min, 0.001);
+        assertEquals(0f, b.y_min, 0.001);
+        assertEquals(1f, b.x_max, 0.001);
+        assertEquals(0.25f, b.y_max, 0.001);
+
+        b = DetectorProcessor.uprightBox(0f, 0f, 0.25f, 0.5f, 270);
+        assertEquals(0f, b.x_min, 0.001);
+        assertEquals(0.75f, b.y_min, 0.001);
+        assertEquals(0.5f, b.x_max, 0.001);
+        assertEquals(1f, b.y_max, 0.001);
+    }
+
+    /** A healthy cloud: answered 100ms ago, nothing waiting, nothing lost. */
+    private static boolean useCloud(boolean usingCloud, boolean channelUp, long rttMs) {
+        return HybridDetectorProcessor.shouldUseCloud(usingCloud, channelUp, rttMs, 0, 100, 0);
+    }
+
+    @Test
+    public void testHybridDetectorSwitchesWithHysteresis() {
+        // Channel down: always on-device
+        assertFalse(useCloud(true, false, 100));
+        // Cloud stays in use until it gets slow
+        assertTrue(useCloud(true, true, 900));
+        assertFalse(useCloud(true, true, 1500));
+        // ...and is only taken back once it is well under the threshold
+        assertFalse(useCloud(false, true, 900));
+        assertTrue(useCloud(false, true, 400));
+    }
+
+    @Test
+    public void testHybridDetectorStaysOnDeviceUntilTheCloudAnswers() {
+        // Channel up but no response yet: an RTT of 0 is not "fast"
+        assertFalse(HybridDetectorProcessor.shouldUseCloud(false, true, 0, 0, Long.MAX_VALUE, 0));
+        assertFalse(HybridDetectorProcessor.shouldUseCloud(true, true, 0, 0, Long.MAX_VALUE, 0));
+        // Frames sent, none answered yet
+        assertFalse(HybridDetectorProcessor.shouldUseCloud(false, true, 0, 800, Long.MAX_VALUE, 0));
+        // First quick answer
+        assertTrue(HybridDetectorProcessor.shouldUseCloud(false, true, 300, 0, 50, 0));
+    }
+
+    @Test
+    public void testHybridDetectorLeavesTheCloudWhenFramesTimeOut() {
+        // Last measured RTT was fast, but the backend stopped answering: frames pile up unanswered
+        assertTrue(HybridDetectorProcessor.shouldUseCloud(true, true, 300, 900, 900, 0));
+        assertFalse(HybridDetectorProcessor.shouldUseCloud(true, true, 300, 1200, 1200, 0));
+        // ...and nothing at all has come back for a while
+        assertFalse(HybridDetectorProcessor.shouldUseCloud(true, true, 300, 0,
+                HybridDetectorProcessor.MAX_SILENCE_MS + 1, 0));
+        // Every frame fails right away (nothing left pending, RTT unchanged)
+        assertFalse(HybridDetectorProcessor.shouldUseCloud(true, true, 300, 0, 500,
+                HybridDetectorProcessor.MAX_FAILURES));
+        // A probe answered, but one was lost since: not back yet
+        assertFalse(HybridDetectorProcessor.shouldUseCloud(false, true, 300, 0, 500, 1));
+    }
 }
@@ -0,0 +1,138 @@
+package com.example.newsight;
+
+import android.graphics.RectF;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ObjectTrackerTest {
+
+    private ObjectTracker tracker;
+    private long now = 0;
+
+    @Before
+    public void setUp() {
+        tracker = new ObjectTracker();
+    }
+
+    private static CloudDetectionModels.BackendDetection detection(String cls, float left, float top, float right, float bottom) {
+        CloudDetectionModels.BackendDetection d = new CloudDetectionModels.BackendDetection();
+        d.cls = cls;
+        d.confidence = 0.8f;
+        d.bbox = new CloudDetectionModels.BBox();
+        d.bbox.x_min = left;
+        d.bbox.y_min = top;
+        d.bbox.x_max = right;
+        d.bbox.y_max = bottom;
+        return d;
+    }
+
+    private void update(CloudDetectionModels.BackendDetection... detections) {
+        List<CloudDetectionModels.BackendDetection> list = new ArrayList<>();
+        for (CloudDetectionModels.BackendDetection d : detections) list.add(d);
+        tracker.update(list, now);
+        now += 200; // backend pace
+    }
+
+    private ObjectTracker.Track track(String label) {
+        for (int i = 0; i < tracker.size(); i++) {
+            if (label.equals(tracker.get(i).getLabel())) return tracker.get(i);
+        }
+        throw new AssertionError("no " + label + " track");
+    }
+
+    @Test
+    public void testIdsSurviveDetectionsAppearingAndReordering() {
+        update(detection("person", 0.1f, 0.2f, 0.3f, 0.8f), detection("car", 0.6f, 0.4f, 0.9f, 0.7f));
+        int person = track("person").getId();
+        int car = track("car").getId();
+        assertNotEquals(person, car);
+
+        // Different count and order: index pairing would have smoothed the person into the bike
+        update(detection("bike", 0.4f, 0.5f, 0.5f, 0.7f),
+                detection("car", 0.61f, 0.4f, 0.91f, 0.7f),
+                detection("person", 0.11f, 0.2f, 0.31f, 0.8f));
+        assertEquals(person, track("person").getId());
+        assertEquals(car, track("car").getId());
+        assertTrue(track("person").isConfirmed());
+        assertTrue(track("person").isNew());
+        assertFalse(track("bike").isConfirmed());
+
+        update(detection("car", 0.62f, 0.4f, 0.92f, 0.7f), detection("person", 0.12f, 0.2f, 0.32f, 0.8f));
+        assertFalse(track("person").isNew());
+        assertEquals(2, tracker.size()); // the unconfirmed bike was dropped on its first miss
+    }
+
+    @Test
+    public void testConfirmedTrackCoastsThroughMissesThenIsDropped() {
+        for (int i = 0; i < 3; i++) update(detection("chair", 0.4f, 0.4f, 0.6f, 0.6f));
+        int id = track("chair").getId();
+
+        update();
+        assertEquals(id, track("chair").getId());
+        assertFalse(track("chair").isMatched());
+
+        for (int i = 0; i < ObjectTracker.MAX_MISSES; i++) update();
+        assertEquals(0, tracker.size());
+
+        update(detection("chair", 0.4f, 0.4f, 0.6f, 0.6f));
+        assertTrue(track("chair").getId() > id); // IDs are never reused
+    }
+
+    @Test
+    public void testKalmanSmoothsJitterAndLearnsVelocity() {
+        RectF box = new RectF();
+        RectF velocity = new RectF();
+        // Moving right at 0.1 frame/s with +-0.02 jitter
+        for (int i = 0; i < 20; i++) {
+            float x = 0.2f + 0.1f * now / 1000f + (i % 2 == 0 ? 0.02f : -0.02f);
+            update(detection("bus", x, 0.3f, x + 0.3f, 0.7f));
+        }
+        ObjectTracker.Track bus = track("bus");
+        bus.getBox(box);
+        bus.getVelocity(velocity);
+        float expected = 0.2f + 0.1f * (now - 200) / 1000f;
+        assertEquals(expected, box.left, 0.015f);
+        assertEquals(0.1f, velocity.left, 0.05f);
+        assertFalse(bus.isApproaching());
+    }
+
+    @Test
+    public void testGrowingBoxIsApproaching() {
+        update(detection("car", 0.45f, 0.45f, 0.55f, 0.55f));
+        update(detection("car", 0.43f, 0.43f, 0.57f, 0.57f));
+        // Announced as approaching right away
+        assertTrue(track("car").isNew());
+        assertTrue(track("car").isApproaching());
+
+        for (int i = 0; i < 5; i++) update(detection("sign", 0.1f, 0.1f, 0.2f, 0.3f));
+        assertFalse(track("sign").isApproaching());
+        boolean started = false;
+        for (int i = 1; i <= 5; i++) {
+            float grow = 0.02f * i;
+            update(detection("sign", 0.1f - grow, 0.1f - grow, 0.2f + grow, 0.3f + grow));
+            started |= track("sign").startedApproaching();
+        }
+        assertTrue(started);
+    }
+
+    @Test
+    public void testHungarianPicksTheCheapestAssignment() {
+        ObjectTracker.Hungarian hungarian = new ObjectTracker.Hungarian(3);
+        float[][] c = {{4, 1, 3}, {2, 0, 5}, {3, 2, 2}};
+        for (int i = 0; i < 3; i++) System.arraycopy(c[i], 0, hungarian.cost[i], 0, 3);
+        int[] a = hungarian.solve(3);
+        // Greedy would take (1,1)=0 first; optimal is 1 + 2 + 2 = 5
+        assertEquals(1, a[0]);
+        assertEquals(0, a[1]);
+        assertEquals(2, a[2]);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.newsight;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.SystemClock;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class OverlayViewTest {
+
+    private OverlayView view;
+    private CountingCanvas canvas;
+
+    /** Counts draw calls instead of rasterizing, so only OverlayView's own work is measured. */
+    private static class CountingCanvas extends Canvas {
+        int roundRects = 0;
+        final RectF firstRoundRect = new RectF();
+        final List<String> texts = new ArrayList<>();
+        boolean recordTexts = true;
+
+        @Override public void drawRect(RectF rect, Paint paint) {}
+        @Override public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+            if (roundRects++ == 0) firstRoundRect.set(rect);
+        }
+        @Override public void drawText(String text, float x, float y, Paint paint) {
+            if (recordTexts) texts.add(text);
+        }
+        @Override public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+            if (recordTexts) texts.add(new String(text, index, count));
+        }
+    }
+
+    private static CloudDetectionModels.BackendDetection detection(String cls, float confidence, float x) {
+        CloudDetectionModels.BackendDetection d = new CloudDetectionModels.BackendDetection();
+        d.cls = cls;
+        d.confidence = confidence;
+        d.bbox = new CloudDetectionModels.BBox();
+        d.bbox.x_min = x;
+        d.bbox.y_min = 0.3f;
+        d.bbox.x_max = x + 0.2f;
+        d.bbox.y_max = 0.6f;
+        return d;
+    }
+
+    @Before
+    public void setUp() {
+        view = new OverlayView(RuntimeEnvironment.getApplication());
+        view.layout(0, 0, 1080, 1920);
+        canvas = new CountingCanvas();
+    }
+
+    @Test
+    public void testDrawsTheLatestResults() {
+        List<CloudDetectionModels.BackendDetection> two = new ArrayList<>();
+        two.add(detection("person", 0.91f, 0.1f));
+        two.add(detection("car", 0.5f, 0.5f));
+        view.setBackendResults(two, 640, 480, "", 85, 12.34f);
+        view.onDraw(canvas);
+
+        assertEquals(2 * 2 + 1, canvas.roundRects); // box + label per detection, HUD
+        assertTrue(canvas.texts.contains("person"));
+        assertTrue(canvas.texts.contains(" 91%"));
+        assertTrue(canvas.texts.contains("FPS: 12.3   Latency: 85 ms"));
+
+        List<CloudDetectionModels.BackendDetection> one = new ArrayList<>();
+        one.add(detection("dog", 0.7f, 0.2f));
+        view.setBackendResults(one, 640, 480, "", 90, 11f);
+        canvas.roundRects = 0;
+        view.onDraw(canvas);
+        assertEquals(1 * 2 + 1, canvas.roundRects);
+
+        // Redraw without new results keeps the same frame
+        canvas.roundRects = 0;
+        view.onDraw(canvas);
+        assertEquals(1 * 2 + 1, canvas.roundRects);
+    }
+
+    @Test
+    public void testTracksAreAnnouncedOnce() {
+        List<String> spoken = new ArrayList<>();
+        view.setTtsHelper(new TtsHelper(RuntimeEnvironment.getApplication()) {
+            @Override
+            public void speak(String text) {
+                spoken.add(text);
+            }
+        });
+
+        for (int i = 0; i < 4; i++) {
+            List<CloudDetectionModels.BackendDetection> detections = new ArrayList<>();
+            detections.add(detection("person", 0.9f, 0.4f));
+            // Summary wording changes every frame; it is no longer re-read
+            view.setBackendResults(detections, 640, 480, "Person " + (3 - i) + " m ahead", 80, 15f);
+        }
+        assertEquals(1, spoken.size());
+        assertEquals("person ahead", spoken.get(0));
+
+        // Status messages with nothing tracked are still spoken once
+        for (int i = 0; i < 6; i++) {
+            view.setBackendResults(null, 640, 480, "Backend not reachable", 0, 0f);
+        }
+        assertEquals(2, spoken.size());
+        assertEquals("Backend not reachable", spoken.get(1));
+    }
+
+    @Test
+    public void testBoxesAreExtrapolatedToDisplayTime() {
+        // A person walking right at 0.2 frame widths per second, results 400ms old
+        long start = SystemClock.uptimeMillis() - 1300;
+        float x = 0f;
+        for (int i = 0; i < 10; i++) {
+            x = 0.1f + 0.02f * i;
+            List<CloudDetectionModels.BackendDetection> detections = new ArrayList<>();
+            detections.add(detection("person", 0.9f, x));
+            view.setBackendResults(detections, 640, 480, "", 400, 10f, start + 100 * i);
+        }
+        view.onDraw(canvas);
+
+        float scale = Math.min(1080f / 640, 1920f / 480);
+        float drawnLeft = canvas.firstRoundRect.left / (640 * scale);
+        // Drawn ahead of the last detection, by roughly 0.2/s * 400ms
+        assertTrue("drawn at " + drawnLeft, drawnLeft > x + 0.04f);
+        assertTrue("drawn at " + drawnLeft, drawnLeft < x + 0.12f);
+
+        // Results for an older frame than the last one do not move the track back
+        List<CloudDetectionModels.BackendDetection> stale = new ArrayList<>();
+        stale.add(detection("person", 0.9f, x));
+        view.setBackendResults(stale, 640, 480, "", 400, 10f, start);
+        canvas.roundRects = 0;
+        view.onDraw(canvas);
+        assertTrue(canvas.firstRoundRect.left / (640 * scale) > x);
+    }
+
+    @Test
+    public void testSteadyStateDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+
+        List<CloudDetectionModels.BackendDetection> detections = new ArrayList<>();
+        for (int i = 0; i < 8; i++) detections.add(detection(i % 2 == 0 ? "person" : "car", 0.6f, 0.1f * i));
+        canvas.recordTexts = false;
+
+        // Grow the pools and the label width cache
+        for (int i = 0; i < 100; i++) {
+            view.setBackendResults(detections, 640, 480, "Person ahead", 80, 15f);
+            view.onDraw(canvas);
+        }
+
+        int frames = 10000;
+        long before = allocations.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < frames; i++) {
+            view.setBackendResults(detections, 640, 480, "Person ahead", 80, 15f);
+            view.onDraw(canvas);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+
+        // The JIT allocates a little while compiling the loop; a single RectF per frame is 32 bytes/frame
+        assertTrue("allocated " + allocated + " bytes over " + frames + " frames", allocated / frames < 8);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class PcmRingBufferTest {
+
+    /** Produces an increasing ramp, like a recorder handing out consecutive samples. */
+    private static class Ramp implements PcmRingBuffer.Source {
+        short next = 0;
+        int calls = 0;
+
+        @Override
+        public int read(short[] buffer, int offset, int length) {
+            calls++;
+            for (int i = 0; i < length; i++) buffer[offset + i] = next++;
+            return length;
+        }
+    }
+
+    @Test
+    public void testFillWritesInPlaceAndStopsAtTheEnd() {
+        PcmRingBuffer ring = new PcmRingBuffer(10);
+        Ramp ramp = new Ramp();
+
+        assertEquals(6, ring.fill(ramp, 6));
+        int offset = ring.writeOffset();
+        // Only 4 slots before the end; the rest comes on the next fill, so each span is contiguous
+        assertEquals(4, ring.fill(ramp, 6));
+        for (int i = 0; i < 4; i++) assertEquals(6 + i, ring.array()[offset + i]);
+
+        assertEquals(0, ring.writeOffset());
+        assertEquals(6, ring.fill(ramp, 6));
+        assertEquals(16, ring.position());
+        assertEquals(10, ring.available());
+        assertEquals(15, ring.array()[ring.offsetOf(15)]);
+    }
+
+    @Test
+    public void testCopyToAcrossTheWrap() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        Ramp ramp = new Ramp();
+        while (ring.position() < 13) ring.fill(ramp, 5);
+
+        // Samples 9..12 straddle the end of the array
+        byte[] out = new byte[2 + 8];
+        ring.copyTo(out, 2, 9, 4);
+        for (int i = 0; i < 4; i++) {
+            short s = (short) ((out[2 + 2 * i + 1] << 8) | (out[2 + 2 * i] & 0xFF));
+            assertEquals(9 + i, s);
+        }
+    }
+
+    @Test
+    public void testCopyToRejectsOverwrittenAudio() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        ring.write(new short[12], 0, 12);
+        try {
+            ring.copyTo(new byte[16], 0, 3, 8);
+            fail("samples 3 and older were overwritten");
+        } catch (IllegalArgumentException expected) {
+            // ring holds [4, 12)
+        }
+        ring.copyTo(new byte[16], 0, 4, 8);
+    }
+
+    @Test
+    public void testErrorsAndClear() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        short[] array = ring.array();
+        assertEquals(-3, ring.fill((buffer, offset, length) -> -3, 4)); // AudioRecord.ERROR_INVALID_OPERATION
+        assertEquals(0, ring.position());
+
+        ring.write(new short[] {1, 2, 3}, 0, 3);
+        ring.clear();
+        assertEquals(0, ring.available());
+        assertEquals(0, ring.writeOffset());
+        assertSame(array, ring.array());
+    }
+}
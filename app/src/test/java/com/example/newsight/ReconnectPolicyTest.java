@@ -0,0 +1,93 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReconnectPolicyTest {
+
+    private long now = 0L;
+
+    /** Random that always returns the same fraction, to pin the jitter. */
+    private static Random fixed(double fraction) {
+        return new Random() {
+            @Override
+            public double nextDouble() {
+                return fraction;
+            }
+        };
+    }
+
+    @Test
+    public void testDelayDoublesUpToCap() {
+        ReconnectPolicy p = new ReconnectPolicy(500, 4000, fixed(1.0), () -> now);
+        assertEquals(500, p.nextDelayMs());
+        assertEquals(1000, p.nextDelayMs());
+        assertEquals(2000, p.nextDelayMs());
+        assertEquals(4000, p.nextDelayMs());
+        assertEquals(4000, p.nextDelayMs());
+    }
+
+    @Test
+    public void testJitterStaysInUpperHalf() {
+        // Lowest jitter is half the ceiling, so the backoff still grows
+        ReconnectPolicy low = new ReconnectPolicy(500, 30000, fixed(0.0), () -> now);
+        assertEquals(250, low.nextDelayMs());
+        assertEquals(500, low.nextDelayMs());
+        assertEquals(1000, low.nextDelayMs());
+    }
+
+    @Test
+    public void testManyAttemptsDoNotOverflow() {
+        ReconnectPolicy p = new ReconnectPolicy(500, 30000, new Random(1), () -> now);
+        for (int i = 0; i < 100; i++) {
+            long d = p.nextDelayMs();
+            assertTrue(d >= 0 && d <= 30000);
+        }
+    }
+
+    @Test
+    public void testConnectResetsBackoffAndRecordsTimeToReconnect() {
+        ReconnectPolicy p = new ReconnectPolicy(500, 30000, fixed(1.0), () -> now);
+        now = 1000;
+        p.nextDelayMs();
+        p.nextDelayMs();
+        now = 2500;
+        assertTrue(p.onConnected());
+        assertEquals(1, p.getReconnects());
+        assertEquals(1500, p.getLastTimeToReconnectMs());
+        assertEquals(0, p.getAttempt());
+        assertEquals(500, p.nextDelayMs());
+    }
+
+    @Test
+    public void testFirstConnectIsNotAReconnect() {
+        ReconnectPolicy p = new ReconnectPolicy(500, 30000, fixed(1.0), () -> now);
+        assertFalse(p.onConnected());
+        assertEquals(0, p.getReconnects());
+    }
+
+    @Test
+    public void testOfflineTimeCountsTowardsTimeToReconnect() {
+        ReconnectPolicy p = new ReconnectPolicy(500, 30000, fixed(1.0), () -> now);
+        now = 100;
+        p.onDisconnected();
+        now = 10100;
+        assertTrue(p.onConnected());
+        assertEquals(10000, p.getLastTimeToReconnectMs());
+        assertEquals(10000, p.getAvgTimeToReconnectMs());
+    }
+
+    @Test
+    public void testResetDropsOutageWithoutCounting() {
+        ReconnectPolicy p = new ReconnectPolicy(500, 30000, fixed(1.0), () -> now);
+        p.nextDelayMs();
+        p.reset();
+        assertFalse(p.onConnected());
+        assertEquals(0, p.getReconnects());
+    }
+}
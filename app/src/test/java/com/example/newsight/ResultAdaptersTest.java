@@ -0,0 +1,101 @@
+package com.example.newsight;
+
+import com.example.newsight.models.NavigationUpdate;
+import com.example.newsight.models.NavigationUpdateAdapter;
+import com.example.newsight.models.TextDetectionResult;
+import com.example.newsight.models.TextDetectionResultAdapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResultAdaptersTest {
+
+    @Test
+    public void testNavigationUpdateDecodes() throws Exception {
+        NavigationUpdate update = NavigationUpdateAdapter.INSTANCE.fromJson(
+                "{\"status\":\"navigating\",\"current_step\":2,\"total_steps\":7,"
+                        + "\"instruction\":\"Turn left onto Broad St\",\"distance_to_next\":42.5,"
+                        + "\"should_announce\":true,\"announcement\":\"In 40 meters, turn left\","
+                        + "\"extra\":{\"ignored\":[1,2,3]}}");
+        assertEquals("navigating", update.getStatus());
+        assertEquals(2, update.getCurrentStep());
+        assertEquals(7, update.getTotalSteps());
+        assertEquals("Turn left onto Broad St", update.getInstruction());
+        assertEquals(42.5, update.getDistanceToNext(), 1e-9);
+        assertTrue(update.isShouldAnnounce());
+        assertEquals("In 40 meters, turn left", update.getAnnouncement());
+    }
+
+    @Test
+    public void testNavigationUpdateNullsLeaveDefaults() throws Exception {
+        NavigationUpdate update = NavigationUpdateAdapter.INSTANCE.fromJson(
+                "{\"status\":\"arrived\",\"instruction\":null,\"distance_to_next\":null}");
+        assertEquals("arrived", update.getStatus());
+        assertNull(update.getInstruction());
+        assertEquals(0.0, update.getDistanceToNext(), 0.0);
+    }
+
+    @Test
+    public void testTextPrefersTextString() throws Exception {
+        TextDetectionResult r = TextDetectionResultAdapter.INSTANCE.fromJson(
+                "{\"detections\":[{\"text\":\"EXIT\",\"confidence\":0.9,\"bbox\":[[0,0],[1,1]]}],"
+                        + "\"text_string\":\"  EXIT ONLY \"}");
+        assertEquals("EXIT ONLY", r.getText());
+        assertEquals("text_string", r.getSource());
+    }
+
+    @Test
+    public void testTextFallsBackToConfidentDetections() throws Exception {
+        TextDetectionResult r = TextDetectionResultAdapter.INSTANCE.fromJson(
+                "{\"text_string\":null,\"detections\":["
+                        + "{\"text\":\"PUSH\",\"confidence\":0.8,\"bbox\":[[0,0],[1,1]]},"
+                        + "{\"text\":\"smudge\",\"confidence\":0.2},"
+                        + "{\"text\":\"DOOR\",\"confidence\":0.5}]}");
+        assertEquals("PUSH DOOR", r.getText());
+        assertEquals("detections", r.getSource());
+    }
+
+    @Test
+    public void testTextNullStringIsEmpty() throws Exception {
+        TextDetectionResult r = TextDetectionResultAdapter.INSTANCE.fromJson("{\"stable_text\":\"null\"}");
+        assertTrue(r.isEmpty());
+        assertFalse(TextDetectionResultAdapter.INSTANCE.fromJson("{\"full_text\":\"A\"}").isEmpty());
+        assertTrue(TextDetectionResultAdapter.INSTANCE.fromJson("{}").isEmpty());
+    }
+
+    @Test
+    public void testDetectResponseDecodes() throws Exception {
+        CloudDetectionModels.DetectResponse r = DetectResponseAdapter.INSTANCE.fromJson(
+                "{\"frame_id\":17,\"detections\":[{\"cls\":\"person\",\"confidence\":0.91,"
+                        + "\"bbox\":{\"x_min\":10,\"y_min\":20,\"x_max\":110,\"y_max\":220},"
+                        + "\"distance_m\":null,\"direction\":\"left\"}],"
+                        + "\"summary\":{\"high_priority_warning\":true,\"message\":\"Person ahead\","
+                        + "\"device_id\":\"d1\"},\"timing_ms\":{\"infer\":12.5}}");
+        assertEquals(Integer.valueOf(17), r.frame_id);
+        assertEquals(1, r.detections.size());
+        CloudDetectionModels.BackendDetection d = r.detections.get(0);
+        assertEquals("person", d.cls);
+        assertEquals(0.91f, d.confidence, 1e-6);
+        assertEquals(110f, d.bbox.x_max, 0f);
+        assertNull(d.distance_m);
+        assertEquals("left", d.direction);
+        assertTrue(r.summary.high_priority_warning);
+        assertEquals("Person ahead", r.summary.message);
+    }
+
+    @Test
+    public void testDetectResponseRoundTrips() throws Exception {
+        String json = "{\"frame_id\":3,\"detections\":[{\"cls\":\"car\",\"confidence\":0.5,"
+                + "\"bbox\":{\"x_min\":1.0,\"y_min\":2.0,\"x_max\":3.0,\"y_max\":4.0},\"distance_m\":2.5}]}";
+        CloudDetectionModels.DetectResponse r = DetectResponseAdapter.INSTANCE.fromJson(json);
+        CloudDetectionModels.DetectResponse again =
+                DetectResponseAdapter.INSTANCE.fromJson(DetectResponseAdapter.INSTANCE.toJson(r));
+        assertEquals(r.frame_id, again.frame_id);
+        assertEquals(2.5f, again.detections.get(0).distance_m, 0f);
+        assertEquals(4f, again.detections.get(0).bbox.y_max, 0f);
+    }
+}
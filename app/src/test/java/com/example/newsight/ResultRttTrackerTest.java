@@ -0,0 +1,55 @@
+package com.example.newsight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResultRttTrackerTest {
+
+    @Test
+    public void testResultsArePairedBySequence() {
+        ResultRttTracker tracker = new ResultRttTracker();
+        tracker.onSent(1, 1000);
+        tracker.onSent(2, 1100);
+        tracker.onSent(3, 1200);
+
+        // The backend skipped frames 1 and 2: frame 3's RTT is its own, not frame 1's
+        assertEquals(300, tracker.onResult(3, 1500));
+        assertEquals(0, tracker.size());
+        // Late answers for skipped frames are not paired with anything
+        assertEquals(-1, tracker.onResult(1, 1600));
+    }
+
+    @Test
+    public void testResultsWithoutSequenceOnlyPairWhenUnambiguous() {
+        ResultRttTracker tracker = new ResultRttTracker();
+        tracker.onSent(1, 1000);
+        tracker.onSent(2, 1100);
+        assertEquals(-1, tracker.onResult(-1, 1500));
+
+        tracker.clear();
+        tracker.onSent(3, 2000);
+        assertEquals(250, tracker.onResult(-1, 2250));
+    }
+
+    @Test
+    public void testOnlyRecentFramesAreKept() {
+        ResultRttTracker tracker = new ResultRttTracker();
+        for (int i = 1; i <= ResultRttTracker.MAX_PENDING + 4; i++) {
+            tracker.onSent(i, i * 100L);
+        }
+        assertEquals(ResultRttTracker.MAX_PENDING, tracker.size());
+        assertEquals(-1, tracker.onResult(1, 5000));
+    }
+
+    @Test
+    public void testSequenceIsReadFromTheTopLevelOnly() {
+        assertEquals(42, ResultRttTracker.sequenceOf("{\"type\":\"text\",\"frame_id\":42,\"text\":\"EXIT\"}"));
+        assertEquals(7, ResultRttTracker.sequenceOf(
+                "{\"result\":{\"frame_id\":99,\"faces\":[]},\"frame_id\":7}"));
+        assertEquals(-1, ResultRttTracker.sequenceOf("{\"result\":{\"frame_id\":99}}"));
+        assertEquals(-1, ResultRttTracker.sequenceOf("{\"frame_id\":\"abc\"}"));
+        assertEquals(-1, ResultRttTracker.sequenceOf("not json"));
+        assertEquals(-1, ResultRttTracker.sequenceOf("[1,2]"));
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.newsight;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class SpeechClipCacheTest {
+
+    private static final int BYTE_RATE = 32000;   // 16 kHz mono 16-bit
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private SpeechClipCache cache;
+    private final List<String> added = new ArrayList<>();
+    private final List<String> removed = new ArrayList<>();
+
+    private final SpeechClipCache.Listener listener = new SpeechClipCache.Listener() {
+        @Override
+        public void onClipAdded(SpeechClipCache.Clip clip) {
+            added.add(clip.getKey());
+        }
+
+        @Override
+        public void onClipRemoved(SpeechClipCache.Clip clip) {
+            removed.add(clip.getKey());
+        }
+    };
+
+    @Before
+    public void setUp() {
+        dir = new File(folder.getRoot(), "clips");
+        cache = new SpeechClipCache(dir, SpeechClipCache.MAX_BYTES);
+        cache.load(listener);
+    }
+
+    /** A WAV file with {@code dataBytes} of silence in the given format (1 = PCM). */
+    private static void writeWav(File file, int format, int dataBytes) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes()).putInt(36 + dataBytes).put("WAVE".getBytes());
+        header.put("fmt ".getBytes()).putInt(16).putShort((short) format).putShort((short) 1)
+                .putInt(16000).putInt(BYTE_RATE).putShort((short) 2).putShort((short) 16);
+        header.put("data".getBytes()).putInt(dataBytes);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(header.array());
+            out.write(new byte[dataBytes]);
+        }
+    }
+
+    /** Run one synthesis of the next requested phrase, as the engine would. */
+    private String synthesize(int dataBytes) throws IOException {
+        String text = cache.startNext();
+        assertNotNull(text);
+        writeWav(cache.partialFile(text), 1, dataBytes);
+        cache.onSynthesized(true);
+        return text;
+    }
+
+    @Test
+    public void testWavDuration() throws IOException {
+        File pcm = new File(folder.getRoot(), "pcm.wav");
+        writeWav(pcm, 1, BYTE_RATE * 3 / 2);
+        assertEquals(1500, SpeechClipCache.wavDurationMs(pcm));
+
+        // Float samples and files that are no WAV at all are left to live speech
+        File floats = new File(folder.getRoot(), "float.wav");
+        writeWav(floats, 3, BYTE_RATE);
+        assertEquals(-1, SpeechClipCache.wavDurationMs(floats));
+
+        File garbage = new File(folder.getRoot(), "garbage.wav");
+        try (FileOutputStream out = new FileOutputStream(garbage)) {
+            out.write(new byte[100]);
+        }
+        assertEquals(-1, SpeechClipCache.wavDurationMs(garbage));
+    }
+
+    @Test
+    public void testSynthesizedClipsAreKeptAcrossRestarts() throws IOException {
+        cache.request("person ahead");
+        cache.request("  person ahead ");
+        cache.request(new String(new char[SpeechClipCache.MAX_TEXT_LENGTH + 1]).replace('\0', 'a'));
+        assertTrue(cache.hasWork());
+
+        assertEquals("person ahead", synthesize(BYTE_RATE));
+        assertFalse(cache.hasWork());
+        SpeechClipCache.Clip clip = cache.get("person ahead");
+        assertNotNull(clip);
+        assertEquals(1000, clip.getDurationMs());
+
+        // Cached phrases are not synthesized again
+        cache.request("person ahead");
+        assertFalse(cache.hasWork());
+
+        SpeechClipCache reloaded = new SpeechClipCache(dir, SpeechClipCache.MAX_BYTES);
+        reloaded.load(null);
+        assertEquals(1, reloaded.size());
+        assertNotNull(reloaded.get("person ahead"));
+
+        // A different voice does not match the old clip
+        reloaded.setVoice("en-US|1.5|1.0");
+        assertNull(reloaded.get("person ahead"));
+    }
+
+    @Test
+    public void testInterruptedSynthesisIsRetriedAndFailuresGiveUp() {
+        cache.request("car on your left");
+        assertEquals("car on your left", cache.startNext());
+        String firstId = cache.synthesisId();
+        assertNotNull(firstId);
+        assertNull(cache.startNext());
+
+        // Flushed by live speech: back in line, under a new id
+        cache.onInterrupted();
+        assertTrue(cache.hasWork());
+        assertEquals("car on your left", cache.startNext());
+        assertNotEquals(firstId, cache.synthesisId());
+
+        // No usable file twice: the phrase stays with live speech
+        cache.onSynthesized(true);
+        cache.request("car on your left");
+        assertEquals("car on your left", cache.startNext());
+        cache.onSynthesized(false);
+        cache.request("car on your left");
+        assertFalse(cache.hasWork());
+        assertNull(cache.synthesisId());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedClipsAreEvicted() throws IOException {
+        long clipBytes = 44 + BYTE_RATE;
+        cache = new SpeechClipCache(dir, clipBytes * 3);
+        cache.load(listener);
+
+        for (String text : new String[] {"one", "two", "three"}) {
+            cache.request(text);
+            synthesize(BYTE_RATE);
+        }
+        assertEquals(3, cache.size());
+        assertEquals(clipBytes * 3, cache.totalBytes());
+
+        // "one" is played again, so "two" is now the least recently used
+        String twoKey = added.get(1);
+        assertNotNull(cache.get("one"));
+        cache.request("four");
+        synthesize(BYTE_RATE);
+
+        assertEquals(3, cache.size());
+        assertEquals(clipBytes * 3, cache.totalBytes());
+        assertNull(cache.get("two"));
+        assertNotNull(cache.get("one"));
+        assertEquals(1, removed.size());
+        assertEquals(twoKey, removed.get(0));
+        assertFalse(new File(dir, twoKey + ".wav").exists());
+    }
+
+    @Test
+    public void testPinnedPromptsAreNotEvicted() throws IOException {
+        // Clips well over their estimate, so the minimum bound is what counts
+        long clipBytes = 44 + 4 * BYTE_RATE;
+        cache = new SpeechClipCache(dir, clipBytes * 2);
+        cache.load(listener);
+
+        cache.request("hello", true);
+        synthesize(4 * BYTE_RATE);
+        for (String text : new String[] {"one", "two", "three"}) {
+            cache.request(text);
+            synthesize(4 * BYTE_RATE);
+        }
+
+        // The pinned prompt is the least recently used, but the unpinned clips make room
+        assertNotNull(cache.get("hello"));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("three"));
+        assertNull(cache.get("one"));
+    }
+
+    @Test
+    public void testBoundGrowsWithTheRequestedSet() {
+        cache = new SpeechClipCache(dir, 1000);
+        assertEquals(1000, cache.maxBytes());
+
+        cache.request("motorcycle approaching on your right");
+        cache.request("motorcycle approaching on your right");
+        long phrase = SpeechClipCache.estimatedBytes("motorcycle approaching on your right");
+        assertEquals(phrase, cache.maxBytes());
+
+        for (int i = 0; i < 1000; i++) cache.request("In " + i + " meters, turn right");
+        assertEquals(SpeechClipCache.MAX_BYTES, cache.maxBytes());
+    }
+
+    @Test
+    public void testNothingIsSynthesizedBeforeTheCacheIsLoaded() {
+        SpeechClipCache fresh = new SpeechClipCache(dir, SpeechClipCache.MAX_BYTES);
+        fresh.request("person ahead");
+        assertFalse(fresh.hasWork());
+        assertNull(fresh.startNext());
+
+        fresh.load(null);
+        assertTrue(fresh.hasWork());
+        assertEquals("person ahead", fresh.startNext());
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.newsight;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpeechSchedulerTest {
+
+    private static final SpeechScheduler.Priority SAFETY = SpeechScheduler.Priority.SAFETY;
+    private static final SpeechScheduler.Priority NAVIGATION = SpeechScheduler.Priority.NAVIGATION;
+    private static final SpeechScheduler.Priority INFORMATIONAL = SpeechScheduler.Priority.INFORMATIONAL;
+
+    /** Records what the scheduler hands to the engine. */
+    private static class FakeEngine implements SpeechScheduler.Engine {
+        final List<String> spoken = new ArrayList<>();
+        String currentId;
+        int stops = 0;
+
+        @Override
+        public void speak(String text, String utteranceId) {
+            spoken.add(text);
+            currentId = utteranceId;
+        }
+
+        @Override
+        public void stop() {
+            stops++;
+            currentId = null;
+        }
+    }
+
+    private FakeEngine engine;
+    private SpeechScheduler scheduler;
+    private final Object owner = new Object();
+
+    @Before
+    public void setUp() {
+        engine = new FakeEngine();
+        scheduler = new SpeechScheduler(engine);
+    }
+
+    private void speak(String text, SpeechScheduler.Priority priority, long nowMs) {
+        scheduler.speak(text, priority, null, owner, null, nowMs);
+    }
+
+    private void finish(long nowMs) {
+        scheduler.onUtteranceEnd(engine.currentId, false, nowMs);
+    }
+
+    private String last() {
+        return engine.spoken.get(engine.spoken.size() - 1);
+    }
+
+    @Test
+    public void testSafetyInterruptsReadingWhichResumesAfterwards() {
+        speak("Chapter one. It was a dark and stormy night", INFORMATIONAL, 0);
+        speak("car approaching on your left", SAFETY, 100);
+        assertEquals("car approaching on your left", last());
+
+        finish(1500);
+        assertEquals("Chapter one. It was a dark and stormy night", last());
+        assertEquals(3, engine.spoken.size());
+    }
+
+    @Test
+    public void testEqualOrLowerPriorityWaitsMostUrgentFirst() {
+        speak("person ahead", SAFETY, 0);
+        speak("Menu", INFORMATIONAL, 10);
+        speak("Turn left in 50 meters", NAVIGATION, 20);
+        speak("car ahead", SAFETY, 30);
+        assertEquals(1, engine.spoken.size());
+
+        finish(1000);
+        assertEquals("car ahead", last());
+        finish(2000);
+        assertEquals("Turn left in 50 meters", last());
+        finish(3000);
+        assertEquals("Menu", last());
+    }
+
+    @Test
+    public void testRapidUpdatesAreCoalesced() {
+        scheduler.speak("In 100 meters, turn right", NAVIGATION, "update", owner, null, 0);
+        // Supersedes the update being spoken
+        scheduler.speak("In 80 meters, turn right", NAVIGATION, "update", owner, null, 500);
+        assertEquals("In 80 meters, turn right", last());
+
+        speak("person ahead", SAFETY, 600);
+        scheduler.speak("In 60 meters, turn right", NAVIGATION, "update", owner, null, 700);
+        scheduler.speak("In 40 meters, turn right", NAVIGATION, "update", owner, null, 900);
+        finish(1200);
+        assertEquals("In 40 meters, turn right", last());
+        finish(2500);
+        assertEquals(4, engine.spoken.size());
+    }
+
+    @Test
+    public void testRepeatsAndStaleRequestsAreDropped() {
+        speak("person ahead", SAFETY, 0);
+        speak("person ahead", SAFETY, 200);
+        finish(1000);
+        speak("person ahead", SAFETY, 2000);
+        assertEquals(1, engine.spoken.size());
+
+        // Outside the window it is new information again
+        speak("person ahead", SAFETY, SpeechScheduler.DEDUP_WINDOW_MS[SAFETY.ordinal()] + 1);
+        assertEquals(2, engine.spoken.size());
+
+        // A warning that waited too long behind a long announcement is no longer worth saying
+        speak("In 100 meters, turn right", NAVIGATION, 10_000);
+        speak("car on your right", SAFETY, 10_000);
+        finish(10_000 + SpeechScheduler.MAX_WAIT_MS[SAFETY.ordinal()] + 1);
+        assertEquals("In 100 meters, turn right", last());
+    }
+
+    @Test
+    public void testCancelOnlyAffectsItsOwner() {
+        Object reader = new Object();
+        scheduler.speak("Some long text", INFORMATIONAL, "read_text", reader, null, 0);
+        speak("Menu", INFORMATIONAL, 10);
+        assertTrue(scheduler.isSpeaking(reader));
+
+        scheduler.cancel(reader, true, 20);
+        assertFalse(scheduler.isSpeaking(reader));
+        assertEquals(1, engine.stops);
+        assertEquals("Menu", last());
+
+        scheduler.speak("More text", INFORMATIONAL, "read_text", reader, null, 30);
+        scheduler.cancel(owner, false, 40);
+        // The message already being spoken finishes
+        assertTrue(scheduler.isSpeaking(owner));
+        finish(1000);
+        assertEquals("More text", last());
+    }
+
+    @Test
+    public void testCallbacksFollowTheSpokenUtterance() {
+        final List<String> events = new ArrayList<>();
+        SpeechScheduler.Callback callback = new SpeechScheduler.Callback() {
+            @Override public void onStart() { events.add("start"); }
+            @Override public void onDone() { events.add("done"); }
+            @Override public void onError() { events.add("error"); }
+        };
+        scheduler.speak("Hello", INFORMATIONAL, null, owner, callback, 0);
+        String first = engine.currentId;
+        scheduler.onUtteranceStart(first);
+        speak("person ahead", SAFETY, 100);
+        // Late events for the interrupted run are ignored
+        scheduler.onUtteranceEnd(first, false, 150);
+        finish(1000);
+        scheduler.onUtteranceStart(engine.currentId);
+        finish(2000);
+
+        assertEquals(3, events.size());
+        assertEquals("start", events.get(0));
+        assertEquals("start", events.get(1));
+        assertEquals("done", events.get(2));
+    }
+
+    @Test
+    public void testInterruptedUtteranceWaitsAfresh() {
+        speak("In 100 meters, turn right", NAVIGATION, 0);
+        speak("car approaching on your left", SAFETY, SpeechScheduler.MAX_WAIT_MS[NAVIGATION.ordinal()] - 1000);
+        // Requested long ago, but it was being spoken until the warning cut in
+        finish(SpeechScheduler.MAX_WAIT_MS[NAVIGATION.ordinal()] + 2000);
+        assertEquals("In 100 meters, turn right", last());
+        assertEquals(3, engine.spoken.size());
+    }
+
+    @Test
+    public void testDroppedUtterancesReportAnError() {
+        final List<String> errors = new ArrayList<>();
+        speak("person ahead", SAFETY, 0);
+        scheduler.speak("person ahead", SAFETY, null, owner, failure(errors, "repeated"), 100);
+        scheduler.speak("car on your right", SAFETY, null, owner, failure(errors, "stale"), 200);
+        // The caller's own cancel() is no error
+        Object reader = new Object();
+        scheduler.speak("Some long text", INFORMATIONAL, null, reader, failure(errors, "cancelled"), 300);
+        scheduler.cancel(reader, false, 400);
+        assertEquals(1, errors.size());
+
+        finish(200 + SpeechScheduler.MAX_WAIT_MS[SAFETY.ordinal()] + 1);
+        assertEquals(2, errors.size());
+        assertEquals("repeated", errors.get(0));
+        assertEquals("stale", errors.get(1));
+        assertEquals(1, engine.spoken.size());
+    }
+
+    private static SpeechScheduler.Callback failure(final List<String> errors, final String name) {
+        return new SpeechScheduler.Callback() {
+            @Override public void onStart() {}
+            @Override public void onDone() {}
+            @Override public void onError() { errors.add(name); }
+        };
+    }
+}
@@ -13,6 +13,8 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -63,7 +65,7 @@ public class TextDetectionTest {
         
         analyzer.analyze(mockImageProxy);
         
-        verify(mockWsManager, never()).sendFrame(any(), anyString());
+        verify(mockWsManager, never()).sendFrame(any(), anyString(), anyInt(), anyInt(), anyLong());
         verify(mockImageProxy).close();
     }
 
@@ -74,7 +76,7 @@ public class TextDetectionTest {
         
         analyzer.analyze(mockImageProxy);
         
-        verify(mockWsManager, never()).sendFrame(any(), anyString());
+        verify(mockWsManager, never()).sendFrame(any(), anyString(), anyInt(), anyInt(), anyLong());
        verify(mockImageProxy).close();
     }
 
@@ -85,7 +87,7 @@ public class TextDetectionTest {
         
         analyzer.analyze(mockImageProxy);
         
-        verify(mockWsManager).sendFrame(any(), anyString());
+        verify(mockWsManager).sendFrame(any(), anyString(), anyInt(), anyInt(), anyLong());
         verify(mockImageProxy).close();
     }
 }
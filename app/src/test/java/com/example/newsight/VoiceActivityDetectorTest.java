@@ -0,0 +1,127 @@
+package com.example.newsight;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VoiceActivityDetectorTest {
+
+    private static final int RATE = 16000;
+    private static final int CHUNK = 320; // 20ms reads
+
+    private VoiceActivityDetector vad;
+    private Random random;
+    private long t = 0; // samples fed so far
+
+    @Before
+    public void setUp() {
+        vad = new VoiceActivityDetector();
+        random = new Random(42);
+    }
+
+    /** Noise only, at {@code noiseRms}; returns true if speech was reported at any point. */
+    private boolean feedNoise(int ms, double noiseRms) {
+        return feed(ms, noiseRms, 0);
+    }
+
+    /**
+     * A vowel-like voice (140Hz harmonics up to 3.5kHz, 4Hz syllable envelope) at
+     * {@code voiceRms} over noise at {@code noiseRms}.
+     * @return true if speech was reported at any point
+     */
+    private boolean feed(int ms, double noiseRms, double voiceRms) {
+        short[] chunk = new short[CHUNK];
+        boolean any = false;
+        for (int done = 0; done < ms * RATE / 1000; done += CHUNK) {
+            for (int i = 0; i < CHUNK; i++, t++) {
+                double s = noiseRms * random.nextGaussian();
+                if (voiceRms > 0) {
+                    double envelope = 0.6 + 0.4 * Math.sin(2 * Math.PI * 4 * t / RATE);
+                    double voice = 0;
+                    for (int h = 1; 140 * h < 3500; h++) {
+                        voice += Math.sin(2 * Math.PI * 140 * h * t / RATE) / h;
+                    }
+                    s += voiceRms * envelope * voice;
+                }
+                chunk[i] = (short) Math.max(-32768, Math.min(32767, s));
+            }
+            any |= vad.accept(chunk, 0, CHUNK);
+        }
+        return any;
+    }
+
+    @Test
+    public void testQuietRoomEndOfSpeechWithinHalfASecond() {
+        assertFalse(feedNoise(1000, 30));
+        feed(1500, 30, 1500);
+        assertTrue(vad.isSpeaking());
+
+        feedNoise(300, 30);
+        assertTrue("hangover keeps short pauses inside the utterance", vad.isSpeaking());
+        feedNoise(200, 30);
+        assertTrue(vad.isEndOfUtterance());
+    }
+
+    @Test
+    public void testBusyStreetStillEndsTheUtterance() {
+        // Loud enough that the old fixed 1500 RMS threshold never saw silence
+        assertFalse(feedNoise(2000, 2500));
+        feed(1500, 2500, 9000);
+        assertTrue(vad.isSpeaking());
+
+        feedNoise(500, 2500);
+        assertTrue(vad.isEndOfUtterance());
+        assertFalse(feedNoise(3000, 2500));
+    }
+
+    @Test
+    public void testNoiseFloorFollowsALouderBackground() {
+        feedNoise(1000, 30);
+        feedNoise(2500, 1000);
+        // After the floor has caught up, the louder background alone is not speech
+        assertFalse(feedNoise(3000, 1000));
+        assertFalse(vad.isEndOfUtterance());
+        assertTrue(vad.getNoiseFloorDb() > 50);
+    }
+
+    @Test
+    public void testResetForgetsTheUtterance() {
+        feedNoise(500, 30);
+        feed(1000, 30, 1500);
+        feedNoise(600, 30);
+        assertTrue(vad.isEndOfUtterance());
+
+        vad.reset();
+        assertFalse(vad.isEndOfUtterance());
+        assertFalse(vad.isSpeaking());
+    }
+
+    @Test
+    public void testPromptIsNotTakenForTheUser() {
+        // The greeting is already playing when the recording starts
+        vad.setPromptPlaying(true);
+        vad.reset();
+        assertFalse(feed(1500, 30, 1500));
+        vad.setPromptPlaying(false);
+
+        assertFalse(feedNoise(500, 30));
+        assertFalse(vad.isEndOfUtterance());
+
+        feed(1000, 30, 1500);
+        assertTrue(vad.isSpeaking());
+        feedNoise(500, 30);
+        assertTrue(vad.isEndOfUtterance());
+    }
+
+    @Test
+    public void testPromptWithoutAReportedEndStopsHoldingBack() {
+        vad.setPromptPlaying(true);
+        feedNoise(VoiceActivityDetector.MAX_PROMPT_FRAMES * 10, 30);
+        feed(1000, 30, 1500);
+        assertTrue(vad.isSpeaking());
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.newsight;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class VoiceStreamTest {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int CHUNK_BYTES = SAMPLE_RATE * 2 * VoiceStream.CHUNK_MS / 1000;
+
+    private FakeSocket socket;
+    private WebSocketListener socketListener;
+    private OkHttpClient client;
+
+    private final List<String> results = new ArrayList<>();
+    private int unavailable = 0;
+
+    private final VoiceStream.Listener listener = new VoiceStream.Listener() {
+        @Override
+        public void onResult(String json) {
+            results.add(json);
+        }
+
+        @Override
+        public void onUnavailable() {
+            unavailable++;
+        }
+    };
+
+    /** Records what VoiceStream sends instead of opening a socket. */
+    private static class FakeSocket implements WebSocket {
+        final List<String> texts = new ArrayList<>();
+        final List<ByteString> chunks = new ArrayList<>();
+
+        @Override public boolean send(String text) { texts.add(text); return true; }
+        @Override public boolean send(ByteString bytes) { chunks.add(bytes); return true; }
+        @Override public boolean close(int code, String reason) { return true; }
+        @Override public void cancel() {}
+        @Override public long queueSize() { return 0; }
+        @Override public Request request() { return null; }
+    }
+
+    @Before
+    public void setUp() {
+        VoiceStream.resetSupport();
+        socket = new FakeSocket();
+        client = new OkHttpClient() {
+            @Override
+            public WebSocket newWebSocket(Request request, WebSocketListener l) {
+                socketListener = l;
+                return socket;
+            }
+        };
+    }
+
+    private VoiceStream open() {
+        return VoiceStream.open(client, "wss://example.com/voice/stream", "s1", SAMPLE_RATE, listener);
+    }
+
+    @Test
+    public void testAudioIsBatchedIntoChunks() {
+        VoiceStream stream = open();
+        assertTrue(socket.texts.get(0).contains("\"type\":\"start\""));
+        assertTrue(socket.texts.get(0).contains("\"sample_rate\":16000"));
+
+        short[] read = new short[640];
+        for (int i = 0; i < 3; i++) stream.write(read, 0, read.length);
+        assertEquals(1, socket.chunks.size());
+        assertEquals(CHUNK_BYTES, socket.chunks.get(0).size());
+
+        stream.finish();
+        assertEquals(2, socket.chunks.size());
+        assertEquals(3 * 1280 - CHUNK_BYTES, socket.chunks.get(1).size());
+        assertEquals("{\"type\":\"end\"}", socket.texts.get(socket.texts.size() - 1));
+    }
+
+    @Test
+    public void testSamplesAreSentLittleEndian() {
+        VoiceStream stream = open();
+        short[] ring = new short[CHUNK_BYTES];
+        ring[10] = 0x1234;
+        ring[11] = -2;
+        // A chunk's worth of samples starting mid-array, as read out of a PcmRingBuffer
+        stream.write(ring, 10, CHUNK_BYTES / 2);
+        assertEquals(1, socket.chunks.size());
+        byte[] sent = socket.chunks.get(0).toByteArray();
+        assertEquals(0x34, sent[0]);
+        assertEquals(0x12, sent[1]);
+        assertEquals((byte) 0xFE, sent[2]);
+        assertEquals((byte) 0xFF, sent[3]);
+    }
+
+    @Test
+    public void testPartialsAreSkippedAndResultDeliveredOnce() {
+        VoiceStream stream = open();
+        stream.finish();
+        socketListener.onMessage(socket, "{\"type\":\"partial\",\"text\":\"take me\"}");
+        assertTrue(results.isEmpty());
+
+        String response = "{\"confidence\":0.9,\"extracted_params\":{\"feature\":\"NAVIGATION\"}}";
+        socketListener.onMessage(socket, response);
+        socketListener.onClosing(socket, 1000, "");
+        assertEquals(1, results.size());
+        assertEquals(response, results.get(0));
+        assertEquals(0, unavailable);
+    }
+
+    @Test
+    public void testOnlyTheTopLevelTypeCounts() {
+        VoiceStream stream = open();
+        stream.finish();
+        // A transit leg's own "type" is part of the result, not a stream error
+        String response = "{\"extracted_params\":{\"transit_info\":{\"alerts\":"
+                + "[{\"type\":\"error\",\"message\":\"Line closed\"}]}},\"confidence\":0.8}";
+        socketListener.onMessage(socket, response);
+        assertEquals(1, results.size());
+        assertEquals(0, unavailable);
+
+        assertEquals("partial", VoiceStream.typeOf("{\"text\":\"take\",\"type\":\"partial\"}"));
+        assertEquals("", VoiceStream.typeOf("not json"));
+    }
+
+    @Test
+    public void testDropBeforeResultFallsBack() {
+        VoiceStream stream = open();
+        stream.write(new short[CHUNK_BYTES / 2], 0, CHUNK_BYTES / 2);
+        socketListener.onFailure(socket, new java.io.IOException("reset"), null);
+        assertEquals(1, unavailable);
+
+        // Later audio is dropped; the caller uploads its own copy
+        stream.write(new short[CHUNK_BYTES / 2], 0, CHUNK_BYTES / 2);
+        stream.finish();
+        assertEquals(1, socket.chunks.size());
+        assertEquals(1, unavailable);
+    }
+
+    @Test
+    public void testRefusedUpgradeIsRemembered() {
+        open();
+        Response refused = new Response.Builder()
+                .request(new Request.Builder().url("https://example.com/voice/stream").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(404)
+                .message("Not Found")
+                .build();
+        socketListener.onFailure(socket, new java.net.ProtocolException("Expected HTTP 101"), refused);
+        assertEquals(1, unavailable);
+        assertFalse(VoiceStream.isSupported());
+    }
+
+    @Test
+    public void testOtherRefusalsAreRetriedNextTime() {
+        open();
+        Response unavailableNow = new Response.Builder()
+                .request(new Request.Builder().url("https://example.com/voice/stream").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(503)
+                .message("Service Unavailable")
+                .build();
+        socketListener.onFailure(socket, new java.net.ProtocolException("Expected HTTP 101"), unavailableNow);
+        assertEquals(1, unavailable);
+        assertTrue(VoiceStream.isSupported());
+    }
+}
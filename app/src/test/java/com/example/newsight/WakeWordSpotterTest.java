@@ -0,0 +1,103 @@
+package com.example.newsight;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WakeWordSpotterTest {
+
+    private static final int FRAMES = 20;
+    private static final int MELS = 8;
+
+    private FakeModel model;
+    private WakeWordSpotter spotter;
+
+    /** Returns whatever score the test sets, and counts inferences. */
+    private static class FakeModel implements WakeWordSpotter.KeywordModel {
+        float score = 0f;
+        int calls = 0;
+        int lastWindowLength = 0;
+
+        @Override public int getFrames() { return FRAMES; }
+        @Override public int getMelBins() { return MELS; }
+        @Override public void close() {}
+
+        @Override
+        public float score(float[][] features) {
+            calls++;
+            lastWindowLength = features.length;
+            return score;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        model = new FakeModel();
+        spotter = new WakeWordSpotter(model, 0.8f);
+    }
+
+    /** 16-bit PCM that yields exactly {@code frames} more feature frames once the first window is in. */
+    private static short[] frames(int frames) {
+        short[] pcm = new short[frames * LogMelSpectrogram.HOP];
+        for (int i = 0; i < pcm.length; i++) {
+            pcm[i] = (short) (1000 * Math.sin(i * 0.3));
+        }
+        return pcm;
+    }
+
+    private boolean feed(int frames) {
+        short[] pcm = frames(frames);
+        return spotter.accept(pcm, 0, pcm.length);
+    }
+
+    /** The first frame needs a full WINDOW of samples; every later one a HOP. */
+    private void primeFirstWindow() {
+        short[] lead = new short[LogMelSpectrogram.WINDOW - LogMelSpectrogram.HOP];
+        spotter.accept(lead, 0, lead.length);
+    }
+
+    private void fillWindow() {
+        primeFirstWindow();
+        feed(FRAMES);
+    }
+
+    @Test
+    public void testScoresOnlyOnceWindowIsFullThenEveryHop() {
+        primeFirstWindow();
+        feed(FRAMES - 1);
+        assertEquals(0, model.calls);
+        feed(1);
+        assertEquals(1, model.calls);
+        assertEquals(FRAMES, model.lastWindowLength);
+        feed(WakeWordSpotter.INFERENCE_HOP_FRAMES * 3);
+        assertEquals(4, model.calls);
+    }
+
+    @Test
+    public void testSingleHighScoreDoesNotTrigger() {
+        fillWindow();
+        model.score = 0.99f;
+        assertFalse(feed(WakeWordSpotter.INFERENCE_HOP_FRAMES));
+        model.score = 0f;
+        assertFalse(feed(WakeWordSpotter.INFERENCE_HOP_FRAMES * 5));
+    }
+
+    @Test
+    public void testSustainedScoreTriggersOnceThenRefractory() {
+        fillWindow();
+        model.score = 0.95f;
+        boolean triggered = false;
+        for (int i = 0; i < WakeWordSpotter.SMOOTHING + 1 && !triggered; i++) {
+            triggered = feed(WakeWordSpotter.INFERENCE_HOP_FRAMES);
+        }
+        assertTrue(triggered);
+        assertTrue(spotter.getLastScore() >= 0.8f);
+
+        // Still saying it: no second trigger inside the refractory period
+        assertFalse(feed(WakeWordSpotter.REFRACTORY_FRAMES - WakeWordSpotter.INFERENCE_HOP_FRAMES));
+        assertTrue(feed(WakeWordSpotter.INFERENCE_HOP_FRAMES * (WakeWordSpotter.SMOOTHING + 1)));
+    }
+}